@@ -0,0 +1,408 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.carga;
+
+import com.testchallenge.client.IOyenteSesion;
+import com.testchallenge.client.SesionCliente;
+import com.testchallenge.client.TestChallengeClientThread;
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Nivel;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Ranking;
+import com.testchallenge.model.Respuesta;
+import com.testchallenge.model.TipoPregunta;
+import com.testchallenge.server.TestChallengeServer;
+import com.testchallenge.server.TestServer;
+import com.testchallenge.server.log.ManejadorAsincrono;
+import com.testchallenge.server.metricas.HistogramaLatencias;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark de extremo a extremo del camino de difusión del servidor, en local.
+ *
+ * Para cada combinación de número de clientes y tamaño de los datos multimedia de las preguntas, arranca en el mismo
+ * proceso un <code>TestChallengeServer</code> sobre un directorio de preguntas sintéticas, conecta K sesiones sin
+ * interfaz gráfica por loopback y mide:
+ * <ul>
+ * <li><code>registro</code>: coste del registro de cada sesión (conexión, nickname y estado inicial).</li>
+ * <li><code>chat_cliente</code> y <code>chat_ultimo</code>: tiempo desde el envío de un mensaje de chat hasta que lo
+ * recibe cada uno de los demás clientes y hasta que lo recibe el último.</li>
+ * <li><code>difusion_cliente</code> y <code>difusion_ultimo</code>: tiempo desde que el servidor empieza a enviar una
+ * pregunta (<code>TestServer.getInstanteEnvioPreguntaNanos</code>) hasta que la recibe cada cliente y hasta que la
+ * recibe el último.</li>
+ * </ul>
+ *
+ * Servidor y clientes comparten el reloj, por lo que las medidas no necesitan estimar desfases. Los resultados se
+ * escriben en CSV (una fila por combinación y métrica, en microsegundos) para comparar versiones.
+ *
+ * Los parámetros tienen la forma <code>clave=valor</code>: <code>clientes</code> (1,10,50) y
+ * <code>bytesMultimedia</code> (0,65536,1048576) son las listas que se barren; <code>preguntas</code> (10) y
+ * <code>mensajesChat</code> (20), el número de muestras de cada combinación; <code>etiqueta</code> identifica la
+ * versión medida en el CSV; <code>salida</code>, el fichero CSV (por defecto, la salida estándar); y <code>registro</code>
+ * (false), si se mantienen las trazas del servidor (tienen un coste apreciable en el camino de difusión).
+ *
+ * @author japrada
+ */
+public class BenchmarkDifusion {
+
+    // Temática de las preguntas sintéticas
+    private static final String TEMATICA = "Difusion";
+    // Prefijo de los mensajes de chat del benchmark
+    private static final String MARCA_CHAT = "difusion-chat-";
+    // Cabecera del CSV
+    private static final String CABECERA
+            = "etiqueta,clientes,bytes_multimedia,metrica,muestras,media_us,p50_us,p90_us,p99_us,p999_us,max_us";
+    // Tiempo máximo de espera del registro, de cada mensaje de chat y del test (además de la cuenta atrás inicial)
+    private static final long ESPERA_SEGUNDOS = 30;
+
+    private final int[] clientes;
+    private final int[] bytesMultimedia;
+    private final int preguntas;
+    private final int mensajesChat;
+    private final String etiqueta;
+
+    // Servidor de la combinación en curso
+    private volatile TestChallengeServer servidor;
+    // Histogramas de la combinación en curso
+    private HistogramaLatencias registro;
+    private HistogramaLatencias chatCliente;
+    private HistogramaLatencias chatUltimo;
+    private HistogramaLatencias difusionCliente;
+    private HistogramaLatencias difusionUltimo;
+    // Inicio del envío de cada pregunta (por número de orden) y última recepción de cada una
+    private final Map<Integer, Long> instantesEnvio = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAccumulator> ultimasRecepciones = new ConcurrentHashMap<>();
+    // Mensaje de chat en curso: número, instante de envío, última recepción y recepciones pendientes
+    private volatile int mensajeChat;
+    private volatile long instanteEnvioChat;
+    private volatile LongAccumulator ultimaRecepcionChat;
+    private volatile CountDownLatch recepcionesChat;
+    // Fin del test de la combinación en curso
+    private volatile CountDownLatch finTest;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(BenchmarkDifusion.class.getName());
+
+    public static void main(String[] args) throws Exception {
+        Properties parametros = new Properties();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException(String.format("Argumento '%s' no válido (clave=valor)", arg));
+            }
+            parametros.setProperty(arg.substring(0, separador).trim(), arg.substring(separador + 1).trim());
+        }
+
+        if (!Boolean.parseBoolean(parametros.getProperty("registro", "false"))) {
+            // Sólo se mantienen las trazas de progreso del propio benchmark
+            Logger.getLogger("").setLevel(Level.WARNING);
+            logger.setLevel(Level.INFO);
+        }
+        Logger.getLogger(TestChallengeClientThread.class.getName()).setLevel(Level.OFF);
+        // El servidor se ejecuta con el mismo log asíncrono que en producción
+        ManejadorAsincrono.instalar();
+
+        BenchmarkDifusion benchmark = new BenchmarkDifusion(
+                enteros(parametros.getProperty("clientes", "1,10,50")),
+                enteros(parametros.getProperty("bytesMultimedia", "0,65536,1048576")),
+                Integer.parseInt(parametros.getProperty("preguntas", "10")),
+                Integer.parseInt(parametros.getProperty("mensajesChat", "20")),
+                parametros.getProperty("etiqueta", ""));
+
+        String salida = parametros.getProperty("salida");
+        try (PrintStream csv = salida == null
+                ? new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8)
+                : new PrintStream(new FileOutputStream(salida), true, StandardCharsets.UTF_8)) {
+            benchmark.ejecutar(csv);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param clientes números de clientes que se barren.
+     * @param bytesMultimedia tamaños de los datos multimedia de las preguntas que se barren.
+     * @param preguntas número de preguntas del test de cada combinación.
+     * @param mensajesChat número de mensajes de chat de cada combinación.
+     * @param etiqueta etiqueta de la versión medida (se incluye en cada fila del CSV).
+     */
+    public BenchmarkDifusion(int[] clientes, int[] bytesMultimedia, int preguntas, int mensajesChat, String etiqueta) {
+        this.clientes = clientes;
+        this.bytesMultimedia = bytesMultimedia;
+        this.preguntas = preguntas;
+        this.mensajesChat = mensajesChat;
+        this.etiqueta = etiqueta;
+    }
+
+    /**
+     * Ejecuta todas las combinaciones y escribe los resultados en CSV.
+     *
+     * @param csv stream en el que se escriben los resultados.
+     * @throws IOException excepción al crear las preguntas o al conectar los clientes.
+     * @throws ClassNotFoundException mensaje del servidor no reconocido durante el registro.
+     * @throws InterruptedException si se interrumpe la espera de los mensajes.
+     */
+    public void ejecutar(PrintStream csv) throws IOException, ClassNotFoundException, InterruptedException {
+        csv.println(CABECERA);
+        for (int bytes : bytesMultimedia) {
+            File directorio = Files.createTempDirectory("benchmark-difusion").toFile();
+            try {
+                crearPreguntas(new File(directorio, "preguntas"), bytes);
+                for (int k : clientes) {
+                    logger.info(String.format("'%s': %d clientes, %d bytes multimedia ...",
+                            BenchmarkDifusion.class.getSimpleName(), k, bytes));
+                    medir(directorio, k);
+                    for (HistogramaLatencias histograma : new HistogramaLatencias[]{
+                        registro, chatCliente, chatUltimo, difusionCliente, difusionUltimo}) {
+                        csv.println(fila(k, bytes, histograma));
+                    }
+                }
+            } finally {
+                borrar(directorio);
+            }
+        }
+    }
+
+    /**
+     * Mide una combinación: arranca un servidor, registra los clientes, envía los mensajes de chat y ejecuta un test.
+     *
+     * @param directorio directorio con las preguntas (y en el que se crea el histórico del servidor).
+     * @param numeroClientes número de clientes.
+     * @throws IOException excepción al conectar los clientes.
+     * @throws ClassNotFoundException mensaje del servidor no reconocido durante el registro.
+     * @throws InterruptedException si se interrumpe la espera de los mensajes.
+     */
+    private void medir(File directorio, int numeroClientes)
+            throws IOException, ClassNotFoundException, InterruptedException {
+        registro = new HistogramaLatencias("registro");
+        chatCliente = new HistogramaLatencias("chat_cliente");
+        chatUltimo = new HistogramaLatencias("chat_ultimo");
+        difusionCliente = new HistogramaLatencias("difusion_cliente");
+        difusionUltimo = new HistogramaLatencias("difusion_ultimo");
+        instantesEnvio.clear();
+        ultimasRecepciones.clear();
+        finTest = new CountDownLatch(1);
+
+        int puerto;
+        try (ServerSocket libre = new ServerSocket(0)) {
+            puerto = libre.getLocalPort();
+        }
+        servidor = new TestChallengeServer(puerto, new File(directorio, "preguntas").getPath(),
+                new File(directorio, "historico-" + puerto).getPath());
+        servidor.setDaemon(true);
+        servidor.start();
+
+        List<SesionCliente> sesiones = new ArrayList<>();
+        try {
+            // Registro
+            for (int i = 0; i < numeroClientes; i++) {
+                long inicio = System.nanoTime();
+                SesionCliente sesion = conectar(puerto, i == 0);
+                if (!sesion.registrar("r" + i)) {
+                    throw new IOException(String.format("No se ha podido registrar 'r%d'", i));
+                }
+                sesion.iniciar(new Receptor(sesion, i == 0));
+                registro.registrar(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio));
+                sesiones.add(sesion);
+            }
+
+            // Chat: el primer cliente envía y los demás reciben
+            if (numeroClientes > 1) {
+                for (int n = 1; n <= mensajesChat; n++) {
+                    ultimaRecepcionChat = new LongAccumulator(Math::max, 0);
+                    recepcionesChat = new CountDownLatch(numeroClientes - 1);
+                    mensajeChat = n;
+                    instanteEnvioChat = System.nanoTime();
+                    sesiones.get(0).enviarChat(MARCA_CHAT + n);
+                    if (!recepcionesChat.await(ESPERA_SEGUNDOS, TimeUnit.SECONDS)) {
+                        throw new IOException(String.format("El mensaje de chat %d no ha llegado a todos", n));
+                    }
+                    chatUltimo.registrar(TimeUnit.NANOSECONDS.toMicros(ultimaRecepcionChat.get() - instanteEnvioChat));
+                }
+            }
+
+            // Test: cada cliente responde al recibir la pregunta, por lo que el servidor pasa enseguida a la siguiente
+            sesiones.get(0).iniciarTest(new Configuracion(TEMATICA, Nivel.NORMAL.getNivel(),
+                    new String[]{TipoPregunta.RESPUESTA_UNICA.getTipo()}, preguntas, 30));
+            if (!finTest.await(ESPERA_SEGUNDOS + 10 + preguntas, TimeUnit.SECONDS)) {
+                throw new IOException("El test no ha terminado");
+            }
+            for (Map.Entry<Integer, LongAccumulator> ultima : ultimasRecepciones.entrySet()) {
+                difusionUltimo.registrar(TimeUnit.NANOSECONDS.toMicros(
+                        ultima.getValue().get() - instantesEnvio.get(ultima.getKey())));
+            }
+        } finally {
+            for (SesionCliente sesion : sesiones) {
+                sesion.close();
+            }
+            // Cada combinación usa su propio servidor: el anterior no debe seguir consumiendo recursos
+            servidor.detener();
+        }
+    }
+
+    /**
+     * Conecta una sesión con el servidor de la combinación en curso.
+     *
+     * @param puerto puerto del servidor.
+     * @param esperarArranque <code>true</code> si hay que reintentar la conexión mientras el servidor arranca.
+     * @return sesión conectada (sin registrar).
+     * @throws IOException excepción al conectar.
+     * @throws InterruptedException si se interrumpe la espera del arranque.
+     */
+    private static SesionCliente conectar(int puerto, boolean esperarArranque) throws IOException,
+            InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(ESPERA_SEGUNDOS);
+        while (true) {
+            try {
+                return new SesionCliente("localhost", puerto);
+            } catch (IOException ex) {
+                if (!esperarArranque || System.nanoTime() > limite) {
+                    throw ex;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    /**
+     * Crea el banco de preguntas sintéticas (de respuesta única, con o sin imagen).
+     *
+     * @param raiz directorio raíz de las preguntas.
+     * @param bytes tamaño de la imagen de cada pregunta (0 si no llevan imagen).
+     * @throws IOException excepción al escribir las preguntas.
+     */
+    private void crearPreguntas(File raiz, int bytes) throws IOException {
+        File tematica = new File(raiz, TEMATICA);
+        File multimedia = new File(tematica, "Multimedia");
+        if (!multimedia.mkdirs()) {
+            throw new IOException(String.format("No se ha podido crear '%s'", multimedia));
+        }
+        Random random = new Random(bytes);
+        for (int id = 1; id <= preguntas; id++) {
+            String fichero = String.format("%05d.png", id);
+            if (bytes > 0) {
+                byte[] datos = new byte[bytes];
+                random.nextBytes(datos);
+                Files.write(new File(multimedia, fichero).toPath(), datos);
+            }
+            Pregunta pregunta = new Pregunta(id, String.format("Pregunta %d", id), TEMATICA, Nivel.NORMAL.getNivel(),
+                    TipoPregunta.RESPUESTA_UNICA, bytes > 0 ? fichero : "", List.of("A", "B", "C", "D"), null,
+                    List.of("A"));
+            Files.writeString(new File(tematica, String.format("%05d.json", id)).toPath(), pregunta.toString());
+        }
+    }
+
+    /**
+     * Construye la fila del CSV de una métrica.
+     *
+     * @param numeroClientes número de clientes de la combinación.
+     * @param bytes tamaño de los datos multimedia de la combinación.
+     * @param histograma histograma de la métrica.
+     * @return fila del CSV.
+     */
+    private String fila(int numeroClientes, int bytes, HistogramaLatencias histograma) {
+        return String.format(Locale.ROOT, "%s,%d,%d,%s,%d,%.1f,%d,%d,%d,%d,%d",
+                etiqueta, numeroClientes, bytes, histograma.getNombre(), histograma.getTotal(), histograma.getMedia(),
+                histograma.getPercentil(50), histograma.getPercentil(90), histograma.getPercentil(99),
+                histograma.getPercentil(99.9), histograma.getMaximo());
+    }
+
+    private static int[] enteros(String lista) {
+        return Stream.of(lista.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static void borrar(File directorio) throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio.toPath())) {
+            rutas.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Cliente que registra las recepciones y responde correctamente a cada pregunta en cuanto la recibe.
+     */
+    private class Receptor implements IOyenteSesion {
+
+        private final SesionCliente sesion;
+        private final boolean iniciador;
+
+        Receptor(SesionCliente sesion, boolean iniciador) {
+            this.sesion = sesion;
+            this.iniciador = iniciador;
+        }
+
+        @Override
+        public void alRecibirPregunta(Pregunta pregunta) {
+            long ahora = System.nanoTime();
+            // El servidor no pasa a la siguiente pregunta hasta que responden todos, así que el instante es el de ésta
+            TestServer testServer = servidor.getTestServer();
+            long envio = instantesEnvio.computeIfAbsent(pregunta.getNumeroOrden(),
+                    orden -> testServer.getInstanteEnvioPreguntaNanos());
+            difusionCliente.registrar(TimeUnit.NANOSECONDS.toMicros(ahora - envio));
+            ultimasRecepciones.computeIfAbsent(pregunta.getNumeroOrden(),
+                    orden -> new LongAccumulator(Math::max, 0)).accumulate(ahora);
+            try {
+                sesion.enviarRespuesta(new Respuesta(pregunta.getRespuestas(), pregunta.getTipo(),
+                        pregunta.getNumeroOrden()));
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }
+
+        @Override
+        public void alRecibirChat(String texto) {
+            long ahora = System.nanoTime();
+            int marca = texto.indexOf(MARCA_CHAT);
+            if (marca < 0 || !texto.substring(marca + MARCA_CHAT.length()).trim().equals(
+                    Integer.toString(mensajeChat))) {
+                return;
+            }
+            chatCliente.registrar(TimeUnit.NANOSECONDS.toMicros(ahora - instanteEnvioChat));
+            ultimaRecepcionChat.accumulate(ahora);
+            recepcionesChat.countDown();
+        }
+
+        @Override
+        public void alPararTest(Ranking ranking) {
+            if (iniciador) {
+                finTest.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.carga;
+
+import com.testchallenge.client.IOyenteSesion;
+import com.testchallenge.client.SesionCliente;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.Ranking;
+import com.testchallenge.model.Respuesta;
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Participante simulado de una prueba de carga.
+ *
+ * Se conecta con una <code>SesionCliente</code>, responde a las preguntas con la latencia y la probabilidad de acierto
+ * configuradas, envía mensajes de chat y registra en el generador las medidas de latencia que observa.
+ *
+ * @author japrada
+ */
+public class ClienteSimulado implements IOyenteSesion {
+
+    // Generador de carga al que pertenece el participante
+    private final GeneradorCarga generador;
+    // Nickname del participante
+    private final String nickname;
+    // Indica si el participante es el que inicia los tests
+    private final boolean iniciador;
+    // Sesión con el servidor
+    private volatile SesionCliente sesion;
+    // Indica si la desconexión la ha provocado el propio generador
+    private volatile boolean cerrado;
+    // Instante (System.nanoTime) de envío de la última respuesta pendiente de puntuar (0 si no hay ninguna)
+    private volatile long instanteEnvioRespuesta;
+    // Último valor del temporizador recibido y su instante de recepción (System.nanoTime)
+    private int ultimoTick = -1;
+    private long instanteUltimoTick;
+    // Próximo envío de un mensaje de chat
+    private volatile ScheduledFuture<?> proximoChat;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(ClienteSimulado.class.getName());
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param generador generador de carga al que pertenece el participante.
+     * @param nickname nickname del participante.
+     * @param iniciador <code>true</code> si el participante es el que inicia los tests.
+     */
+    public ClienteSimulado(GeneradorCarga generador, String nickname, boolean iniciador) {
+        this.generador = generador;
+        this.nickname = nickname;
+        this.iniciador = iniciador;
+    }
+
+    /**
+     * Conecta el participante con el servidor y registra su nickname.
+     *
+     * @return <code>true</code> si el participante se ha conectado y registrado.
+     */
+    public boolean conectar() {
+        long inicio = System.nanoTime();
+        try {
+            sesion = new SesionCliente(generador.getConfiguracion().getServidor(),
+                    generador.getConfiguracion().getPuerto());
+            if (!sesion.registrar(nickname)) {
+                sesion.close();
+                return false;
+            }
+            sesion.iniciar(this);
+            generador.getRegistro().registrar(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio));
+            programarChat();
+            return true;
+        } catch (IOException | ClassNotFoundException ex) {
+            logger.severe(String.format("'%s': %s", nickname, ex.getMessage()));
+            if (sesion != null) {
+                sesion.close();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Desconecta el participante del servidor.
+     */
+    public void cerrar() {
+        cerrado = true;
+        ScheduledFuture<?> chat = proximoChat;
+        if (chat != null) {
+            chat.cancel(false);
+        }
+        if (sesion != null) {
+            sesion.close();
+        }
+    }
+
+    /**
+     * Obtiene el nickname del participante.
+     *
+     * @return nickname del participante.
+     */
+    public String getNickname() {
+        return nickname;
+    }
+
+    /**
+     * Solicita al servidor el inicio de un test con la configuración de la prueba.
+     */
+    void iniciarTest() {
+        // El inicio se registra antes de solicitarlo: la primera pregunta puede llegar antes de que vuelva el envío y
+        // debe contar ya para el nuevo test
+        generador.registrarInicioTest();
+        try {
+            sesion.iniciarTest(generador.getConfiguracion().getConfiguracionTest());
+        } catch (IOException ex) {
+            logger.severe(String.format("'%s': %s", nickname, ex.getMessage()));
+        }
+    }
+
+    @Override
+    public void alRegistrarse(String nicknamesConectados, String[] tematicas, Ranking ranking) {
+        if (iniciador) {
+            generador.programarTest(this);
+        }
+    }
+
+    @Override
+    public void alUnirseATestEnEjecucion(String informacionTest, Pregunta pregunta) {
+        alRecibirPregunta(pregunta);
+    }
+
+    @Override
+    public void alRecibirPregunta(Pregunta pregunta) {
+        generador.registrarRecepcionPregunta(pregunta.getNumeroOrden(), System.nanoTime());
+        synchronized (this) {
+            ultimoTick = -1;
+        }
+
+        ConfiguracionCarga configuracion = generador.getConfiguracion();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() >= configuracion.getProbabilidadRespuesta()) {
+            return;
+        }
+        boolean acierta = random.nextDouble() < configuracion.getProbabilidadAcierto();
+        Respuesta respuesta = acierta
+                ? new Respuesta(pregunta.getRespuestas(), pregunta.getTipo(), pregunta.getNumeroOrden())
+                : new Respuesta(new String[]{"?"}, pregunta.getTipo(), pregunta.getNumeroOrden());
+        long latencia = Math.max(0, Math.round(configuracion.getLatenciaMediaMs()
+                + random.nextGaussian() * configuracion.getLatenciaDesviacionMs()));
+
+        generador.getPlanificador().schedule(() -> enviarRespuesta(respuesta), latencia, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void alRecibirPuntuacion(Puntuacion puntuacion) {
+        long envio = instanteEnvioRespuesta;
+        if (envio != 0) {
+            instanteEnvioRespuesta = 0;
+            generador.getConfirmacionRespuestas().registrar(
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - envio));
+        }
+    }
+
+    @Override
+    public void alRecibirTiempoRestante(String segundos) {
+        long ahora = System.nanoTime();
+        int tick;
+        try {
+            tick = Integer.parseInt(segundos.trim());
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        synchronized (this) {
+            // Sólo se miden los ticks consecutivos de la misma cuenta atrás (no las pausas ni los cambios de pregunta)
+            if (ultimoTick == tick + 1) {
+                long intervalo = TimeUnit.NANOSECONDS.toMicros(ahora - instanteUltimoTick);
+                generador.getJitterTemporizador().registrar(Math.abs(intervalo - TimeUnit.SECONDS.toMicros(1)));
+            }
+            ultimoTick = tick;
+            instanteUltimoTick = ahora;
+        }
+    }
+
+    @Override
+    public void alPararTest(Ranking ranking) {
+        if (iniciador) {
+            generador.registrarFinTest(ranking != null);
+            generador.programarTest(this);
+        }
+    }
+
+    @Override
+    public void alPausarTest() {
+        synchronized (this) {
+            ultimoTick = -1;
+        }
+    }
+
+    @Override
+    public void alDesconectarse() {
+        if (!cerrado) {
+            generador.registrarDesconexion(this);
+        }
+    }
+
+    /**
+     * Envía una respuesta (si sigue siendo la de la pregunta actual).
+     *
+     * @param respuesta respuesta que se envía.
+     */
+    private void enviarRespuesta(Respuesta respuesta) {
+        Pregunta actual = sesion.getPreguntaActual();
+        if (cerrado || actual == null || !respuesta.getNumeroPregunta().equals(actual.getNumeroOrden())) {
+            return;
+        }
+        try {
+            instanteEnvioRespuesta = System.nanoTime();
+            sesion.enviarRespuesta(respuesta);
+        } catch (IOException ex) {
+            logger.severe(String.format("'%s': %s", nickname, ex.getMessage()));
+        }
+    }
+
+    /**
+     * Programa el envío del próximo mensaje de chat (los intervalos entre mensajes siguen una distribución
+     * exponencial con la tasa configurada).
+     */
+    private void programarChat() {
+        double porMinuto = generador.getConfiguracion().getChatPorMinuto();
+        if (porMinuto <= 0 || cerrado) {
+            return;
+        }
+        double minutos = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / porMinuto;
+        proximoChat = generador.getPlanificador().schedule(() -> {
+            try {
+                sesion.enviarChat(String.format("Mensaje de carga de %s", nickname));
+            } catch (IOException ex) {
+                logger.severe(String.format("'%s': %s", nickname, ex.getMessage()));
+                return;
+            }
+            programarChat();
+        }, Math.round(minutos * 60_000), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.carga;
+
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Nivel;
+import com.testchallenge.model.TipoPregunta;
+import java.util.Properties;
+
+/**
+ * Parámetros de una prueba de carga.
+ *
+ * Se construyen a partir de argumentos de la forma <code>clave=valor</code>; los parámetros que no se especifican
+ * toman su valor por defecto:
+ * <ul>
+ * <li><code>servidor</code> (localhost) y <code>puerto</code> (8080): servidor contra el que se lanza la carga.</li>
+ * <li><code>clientes</code> (100): número de participantes simulados.</li>
+ * <li><code>prefijo</code> (c): prefijo de los nicknames de los participantes.</li>
+ * <li><code>rampaMs</code> (10): milisegundos entre dos conexiones consecutivas durante el arranque.</li>
+ * <li><code>duracionSegundos</code> (120): duración de la prueba.</li>
+ * <li><code>informeSegundos</code> (10): periodo de los informes parciales.</li>
+ * <li><code>tematica</code> (English), <code>nivel</code> (Normal), <code>tipos</code> (todos, separados por comas),
+ * <code>numeroPreguntas</code> (10) y <code>tiempoLimite</code> (30): configuración de los tests que se inician.</li>
+ * <li><code>latenciaMediaMs</code> (3000) y <code>latenciaDesviacionMs</code> (1500): distribución normal del tiempo
+ * que tarda un participante en responder.</li>
+ * <li><code>probabilidadRespuesta</code> (0.9) y <code>probabilidadAcierto</code> (0.6): probabilidad de que un
+ * participante responda a una pregunta y de que, si responde, acierte.</li>
+ * <li><code>chatPorMinuto</code> (1): mensajes de chat que envía cada participante por minuto.</li>
+ * <li><code>rotacionPorMinuto</code> (0): probabilidad por minuto de que un participante se desconecte y se vuelva a
+ * conectar con otro nickname.</li>
+ * <li><code>hilos</code> (4): hilos que programan las respuestas, los mensajes de chat y las reconexiones.</li>
+ * </ul>
+ *
+ * @author japrada
+ */
+public class ConfiguracionCarga {
+
+    private final String servidor;
+    private final int puerto;
+    private final int clientes;
+    private final String prefijo;
+    private final long rampaMs;
+    private final long duracionSegundos;
+    private final long informeSegundos;
+    private final Configuracion configuracionTest;
+    private final double latenciaMediaMs;
+    private final double latenciaDesviacionMs;
+    private final double probabilidadRespuesta;
+    private final double probabilidadAcierto;
+    private final double chatPorMinuto;
+    private final double rotacionPorMinuto;
+    private final int hilos;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param args argumentos de la forma <code>clave=valor</code>.
+     * @throws IllegalArgumentException si algún argumento no tiene la forma <code>clave=valor</code> o su valor no es
+     * válido.
+     */
+    public ConfiguracionCarga(String... args) {
+        Properties parametros = new Properties();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException(String.format("Argumento '%s' no válido (clave=valor)", arg));
+            }
+            parametros.setProperty(arg.substring(0, separador).trim(), arg.substring(separador + 1).trim());
+        }
+
+        servidor = parametros.getProperty("servidor", "localhost");
+        puerto = Integer.parseInt(parametros.getProperty("puerto", "8080"));
+        clientes = Integer.parseInt(parametros.getProperty("clientes", "100"));
+        prefijo = parametros.getProperty("prefijo", "c");
+        rampaMs = Long.parseLong(parametros.getProperty("rampaMs", "10"));
+        duracionSegundos = Long.parseLong(parametros.getProperty("duracionSegundos", "120"));
+        informeSegundos = Long.parseLong(parametros.getProperty("informeSegundos", "10"));
+        configuracionTest = new Configuracion(
+                parametros.getProperty("tematica", "English"),
+                parametros.getProperty("nivel", Nivel.NORMAL.getNivel()),
+                parametros.getProperty("tipos", String.join(",", TipoPregunta.getTipos())).split(","),
+                Integer.parseInt(parametros.getProperty("numeroPreguntas", "10")),
+                Integer.parseInt(parametros.getProperty("tiempoLimite", "30")));
+        latenciaMediaMs = Double.parseDouble(parametros.getProperty("latenciaMediaMs", "3000"));
+        latenciaDesviacionMs = Double.parseDouble(parametros.getProperty("latenciaDesviacionMs", "1500"));
+        probabilidadRespuesta = Double.parseDouble(parametros.getProperty("probabilidadRespuesta", "0.9"));
+        probabilidadAcierto = Double.parseDouble(parametros.getProperty("probabilidadAcierto", "0.6"));
+        chatPorMinuto = Double.parseDouble(parametros.getProperty("chatPorMinuto", "1"));
+        rotacionPorMinuto = Double.parseDouble(parametros.getProperty("rotacionPorMinuto", "0"));
+        hilos = Integer.parseInt(parametros.getProperty("hilos", "4"));
+
+        if (clientes <= 0 || hilos <= 0 || duracionSegundos <= 0 || informeSegundos <= 0) {
+            throw new IllegalArgumentException("clientes, hilos, duracionSegundos e informeSegundos deben ser > 0");
+        }
+    }
+
+    public String getServidor() {
+        return servidor;
+    }
+
+    public int getPuerto() {
+        return puerto;
+    }
+
+    public int getClientes() {
+        return clientes;
+    }
+
+    public String getPrefijo() {
+        return prefijo;
+    }
+
+    public long getRampaMs() {
+        return rampaMs;
+    }
+
+    public long getDuracionSegundos() {
+        return duracionSegundos;
+    }
+
+    public long getInformeSegundos() {
+        return informeSegundos;
+    }
+
+    public Configuracion getConfiguracionTest() {
+        return configuracionTest;
+    }
+
+    public double getLatenciaMediaMs() {
+        return latenciaMediaMs;
+    }
+
+    public double getLatenciaDesviacionMs() {
+        return latenciaDesviacionMs;
+    }
+
+    public double getProbabilidadRespuesta() {
+        return probabilidadRespuesta;
+    }
+
+    public double getProbabilidadAcierto() {
+        return probabilidadAcierto;
+    }
+
+    public double getChatPorMinuto() {
+        return chatPorMinuto;
+    }
+
+    public double getRotacionPorMinuto() {
+        return rotacionPorMinuto;
+    }
+
+    public int getHilos() {
+        return hilos;
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.carga;
+
+import com.testchallenge.client.SesionCliente;
+import com.testchallenge.client.TestChallengeClientThread;
+import com.testchallenge.server.metricas.HistogramaLatencias;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generador de carga que simula un número configurable de participantes conectados a un
+ * <code>TestChallengeServer</code>.
+ *
+ * Cada participante es un <code>ClienteSimulado</code> sobre una <code>SesionCliente</code> (sin interfaz gráfica).
+ * El primer participante inicia los tests con la configuración indicada y vuelve a iniciar uno nuevo cada vez que
+ * termina el anterior; el resto responde a las preguntas, envía mensajes de chat y, si se configura, se desconecta y
+ * se vuelve a conectar con otro nickname. Periódicamente, y al terminar la prueba, se informa de:
+ * <ul>
+ * <li>el reparto de las preguntas: retraso con el que cada participante recibe una pregunta respecto al primero que
+ * la recibe,</li>
+ * <li>la confirmación de las respuestas: tiempo desde que se envía una respuesta hasta que se recibe su
+ * puntuación,</li>
+ * <li>el jitter del temporizador: desviación del intervalo entre dos ticks consecutivos respecto a un segundo,</li>
+ * <li>el registro: tiempo de conexión, registro del nickname y recepción del estado inicial.</li>
+ * </ul>
+ *
+ * Uso: <code>java -cp TestChallenge.jar com.testchallenge.carga.GeneradorCarga [clave=valor ...]</code> (los
+ * parámetros se describen en <code>ConfiguracionCarga</code>).
+ *
+ * @author japrada
+ */
+public class GeneradorCarga {
+
+    // Tiempo de espera antes de iniciar un nuevo test
+    private static final long ESPERA_INICIO_TEST_MS = 2000;
+    // Multiplicador para obtener la clave de una pregunta a partir del número de test y su número de orden
+    private static final long PREGUNTAS_POR_TEST = 1_000_000;
+
+    // Parámetros de la prueba
+    private final ConfiguracionCarga configuracion;
+    // Planificador de las respuestas, los mensajes de chat y las reconexiones
+    private final ScheduledExecutorService planificador;
+    // Participantes conectados (una ranura por participante)
+    private final AtomicReferenceArray<ClienteSimulado> participantes;
+
+    // Histogramas de latencias
+    private final HistogramaLatencias repartoPreguntas = new HistogramaLatencias("Reparto de preguntas");
+    private final HistogramaLatencias confirmacionRespuestas = new HistogramaLatencias("Confirmación de respuestas");
+    private final HistogramaLatencias jitterTemporizador = new HistogramaLatencias("Jitter del temporizador");
+    private final HistogramaLatencias registro = new HistogramaLatencias("Registro");
+
+    // Instante de la primera recepción de cada pregunta del test en curso
+    private final Map<Long, Long> primeraRecepcion = new ConcurrentHashMap<>();
+    // Número de test en curso
+    private final AtomicInteger numeroTest = new AtomicInteger();
+    // Indica si se siguen iniciando tests (se deja de hacer si el servidor no encuentra preguntas)
+    private volatile boolean iniciarTests = true;
+    // Indica si la prueba ha terminado
+    private volatile boolean terminado;
+
+    // Contadores
+    private final AtomicLong conexiones = new AtomicLong();
+    private final AtomicLong conexionesFallidas = new AtomicLong();
+    private final AtomicLong desconexiones = new AtomicLong();
+    private final AtomicLong rotaciones = new AtomicLong();
+    private final AtomicLong testsIniciados = new AtomicLong();
+    private final AtomicLong testsFinalizados = new AtomicLong();
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(GeneradorCarga.class.getName());
+
+    /**
+     * Lanza una prueba de carga.
+     *
+     * @param args parámetros de la prueba (<code>clave=valor</code>).
+     * @throws InterruptedException excepción al interrumpir la prueba.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        // Las trazas de cada conexión no aportan nada con miles de participantes
+        Logger.getLogger(SesionCliente.class.getName()).setLevel(Level.WARNING);
+        Logger.getLogger(TestChallengeClientThread.class.getName()).setLevel(Level.OFF);
+
+        new GeneradorCarga(new ConfiguracionCarga(args)).ejecutar();
+        System.exit(0);
+    }
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param configuracion parámetros de la prueba.
+     */
+    public GeneradorCarga(ConfiguracionCarga configuracion) {
+        this.configuracion = configuracion;
+        this.participantes = new AtomicReferenceArray<>(configuracion.getClientes());
+        ScheduledThreadPoolExecutor ejecutor = new ScheduledThreadPoolExecutor(configuracion.getHilos(), r -> {
+            Thread t = new Thread(r, GeneradorCarga.class.getSimpleName());
+            t.setDaemon(true);
+            return t;
+        });
+        ejecutor.setRemoveOnCancelPolicy(true);
+        planificador = ejecutor;
+    }
+
+    /**
+     * Ejecuta la prueba: conecta a los participantes, mantiene la carga durante el tiempo configurado y los
+     * desconecta.
+     *
+     * @throws InterruptedException excepción al interrumpir la prueba.
+     */
+    public void ejecutar() throws InterruptedException {
+        long inicio = System.nanoTime();
+        long informe = configuracion.getInformeSegundos();
+        planificador.scheduleAtFixedRate(() -> informar("Informe parcial"), informe, informe, TimeUnit.SECONDS);
+        if (configuracion.getRotacionPorMinuto() > 0) {
+            planificador.scheduleAtFixedRate(this::rotar, 1, 1, TimeUnit.SECONDS);
+        }
+
+        // Conexión escalonada de los participantes
+        for (int i = 0; i < participantes.length() && !terminado; i++) {
+            conectar(i, 0);
+            if (configuracion.getRampaMs() > 0) {
+                Thread.sleep(configuracion.getRampaMs());
+            }
+        }
+        logger.info(String.format("'%s': %d participantes conectados en %d ms.", GeneradorCarga.class.getSimpleName(),
+                conexiones.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)));
+
+        long restante = TimeUnit.SECONDS.toNanos(configuracion.getDuracionSegundos()) - (System.nanoTime() - inicio);
+        if (restante > 0) {
+            TimeUnit.NANOSECONDS.sleep(restante);
+        }
+
+        terminar();
+        informar("Informe final");
+    }
+
+    /**
+     * Termina la prueba y desconecta a todos los participantes.
+     */
+    public void terminar() {
+        terminado = true;
+        for (int i = 0; i < participantes.length(); i++) {
+            ClienteSimulado participante = participantes.getAndSet(i, null);
+            if (participante != null) {
+                participante.cerrar();
+            }
+        }
+        planificador.shutdownNow();
+    }
+
+    /**
+     * Conecta un participante en una ranura.
+     *
+     * @param ranura ranura del participante.
+     * @param generacion número de veces que se ha reconectado la ranura (forma parte del nickname).
+     */
+    private void conectar(int ranura, int generacion) {
+        String nickname = generacion == 0
+                ? String.format("%s%d", configuracion.getPrefijo(), ranura)
+                : String.format("%s%d_%d", configuracion.getPrefijo(), ranura, generacion);
+        ClienteSimulado participante = new ClienteSimulado(this, nickname, ranura == 0);
+        if (participante.conectar()) {
+            conexiones.incrementAndGet();
+            participantes.set(ranura, participante);
+        } else {
+            conexionesFallidas.incrementAndGet();
+        }
+    }
+
+    /**
+     * Desconecta y vuelve a conectar con otro nickname a los participantes elegidos al azar según la probabilidad de
+     * rotación configurada (el participante que inicia los tests no se rota).
+     */
+    private void rotar() {
+        double probabilidad = configuracion.getRotacionPorMinuto() / 60.0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 1; i < participantes.length() && !terminado; i++) {
+            if (random.nextDouble() < probabilidad) {
+                // Sólo se rotan los participantes conectados (no los que aún no han arrancado)
+                ClienteSimulado participante = participantes.getAndSet(i, null);
+                if (participante != null) {
+                    participante.cerrar();
+                    conectar(i, (int) rotaciones.incrementAndGet());
+                }
+            }
+        }
+    }
+
+    /**
+     * Programa el inicio de un nuevo test.
+     *
+     * @param iniciador participante que inicia el test.
+     */
+    void programarTest(ClienteSimulado iniciador) {
+        if (iniciarTests && !terminado) {
+            planificador.schedule(iniciador::iniciarTest, ESPERA_INICIO_TEST_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Registra el inicio de un test (a partir de aquí las preguntas recibidas pertenecen al nuevo test).
+     */
+    void registrarInicioTest() {
+        numeroTest.incrementAndGet();
+        primeraRecepcion.clear();
+        testsIniciados.incrementAndGet();
+    }
+
+    /**
+     * Registra el final de un test.
+     *
+     * @param conPreguntas <code>false</code> si el servidor no ha encontrado preguntas con la configuración indicada.
+     */
+    void registrarFinTest(boolean conPreguntas) {
+        testsFinalizados.incrementAndGet();
+        if (!conPreguntas) {
+            iniciarTests = false;
+            logger.warning(String.format("'%s': No hay preguntas con la configuración indicada: no se inician más tests.",
+                    GeneradorCarga.class.getSimpleName()));
+        }
+    }
+
+    /**
+     * Registra la recepción de una pregunta por un participante.
+     *
+     * @param numeroOrden número de orden de la pregunta en el test.
+     * @param instante instante de recepción (<code>System.nanoTime</code>).
+     */
+    void registrarRecepcionPregunta(Integer numeroOrden, long instante) {
+        long clave = numeroTest.get() * PREGUNTAS_POR_TEST + (numeroOrden != null ? numeroOrden : 0);
+        long primera = primeraRecepcion.computeIfAbsent(clave, k -> instante);
+        repartoPreguntas.registrar(TimeUnit.NANOSECONDS.toMicros(instante - primera));
+    }
+
+    /**
+     * Registra la desconexión (no provocada por el generador) de un participante.
+     *
+     * @param participante participante desconectado.
+     */
+    void registrarDesconexion(ClienteSimulado participante) {
+        desconexiones.incrementAndGet();
+        logger.warning(String.format("'%s': '%s' desconectado por el servidor.",
+                GeneradorCarga.class.getSimpleName(), participante.getNickname()));
+    }
+
+    /**
+     * Informa de los contadores y los histogramas de latencias.
+     *
+     * @param titulo título del informe.
+     */
+    private void informar(String titulo) {
+        StringBuilder sb = new StringBuilder(String.format("'%s': %s%n", GeneradorCarga.class.getSimpleName(), titulo));
+        sb.append(String.format("conexiones=%d fallidas=%d desconexiones=%d rotaciones=%d tests=%d/%d%n",
+                conexiones.get(), conexionesFallidas.get(), desconexiones.get(), rotaciones.get(),
+                testsFinalizados.get(), testsIniciados.get()));
+        for (HistogramaLatencias histograma
+                : List.of(repartoPreguntas, confirmacionRespuestas, jitterTemporizador, registro)) {
+            sb.append(histograma.getResumen()).append(String.format("%n"));
+        }
+        logger.info(sb.toString());
+    }
+
+    ConfiguracionCarga getConfiguracion() {
+        return configuracion;
+    }
+
+    ScheduledExecutorService getPlanificador() {
+        return planificador;
+    }
+
+    HistogramaLatencias getConfirmacionRespuestas() {
+        return confirmacionRespuestas;
+    }
+
+    HistogramaLatencias getJitterTemporizador() {
+        return jitterTemporizador;
+    }
+
+    HistogramaLatencias getRegistro() {
+        return registro;
+    }
+}
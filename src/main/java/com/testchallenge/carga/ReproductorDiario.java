@@ -0,0 +1,676 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.carga;
+
+import com.testchallenge.client.ClienteEspectador;
+import com.testchallenge.client.IOyenteSesion;
+import com.testchallenge.client.SesionCliente;
+import com.testchallenge.client.TestChallengeClientThread;
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Ranking;
+import com.testchallenge.model.Respuesta;
+import com.testchallenge.model.TipoMensaje;
+import com.testchallenge.server.TestChallengeServer;
+import com.testchallenge.server.diario.EventoDiario;
+import com.testchallenge.server.diario.LectorDiario;
+import com.testchallenge.server.diario.TipoEvento;
+import com.testchallenge.server.log.ManejadorAsincrono;
+import com.testchallenge.server.metricas.HistogramaLatencias;
+import com.testchallenge.server.metricas.MetricasServidor;
+import com.testchallenge.server.metricas.ResumenHistograma;
+import java.io.File;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Reproduce un diario de eventos del servidor (ver <code>DiarioEventos</code>) contra un servidor nuevo arrancado en
+ * el mismo proceso, con clientes simulados que vuelven a enviar los mensajes registrados.
+ *
+ * Cada sesión del diario se conecta (como participante o como espectador) en el instante en el que se conectó y envía
+ * los mensajes que envió, en el mismo orden y con los intervalos divididos por la velocidad de reproducción. Los
+ * tiempos del test los marca el servidor (la cuenta atrás inicial, por ejemplo, no se acelera), así que los mensajes
+ * que una sesión envió después de recibir una pregunta o el fin del test se envían con el mismo retraso desde que la
+ * sesión simulada recibe esa pregunta o ese fin del test, y no en su instante absoluto.
+ *
+ * Las respuestas se asocian a las preguntas por su identificador: cada sesión responde a una pregunta con la
+ * respuesta que se envió para ella, aunque el servidor la envíe en otra posición. El banco de preguntas del servidor
+ * se construye copiando del banco original sólo las preguntas que se enviaron, de modo que los tests seleccionan las
+ * mismas preguntas.
+ *
+ * Al terminar, escribe en el log el retraso de los envíos respecto de su instante planificado (si es alto, el equipo
+ * no reproduce la carga con fidelidad) y las métricas de difusión y corrección del servidor.
+ *
+ * Los parámetros tienen la forma <code>clave=valor</code>: <code>diario</code> (fichero del diario),
+ * <code>preguntas</code> (directorio raíz del banco de preguntas original), <code>velocidad</code> (1 por defecto),
+ * <code>esperaSegundos</code> (espera máxima a que termine el test en curso tras el último mensaje, 600 por defecto)
+ * y <code>registro</code> (<code>true</code> para mantener el log del servidor).
+ *
+ * @author japrada
+ */
+public class ReproductorDiario {
+
+    // Tiempo máximo de espera del arranque del servidor
+    private static final long ESPERA_ARRANQUE_SEGUNDOS = 30;
+    // Subdirectorio de los ficheros multimedia de cada temática
+    private static final String SUBDIRECTORIO_MULTIMEDIA = "Multimedia";
+
+    // Eventos del diario
+    private final List<EventoDiario> eventos;
+    // Directorio raíz del banco de preguntas original
+    private final File directorioPreguntas;
+    // Velocidad de reproducción (1 = tiempo real)
+    private final double velocidad;
+    // Espera máxima a que termine el test en curso tras el último mensaje
+    private final long esperaSegundos;
+
+    // Eventos que se reproducen en su instante (con el desfase desde el primer evento del diario)
+    private final List<EventoProgramado> eventosGlobales = new ArrayList<>();
+    // Guion de cada sesión del diario, por su mensaje de registro
+    private final Map<EventoDiario, GuionSesion> guiones = new HashMap<>();
+    // Sesiones conectadas, por nickname (sólo las usa el hilo del planificador)
+    private final Map<String, Participante> participantes = new HashMap<>();
+    // Planificador de los envíos: un único hilo mantiene el orden de los mensajes de cada sesión
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "reproductor-diario");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    // Envíos planificados pendientes de ejecutar
+    private final AtomicInteger enviosPendientes = new AtomicInteger();
+    // Retraso de cada envío respecto de su instante planificado
+    private final HistogramaLatencias retraso = new HistogramaLatencias("retraso_reproduccion");
+    // Contadores de la reproducción
+    private final LongAdder mensajesEnviados = new LongAdder();
+    private final LongAdder respuestasEnviadas = new LongAdder();
+    private final LongAdder mensajesOmitidos = new LongAdder();
+
+    // Servidor de la reproducción y su puerto
+    private TestChallengeServer servidor;
+    private int puerto;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(ReproductorDiario.class.getName());
+
+    public static void main(String[] args) throws Exception {
+        Properties parametros = new Properties();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException(String.format("Argumento '%s' no válido (clave=valor)", arg));
+            }
+            parametros.setProperty(arg.substring(0, separador).trim(), arg.substring(separador + 1).trim());
+        }
+        if (parametros.getProperty("diario") == null || parametros.getProperty("preguntas") == null) {
+            throw new IllegalArgumentException("Los parámetros 'diario' y 'preguntas' son obligatorios");
+        }
+
+        if (!Boolean.parseBoolean(parametros.getProperty("registro", "false"))) {
+            // Sólo se mantienen las trazas de la propia reproducción
+            Logger.getLogger("").setLevel(Level.WARNING);
+            logger.setLevel(Level.INFO);
+        }
+        Logger.getLogger(TestChallengeClientThread.class.getName()).setLevel(Level.OFF);
+        // El servidor se ejecuta con el mismo log asíncrono que en producción
+        ManejadorAsincrono.instalar();
+
+        new ReproductorDiario(LectorDiario.leerTodos(new File(parametros.getProperty("diario"))),
+                new File(parametros.getProperty("preguntas")),
+                Double.parseDouble(parametros.getProperty("velocidad", "1")),
+                Long.parseLong(parametros.getProperty("esperaSegundos", "600"))).reproducir();
+        System.exit(0);
+    }
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param eventos eventos del diario.
+     * @param directorioPreguntas directorio raíz del banco de preguntas original.
+     * @param velocidad velocidad de reproducción (1 = tiempo real).
+     * @param esperaSegundos espera máxima a que termine el test en curso tras el último mensaje.
+     */
+    public ReproductorDiario(List<EventoDiario> eventos, File directorioPreguntas, double velocidad,
+            long esperaSegundos) {
+        if (velocidad <= 0) {
+            throw new IllegalArgumentException(String.format("Velocidad '%s' no válida", velocidad));
+        }
+        this.eventos = eventos;
+        this.directorioPreguntas = directorioPreguntas;
+        this.velocidad = velocidad;
+        this.esperaSegundos = esperaSegundos;
+    }
+
+    /**
+     * Reproduce el diario: arranca el servidor, envía los mensajes y espera a que termine el test en curso.
+     *
+     * @throws IOException excepción al crear el banco de preguntas o al arrancar el servidor.
+     * @throws InterruptedException si se interrumpe la reproducción.
+     */
+    public void reproducir() throws IOException, InterruptedException {
+        analizarDiario();
+        File directorio = Files.createTempDirectory("reproduccion-diario").toFile();
+        try {
+            crearBanco(new File(directorio, "preguntas"));
+            try (ServerSocket libre = new ServerSocket(0)) {
+                puerto = libre.getLocalPort();
+            }
+            servidor = new TestChallengeServer(puerto, new File(directorio, "preguntas").getPath(),
+                    new File(directorio, "historico").getPath());
+            servidor.setDaemon(true);
+            servidor.start();
+            esperarArranque();
+
+            logger.info(String.format("'%s': Reproduciendo %d eventos a velocidad %s ...",
+                    ReproductorDiario.class.getSimpleName(), eventos.size(), velocidad));
+            long inicio = System.nanoTime();
+            long ultimo = inicio;
+            for (EventoProgramado programado : eventosGlobales) {
+                long instante = inicio + escalar(programado.desfase);
+                programar(() -> reproducir(participantes.get(programado.evento.getNickname()), programado.evento,
+                        instante), instante);
+                ultimo = instante;
+            }
+            CountDownLatch fin = new CountDownLatch(1);
+            planificador.schedule(fin::countDown, ultimo - System.nanoTime(), TimeUnit.NANOSECONDS);
+            fin.await();
+            esperarFin();
+            informar();
+        } finally {
+            planificador.shutdownNow();
+            planificador.awaitTermination(1, TimeUnit.SECONDS);
+            for (Participante participante : participantes.values()) {
+                participante.cerrar();
+            }
+            // El servidor se detiene antes de borrar su directorio (deja de volcar las estadísticas en él)
+            if (servidor != null) {
+                servidor.detener();
+            }
+            borrar(directorio);
+        }
+    }
+
+    public long getMensajesEnviados() {
+        return mensajesEnviados.sum();
+    }
+
+    public long getRespuestasEnviadas() {
+        return respuestasEnviadas.sum();
+    }
+
+    public long getMensajesOmitidos() {
+        return mensajesOmitidos.sum();
+    }
+
+    /**
+     * Recorre el diario para construir el guion de cada sesión: los mensajes que envió antes de recibir la primera
+     * pregunta se reproducen en su instante y los demás, con su retraso desde la última pregunta o fin del test que
+     * recibió. Las respuestas se guardan aparte, por el identificador de la pregunta.
+     */
+    private void analizarDiario() {
+        // Primera pasada: mensajes de registro (los que recibieron NICKNAME_OK o NICKNAME_KO)
+        Map<EventoDiario, Boolean> registros = new HashMap<>();
+        Map<String, EventoDiario> ultimaEntrada = new HashMap<>();
+        for (EventoDiario evento : eventos) {
+            if (evento.getTipo() == TipoEvento.ENTRADA) {
+                ultimaEntrada.put(evento.getNickname(), evento);
+            } else if (evento.getTipo() == TipoEvento.SALIDA && (evento.getTipoMensaje() == TipoMensaje.NICKNAME_OK
+                    || evento.getTipoMensaje() == TipoMensaje.NICKNAME_KO)) {
+                EventoDiario registro = ultimaEntrada.remove(evento.getNickname());
+                if (registro != null) {
+                    registros.put(registro, evento.getTipoMensaje() == TipoMensaje.NICKNAME_OK);
+                }
+            }
+        }
+
+        // Segunda pasada: guiones de las sesiones registradas
+        long origen = eventos.isEmpty() ? 0 : eventos.get(0).getInstante();
+        Map<String, GuionSesion> sesionesAbiertas = new HashMap<>();
+        Map<Integer, Integer> idPorNumero = new HashMap<>();
+        for (EventoDiario evento : eventos) {
+            GuionSesion guion = evento.getNickname() != null ? sesionesAbiertas.get(evento.getNickname()) : null;
+            switch (evento.getTipo()) {
+                case PREGUNTA:
+                    idPorNumero.put(evento.getNumeroPregunta(), evento.getIdPregunta());
+                    break;
+                case SALIDA:
+                    if (guion != null && (evento.getTipoMensaje() == TipoMensaje.TEST_PREGUNTA
+                            || evento.getTipoMensaje() == TipoMensaje.TEST_PARAR)) {
+                        guion.sincronizaciones++;
+                        guion.instanteSincronizacion = evento.getInstante();
+                    }
+                    break;
+                case ENTRADA:
+                    Boolean aceptado = registros.get(evento);
+                    if (aceptado != null) {
+                        GuionSesion nuevo = new GuionSesion(aceptado);
+                        guiones.put(evento, nuevo);
+                        if (aceptado) {
+                            sesionesAbiertas.put(evento.getNickname(), nuevo);
+                        }
+                        eventosGlobales.add(new EventoProgramado(evento, evento.getInstante() - origen));
+                    } else if (evento.getTipoMensaje() == TipoMensaje.RESPUESTA_ENVIAR) {
+                        Respuesta respuesta = evento.getMensaje().getRespuesta();
+                        Integer idPregunta = idPorNumero.get(respuesta.getNumeroPregunta());
+                        if (guion != null && idPregunta != null) {
+                            guion.respuestas.computeIfAbsent(idPregunta, id -> new ArrayDeque<>()).add(
+                                    new RespuestaRegistrada(respuesta, evento.getInstante()
+                                            - guion.instanteSincronizacion));
+                        }
+                    } else if (evento.getTipoMensaje() != TipoMensaje.PONG
+                            && evento.getTipoMensaje() != TipoMensaje.REANUDAR_SESION) {
+                        // Las sesiones simuladas responden a los PING y reanudan sus sesiones por sí mismas
+                        programar(guion, evento, origen);
+                    }
+                    break;
+                case DESCONEXION:
+                    programar(guion, evento, origen);
+                    sesionesAbiertas.remove(evento.getNickname());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Añade un evento de una sesión a los eventos globales o al guion de la sesión (si ya ha recibido alguna
+     * pregunta).
+     */
+    private void programar(GuionSesion guion, EventoDiario evento, long origen) {
+        if (guion == null || guion.sincronizaciones == 0) {
+            eventosGlobales.add(new EventoProgramado(evento, evento.getInstante() - origen));
+        } else {
+            guion.eventos.computeIfAbsent(guion.sincronizaciones, k -> new ArrayList<>())
+                    .add(new EventoProgramado(evento, evento.getInstante() - guion.instanteSincronizacion));
+        }
+    }
+
+    /**
+     * Crea el banco de preguntas de la reproducción con las preguntas del banco original que se enviaron en los
+     * tests del diario (y sus ficheros multimedia).
+     *
+     * @param raiz directorio raíz del banco de la reproducción.
+     * @throws IOException excepción al copiar las preguntas.
+     */
+    private void crearBanco(File raiz) throws IOException {
+        Set<String> tematicas = new HashSet<>();
+        Set<Integer> ids = new HashSet<>();
+        for (EventoDiario evento : eventos) {
+            if (evento.getTipo() == TipoEvento.PREGUNTA) {
+                ids.add(evento.getIdPregunta());
+            } else if (evento.getTipoMensaje() == TipoMensaje.INICIAR_TEST && evento.getTipo() == TipoEvento.ENTRADA) {
+                tematicas.add(evento.getMensaje().getConfiguracion().getTematica());
+            }
+        }
+
+        for (String tematica : tematicas) {
+            File origen = new File(directorioPreguntas, tematica);
+            File destino = new File(raiz, tematica);
+            Files.createDirectories(new File(destino, SUBDIRECTORIO_MULTIMEDIA).toPath());
+            File[] ficheros = origen.listFiles((directorio, nombre) -> nombre.endsWith(".json"));
+            if (ficheros == null) {
+                logger.warning(String.format("'%s': No se encuentra la temática '%s' en '%s'.",
+                        ReproductorDiario.class.getSimpleName(), tematica, directorioPreguntas));
+                continue;
+            }
+            int copiadas = 0;
+            for (File fichero : ficheros) {
+                Pregunta pregunta = new Pregunta(Files.readString(fichero.toPath(), StandardCharsets.UTF_8));
+                if (ids.contains(pregunta.getId())) {
+                    Files.copy(fichero.toPath(), new File(destino, fichero.getName()).toPath());
+                    if (!pregunta.getFicheroMultimedia().isEmpty()) {
+                        Path multimedia = origen.toPath().resolve(SUBDIRECTORIO_MULTIMEDIA)
+                                .resolve(pregunta.getFicheroMultimedia());
+                        Files.copy(multimedia, destino.toPath().resolve(SUBDIRECTORIO_MULTIMEDIA)
+                                .resolve(pregunta.getFicheroMultimedia()));
+                    }
+                    copiadas++;
+                }
+            }
+            logger.info(String.format("'%s': %d preguntas de '%s' copiadas al banco de la reproducción.",
+                    ReproductorDiario.class.getSimpleName(), copiadas, tematica));
+        }
+    }
+
+    /**
+     * Planifica un envío en el hilo del planificador.
+     *
+     * @param envio envío.
+     * @param instante instante planificado (<code>System.nanoTime</code>).
+     */
+    private void programar(Runnable envio, long instante) {
+        enviosPendientes.incrementAndGet();
+        planificador.schedule(() -> {
+            try {
+                envio.run();
+            } finally {
+                enviosPendientes.decrementAndGet();
+            }
+        }, instante - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reproduce un evento en el hilo del planificador.
+     *
+     * @param participante sesión simulada que corresponde al evento (<code>null</code> si no está conectada).
+     * @param evento evento del diario.
+     * @param instante instante planificado (<code>System.nanoTime</code>).
+     */
+    private void reproducir(Participante participante, EventoDiario evento, long instante) {
+        retraso.registrar(TimeUnit.NANOSECONDS.toMicros(Math.max(0, System.nanoTime() - instante)));
+
+        GuionSesion guion = guiones.get(evento);
+        if (guion != null) {
+            Participante nuevo = new Participante(evento.getNickname(), guion);
+            boolean registrado = nuevo.conectar(evento.getTipoMensaje() == TipoMensaje.ESPECTADOR);
+            if (registrado && guion.aceptado) {
+                participantes.put(evento.getNickname(), nuevo);
+            } else if (registrado) {
+                // El registro se rechazó en el diario: la sesión simulada se cierra como si se hubiera rechazado
+                nuevo.cerrar();
+            }
+            return;
+        }
+
+        if (evento.getTipo() == TipoEvento.DESCONEXION) {
+            if (participante != null) {
+                participantes.remove(evento.getNickname(), participante);
+                participante.cerrar();
+            }
+        } else if (participante == null || !participante.enviar(evento.getMensaje())) {
+            mensajesOmitidos.increment();
+        }
+    }
+
+    /**
+     * Espera a que el servidor escuche en su puerto. No se comprueba con una conexión porque el servidor trataría
+     * como un error que se cerrara sin registrarse: se intenta ocupar el puerto hasta que ya no está libre.
+     */
+    private void esperarArranque() throws IOException, InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(ESPERA_ARRANQUE_SEGUNDOS);
+        while (true) {
+            try (ServerSocket prueba = new ServerSocket(puerto)) {
+                if (System.nanoTime() > limite) {
+                    throw new IOException(String.format("El servidor no escucha en el puerto '%d'", puerto));
+                }
+            } catch (BindException ex) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private long escalar(long nanos) {
+        return (long) (nanos / velocidad);
+    }
+
+    /**
+     * Espera a que termine el test en curso y a que se ejecuten los envíos pendientes. Los mensajes planificados
+     * tras preguntas que las sesiones simuladas no llegan a recibir se cuentan como omitidos.
+     */
+    private void esperarFin() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(esperaSegundos);
+        // Margen para que el servidor procese los últimos mensajes (por ejemplo, la solicitud de un test)
+        Thread.sleep(1000);
+        while ((servidor.isTestInProgress() || enviosPendientes.get() > 0) && System.nanoTime() < limite) {
+            Thread.sleep(100);
+        }
+        for (GuionSesion guion : guiones.values()) {
+            synchronized (guion) {
+                guion.eventos.values().forEach(pendientes -> mensajesOmitidos.add(pendientes.size()));
+            }
+        }
+    }
+
+    private void informar() {
+        logger.info(String.format("'%s': %d mensajes y %d respuestas reproducidos (%d omitidos).",
+                ReproductorDiario.class.getSimpleName(), getMensajesEnviados(), getRespuestasEnviadas(),
+                getMensajesOmitidos()));
+        logger.info(retraso.getResumen());
+        MetricasServidor metricas = servidor.getMetricas();
+        logger.info(resumen("difusion_preguntas", metricas.getDifusionPreguntas()));
+        logger.info(resumen("difusion_mensajes", metricas.getDifusionMensajes()));
+        logger.info(resumen("correccion_respuestas", metricas.getCorreccionRespuestas()));
+    }
+
+    private static String resumen(String nombre, ResumenHistograma histograma) {
+        return String.format(Locale.ROOT, "%-28s n=%-8d media=%9.2f p50=%9.2f p99=%9.2f max=%9.2f (ms)",
+                nombre, histograma.getMuestras(), histograma.getMedia() / 1000.0, histograma.getP50() / 1000.0,
+                histograma.getP99() / 1000.0, histograma.getMaximo() / 1000.0);
+    }
+
+    private static void borrar(File directorio) throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio.toPath())) {
+            rutas.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Evento del diario con su desfase (en nanosegundos) respecto de su referencia.
+     */
+    private static class EventoProgramado {
+
+        private final EventoDiario evento;
+        private final long desfase;
+
+        private EventoProgramado(EventoDiario evento, long desfase) {
+            this.evento = evento;
+            this.desfase = desfase;
+        }
+    }
+
+    /**
+     * Respuesta del diario con su retraso desde que la sesión recibió la pregunta.
+     */
+    private static class RespuestaRegistrada {
+
+        private final Respuesta respuesta;
+        private final long retraso;
+
+        private RespuestaRegistrada(Respuesta respuesta, long retraso) {
+            this.respuesta = respuesta;
+            this.retraso = retraso;
+        }
+    }
+
+    /**
+     * Guion de una sesión del diario.
+     */
+    private static class GuionSesion {
+
+        // Indica si el servidor aceptó el registro de la sesión
+        private final boolean aceptado;
+        // Eventos de la sesión por el número de preguntas y fines de test recibidos antes de producirse
+        private final Map<Integer, List<EventoProgramado>> eventos = new HashMap<>();
+        // Respuestas de la sesión por identificador de pregunta
+        private final Map<Integer, Deque<RespuestaRegistrada>> respuestas = new HashMap<>();
+        // Preguntas y fines de test recibidos e instante del último (durante el análisis del diario)
+        private int sincronizaciones;
+        private long instanteSincronizacion;
+
+        private GuionSesion(boolean aceptado) {
+            this.aceptado = aceptado;
+        }
+    }
+
+    /**
+     * Sesión simulada: un participante o un espectador.
+     */
+    private class Participante implements IOyenteSesion {
+
+        private final String nickname;
+        private final GuionSesion guion;
+        // Preguntas y fines de test recibidos (sólo lo usa el hilo de lectura de la sesión)
+        private int sincronizaciones;
+        private volatile SesionCliente sesion;
+        private volatile ClienteEspectador espectador;
+
+        private Participante(String nickname, GuionSesion guion) {
+            this.nickname = nickname;
+            this.guion = guion;
+        }
+
+        /**
+         * Conecta la sesión con el servidor de la reproducción.
+         *
+         * @param esEspectador <code>true</code> si la sesión es de un espectador.
+         * @return <code>true</code> si la sesión se ha registrado.
+         */
+        private boolean conectar(boolean esEspectador) {
+            try {
+                if (esEspectador) {
+                    espectador = new ClienteEspectador("localhost", puerto, nickname);
+                    Thread lector = new Thread(this::leerTramas, "espectador-" + nickname);
+                    lector.setDaemon(true);
+                    lector.start();
+                    return true;
+                }
+                SesionCliente nueva = new SesionCliente("localhost", puerto);
+                if (!nueva.registrar(nickname)) {
+                    nueva.close();
+                    return false;
+                }
+                sesion = nueva;
+                nueva.iniciar(this);
+                return true;
+            } catch (IOException | ClassNotFoundException ex) {
+                logger.warning(String.format("'%s': %s", nickname, ex.getMessage()));
+                return false;
+            }
+        }
+
+        private boolean enviar(Mensaje mensaje) {
+            SesionCliente actual = sesion;
+            if (actual == null) {
+                return false;
+            }
+            try {
+                actual.enviar(mensaje);
+                mensajesEnviados.increment();
+                return true;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public void alUnirseATestEnEjecucion(String informacionTest, Pregunta pregunta) {
+            responder(pregunta);
+        }
+
+        @Override
+        public void alRecibirPregunta(Pregunta pregunta) {
+            responder(pregunta);
+            sincronizar();
+        }
+
+        @Override
+        public void alPararTest(Ranking ranking) {
+            sincronizar();
+        }
+
+        /**
+         * Planifica la respuesta registrada para la pregunta (si la sesión la respondió).
+         */
+        private void responder(Pregunta pregunta) {
+            RespuestaRegistrada registrada;
+            synchronized (guion) {
+                Deque<RespuestaRegistrada> registradas = guion.respuestas.get(pregunta.getId());
+                registrada = registradas != null ? registradas.poll() : null;
+            }
+            if (registrada == null) {
+                return;
+            }
+            Respuesta respuesta = registrada.respuesta;
+            respuesta.setNumeroPregunta(pregunta.getNumeroOrden());
+            programar(() -> {
+                try {
+                    sesion.enviarRespuesta(respuesta);
+                    respuestasEnviadas.increment();
+                } catch (IOException ex) {
+                    mensajesOmitidos.increment();
+                }
+            }, System.nanoTime() + escalar(registrada.retraso));
+        }
+
+        /**
+         * Planifica los mensajes que la sesión envió tras recibir la pregunta o el fin del test que acaba de
+         * recibir.
+         */
+        private void sincronizar() {
+            List<EventoProgramado> siguientes;
+            synchronized (guion) {
+                siguientes = guion.eventos.remove(++sincronizaciones);
+            }
+            if (siguientes == null) {
+                return;
+            }
+            long referencia = System.nanoTime();
+            for (EventoProgramado programado : siguientes) {
+                long instante = referencia + escalar(programado.desfase);
+                programar(() -> reproducir(this, programado.evento, instante), instante);
+            }
+        }
+
+        private void leerTramas() {
+            try {
+                while (true) {
+                    espectador.recibir();
+                }
+            } catch (IOException | ClassNotFoundException ex) {
+                // El espectador se ha desconectado
+            }
+        }
+
+        private void cerrar() {
+            if (sesion != null) {
+                sesion.close();
+            }
+            if (espectador != null) {
+                try {
+                    espectador.close();
+                } catch (IOException ex) {
+                    logger.warning(ex.getMessage());
+                }
+            }
+        }
+    }
+}
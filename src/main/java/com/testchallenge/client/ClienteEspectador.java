@@ -0,0 +1,94 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+
+/**
+ * Conexión de un espectador con el servidor: recibe el desarrollo de los tests sin participar en ellos.
+ *
+ * Tras el registro, el servidor envía cada mensaje como una trama (su longitud seguida del mensaje serializado de
+ * forma independiente), que se decodifica al recibirla. Los mensajes que se reciben son <code>TEST_EN_EJECUCION</code>,
+ * <code>RANKING_ACTUAL</code> (la clasificación del test en curso o, sin test, el ranking de la sesión),
+ * <code>TIMER_TICK</code>, <code>TEST_PREGUNTA</code> (una vez cerrada), <code>TEXTO</code> (inicio del test) y
+ * <code>TEST_PARAR</code>.
+ *
+ * @author japrada
+ */
+public class ClienteEspectador implements Closeable {
+
+    // Socket para la conexión con el servidor
+    private final Socket socket;
+    // Stream para la lectura de las tramas enviadas por el servidor
+    private final ObjectInputStream in;
+
+    /**
+     * Constructor de la clase.
+     *
+     * Establece la conexión con el servidor y se registra como espectador.
+     *
+     * @param servidor dirección IP o nombre de host en el que se encuentra en ejecución el servicio.
+     * @param puerto puerto en el que se ejecuta el servicio en el servidor.
+     * @param nombre nombre con el que se identifica el espectador (no tiene que ser único).
+     * @throws IOException excepción en la comunicación con el servidor.
+     * @throws ClassNotFoundException excepción al leer la respuesta del servidor.
+     */
+    public ClienteEspectador(String servidor, int puerto, String nombre) throws IOException, ClassNotFoundException {
+        socket = new Socket(servidor, puerto);
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            out.writeObject(new Mensaje(nombre, TipoMensaje.ESPECTADOR));
+            out.flush();
+            in = new ObjectInputStream(socket.getInputStream());
+            Mensaje respuesta = (Mensaje) in.readObject();
+            if (respuesta.getTipo() != TipoMensaje.NICKNAME_OK) {
+                throw new IOException(String.format("Respuesta '%s' inesperada al registro del espectador",
+                        respuesta.getTipo()));
+            }
+        } catch (IOException | ClassNotFoundException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Espera a recibir el siguiente mensaje del servidor.
+     *
+     * @return mensaje recibido.
+     * @throws IOException excepción en la comunicación con el servidor (o conexión cerrada).
+     * @throws ClassNotFoundException excepción al decodificar el mensaje.
+     */
+    public Mensaje recibir() throws IOException, ClassNotFoundException {
+        byte[] trama = new byte[in.readInt()];
+        in.readFully(trama);
+        try (ObjectInputStream tramaIn = new ObjectInputStream(new ByteArrayInputStream(trama))) {
+            return (Mensaje) tramaIn.readObject();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client;
+
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.Ranking;
+
+/**
+ * Interfaz que define las notificaciones que una <code>SesionCliente</code> hace llegar a su interfaz de usuario (la
+ * GUI Swing, un cliente de pruebas de carga, ...).
+ *
+ * Todos los métodos tienen una implementación por defecto vacía, de modo que cada oyente sólo implementa las
+ * notificaciones que le interesan. Las notificaciones del estado inicial se hacen en el hilo que llama a
+ * <code>SesionCliente.iniciar</code> y el resto en el hilo de servicio que lee los mensajes del servidor, por lo que
+ * no deben bloquearlo (una GUI tiene que trasladarlas a su propio hilo).
+ *
+ * @author japrada
+ */
+public interface IOyenteSesion {
+
+    /**
+     * Notifica el estado inicial recibido del servidor tras el registro del usuario.
+     *
+     * @param nicknamesConectados mensaje con los nicknames de los usuarios conectados.
+     * @param tematicas temáticas disponibles.
+     * @param ranking ranking actual.
+     */
+    default void alRegistrarse(String nicknamesConectados, String[] tematicas, Ranking ranking) {
+    }
+
+    /**
+     * Notifica que, al conectarse el usuario, ya había un test en ejecución.
+     *
+     * @param informacionTest mensaje de arranque del test.
+     * @param pregunta pregunta actual del test.
+     */
+    default void alUnirseATestEnEjecucion(String informacionTest, Pregunta pregunta) {
+    }
+
+    /**
+     * Notifica que, al conectarse el usuario, el test en ejecución estaba pausado.
+     */
+    default void alUnirseATestPausado() {
+    }
+
+    /**
+     * Notifica la recepción de un mensaje de chat.
+     *
+     * @param texto texto del mensaje.
+     */
+    default void alRecibirChat(String texto) {
+    }
+
+    /**
+     * Notifica el tiempo restante para responder a la pregunta actual.
+     *
+     * @param segundos segundos restantes.
+     */
+    default void alRecibirTiempoRestante(String segundos) {
+    }
+
+    /**
+     * Notifica la recepción de una nueva pregunta del test.
+     *
+     * @param pregunta pregunta recibida.
+     */
+    default void alRecibirPregunta(Pregunta pregunta) {
+    }
+
+    /**
+     * Notifica que otro usuario ha iniciado un nuevo test.
+     */
+    default void alIniciarTest() {
+    }
+
+    /**
+     * Notifica que el test ha terminado.
+     *
+     * @param ranking ranking final del test (<code>null</code> si no había preguntas con los criterios especificados).
+     */
+    default void alPararTest(Ranking ranking) {
+    }
+
+    /**
+     * Notifica el ranking (parcial) actual.
+     *
+     * @param ranking ranking actual.
+     */
+    default void alRecibirRanking(Ranking ranking) {
+    }
+
+    /**
+     * Notifica que el test se ha pausado.
+     */
+    default void alPausarTest() {
+    }
+
+    /**
+     * Notifica que el test se ha reanudado.
+     */
+    default void alReanudarTest() {
+    }
+
+    /**
+     * Notifica la puntuación obtenida por la respuesta enviada a la pregunta actual.
+     *
+     * @param puntuacion puntuación de la respuesta.
+     */
+    default void alRecibirPuntuacion(Puntuacion puntuacion) {
+    }
+
+    /**
+     * Notifica que la conexión con el servidor ha terminado.
+     */
+    default void alDesconectarse() {
+    }
+}
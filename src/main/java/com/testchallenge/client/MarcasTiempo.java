@@ -0,0 +1,42 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marcas de tiempo del cliente que el servidor utiliza para compensar la latencia de red.
+ *
+ * Los instantes son milisegundos de un reloj monótono local. El servidor estima el desfase entre este reloj y el suyo
+ * mediante los mensajes PING/PONG, por lo que no es necesario que los relojes estén sincronizados.
+ *
+ * @author japrada
+ */
+public final class MarcasTiempo {
+
+    private MarcasTiempo() {
+    }
+
+    /**
+     * Obtiene el instante actual del reloj monótono en milisegundos.
+     *
+     * @return instante actual en milisegundos.
+     */
+    public static long ahora() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
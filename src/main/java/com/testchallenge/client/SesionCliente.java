@@ -0,0 +1,628 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client;
+
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.Ranking;
+import com.testchallenge.model.Respuesta;
+import com.testchallenge.model.TipoMensaje;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Sesión de un usuario con el servidor, independiente de la interfaz de usuario.
+ *
+ * Gestiona la conexión, el registro del nickname, la lectura del estado inicial, la decodificación de los mensajes del
+ * servidor (a través de un <code>TestChallengeClientThread</code>), el estado del test en curso y el envío de
+ * solicitudes al servidor. Las interfaces de usuario (la GUI Swing, los clientes de las pruebas de carga, ...) reciben
+ * las notificaciones a través de un <code>IOyenteSesion</code>.
+ *
+ * Los métodos de envío se pueden llamar desde cualquier hilo: los mensajes se escriben de uno en uno en el stream.
+ *
+ * Si se pierde la conexión, la sesión se reanuda en una nueva conexión con el token que envió el servidor al
+ * registrarse y el número del último mensaje recibido, y el servidor reenvía los mensajes que no llegaron (ver
+ * <code>SesionReanudable</code>). Si el servidor ya no puede reanudar la sesión (por ejemplo, porque se ha reiniciado y
+ * los tokens sólo se guardan en memoria), el usuario se registra de nuevo con el mismo nickname y se une al test en
+ * ejecución. Los mensajes que se envían al servidor mientras no hay conexión se pierden.
+ *
+ * @author japrada
+ */
+public class SesionCliente implements Closeable {
+
+    // Servidor y puerto con los que se establece la conexión (y se reanuda la sesión)
+    private final String servidor;
+    private final int puerto;
+    // Socket para la conexión con el servidor (cambia al reanudar la sesión)
+    private volatile Socket socket;
+    // Stream para la escritura de mensajes hacia el servidor
+    private volatile ObjectOutputStream out;
+    // Stream para la lectura de los mensajes enviados por el servidor (se abre al registrar el nickname)
+    private volatile ObjectInputStream in;
+    // Cerrojo de las escrituras en el stream
+    private final Object cerrojoEnvio = new Object();
+    // Nickname con el que se ha registrado el usuario
+    private String nickname;
+    // Token con el que se reanuda la sesión si se pierde la conexión (vacío si el servidor no lo admite)
+    private String tokenReanudacion;
+    // Número de mensajes recibidos por el hilo de servicio (el servidor los numera del mismo modo)
+    private long secuenciaRecibida;
+    // Indica si el usuario ha cerrado la sesión (ya no se reanuda)
+    private volatile boolean cerrada;
+
+    // Estado del test
+    private volatile boolean testEnEjecucion;
+    private volatile boolean testPausado;
+    private volatile Ranking ranking;
+    private volatile Pregunta preguntaActual;
+    private volatile Puntuacion puntuacionPreguntaActual;
+    // Instante en el que se recibió la pregunta actual
+    private volatile long instanteRecepcionPregunta;
+
+    // Contadores de mensajes intercambiados con el servidor
+    private final AtomicLong mensajesEnviados = new AtomicLong();
+    private final AtomicLong mensajesRecibidos = new AtomicLong();
+
+    // Número máximo de intentos de reanudar la sesión tras perder la conexión
+    private static final int INTENTOS_REANUDACION = 5;
+    // Espera antes del segundo intento de reanudación (se duplica en cada intento)
+    private static final long ESPERA_REANUDACION_MS = 1000;
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(SesionCliente.class.getName());
+
+    /**
+     * Constructor de la clase.
+     *
+     * Establece la conexión con el servidor.
+     *
+     * @param servidor dirección IP o nombre de host en el que se encuentra en ejecución el servicio.
+     * @param puerto puerto en el que se ejecuta el servicio en el servidor.
+     * @throws IOException excepción al establecer la conexión.
+     */
+    public SesionCliente(String servidor, int puerto) throws IOException {
+        this.servidor = servidor;
+        this.puerto = puerto;
+        socket = new Socket(servidor, puerto);
+        try {
+            out = new ObjectOutputStream(socket.getOutputStream());
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+        logger.info(String.format("'%s': Conexión establecida desde '%s':'%d' con el servidor '%s':'%d'.",
+                SesionCliente.class.getSimpleName(), socket.getLocalAddress(), socket.getLocalPort(),
+                getServidor(), getPuerto()));
+    }
+
+    /**
+     * Registra el nickname del usuario en el servidor.
+     *
+     * @param nickname nickname o alias del usuario.
+     * @return <code>true</code> si el nickname se ha registrado y <code>false</code> si ya estaba en uso.
+     * @throws IOException excepción en la comunicación con el servidor.
+     * @throws ClassNotFoundException excepción al leer la respuesta del servidor.
+     */
+    public boolean registrar(String nickname) throws IOException, ClassNotFoundException {
+        enviar(new Mensaje(nickname));
+        if (in == null) {
+            in = new ObjectInputStream(socket.getInputStream());
+        }
+        Mensaje respuesta = leer();
+        if (respuesta.getTipo().equals(TipoMensaje.NICKNAME_OK)) {
+            this.nickname = nickname;
+            this.tokenReanudacion = respuesta.getTexto();
+            return true;
+        }
+        logger.info(String.format("'%s': nickname '%s' duplicado. Sesión no iniciada.",
+                SesionCliente.class.getSimpleName(), nickname));
+        return false;
+    }
+
+    /**
+     * Lee el estado inicial que envía el servidor tras el registro, lo notifica al oyente y arranca el hilo de
+     * servicio que recibe el resto de mensajes.
+     *
+     * @param oyente oyente al que se notifican los mensajes recibidos.
+     * @throws IOException excepción en la comunicación con el servidor.
+     * @throws ClassNotFoundException excepción al leer los mensajes del servidor.
+     */
+    public void iniciar(IOyenteSesion oyente) throws IOException, ClassNotFoundException {
+        if (nickname == null) {
+            throw new IllegalStateException("El usuario no se ha registrado en el servidor");
+        }
+
+        leerEstadoInicial(oyente);
+
+        // Arrancar el hilo de servicio
+        new TestChallengeClientThread(this, oyente).start();
+    }
+
+    /**
+     * Lee el estado inicial que envía el servidor tras el registro y lo notifica al oyente.
+     *
+     * @param oyente oyente al que se notifican los mensajes recibidos.
+     * @throws IOException excepción en la comunicación con el servidor.
+     * @throws ClassNotFoundException excepción al leer los mensajes del servidor.
+     */
+    private void leerEstadoInicial(IOyenteSesion oyente) throws IOException, ClassNotFoundException {
+        // NICKNAMES, TEMÁTICAS y RANKING actual
+        String nicknamesConectados = leer().getTexto();
+        String[] tematicas = leer().getTextArray();
+        ranking = leer().getRanking();
+        oyente.alRegistrarse(nicknamesConectados, tematicas, ranking);
+
+        // FLAG TEST EN EJECUCIÓN: si hay un test en ejecución, se recibe su mensaje de arranque y la pregunta actual
+        // (al registrarse de nuevo, el test en el que participaba el usuario puede haber terminado)
+        if (leer().getFlag().equals(Boolean.TRUE)) {
+            String informacionTest = leer().getTexto();
+            Pregunta pregunta = leer().getPregunta();
+            registrarPregunta(pregunta, MarcasTiempo.ahora());
+            oyente.alUnirseATestEnEjecucion(informacionTest, pregunta);
+        } else {
+            testEnEjecucion = false;
+        }
+
+        // FLAG TEST PAUSADO
+        testPausado = leer().getFlag().equals(Boolean.TRUE);
+        if (testPausado) {
+            oyente.alUnirseATestPausado();
+        }
+    }
+
+    /**
+     * Envía un mensaje de chat (o el comando BYE para cerrar la sesión).
+     *
+     * @param texto texto del mensaje.
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void enviarChat(String texto) throws IOException {
+        if (texto.equals(TipoMensaje.BYE.toString())) {
+            enviar(new Mensaje(TipoMensaje.BYE));
+        } else {
+            enviar(new Mensaje(texto));
+        }
+    }
+
+    /**
+     * Solicita al servidor el inicio de un test.
+     *
+     * @param configuracion configuración del test.
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void iniciarTest(Configuracion configuracion) throws IOException {
+        testEnEjecucion = true;
+        testPausado = false;
+        enviar(new Mensaje(configuracion, TipoMensaje.INICIAR_TEST));
+    }
+
+    /**
+     * Solicita al servidor que detenga el test en ejecución.
+     *
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void detenerTest() throws IOException {
+        enviar(new Mensaje(TipoMensaje.DETENER_TEST));
+    }
+
+    /**
+     * Solicita al servidor que pause el test en ejecución.
+     *
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void pausarTest() throws IOException {
+        enviar(new Mensaje(TipoMensaje.PAUSAR_TEST));
+    }
+
+    /**
+     * Solicita al servidor que reanude el test pausado.
+     *
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void reanudarTest() throws IOException {
+        enviar(new Mensaje(TipoMensaje.REANUDAR_TEST));
+    }
+
+    /**
+     * Solicita al servidor que amplíe el tiempo de respuesta de la pregunta actual.
+     *
+     * @param segundos segundos que se amplía el tiempo de respuesta.
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void ampliarTiempo(Object segundos) throws IOException {
+        enviar(new Mensaje(segundos, TipoMensaje.AMPLIAR_TIEMPO_RESPUESTA));
+    }
+
+    /**
+     * Envía una pregunta nueva al servidor.
+     *
+     * @param pregunta pregunta (con sus datos multimedia, si los tiene).
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void enviarPregunta(Pregunta pregunta) throws IOException {
+        enviar(new Mensaje(pregunta, TipoMensaje.PREGUNTA_ENVIAR));
+    }
+
+    /**
+     * Envía la respuesta a la pregunta actual, con las marcas de tiempo con las que el servidor compensa la latencia
+     * de la conexión.
+     *
+     * @param respuesta respuesta del usuario (con el número de orden de la pregunta a la que responde).
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void enviarRespuesta(Respuesta respuesta) throws IOException {
+        Pregunta pregunta = preguntaActual;
+        boolean esPreguntaActual = pregunta != null && respuesta.getNumeroPregunta() != null
+                && respuesta.getNumeroPregunta().equals(pregunta.getNumeroOrden());
+        respuesta.setMarcasTiempo(esPreguntaActual ? instanteRecepcionPregunta : 0, MarcasTiempo.ahora());
+        enviar(new Mensaje(respuesta, TipoMensaje.RESPUESTA_ENVIAR));
+    }
+
+    /**
+     * Envía un mensaje al servidor tal cual (lo utiliza también la reproducción de los diarios de eventos).
+     *
+     * @param mensaje mensaje que se envía.
+     * @throws IOException excepción al enviar el mensaje.
+     */
+    public void enviar(Mensaje mensaje) throws IOException {
+        if (mensaje.getTipo() == TipoMensaje.BYE) {
+            // El servidor cerrará la conexión: no hay que reanudar la sesión
+            cerrada = true;
+        }
+        synchronized (cerrojoEnvio) {
+            out.writeObject(mensaje);
+            out.flush();
+        }
+        mensajesEnviados.incrementAndGet();
+    }
+
+    /**
+     * Lee un mensaje enviado por el servidor.
+     *
+     * @return mensaje leído (<code>null</code> si el servidor ha cerrado el stream).
+     * @throws IOException excepción al leer el mensaje.
+     * @throws ClassNotFoundException excepción al deserializar el mensaje.
+     */
+    Mensaje leer() throws IOException, ClassNotFoundException {
+        Mensaje mensaje = (Mensaje) in.readObject();
+        if (mensaje != null) {
+            mensajesRecibidos.incrementAndGet();
+        }
+        return mensaje;
+    }
+
+    /**
+     * Lee un mensaje enviado por el servidor después del registro y lo cuenta en la secuencia de mensajes recibidos
+     * con la que se reanuda la sesión (sólo lo llama el hilo de servicio).
+     *
+     * @return mensaje leído (<code>null</code> si el servidor ha cerrado el stream).
+     * @throws IOException excepción al leer el mensaje.
+     * @throws ClassNotFoundException excepción al deserializar el mensaje.
+     */
+    Mensaje leerSiguiente() throws IOException, ClassNotFoundException {
+        Mensaje mensaje = leer();
+        if (mensaje != null) {
+            secuenciaRecibida++;
+        }
+        return mensaje;
+    }
+
+    /**
+     * Reanuda la sesión en una nueva conexión tras perder la anterior (sólo lo llama el hilo de servicio).
+     *
+     * Se reintenta varias veces, con esperas crecientes, mientras no se pueda conectar con el servidor. Si el servidor
+     * acepta la reanudación, a continuación envía los mensajes posteriores al último que se recibió. Si la deniega, el
+     * usuario se registra de nuevo (ver <code>registrarDeNuevo</code>).
+     *
+     * @param oyente oyente al que se notifica el estado inicial si el usuario se registra de nuevo.
+     * @return <code>true</code> si la sesión continúa en la nueva conexión y <code>false</code> si no es posible (el
+     * usuario la ha cerrado, el servidor no lo admite o el nickname ya está en uso).
+     */
+    boolean reanudar(IOyenteSesion oyente) {
+        if (cerrada || tokenReanudacion == null || tokenReanudacion.isEmpty()) {
+            return false;
+        }
+        for (int intento = 0; intento < INTENTOS_REANUDACION && !cerrada; intento++) {
+            if (intento > 0) {
+                try {
+                    Thread.sleep(ESPERA_REANUDACION_MS << (intento - 1));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            Socket nuevoSocket = null;
+            try {
+                nuevoSocket = new Socket(servidor, puerto);
+                ObjectOutputStream nuevoOut = new ObjectOutputStream(nuevoSocket.getOutputStream());
+                nuevoOut.writeObject(new Mensaje(
+                        new String[]{nickname, tokenReanudacion, Long.toString(secuenciaRecibida)},
+                        TipoMensaje.REANUDAR_SESION));
+                nuevoOut.flush();
+                ObjectInputStream nuevoIn = new ObjectInputStream(nuevoSocket.getInputStream());
+                if (!Boolean.TRUE.equals(((Mensaje) nuevoIn.readObject()).getFlag())) {
+                    logger.info(String.format("'%s': El servidor no admite la reanudación de la sesión de '%s'.",
+                            SesionCliente.class.getSimpleName(), nickname));
+                    nuevoSocket.close();
+                    return registrarDeNuevo(oyente);
+                }
+                synchronized (cerrojoEnvio) {
+                    cerrarSocket();
+                    socket = nuevoSocket;
+                    out = nuevoOut;
+                    in = nuevoIn;
+                }
+                logger.info(String.format("'%s': Sesión de '%s' reanudada tras %d mensajes recibidos.",
+                        SesionCliente.class.getSimpleName(), nickname, secuenciaRecibida));
+                return true;
+            } catch (IOException | ClassNotFoundException ex) {
+                logger.warning(String.format("'%s': Intento %d de reanudar la sesión de '%s' fallido: %s",
+                        SesionCliente.class.getSimpleName(), intento + 1, nickname, ex.getMessage()));
+                if (nuevoSocket != null) {
+                    try {
+                        nuevoSocket.close();
+                    } catch (IOException ioe) {
+                        logger.severe(ioe.getMessage());
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Registra de nuevo al usuario, con el mismo nickname, cuando el servidor no puede reanudar su sesión (sólo lo
+     * llama el hilo de servicio).
+     *
+     * El servidor trata la nueva conexión como un registro normal: envía un nuevo token de reanudación y el estado
+     * inicial, con el test en ejecución si lo hay, y los mensajes se vuelven a numerar desde el principio. Los mensajes
+     * que se enviaron mientras no había conexión se pierden.
+     *
+     * @param oyente oyente al que se notifica el estado inicial.
+     * @return <code>true</code> si el usuario se ha registrado de nuevo.
+     */
+    private boolean registrarDeNuevo(IOyenteSesion oyente) {
+        Socket nuevoSocket = null;
+        try {
+            nuevoSocket = new Socket(servidor, puerto);
+            ObjectOutputStream nuevoOut = new ObjectOutputStream(nuevoSocket.getOutputStream());
+            nuevoOut.writeObject(new Mensaje(nickname));
+            nuevoOut.flush();
+            ObjectInputStream nuevoIn = new ObjectInputStream(nuevoSocket.getInputStream());
+            Mensaje respuesta = (Mensaje) nuevoIn.readObject();
+            if (!respuesta.getTipo().equals(TipoMensaje.NICKNAME_OK)) {
+                logger.info(String.format("'%s': nickname '%s' duplicado. No se puede registrar de nuevo.",
+                        SesionCliente.class.getSimpleName(), nickname));
+                nuevoSocket.close();
+                return false;
+            }
+            synchronized (cerrojoEnvio) {
+                cerrarSocket();
+                socket = nuevoSocket;
+                out = nuevoOut;
+                in = nuevoIn;
+            }
+            tokenReanudacion = respuesta.getTexto();
+            secuenciaRecibida = 0;
+            leerEstadoInicial(oyente);
+            logger.info(String.format("'%s': Usuario '%s' registrado de nuevo.",
+                    SesionCliente.class.getSimpleName(), nickname));
+            return true;
+        } catch (IOException | ClassNotFoundException ex) {
+            logger.warning(String.format("'%s': No se puede registrar de nuevo a '%s': %s",
+                    SesionCliente.class.getSimpleName(), nickname, ex.getMessage()));
+            if (nuevoSocket != null) {
+                try {
+                    nuevoSocket.close();
+                } catch (IOException ioe) {
+                    logger.severe(ioe.getMessage());
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Responde a un mensaje PING del servidor con su marca de envío junto con las de recepción y envío del cliente.
+     *
+     * @param instanteEnvioPing instante de envío del PING en el reloj del servidor.
+     * @param instanteRecepcion instante de recepción del PING en el reloj del cliente.
+     * @throws IOException excepción al enviar la respuesta.
+     */
+    void responderPing(long instanteEnvioPing, long instanteRecepcion) throws IOException {
+        enviar(new Mensaje(new long[]{instanteEnvioPing, instanteRecepcion, MarcasTiempo.ahora()},
+                TipoMensaje.PONG));
+    }
+
+    /**
+     * Registra la recepción de una pregunta del test.
+     *
+     * @param pregunta pregunta recibida.
+     * @param instante instante de recepción.
+     */
+    void registrarPregunta(Pregunta pregunta, long instante) {
+        instanteRecepcionPregunta = instante;
+        puntuacionPreguntaActual = null;
+        preguntaActual = pregunta;
+        testEnEjecucion = true;
+    }
+
+    /**
+     * Registra el inicio de un test solicitado por otro usuario.
+     */
+    void registrarInicioTest() {
+        preguntaActual = null;
+        puntuacionPreguntaActual = null;
+        testEnEjecucion = true;
+        testPausado = false;
+    }
+
+    /**
+     * Registra el final del test.
+     *
+     * @param rankingFinal ranking final del test (<code>null</code> si no había preguntas).
+     */
+    void registrarFinTest(Ranking rankingFinal) {
+        if (rankingFinal != null) {
+            ranking = rankingFinal;
+        }
+        preguntaActual = null;
+        testEnEjecucion = false;
+        testPausado = false;
+    }
+
+    /**
+     * Registra el ranking (parcial) actual.
+     *
+     * @param rankingActual ranking actual.
+     */
+    void registrarRanking(Ranking rankingActual) {
+        ranking = rankingActual;
+    }
+
+    /**
+     * Registra si el test está pausado.
+     *
+     * @param pausado <code>true</code> si el test se ha pausado y <code>false</code> si se ha reanudado.
+     */
+    void registrarPausa(boolean pausado) {
+        testPausado = pausado;
+    }
+
+    /**
+     * Registra la puntuación de la respuesta enviada a la pregunta actual.
+     *
+     * @param puntuacion puntuación de la respuesta.
+     */
+    void registrarPuntuacion(Puntuacion puntuacion) {
+        puntuacionPreguntaActual = puntuacion;
+    }
+
+    /**
+     * Obtiene el nickname con el que se ha registrado el usuario.
+     *
+     * @return nickname (<code>null</code> si todavía no se ha registrado).
+     */
+    public String getNickname() {
+        return nickname;
+    }
+
+    /**
+     * Obtiene el nombre del servidor con el que se ha establecido la conexión.
+     *
+     * @return nombre del servidor.
+     */
+    public String getServidor() {
+        return socket.getInetAddress().getHostName();
+    }
+
+    /**
+     * Obtiene el puerto del servidor con el que se ha establecido la conexión.
+     *
+     * @return puerto del servidor.
+     */
+    public int getPuerto() {
+        return socket.getPort();
+    }
+
+    /**
+     * Indica si hay un test en ejecución.
+     *
+     * @return <code>true</code> si hay un test en ejecución.
+     */
+    public boolean isTestEnEjecucion() {
+        return testEnEjecucion;
+    }
+
+    /**
+     * Indica si el test en ejecución está pausado.
+     *
+     * @return <code>true</code> si el test está pausado.
+     */
+    public boolean isTestPausado() {
+        return testPausado;
+    }
+
+    /**
+     * Obtiene el último ranking recibido.
+     *
+     * @return ranking (puede ser <code>null</code>).
+     */
+    public Ranking getRanking() {
+        return ranking;
+    }
+
+    /**
+     * Obtiene la pregunta actual del test.
+     *
+     * @return pregunta actual (<code>null</code> si no hay un test en ejecución).
+     */
+    public Pregunta getPreguntaActual() {
+        return preguntaActual;
+    }
+
+    /**
+     * Obtiene la puntuación de la respuesta enviada a la pregunta actual.
+     *
+     * @return puntuación (<code>null</code> si todavía no se ha recibido).
+     */
+    public Puntuacion getPuntuacionPreguntaActual() {
+        return puntuacionPreguntaActual;
+    }
+
+    /**
+     * Obtiene el número de mensajes enviados al servidor.
+     *
+     * @return número de mensajes enviados.
+     */
+    public long getMensajesEnviados() {
+        return mensajesEnviados.get();
+    }
+
+    /**
+     * Obtiene el número de mensajes recibidos del servidor.
+     *
+     * @return número de mensajes recibidos.
+     */
+    public long getMensajesRecibidos() {
+        return mensajesRecibidos.get();
+    }
+
+    /**
+     * Cierra la conexión con el servidor (el hilo de servicio termina y notifica la desconexión al oyente).
+     */
+    @Override
+    public void close() {
+        cerrada = true;
+        cerrarSocket();
+    }
+
+    private void cerrarSocket() {
+        try {
+            // Al cerrar el socket se cierran también sus streams
+            socket.close();
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+        }
+    }
+}
@@ -17,177 +17,158 @@
  */
 package com.testchallenge.client;
 
-import com.testchallenge.client.gui.TestChallengeClient;
-import com.testchallenge.client.gui.TimerPanel;
 import com.testchallenge.model.Mensaje;
 import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Puntuacion;
 import com.testchallenge.model.Ranking;
 import com.testchallenge.model.TipoMensaje;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.logging.Logger;
 
 /**
- * Thread de servicio creado por <code>TestChallengeClient</code> que lee asíncronamente los mensajes que los otros
+ * Thread de servicio creado por <code>SesionCliente</code> que lee asíncronamente los mensajes que los otros
  * clientes envían al chat (actuando el servidor como intermediario), así como las notificaciones enviadas por el
  * servidor.
  *
+ * Los mensajes se decodifican, se registran en el estado de la sesión y se notifican al oyente de la sesión.
+ *
  * @author jprada
  */
 public class TestChallengeClientThread extends Thread {
 
-    // nickname o alias del usuario al que da servicio el hilo
-    private final String nickname;
-    // Stream para la lectura de los mensajes enviados por el servidor
-    private ObjectInputStream serverDataIn;
-    // Referencia al objeto padre que ha creado el hilo de servicio
-    private TestChallengeClient testChallengeClient;
+    // Sesión a la que da servicio el hilo
+    private final SesionCliente sesion;
+    // Oyente al que se notifican los mensajes recibidos
+    private final IOyenteSesion oyente;
 
     private final static Logger logger = Logger.getLogger(TestChallengeClientThread.class.getName());
 
     /**
      * Constructor de la clase.
      *
-     * Construye un objeto del tipo especificado para la gestión de los mensajes que el servidor de chat envía al
-     * usuario con el nickname especificado.
-     *
-     * @param nickname Nickname o alias del usuario que se ha conectado al chat.
-     */
-    public TestChallengeClientThread(String nickname) {
-        this.nickname = nickname;
-    }
-
-    /**
-     * Establece el stream a través del cual el cliente recibe mensajes desde el servidor.
-     *
-     * @param serverDataIn stream a través del cual el cliente recibe mensajes desde el servidor.
-     */
-    public void setServerDataIn(ObjectInputStream serverDataIn) {
-        this.serverDataIn = serverDataIn;
-    }
-
-    /**
-     * Establece la referencia al objeto que ha creado el hilo.
+     * Construye un objeto del tipo especificado para la gestión de los mensajes que el servidor envía al usuario de
+     * la sesión especificada.
      *
-     * @param testChallengeClient referencia al objeto que ha creado el hilo.
+     * @param sesion sesión del usuario que se ha conectado al servidor.
+     * @param oyente oyente al que se notifican los mensajes recibidos.
      */
-    public void setTestChallengeClient(TestChallengeClient testChallengeClient) {
-        this.testChallengeClient = testChallengeClient;
+    TestChallengeClientThread(SesionCliente sesion, IOyenteSesion oyente) {
+        super(String.format("%s-%s", TestChallengeClientThread.class.getSimpleName(), sesion.getNickname()));
+        this.sesion = sesion;
+        this.oyente = oyente;
     }
 
     @Override
     public void run() {
         try {
-            Mensaje mensaje;
-            do {
-                // Leer un mensaje enviado desde el servidor
-                mensaje = (Mensaje) serverDataIn.readObject();
-
-                // Procesar el mensaje
-                // NOTA: Si el mensaje es null es porque el stream de lectura se ha cerrado desde el servidor
-                if (mensaje != null) {
-
-                    TipoMensaje tipoMensaje = mensaje.getTipo();
-
-                    // Analizar si el mensaje contiene un comando del lado del servidor
-                    switch (tipoMensaje) {
-                        case TIMER_TICK:
-                            // Extraer el tiempo restante y mostrarlo en el TimerPanel
-                            String tiempoRestante = mensaje.getTexto();
-                            TimerPanel timerPanel = (TimerPanel) testChallengeClient.getTestPanel().getTimerPanel();
-                            timerPanel.setTimer(String.format("%s segundos", tiempoRestante));
-                            break;
-                        case TEST_PREGUNTA:
-                            Pregunta pregunta = mensaje.getPregunta();
-                            testChallengeClient.getTestPanel().setPregunta(pregunta);
-                            break;
-                        case INICIAR_TEST:
-                            // Mensaje enviado por el servidor a todos los clientes (menos el que solicita iniciar 
-                            // el test) para que reseteen el panel de preguntas porque un usuario ha solicitado
-                            // iniciar un nuevo test
-                            testChallengeClient.getTestPanel().resetPanelPreguntas();
-                            break;
-                        case TEST_PARAR:
-                            // Desde el lado del servidor se notifica a los clientes que el test se para ... 
-                            // ----------------
-                            // Resetear el panel de preguntas y 
-                            testChallengeClient.getTestPanel().setPregunta();
-                            // actualizar el ranking
-                            Ranking ranking = mensaje.getRanking();
-                            if (ranking != null) {
-                                testChallengeClient.getTestPanel().setRanking(ranking, nickname);
-                                testChallengeClient.getTestPanel().setModoRevisionEnabled(true);
-                                // Mostrar un diálogo para informar del número de puntos obtenidos
-                                testChallengeClient.getTestPanel().popUpResultados();
-                            } else {
-                                testChallengeClient.getTestPanel().setModoRevisionEnabled(false);
-                                testChallengeClient.getChatPanel().addMessage("No hay preguntas con los criterios especificados.");
-                                // El test no se ha ejecutado porque no hay preguntas que cumplan los criterios especificados
-                                testChallengeClient.getTestPanel().popUpTestSinPreguntas();
-                            }
-
-                            testChallengeClient.getTestPanel().getConfiguracionPanel().setEnabled(true);
-                            testChallengeClient.getTestPanel().getIniciarTestButton().setEnabled(true);
-                            break;
-
-                        case TEST_PAUSADO:
-                            // Desde el lado del servidor se notifica a los clientes que el test se pausa ...
-                            // *****************
-                            // En la interfaz de usuario el cliente tiene que cambiar el icono de "Pause" por "Play"
-                            // *****************
-                            testChallengeClient.getTestPanel().getPreguntasPanel().setResumeButtonEnabled();
-                            break;
-                        case TEST_REANUDADO:
-                            // Desde el lado del servidor se notifica a los clientes que el test se para ... 
-                            // *****************
-                            // En la interfaz de usuario el cliente tiene que cambiar el icono de "Play" por "Pause"
-                            // *****************
-                            testChallengeClient.getTestPanel().getPreguntasPanel().setPauseButtonEnabled();
-                            break;
-                        case PREGUNTA_CONTESTADA_CORRECTAMENTE_Y_PRIMERA:
-                            // El cliente es notificado de que un usuario ha contestado correctamente la pregunta.
-                            // Este mensaje se utiliza para desactivar el panel que permite ampliar el tiempo restante.
-                            // De ese modo, una vez que el primer usuario haya contestado correctamente a la pregunta 
-                            // no se podrán enviar nuevas solicitudes para ampliar el tiempo restante
-                            testChallengeClient.getTestPanel().getPreguntasPanel().setAmpliarSegundosPanelEnabled(false);
-
-                            // Si la respuesta enviada por el usuario es correcta y, además, es la primera ...
-                            // se actualiza la puntuación en la pregunta
-                            testChallengeClient.getTestPanel().getPreguntasPanel().
-                                    setPuntuacionPreguntaActual(Puntuacion.CORRECTA_Y_PRIMERA);
-                            break;
-                        case PREGUNTA_CONTESTADA_CORRECTAMENTE:
-                            // Si la respuesta enviada es correcta, pero el usuario no ha sido el primero en contestar
-                            testChallengeClient.getTestPanel().getPreguntasPanel().
-                                    setPuntuacionPreguntaActual(Puntuacion.CORRECTA);
-                            break;
-                        case PREGUNTA_NO_CONTESTADA_CORRECTAMENTE:
-                            // Si la respuesta enviada por el usuario es incorrecta, se actualiza la puntuación
-                            testChallengeClient.getTestPanel().getPreguntasPanel().
-                                    setPuntuacionPreguntaActual(Puntuacion.INCORRECTA);
-                            break;
-                        case PREGUNTA_NO_RESPONDIDA:
-                            // Si la respuesta enviada no contiene opciones seleccionadas
-                            testChallengeClient.getTestPanel().getPreguntasPanel().
-                                    setPuntuacionPreguntaActual(Puntuacion.NO_RESPONDIDA);
-                            break;
-                        default:
-                            // En cualquier otro caso, se asume que se trata de un intercambio de mensajes de texto en el chat
-                            testChallengeClient.getChatPanel().addMessage(mensaje.getTexto());
-                            break;
+            boolean streamCerrado = false;
+            while (!streamCerrado) {
+                try {
+                    // Leer un mensaje enviado desde el servidor
+                    Mensaje mensaje = sesion.leerSiguiente();
+                    // Instante de recepción (para las medidas de latencia que realiza el servidor)
+                    long instanteRecepcion = MarcasTiempo.ahora();
+
+                    // Procesar el mensaje
+                    // NOTA: Si el mensaje es null es porque el stream de lectura se ha cerrado desde el servidor
+                    if (mensaje != null) {
+                        procesar(mensaje, instanteRecepcion);
+                    } else {
+                        streamCerrado = true;
+                    }
+                } catch (IOException ex) {
+                    // Conexión perdida: se reanuda la sesión en una nueva conexión (el servidor reenvía los mensajes
+                    // que no se han recibido o, si no la puede reanudar, se registra de nuevo al usuario) y, si no es
+                    // posible, el hilo termina
+                    if (!sesion.reanudar(oyente)) {
+                        throw ex;
                     }
                 }
-            } while (mensaje != null);
+            }
 
         } catch (IOException | ClassNotFoundException ioe) {
             logger.severe(ioe.getMessage());
         } finally {
             logger.info(String.format("'%s': Servicio finalizado para '%s'.",
-                    TestChallengeClientThread.class.getSimpleName(), nickname));
-            // Si el hilo de servicio se finaliza (servidor terminado), finalizamos también el hilo padre
-            testChallengeClient.terminar();
+                    TestChallengeClientThread.class.getSimpleName(), sesion.getNickname()));
+            // Si el hilo de servicio se finaliza (servidor terminado), se notifica al oyente
+            oyente.alDesconectarse();
+        }
+    }
+
+    /**
+     * Registra en la sesión y notifica al oyente un mensaje enviado por el servidor.
+     *
+     * @param mensaje mensaje enviado por el servidor.
+     * @param instanteRecepcion instante de recepción del mensaje.
+     * @throws IOException excepción al responder al servidor.
+     */
+    private void procesar(Mensaje mensaje, long instanteRecepcion) throws IOException {
+        switch (mensaje.getTipo()) {
+            case PING:
+                // Devolver al servidor su marca de envío junto con las de recepción y envío del cliente
+                sesion.responderPing(mensaje.getMarcasTiempo()[0], instanteRecepcion);
+                break;
+            case TIMER_TICK:
+                oyente.alRecibirTiempoRestante(mensaje.getTexto());
+                break;
+            case TEST_PREGUNTA:
+                Pregunta pregunta = mensaje.getPregunta();
+                sesion.registrarPregunta(pregunta, instanteRecepcion);
+                oyente.alRecibirPregunta(pregunta);
+                break;
+            case INICIAR_TEST:
+                // Mensaje enviado por el servidor a todos los clientes (menos el que solicita iniciar 
+                // el test) porque un usuario ha solicitado iniciar un nuevo test
+                sesion.registrarInicioTest();
+                oyente.alIniciarTest();
+                break;
+            case TEST_PARAR:
+                // Desde el lado del servidor se notifica a los clientes que el test se para (sin ranking si no
+                // había preguntas con los criterios especificados)
+                Ranking ranking = mensaje.getRanking();
+                sesion.registrarFinTest(ranking);
+                oyente.alPararTest(ranking);
+                break;
+            case RANKING_ACTUAL:
+                // Ranking (parcial) enviado por el servidor a solicitud del cliente
+                sesion.registrarRanking(mensaje.getRanking());
+                oyente.alRecibirRanking(mensaje.getRanking());
+                break;
+            case TEST_PAUSADO:
+                sesion.registrarPausa(true);
+                oyente.alPausarTest();
+                break;
+            case TEST_REANUDADO:
+                sesion.registrarPausa(false);
+                oyente.alReanudarTest();
+                break;
+            case PREGUNTA_CONTESTADA_CORRECTAMENTE_Y_PRIMERA:
+                notificarPuntuacion(Puntuacion.CORRECTA_Y_PRIMERA);
+                break;
+            case PREGUNTA_CONTESTADA_CORRECTAMENTE:
+                notificarPuntuacion(Puntuacion.CORRECTA);
+                break;
+            case PREGUNTA_NO_CONTESTADA_CORRECTAMENTE:
+                notificarPuntuacion(Puntuacion.INCORRECTA);
+                break;
+            case PREGUNTA_NO_RESPONDIDA:
+                notificarPuntuacion(Puntuacion.NO_RESPONDIDA);
+                break;
+            default:
+                // En cualquier otro caso, se asume que se trata de un intercambio de mensajes de texto en el chat
+                oyente.alRecibirChat(mensaje.getTexto());
+                break;
         }
     }
 
+    /**
+     * Registra en la sesión y notifica al oyente la puntuación de la respuesta enviada a la pregunta actual.
+     *
+     * @param puntuacion puntuación de la respuesta.
+     */
+    private void notificarPuntuacion(Puntuacion puntuacion) {
+        sesion.registrarPuntuacion(puntuacion);
+        oyente.alRecibirPuntuacion(puntuacion);
+    }
 }
@@ -0,0 +1,288 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.chat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Historial acotado de las líneas del chat.
+ *
+ * Las líneas más recientes se conservan en memoria en un buffer circular. Cuando el buffer se llena, la línea más
+ * antigua se vuelca a un fichero temporal de scrollback, del que se vuelve a leer bajo demanda (por páginas, con una
+ * pequeña caché LRU) sólo cuando la vista necesita mostrarla. El número total de líneas retenidas también está acotado:
+ * al superarlo se descartan las más antiguas y el espacio que ocupaban en el fichero se recupera periódicamente.
+ *
+ * Las líneas se identifican por su posición: 0 es la más antigua retenida y <code>getNumeroLineas() - 1</code> la más
+ * reciente. La clase no es thread-safe; en el cliente sólo se utiliza desde el EDT.
+ *
+ * @author japrada
+ */
+public class HistorialChat implements Closeable {
+
+    // Número de líneas de cada página de scrollback que se lee del fichero
+    private static final int LINEAS_POR_PAGINA = 64;
+    // Número de páginas de scrollback que se conservan en memoria
+    private static final int PAGINAS_EN_CACHE = 8;
+    // Bytes descartados a partir de los cuales se considera compactar el fichero de scrollback
+    private static final long MINIMO_BYTES_COMPACTACION = 1 << 20;
+
+    // Líneas más recientes (buffer circular)
+    private final String[] memoria;
+    // Posición en el buffer de la línea más antigua en memoria
+    private int inicioMemoria;
+    // Número de líneas en memoria
+    private int lineasMemoria;
+
+    // Posición en el fichero de scrollback de cada línea volcada (buffer circular indexado por número de secuencia)
+    private final long[] posicionesDisco;
+    // Número de secuencia de la línea más antigua retenida en el fichero
+    private long primeraLineaDisco;
+    // Número de líneas retenidas en el fichero
+    private int lineasDisco;
+    // Fichero de scrollback (se crea al volcar la primera línea)
+    private RandomAccessFile scrollback;
+    // Páginas de scrollback leídas recientemente, indexadas por número de página
+    private final Map<Long, String[]> paginas;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(HistorialChat.class.getName());
+
+    /**
+     * Construye un historial vacío.
+     *
+     * @param lineasEnMemoria número de líneas recientes que se conservan en memoria.
+     * @param lineasRetenidas número total de líneas retenidas (en memoria y en el fichero de scrollback).
+     */
+    public HistorialChat(int lineasEnMemoria, int lineasRetenidas) {
+        if (lineasEnMemoria <= 0) {
+            throw new IllegalArgumentException("El número de líneas en memoria tiene que ser positivo.");
+        }
+        memoria = new String[lineasEnMemoria];
+        posicionesDisco = new long[Math.max(lineasRetenidas - lineasEnMemoria, 0)];
+        paginas = new LinkedHashMap<Long, String[]>(PAGINAS_EN_CACHE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+                return size() > PAGINAS_EN_CACHE;
+            }
+        };
+    }
+
+    /**
+     * Obtiene el número de líneas retenidas.
+     *
+     * @return número de líneas retenidas.
+     */
+    public int getNumeroLineas() {
+        return lineasDisco + lineasMemoria;
+    }
+
+    /**
+     * Obtiene el número de líneas retenidas que están en memoria.
+     *
+     * @return número de líneas en memoria.
+     */
+    public int getLineasEnMemoria() {
+        return lineasMemoria;
+    }
+
+    /**
+     * Añade una línea al historial.
+     *
+     * @param linea línea que se añade.
+     * @return número de líneas antiguas descartadas por haberse superado la retención.
+     */
+    public int agregar(String linea) {
+        int descartadas = 0;
+        if (lineasMemoria == memoria.length) {
+            String masAntigua = memoria[inicioMemoria];
+            memoria[inicioMemoria] = null;
+            inicioMemoria = (inicioMemoria + 1) % memoria.length;
+            lineasMemoria--;
+            descartadas = volcar(masAntigua);
+        }
+        memoria[(inicioMemoria + lineasMemoria) % memoria.length] = linea;
+        lineasMemoria++;
+        return descartadas;
+    }
+
+    /**
+     * Obtiene una línea del historial, leyéndola del fichero de scrollback si ya no está en memoria.
+     *
+     * @param indice posición de la línea (0 es la más antigua retenida).
+     * @return línea solicitada.
+     */
+    public String getLinea(int indice) {
+        if (indice < 0 || indice >= getNumeroLineas()) {
+            throw new IndexOutOfBoundsException(String.format("Línea %d de %d", indice, getNumeroLineas()));
+        }
+        if (indice >= lineasDisco) {
+            return memoria[(inicioMemoria + indice - lineasDisco) % memoria.length];
+        }
+        long secuencia = primeraLineaDisco + indice;
+        long numeroPagina = secuencia / LINEAS_POR_PAGINA;
+        String[] pagina = paginas.get(numeroPagina);
+        // Una página leída antes de que se volcaran todas sus líneas se vuelve a leer
+        if (pagina == null || pagina[(int) (secuencia % LINEAS_POR_PAGINA)] == null) {
+            pagina = leerPagina(numeroPagina);
+            paginas.put(numeroPagina, pagina);
+        }
+        String linea = pagina[(int) (secuencia % LINEAS_POR_PAGINA)];
+        return linea != null ? linea : "";
+    }
+
+    /**
+     * Elimina todas las líneas del historial.
+     */
+    public void borrar() {
+        for (int i = 0; i < lineasMemoria; i++) {
+            memoria[(inicioMemoria + i) % memoria.length] = null;
+        }
+        inicioMemoria = 0;
+        lineasMemoria = 0;
+        primeraLineaDisco += lineasDisco;
+        lineasDisco = 0;
+        paginas.clear();
+        if (scrollback != null) {
+            try {
+                scrollback.setLength(0);
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scrollback != null) {
+            try {
+                scrollback.close();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+            scrollback = null;
+        }
+    }
+
+    /**
+     * Vuelca al fichero de scrollback la línea que sale de memoria.
+     *
+     * @param linea línea que sale de memoria.
+     * @return número de líneas antiguas descartadas.
+     */
+    private int volcar(String linea) {
+        if (posicionesDisco.length == 0) {
+            return 1;
+        }
+        int descartadas = 0;
+        if (lineasDisco == posicionesDisco.length) {
+            // Se ha alcanzado la retención: se descarta la línea más antigua del fichero
+            primeraLineaDisco++;
+            lineasDisco--;
+            descartadas = 1;
+        }
+        try {
+            abrirScrollback();
+            compactarSiProcede();
+            long posicion = scrollback.length();
+            scrollback.seek(posicion);
+            scrollback.writeUTF(linea);
+            long secuencia = primeraLineaDisco + lineasDisco;
+            posicionesDisco[(int) (secuencia % posicionesDisco.length)] = posicion;
+            lineasDisco++;
+        } catch (IOException ex) {
+            // Sin fichero de scrollback la línea se pierde, pero el chat sigue funcionando con las líneas en memoria
+            logger.severe(ex.getMessage());
+            descartadas += lineasDisco + 1;
+            primeraLineaDisco += lineasDisco;
+            lineasDisco = 0;
+            paginas.clear();
+        }
+        return descartadas;
+    }
+
+    /**
+     * Lee del fichero de scrollback las líneas retenidas de una página.
+     *
+     * @param numeroPagina número de página.
+     * @return líneas de la página (las posiciones de líneas no retenidas quedan a <code>null</code>).
+     */
+    private String[] leerPagina(long numeroPagina) {
+        String[] pagina = new String[LINEAS_POR_PAGINA];
+        long desde = Math.max(numeroPagina * LINEAS_POR_PAGINA, primeraLineaDisco);
+        long hasta = Math.min((numeroPagina + 1) * LINEAS_POR_PAGINA, primeraLineaDisco + lineasDisco);
+        try {
+            scrollback.seek(posicionesDisco[(int) (desde % posicionesDisco.length)]);
+            for (long secuencia = desde; secuencia < hasta; secuencia++) {
+                pagina[(int) (secuencia % LINEAS_POR_PAGINA)] = scrollback.readUTF();
+            }
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+        }
+        return pagina;
+    }
+
+    /**
+     * Crea el fichero de scrollback si todavía no existe.
+     *
+     * @throws IOException excepción al crear el fichero.
+     */
+    private void abrirScrollback() throws IOException {
+        if (scrollback == null) {
+            File fichero = File.createTempFile("testchallenge-chat", ".dat");
+            fichero.deleteOnExit();
+            scrollback = new RandomAccessFile(fichero, "rw");
+        }
+    }
+
+    /**
+     * Recupera el espacio de las líneas descartadas del fichero de scrollback cuando ocupa más que las retenidas.
+     *
+     * @throws IOException excepción al compactar el fichero.
+     */
+    private void compactarSiProcede() throws IOException {
+        long inicio = lineasDisco == 0 ? scrollback.length()
+                : posicionesDisco[(int) (primeraLineaDisco % posicionesDisco.length)];
+        long retenidos = scrollback.length() - inicio;
+        if (inicio < MINIMO_BYTES_COMPACTACION || inicio < retenidos) {
+            return;
+        }
+        // Desplazar los bytes retenidos al principio del fichero (las zonas origen y destino pueden solaparse, pero
+        // el destino siempre precede al origen)
+        byte[] buffer = new byte[64 * 1024];
+        long leidos = 0;
+        while (leidos < retenidos) {
+            int n = (int) Math.min(buffer.length, retenidos - leidos);
+            scrollback.seek(inicio + leidos);
+            scrollback.readFully(buffer, 0, n);
+            scrollback.seek(leidos);
+            scrollback.write(buffer, 0, n);
+            leidos += n;
+        }
+        scrollback.setLength(retenidos);
+        for (int i = 0; i < lineasDisco; i++) {
+            posicionesDisco[(int) ((primeraLineaDisco + i) % posicionesDisco.length)] -= inicio;
+        }
+        logger.info(String.format("'%s': Compactado el scrollback del chat (%d bytes liberados).",
+                HistorialChat.class.getSimpleName(), inicio));
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.eventos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Bus de eventos del cliente: el hilo de red publica los eventos decodificados de los mensajes del servidor y el
+ * despachador los aplica en el hilo de Swing (EDT) agrupados en frames.
+ *
+ * Mientras haya un frame pendiente de ejecutarse no se programa otro, de modo que hay como mucho un
+ * <code>invokeLater</code> en vuelo. En cada frame se aplican todos los eventos acumulados en orden, salvo que:
+ *
+ * - de los valores del temporizador sólo se aplica el último;
+ * - las líneas de chat consecutivas se añaden de una sola vez.
+ *
+ * Se mantienen contadores del retraso entre la publicación y la aplicación de los eventos para poder medir los
+ * bloqueos de la interfaz durante las ráfagas de mensajes.
+ *
+ * @author japrada
+ */
+public class DespachadorEventos {
+
+    // Número máximo de eventos que se aplican en un frame (el resto se aplica en el siguiente)
+    private static final int MAXIMO_EVENTOS_POR_FRAME = 1000;
+    // Retraso (en milisegundos) a partir del cual se registra un aviso de bloqueo de la interfaz
+    private static final long UMBRAL_AVISO_RETRASO_MS = 250;
+
+    // Eventos pendientes de aplicar
+    private final Queue<EventoCliente> pendientes;
+    // Número de eventos pendientes de aplicar
+    private final AtomicInteger numeroPendientes;
+    // Flag que indica si hay un frame programado en el EDT
+    private final AtomicBoolean frameProgramado;
+    // Ejecutor de los frames (el EDT)
+    private final Executor ejecutor;
+    // Acción que muestra el valor del temporizador
+    private final Consumer<String> aplicarTick;
+    // Acción que añade líneas al chat
+    private final Consumer<List<String>> aplicarChat;
+
+    // Contadores
+    private final AtomicLong eventosPublicados = new AtomicLong();
+    private final AtomicLong eventosAplicados = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong ticksDescartados = new AtomicLong();
+    private final AtomicLong retrasoTotalNanos = new AtomicLong();
+    private final AtomicLong retrasoMaximoNanos = new AtomicLong();
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(DespachadorEventos.class.getName());
+
+    /**
+     * Construye un despachador que aplica los eventos en el EDT.
+     *
+     * @param aplicarTick acción que muestra el valor del temporizador.
+     * @param aplicarChat acción que añade líneas al chat.
+     */
+    public DespachadorEventos(Consumer<String> aplicarTick, Consumer<List<String>> aplicarChat) {
+        this(SwingUtilities::invokeLater, aplicarTick, aplicarChat);
+    }
+
+    /**
+     * Construye un despachador que aplica los eventos con el ejecutor especificado.
+     *
+     * @param ejecutor ejecutor de los frames.
+     * @param aplicarTick acción que muestra el valor del temporizador.
+     * @param aplicarChat acción que añade líneas al chat.
+     */
+    public DespachadorEventos(Executor ejecutor, Consumer<String> aplicarTick, Consumer<List<String>> aplicarChat) {
+        this.ejecutor = ejecutor;
+        this.aplicarTick = aplicarTick;
+        this.aplicarChat = aplicarChat;
+        pendientes = new ConcurrentLinkedQueue<>();
+        numeroPendientes = new AtomicInteger();
+        frameProgramado = new AtomicBoolean();
+    }
+
+    /**
+     * Publica un nuevo valor del temporizador.
+     *
+     * @param valor texto que se muestra en el temporizador.
+     */
+    public void publicarTick(String valor) {
+        publicar(new EventoCliente(EventoCliente.Tipo.TICK, valor, null));
+    }
+
+    /**
+     * Publica una línea de chat.
+     *
+     * @param linea línea de chat.
+     */
+    public void publicarChat(String linea) {
+        publicar(new EventoCliente(EventoCliente.Tipo.CHAT, linea, null));
+    }
+
+    /**
+     * Publica una actualización de la interfaz gráfica.
+     *
+     * @param accion acción que actualiza la interfaz gráfica (se ejecuta en el EDT).
+     */
+    public void publicar(Runnable accion) {
+        publicar(new EventoCliente(EventoCliente.Tipo.ACCION, null, accion));
+    }
+
+    /**
+     * Obtiene el número de eventos publicados.
+     *
+     * @return número de eventos publicados.
+     */
+    public long getEventosPublicados() {
+        return eventosPublicados.get();
+    }
+
+    /**
+     * Obtiene el número de eventos aplicados (incluidos los valores del temporizador descartados).
+     *
+     * @return número de eventos aplicados.
+     */
+    public long getEventosAplicados() {
+        return eventosAplicados.get();
+    }
+
+    /**
+     * Obtiene el número de frames ejecutados en el EDT.
+     *
+     * @return número de frames ejecutados.
+     */
+    public long getFrames() {
+        return frames.get();
+    }
+
+    /**
+     * Obtiene el número de valores del temporizador descartados porque había otro más reciente en el mismo frame.
+     *
+     * @return número de valores del temporizador descartados.
+     */
+    public long getTicksDescartados() {
+        return ticksDescartados.get();
+    }
+
+    /**
+     * Obtiene el número de eventos pendientes de aplicar.
+     *
+     * @return número de eventos pendientes de aplicar.
+     */
+    public int getPendientes() {
+        return numeroPendientes.get();
+    }
+
+    /**
+     * Obtiene el retraso medio entre la publicación y la aplicación de los eventos.
+     *
+     * @return retraso medio en milisegundos.
+     */
+    public double getRetrasoMedioMs() {
+        long aplicados = eventosAplicados.get();
+        return aplicados == 0 ? 0 : retrasoTotalNanos.get() / 1_000_000.0 / aplicados;
+    }
+
+    /**
+     * Obtiene el máximo retraso entre la publicación y la aplicación de un evento.
+     *
+     * @return retraso máximo en milisegundos.
+     */
+    public long getRetrasoMaximoMs() {
+        return TimeUnit.NANOSECONDS.toMillis(retrasoMaximoNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DespachadorEventos{publicados=%d, aplicados=%d, frames=%d, ticksDescartados=%d, "
+                + "pendientes=%d, retrasoMedioMs=%.1f, retrasoMaximoMs=%d}",
+                getEventosPublicados(), getEventosAplicados(), getFrames(), getTicksDescartados(),
+                getPendientes(), getRetrasoMedioMs(), getRetrasoMaximoMs());
+    }
+
+    /**
+     * Encola un evento y programa un frame si no hay ninguno pendiente.
+     *
+     * @param evento evento publicado.
+     */
+    private void publicar(EventoCliente evento) {
+        pendientes.add(evento);
+        numeroPendientes.incrementAndGet();
+        eventosPublicados.incrementAndGet();
+        programarFrame();
+    }
+
+    /**
+     * Programa un frame en el EDT si no hay ninguno pendiente.
+     */
+    private void programarFrame() {
+        if (frameProgramado.compareAndSet(false, true)) {
+            ejecutor.execute(this::despacharFrame);
+        }
+    }
+
+    /**
+     * Aplica los eventos pendientes (se ejecuta en el EDT).
+     */
+    private void despacharFrame() {
+        // Se libera el flag antes de vaciar la cola: un evento publicado a partir de aquí programa otro frame
+        frameProgramado.set(false);
+        frames.incrementAndGet();
+
+        List<EventoCliente> lote = new ArrayList<>();
+        EventoCliente evento;
+        while (lote.size() < MAXIMO_EVENTOS_POR_FRAME && (evento = pendientes.poll()) != null) {
+            lote.add(evento);
+        }
+        numeroPendientes.addAndGet(-lote.size());
+
+        int ultimoTick = -1;
+        for (int i = 0; i < lote.size(); i++) {
+            if (lote.get(i).getTipo() == EventoCliente.Tipo.TICK) {
+                ultimoTick = i;
+            }
+        }
+
+        long ahora = System.nanoTime();
+        long retrasoMaximoFrame = 0;
+        List<String> lineasChat = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            evento = lote.get(i);
+            long retraso = ahora - evento.getInstantePublicacion();
+            retrasoMaximoFrame = Math.max(retrasoMaximoFrame, retraso);
+            retrasoTotalNanos.addAndGet(retraso);
+
+            switch (evento.getTipo()) {
+                case TICK:
+                    if (i == ultimoTick) {
+                        aplicarLineasChat(lineasChat);
+                        aplicarTick.accept(evento.getTexto());
+                    } else {
+                        ticksDescartados.incrementAndGet();
+                    }
+                    break;
+                case CHAT:
+                    lineasChat.add(evento.getTexto());
+                    break;
+                default:
+                    aplicarLineasChat(lineasChat);
+                    try {
+                        evento.getAccion().run();
+                    } catch (RuntimeException ex) {
+                        logger.severe(ex.getMessage());
+                    }
+                    break;
+            }
+        }
+        aplicarLineasChat(lineasChat);
+        eventosAplicados.addAndGet(lote.size());
+        retrasoMaximoNanos.accumulateAndGet(retrasoMaximoFrame, Math::max);
+
+        if (TimeUnit.NANOSECONDS.toMillis(retrasoMaximoFrame) > UMBRAL_AVISO_RETRASO_MS) {
+            logger.warning(String.format("Retraso de %d ms en la aplicación de %d eventos en la interfaz: %s",
+                    TimeUnit.NANOSECONDS.toMillis(retrasoMaximoFrame), lote.size(), this));
+        }
+
+        // Si han quedado eventos por el límite del frame, se programa el siguiente
+        if (!pendientes.isEmpty()) {
+            programarFrame();
+        }
+    }
+
+    /**
+     * Añade al chat las líneas acumuladas y vacía la lista.
+     *
+     * @param lineasChat líneas de chat acumuladas.
+     */
+    private void aplicarLineasChat(List<String> lineasChat) {
+        if (!lineasChat.isEmpty()) {
+            aplicarChat.accept(new ArrayList<>(lineasChat));
+            lineasChat.clear();
+        }
+    }
+}
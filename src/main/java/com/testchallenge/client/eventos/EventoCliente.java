@@ -0,0 +1,77 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.eventos;
+
+/**
+ * Evento generado por el hilo de red del cliente a partir de un mensaje del servidor, pendiente de aplicarse en la
+ * interfaz gráfica.
+ *
+ * @author japrada
+ */
+final class EventoCliente {
+
+    /**
+     * Tipos de evento, que determinan cómo se agrupan en cada frame.
+     */
+    enum Tipo {
+        // Valor del temporizador: en cada frame sólo se aplica el último
+        TICK,
+        // Línea de chat: las líneas consecutivas de un frame se añaden de una vez
+        CHAT,
+        // Cualquier otra actualización de la interfaz: se aplican todas y en orden
+        ACCION
+    }
+
+    // Tipo del evento
+    private final Tipo tipo;
+    // Texto del evento (TICK y CHAT)
+    private final String texto;
+    // Acción del evento (ACCION)
+    private final Runnable accion;
+    // Instante (nanoTime) en el que se publicó el evento
+    private final long instantePublicacion;
+
+    /**
+     * Construye un evento.
+     *
+     * @param tipo tipo del evento.
+     * @param texto texto del evento (TICK y CHAT).
+     * @param accion acción del evento (ACCION).
+     */
+    EventoCliente(Tipo tipo, String texto, Runnable accion) {
+        this.tipo = tipo;
+        this.texto = texto;
+        this.accion = accion;
+        instantePublicacion = System.nanoTime();
+    }
+
+    Tipo getTipo() {
+        return tipo;
+    }
+
+    String getTexto() {
+        return texto;
+    }
+
+    Runnable getAccion() {
+        return accion;
+    }
+
+    long getInstantePublicacion() {
+        return instantePublicacion;
+    }
+}
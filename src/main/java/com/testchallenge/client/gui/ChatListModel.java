@@ -0,0 +1,93 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui;
+
+import com.testchallenge.client.chat.HistorialChat;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/**
+ * Clase que define el modelo de la lista que muestra los mensajes del chat.
+ *
+ * Cada elemento es una fila de texto ya ajustada al ancho de la lista. Las filas se guardan en un
+ * <code>HistorialChat</code>, de modo que la memoria ocupada está acotada y las filas antiguas se leen bajo demanda
+ * cuando la lista las muestra.
+ *
+ * @author japrada
+ */
+public class ChatListModel extends AbstractListModel<String> {
+
+    // Historial con las filas del chat
+    private final HistorialChat historial;
+
+    /**
+     * Constructor.
+     *
+     * @param lineasEnMemoria número de filas recientes que se conservan en memoria.
+     * @param lineasRetenidas número total de filas retenidas.
+     */
+    public ChatListModel(int lineasEnMemoria, int lineasRetenidas) {
+        historial = new HistorialChat(lineasEnMemoria, lineasRetenidas);
+    }
+
+    @Override
+    public int getSize() {
+        return historial.getNumeroLineas();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return historial.getLinea(index);
+    }
+
+    /**
+     * Añade filas al final de la lista.
+     *
+     * @param filas filas que se añaden.
+     */
+    public void agregar(List<String> filas) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        int sizeAnterior = getSize();
+        int descartadas = 0;
+        for (String fila : filas) {
+            descartadas += historial.agregar(fila);
+        }
+        // Las filas descartadas por la retención son las primeras; las añadidas, las últimas
+        int descartadasAnteriores = Math.min(descartadas, sizeAnterior);
+        if (descartadasAnteriores > 0) {
+            fireIntervalRemoved(this, 0, descartadasAnteriores - 1);
+        }
+        int size = getSize();
+        int primeraNueva = sizeAnterior - descartadasAnteriores;
+        if (primeraNueva < size) {
+            fireIntervalAdded(this, primeraNueva, size - 1);
+        }
+    }
+
+    /**
+     * Elimina todas las filas de la lista.
+     */
+    public void borrar() {
+        int size = getSize();
+        historial.borrar();
+        if (size > 0) {
+            fireIntervalRemoved(this, 0, size - 1);
+        }
+    }
+}
@@ -18,33 +18,47 @@
 
 package com.testchallenge.client.gui;
 
-import com.testchallenge.model.Mensaje;
-import com.testchallenge.model.TipoMensaje;
+import com.testchallenge.client.SesionCliente;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.FontMetrics;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
-import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Logger;
 import javax.swing.JButton;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 
 /**
  * Panel que construye la parte de la interfaz que se utiliza para el intercambio de mensajes de chat.
  *
- * Este panel contiene dos áreas de texto: una para recibir los mensajes enviados por el servidor y/o los usuarios y
- * otra para enviar los mensajes al grupo de usuarios conectados o el comando de desconexión BYE.
+ * Este panel contiene una lista en la que se muestran los mensajes enviados por el servidor y/o los usuarios y un área
+ * de texto para enviar los mensajes al grupo de usuarios conectados o el comando de desconexión BYE.
+ *
+ * La lista de mensajes está virtualizada: los mensajes se dividen en filas ajustadas al ancho de la lista, todas de la
+ * misma altura, de modo que sólo se pintan (y se leen del historial) las filas visibles. El número de filas que se
+ * conservan en memoria y el total de filas retenidas se configuran con las propiedades del sistema
+ * <code>testchallenge.chat.lineasMemoria</code> y <code>testchallenge.chat.lineasRetenidas</code>.
  *
  * @author japrada
  */
 public class ChatPanel extends ConectablePanel {
 
-    // Area en la que se muestran los mesajes intercambiados en el chat
-    private final JTextArea chatTextArea;
+    // Lista en la que se muestran los mesajes intercambiados en el chat
+    private final JList<String> chatList;
+    // Modelo de la lista de mensajes
+    private final ChatListModel chatListModel;
+    // Scroll de la lista de mensajes
+    private final JScrollPane spChatList;
     // Area en la que se escribe el mensaje que se va a enviar
     private final JTextArea messageTextArea;
     // Botón para enviar el mensaje
@@ -56,6 +70,10 @@ public class ChatPanel extends ConectablePanel {
     private final static int CHAT_PANEL_ANCHO = 200;
     private final static int CHAT_PANEL_ALTO = 500;
 
+    // Retención de las filas del chat (configurable con propiedades del sistema)
+    private final static int LINEAS_EN_MEMORIA = Integer.getInteger("testchallenge.chat.lineasMemoria", 1000);
+    private final static int LINEAS_RETENIDAS = Integer.getInteger("testchallenge.chat.lineasRetenidas", 50000);
+
     // Logger de la clase
     private final static Logger logger = Logger.getLogger(ChatPanel.class.getName());
 
@@ -63,23 +81,26 @@ public class ChatPanel extends ConectablePanel {
      * Constructor de la clase.
      *
      * @param title título del panel
-     * @param out canal para el envío de datos al servidor
+     * @param sesion sesión para el envío de datos al servidor
      */
-    public ChatPanel(String title, ObjectOutputStream out) {
-        super(title, out);
+    public ChatPanel(String title, SesionCliente sesion) {
+        super(title, sesion);
 
         setLayout(new BorderLayout());
 
-        // TextArea que muestra los mensajes de chat intercambiados
-        chatTextArea = new JTextArea();
-        chatTextArea.setLineWrap(true);
-        chatTextArea.setWrapStyleWord(true);
-        chatTextArea.setEditable(false);
-        
-        JScrollPane spChatTextArea = new JScrollPane(chatTextArea);
-        spChatTextArea.setPreferredSize(new Dimension(CHAT_PANEL_ANCHO, CHAT_PANEL_ALTO));
+        // Lista que muestra los mensajes de chat intercambiados
+        chatListModel = new ChatListModel(LINEAS_EN_MEMORIA, LINEAS_RETENIDAS);
+        chatList = new JList<>(chatListModel);
+        // Con altura y anchura fijas la lista no necesita recorrer todas las filas para calcular su tamaño
+        // (la anchura real de las filas es la de la lista)
+        chatList.setFixedCellHeight(chatList.getFontMetrics(chatList.getFont()).getHeight() + 1);
+        chatList.setFixedCellWidth(1);
+
+        spChatList = new JScrollPane(chatList, JScrollPane.VERTICAL_SCROLLBAR_ALWAYS,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        spChatList.setPreferredSize(new Dimension(CHAT_PANEL_ANCHO, CHAT_PANEL_ALTO));
 
-        add(spChatTextArea, BorderLayout.NORTH);
+        add(spChatList, BorderLayout.NORTH);
 
         // TextArea que permite enviar los chats
         messageTextArea = new JTextArea();
@@ -109,7 +130,7 @@ public class ChatPanel extends ConectablePanel {
         });
 
         borrarMensajesButton.addActionListener((ActionEvent e) -> {
-            borrarMensajesButtonSwingWorker();
+            borrarMensajes();
         });
 
         add(buttonsPanel, BorderLayout.SOUTH);
@@ -121,23 +142,89 @@ public class ChatPanel extends ConectablePanel {
      * @param message mensaje que se añade al área de chat.
      */
     public void addMessage(String message) {
-        addMessageToChat(message);
+        addMessages(Collections.singletonList(message));
     }
 
     /**
-     * Método helper para añadir el mensaje al área de chat.
+     * Añade varios mensajes al área de chat de una sola vez (una única actualización de la lista).
      *
-     * @param message mensaje a añadir al área de chat.
+     * Si la lista estaba desplazada hasta el último mensaje, se mantiene visible el último mensaje añadido; si el
+     * usuario está consultando mensajes anteriores, no se modifica la posición del scroll.
+     *
+     * @param messages mensajes que se añaden al área de chat.
      */
-    private void addMessageToChat(String message) {
-        if (chatTextArea != null) {
-            chatTextArea.append(message);
-            chatTextArea.append("\n");
-            chatTextArea.setCaretPosition(chatTextArea.getText().length());
-            chatTextArea.getCaret().setVisible(true);
+    public void addMessages(List<String> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        JScrollBar scrollBar = spChatList.getVerticalScrollBar();
+        boolean alFinal = scrollBar.getValue() + scrollBar.getVisibleAmount()
+                >= scrollBar.getMaximum() - chatList.getFixedCellHeight();
+
+        FontMetrics fontMetrics = chatList.getFontMetrics(chatList.getFont());
+        int ancho = getAnchoFilas();
+        List<String> filas = new ArrayList<>();
+        for (String message : messages) {
+            ajustarFilas(message, fontMetrics, ancho, filas);
             logger.info(String.format("'%s': %s", ChatPanel.class
                     .getSimpleName(), message));
         }
+        chatListModel.agregar(filas);
+
+        if (alFinal && chatListModel.getSize() > 0) {
+            chatList.ensureIndexIsVisible(chatListModel.getSize() - 1);
+        }
+    }
+
+    /**
+     * Obtiene el ancho disponible para el texto de las filas de la lista.
+     *
+     * @return ancho en píxeles.
+     */
+    private int getAnchoFilas() {
+        int ancho = spChatList.getViewport().getWidth();
+        if (ancho <= 0) {
+            // La lista todavía no se ha mostrado: se estima a partir del tamaño del panel
+            ancho = CHAT_PANEL_ANCHO - spChatList.getVerticalScrollBar().getPreferredSize().width;
+        }
+        return ancho - chatList.getInsets().left - chatList.getInsets().right - 4;
+    }
+
+    /**
+     * Método helper que divide un mensaje en filas que caben en el ancho especificado, respetando los saltos de línea
+     * del mensaje y cortando por los espacios entre palabras (o dentro de las palabras que no caben en una fila).
+     *
+     * @param message mensaje que se divide.
+     * @param fontMetrics métricas de la fuente de la lista.
+     * @param ancho ancho disponible en píxeles.
+     * @param filas lista en la que se añaden las filas.
+     */
+    private static void ajustarFilas(String message, FontMetrics fontMetrics, int ancho, List<String> filas) {
+        for (String parrafo : String.valueOf(message).split("\n", -1)) {
+            StringBuilder fila = new StringBuilder();
+            for (String palabra : parrafo.split(" ", -1)) {
+                String candidata = fila.length() == 0 ? palabra : fila + " " + palabra;
+                if (fontMetrics.stringWidth(candidata) <= ancho) {
+                    fila.setLength(0);
+                    fila.append(candidata);
+                    continue;
+                }
+                if (fila.length() > 0) {
+                    filas.add(fila.toString());
+                    fila.setLength(0);
+                }
+                // La palabra no cabe en una fila: se corta por caracteres
+                for (int i = 0; i < palabra.length(); i++) {
+                    char c = palabra.charAt(i);
+                    if (fila.length() > 0 && fontMetrics.stringWidth(fila.toString() + c) > ancho) {
+                        filas.add(fila.toString());
+                        fila.setLength(0);
+                    }
+                    fila.append(c);
+                }
+            }
+            filas.add(fila.toString());
+        }
     }
 
     /**
@@ -155,26 +242,12 @@ public class ChatPanel extends ConectablePanel {
                 String texto = messageTextArea.getText();
 
                 if (!texto.equals("")) {
-                    // Escribir el mensaje en el ChatTextArea
-                    chatTextArea.append(texto);
-                    chatTextArea.append("\n");
+                    // Escribir el mensaje en la lista de mensajes (en el EDT)
+                    SwingUtilities.invokeLater(() -> addMessage(texto));
 
                     // *********  Enviar el mensaje al servidor (hilo de servicio TestChallengeServerThread) *********
-                    Mensaje mensaje;
-
-                    if (texto.equals(TipoMensaje.BYE.toString())) {
-                        mensaje = new Mensaje(TipoMensaje.BYE);
-                    } else {
-                        mensaje = new Mensaje(texto);
-
-                    }
-                    out.writeObject(mensaje);
-                    out.flush();
+                    sesion.enviarChat(texto);
                     // ***************************************************************************************
-
-                    // Establece la nueva posición del cursor
-                    chatTextArea.setCaretPosition(chatTextArea.getText().length());
-                    //chatTextArea.getCaret().setVisible(true);
                 }
 
                 logger.info(String.format("'%s': \"Enviando mensaje: '%s' \n",
@@ -192,28 +265,12 @@ public class ChatPanel extends ConectablePanel {
     }
 
     /**
-     * Método helper que gestiona en un Thread independiente los eventos generados por el por el botón
-     * <code>borrarMensajesButton</code>.
+     * Método helper que gestiona los eventos generados por el botón <code>borrarMensajesButton</code>.
      *
+     * Vaciar la lista es inmediato (el fichero de scrollback se trunca), por lo que se realiza en el EDT.
      */
-    private void borrarMensajesButtonSwingWorker() {
-
-        SwingWorker sw;
-        sw = new SwingWorker() {
-
-            @Override
-            protected String doInBackground() throws Exception {
-                chatTextArea.setText("");
-                // Establecer la nueva posición del cursor
-                chatTextArea.setCaretPosition(chatTextArea.getText().length());
-                chatTextArea.getCaret().setVisible(true);
-
-                return "Ejecución completada.";
-            }
-        };
-
-        // El SwingWorker se ejecuta en un thread distinto del de la ejecución principal
-        sw.execute();
+    private void borrarMensajes() {
+        chatListModel.borrar();
     }
 
 }
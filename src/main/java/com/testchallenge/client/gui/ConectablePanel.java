@@ -18,16 +18,15 @@
 
 package com.testchallenge.client.gui;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import com.testchallenge.client.SesionCliente;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 
 /**
  * Un panel conectable es aquel que tiene la posibilidad de enviar/recibir mensajes hacia/desde el servidor.
  * 
- * El panel recibe los streams de conexión de lectura y de escritura a través de los cuales puede intercambiar
- * mensajes con el hilo de servicio con el que el cliente está conectado.
+ * El panel recibe la sesión del usuario a través de la cual puede intercambiar mensajes con el hilo de servicio con
+ * el que el cliente está conectado.
  * 
  * Se utiliza como clase base de la que heredan los paneles que tienen componentes gráficos que permiten generar
  * eventos que se traducen en mensajes hacia al servidor.
@@ -36,8 +35,7 @@ import javax.swing.JPanel;
  */
 public class ConectablePanel extends JPanel implements IConectable {
     
-    protected ObjectInputStream in = null;
-    protected ObjectOutputStream out = null;
+    protected SesionCliente sesion = null;
     
     /**
      * Constructor de la clase.
@@ -52,15 +50,15 @@ public class ConectablePanel extends JPanel implements IConectable {
     /**
      * Constructor de la clase.
      * 
-     * Crea un objeto <code>ConectablePanel</code> con el título especificado en el borde y el canal de escritura de
-     * mensajes inicializado.
+     * Crea un objeto <code>ConectablePanel</code> con el título especificado en el borde y la sesión para el envío de
+     * mensajes inicializada.
      * 
      * @param title título del marco alrededor del panel.
-     * @param out canal para el envío de mensajes al servidor.
+     * @param sesion sesión para el envío de mensajes al servidor.
      */
-    public ConectablePanel(String title, ObjectOutputStream out){
+    public ConectablePanel(String title, SesionCliente sesion){
         this(title);
-        this.out = out;
+        this.sesion = sesion;
     }
     
     /**
@@ -74,22 +72,12 @@ public class ConectablePanel extends JPanel implements IConectable {
     }
 
     @Override
-    public void setInputStream(ObjectInputStream in) {
-        this.in = in;
+    public void setSesion(SesionCliente sesion) {
+        this.sesion = sesion;
     }
 
     @Override
-    public void setOutputStream(ObjectOutputStream out) {
-        this.out = out;
-    }
-
-    @Override
-    public ObjectInputStream getInputStream() {
-        return this.in;
-    }
-
-    @Override
-    public ObjectOutputStream getOutputStream() {
-        return this.out;
+    public SesionCliente getSesion() {
+        return this.sesion;
     }
 }
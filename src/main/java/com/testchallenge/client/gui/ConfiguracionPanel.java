@@ -18,12 +18,11 @@
 
 package com.testchallenge.client.gui;
 
+import com.testchallenge.client.SesionCliente;
 import com.testchallenge.client.gui.combomultiseleccion.CheckableItem;
 import com.testchallenge.client.gui.combomultiseleccion.CheckedComboBox;
-import com.testchallenge.model.Mensaje;
 import com.testchallenge.model.Nivel;
 import com.testchallenge.model.Pregunta;
-import com.testchallenge.model.TipoMensaje;
 import com.testchallenge.model.TipoPregunta;
 import java.awt.Component;
 import java.awt.Dimension;
@@ -32,7 +31,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -83,10 +81,10 @@ public class ConfiguracionPanel extends ConectablePanel {
      * Constructor de la clase.
      *
      * @param title título del marco alrededor del panel.
-     * @param out canal para el envío de mensajes al servidor.
+     * @param sesion sesión para el envío de mensajes al servidor.
      */
-    public ConfiguracionPanel(String title, ObjectOutputStream out) {
-        super(title, out);
+    public ConfiguracionPanel(String title, SesionCliente sesion) {
+        super(title, sesion);
 
         // *************************
         // * Configuración panel *
@@ -188,9 +186,7 @@ public class ConfiguracionPanel extends ConectablePanel {
                     
                     pregunta.setTematica(getTematica());
                     // Enviar la pregunta al servidor
-                    Mensaje mensaje = new Mensaje(pregunta, TipoMensaje.PREGUNTA_ENVIAR);
-                    out.writeObject(mensaje);
-                    out.flush();
+                    sesion.enviarPregunta(pregunta);
                 } catch (IOException ex) {
                     logger.severe(ex.getMessage());
                 }
@@ -18,42 +18,27 @@
 
 package com.testchallenge.client.gui;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import com.testchallenge.client.SesionCliente;
 
 /**
  * Interfaz que define los métodos (abstractos) que deben ser implementados por aquellos componentes gráficos de
- * de la GUI que se pueden conectar directamente con el servidor para intercambiar mensajes.
+ * de la GUI que se pueden conectar con el servidor para intercambiar mensajes (a través de la sesión del usuario).
  * 
  * @author japrada
  */
 public interface IConectable {
     
     /**
-     * Establece el stream de lectura.
+     * Establece la sesión con el servidor.
      * 
-     * @param in stream de lectura.
+     * @param sesion sesión con el servidor.
      */
-    public void setInputStream(ObjectInputStream in);
+    public void setSesion(SesionCliente sesion);
     
     /**
-     * Establece el stream de escritura.
+     * Obtiene la sesión con el servidor.
      * 
-     * @param out stream de escritura.
+     * @return sesión con el servidor.
      */
-    public void setOutputStream(ObjectOutputStream out);
-    
-    /**
-     * Obtiene el stream de lectura.
-     * 
-     * @return stream de lectura.
-     */
-    public ObjectInputStream getInputStream();
-    
-    /**
-     * Obtiene el stream de escritura.
-     * 
-     * @return stream de escritura.
-     */
-    public ObjectOutputStream getOutputStream();
+    public SesionCliente getSesion();
 }
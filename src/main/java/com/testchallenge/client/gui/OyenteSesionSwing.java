@@ -0,0 +1,195 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui;
+
+import com.testchallenge.client.IOyenteSesion;
+import com.testchallenge.client.eventos.DespachadorEventos;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.Ranking;
+
+/**
+ * Oyente de la sesión que traslada a la GUI Swing las notificaciones recibidas del servidor.
+ *
+ * Las actualizaciones de la interfaz se publican en un <code>DespachadorEventos</code>, que las aplica en el EDT en el
+ * orden en que se reciben.
+ *
+ * @author japrada
+ */
+public class OyenteSesionSwing implements IOyenteSesion {
+
+    // Referencia a la GUI del cliente
+    private final TestChallengeClient testChallengeClient;
+    // nickname o alias del usuario
+    private final String nickname;
+    // Despachador que aplica en el EDT las actualizaciones de la interfaz gráfica
+    private final DespachadorEventos despachador;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param testChallengeClient referencia a la GUI del cliente.
+     * @param nickname nickname o alias del usuario conectado.
+     */
+    public OyenteSesionSwing(TestChallengeClient testChallengeClient, String nickname) {
+        this.testChallengeClient = testChallengeClient;
+        this.nickname = nickname;
+        despachador = new DespachadorEventos(
+                tiempoRestante -> ((TimerPanel) testChallengeClient.getTestPanel().getTimerPanel())
+                        .setTimer(tiempoRestante),
+                lineas -> testChallengeClient.getChatPanel().addMessages(lineas));
+    }
+
+    /**
+     * Obtiene el despachador que aplica en el EDT las actualizaciones de la interfaz gráfica (y sus contadores de
+     * retraso).
+     *
+     * @return despachador de eventos del cliente.
+     */
+    public DespachadorEventos getDespachadorEventos() {
+        return despachador;
+    }
+
+    @Override
+    public void alRegistrarse(String nicknamesConectados, String[] tematicas, Ranking ranking) {
+        despachador.publicar(() -> {
+            StringBuilder sb = new StringBuilder();
+            // Informar al usuario de las opciones disponibles
+            sb.append("¡¡Bienvenido a la aplicación!!\n\n");
+            sb.append("[•] Puede enviar un chat a un grupo específico de usuarios escribiendo en el mensaje ");
+            sb.append("su nickname precedido del símbolo @ (p.e. @jprada)\n\n");
+            sb.append("[•] Puede enviar el mensaje BYE para cerrar la sesión y desconectarse del sistema.\n\n");
+            sb.append("[•] Para ejecutar un test, establezca la configuración y pulse \"Iniciar Test\".\n\n");
+            sb.append(nicknamesConectados).append("\n");
+
+            testChallengeClient.getChatPanel().addMessage(sb.toString());
+            testChallengeClient.getTestPanel().getConfiguracionPanel().setTematicas(tematicas);
+            testChallengeClient.getTestPanel().setRanking(ranking, nickname);
+        });
+    }
+
+    @Override
+    public void alUnirseATestEnEjecucion(String informacionTest, Pregunta pregunta) {
+        despachador.publicar(() -> {
+            // Informar que hay un test en ejecución y mostrar el mensaje de arranque del test
+            testChallengeClient.getChatPanel().addMessage("\n[•] Hay un test en ejecución!");
+            testChallengeClient.getChatPanel().addMessage(informacionTest);
+
+            // Presentar la pregunta en la UI
+            testChallengeClient.getTestPanel().resetPanelPreguntas();
+            testChallengeClient.getTestPanel().setPregunta(pregunta);
+            testChallengeClient.getChatPanel().addMessage("\n[•] ".concat(pregunta.getTitle()));
+        });
+    }
+
+    @Override
+    public void alUnirseATestPausado() {
+        despachador.publicar(() -> {
+            TestPanel testPanel = testChallengeClient.getTestPanel();
+            testChallengeClient.getChatPanel().addMessage("\n[•] El test, además, está pausado!");
+            // Si el test está pausado, hay que mostrar el botón de play activado
+            // Deshabilitar el panel de configuración y el botón Iniciar Test
+            testPanel.getConfiguracionPanel().setEnabled(false);
+            testPanel.getIniciarTestButton().setEnabled(false);
+            testPanel.getPreguntasPanel().setAmpliarSegundosPanelEnabled(false);
+            testPanel.getPreguntasPanel().setStopButtonEnabled(true);
+            testPanel.getPreguntasPanel().setResumeButtonEnabled();
+        });
+    }
+
+    @Override
+    public void alRecibirChat(String texto) {
+        despachador.publicarChat(texto);
+    }
+
+    @Override
+    public void alRecibirTiempoRestante(String segundos) {
+        // El valor del temporizador se agrupa: en cada frame sólo se muestra el último recibido
+        despachador.publicarTick(String.format("%s segundos", segundos));
+    }
+
+    @Override
+    public void alRecibirPregunta(Pregunta pregunta) {
+        despachador.publicar(() -> testChallengeClient.getTestPanel().setPregunta(pregunta));
+    }
+
+    @Override
+    public void alIniciarTest() {
+        // Un usuario ha solicitado iniciar un nuevo test: se resetea el panel de preguntas
+        despachador.publicar(() -> testChallengeClient.getTestPanel().resetPanelPreguntas());
+    }
+
+    @Override
+    public void alPararTest(Ranking ranking) {
+        despachador.publicar(() -> {
+            TestPanel testPanel = testChallengeClient.getTestPanel();
+            // Resetear el panel de preguntas y
+            testPanel.setPregunta();
+            // actualizar el ranking
+            if (ranking != null) {
+                testPanel.setRanking(ranking, nickname);
+                testPanel.setModoRevisionEnabled(true);
+                // Mostrar un diálogo para informar del número de puntos obtenidos
+                testPanel.popUpResultados();
+            } else {
+                testPanel.setModoRevisionEnabled(false);
+                testChallengeClient.getChatPanel().addMessage("No hay preguntas con los criterios especificados.");
+                // El test no se ha ejecutado porque no hay preguntas que cumplan los criterios especificados
+                testPanel.popUpTestSinPreguntas();
+            }
+
+            testPanel.getConfiguracionPanel().setEnabled(true);
+            testPanel.getIniciarTestButton().setEnabled(true);
+        });
+    }
+
+    @Override
+    public void alRecibirRanking(Ranking ranking) {
+        despachador.publicar(() -> testChallengeClient.getTestPanel().setRanking(ranking, nickname));
+    }
+
+    @Override
+    public void alPausarTest() {
+        // En la interfaz de usuario el cliente tiene que cambiar el icono de "Pause" por "Play"
+        despachador.publicar(() -> testChallengeClient.getTestPanel().getPreguntasPanel().setResumeButtonEnabled());
+    }
+
+    @Override
+    public void alReanudarTest() {
+        // En la interfaz de usuario el cliente tiene que cambiar el icono de "Play" por "Pause"
+        despachador.publicar(() -> testChallengeClient.getTestPanel().getPreguntasPanel().setPauseButtonEnabled());
+    }
+
+    @Override
+    public void alRecibirPuntuacion(Puntuacion puntuacion) {
+        despachador.publicar(() -> {
+            PreguntasPanel preguntasPanel = testChallengeClient.getTestPanel().getPreguntasPanel();
+            if (puntuacion == Puntuacion.CORRECTA_Y_PRIMERA) {
+                // Una vez que el primer usuario ha contestado correctamente a la pregunta no se pueden enviar
+                // nuevas solicitudes para ampliar el tiempo restante
+                preguntasPanel.setAmpliarSegundosPanelEnabled(false);
+            }
+            preguntasPanel.setPuntuacionPreguntaActual(puntuacion);
+        });
+    }
+
+    @Override
+    public void alDesconectarse() {
+        // Si el servidor ha terminado, se finaliza también la aplicación
+        testChallengeClient.terminar();
+    }
+}
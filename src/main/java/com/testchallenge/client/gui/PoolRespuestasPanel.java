@@ -0,0 +1,89 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui;
+
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.TipoPregunta;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Paneles de respuestas reutilizables, uno por tipo de panel y modo (respuesta o revisión).
+ *
+ * En lugar de construir los paneles (y todos sus componentes) para cada pregunta, se reutiliza el panel del tipo que
+ * corresponde, que se vuelve a enlazar con la nueva pregunta. Como en el cliente sólo se muestra una pregunta a la vez,
+ * basta con un panel de cada tipo; al añadirlo al panel de respuestas de la nueva pregunta, Swing lo retira del de la
+ * anterior.
+ *
+ * Sólo se utiliza desde el EDT.
+ *
+ * @author japrada
+ */
+final class PoolRespuestasPanel {
+
+    // Paneles para responder a las preguntas
+    private static final Map<TipoPregunta, RespuestasPanel> paneles = new EnumMap<>(TipoPregunta.class);
+    // Paneles para revisar las respuestas
+    private static final Map<TipoPregunta, RespuestasPanel> panelesRevision = new EnumMap<>(TipoPregunta.class);
+
+    private PoolRespuestasPanel() {
+    }
+
+    /**
+     * Obtiene el panel que muestra las respuestas de la pregunta, enlazado con ella.
+     *
+     * @param pregunta pregunta que se muestra.
+     * @param revisionEnabled <code>true</code> si la pregunta se muestra con el modo de revisión activado.
+     * @return panel de respuestas enlazado con la pregunta.
+     */
+    static RespuestasPanel obtener(Pregunta pregunta, boolean revisionEnabled) {
+        Map<TipoPregunta, RespuestasPanel> pool = revisionEnabled ? panelesRevision : paneles;
+        // Las preguntas emparejadas y las multivalor se muestran con el mismo tipo de panel
+        TipoPregunta tipoPanel = pregunta.getTipo() == TipoPregunta.RESPUESTA_EMPAREJADA
+                ? TipoPregunta.RESPUESTA_MULTIVALOR : pregunta.getTipo();
+
+        RespuestasPanel panel = pool.get(tipoPanel);
+        if (panel == null) {
+            panel = crear(pregunta, revisionEnabled);
+            pool.put(tipoPanel, panel);
+        } else {
+            panel.setOpciones(pregunta);
+        }
+        return panel;
+    }
+
+    /**
+     * Construye el panel que corresponde al tipo de la pregunta.
+     *
+     * @param pregunta pregunta que se muestra.
+     * @param revisionEnabled <code>true</code> si la pregunta se muestra con el modo de revisión activado.
+     * @return panel de respuestas.
+     */
+    private static RespuestasPanel crear(Pregunta pregunta, boolean revisionEnabled) {
+        String[] opciones = pregunta.getOpcionesAsArray();
+        switch (pregunta.getTipo()) {
+            case RESPUESTA_MULTIPLE:
+                return new RespuestaMultiCheckPanel(opciones, revisionEnabled);
+            case RESPUESTA_UNICA:
+                return new RespuestaRadioPanel(opciones, revisionEnabled);
+            case RESPUESTA_TEXTO_LIBRE:
+                return new RespuestaTextoPanel();
+            default:
+                return new RespuestaMultiComboPanel(opciones, pregunta.getValoresOpcionesAsArray(), revisionEnabled);
+        }
+    }
+}
@@ -17,18 +17,18 @@
  */
 package com.testchallenge.client.gui;
 
+import com.testchallenge.client.SesionCliente;
+import com.testchallenge.client.gui.imagenes.CacheImagenes;
 import com.testchallenge.client.gui.player.MP3Player;
 import static com.testchallenge.client.gui.player.MP3Player.secondsToString;
-import com.testchallenge.model.Mensaje;
 import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.ReferenciaMultimedia;
 import com.testchallenge.model.Respuesta;
-import com.testchallenge.model.TipoMensaje;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
-import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
@@ -38,12 +38,10 @@ import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.logging.Logger;
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
@@ -57,6 +55,7 @@ import javax.swing.JScrollPane;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 /**
  * Panel que contiene los componentes que permiten mostrar las preguntas del test que se reciben desde el servidor,
@@ -87,8 +86,10 @@ public class PreguntasPanel extends ConectablePanel {
     private JLabel popupWindowLabel;
     // Ventana emergente que muestra una imagen;
     private JFrame popupWindow;
-    // Byte array con los datos del fichero multimedia
-    private byte[] byteArrayData;
+    // Referencia a los datos del fichero multimedia (en memoria o volcados a disco)
+    private ReferenciaMultimedia datosMultimedia;
+    // Clave de la imagen en la caché de imágenes (si el fichero multimedia es una imagen)
+    private String claveImagen;
     // Duración en segundos del Mp3
     private long duracionDelAudioEnSegundos;
     // Panel con los botones "Anterior", "Enviar respuesta" y "Siguiente"
@@ -130,6 +131,14 @@ public class PreguntasPanel extends ConectablePanel {
     private final static int POPUP_WINDOW_ANCHO = 500;
     private final static int POPUP_WINDOW_ALTO = 500;
 
+    // Retardo (en milisegundos) desde el último cambio de tamaño de la ventana emergente hasta que se reescala la imagen
+    private final static int RETARDO_REESCALADO_MS = 150;
+
+    // Caché de las imágenes de las preguntas (compartida por todos los paneles)
+    private final static CacheImagenes cacheImagenes = new CacheImagenes();
+    // Propiedad de las etiquetas que identifica la última imagen solicitada para ellas
+    private final static String SOLICITUD_IMAGEN = "solicitudImagen";
+
     // Constantes para intercambiar el comando "Pause" y "Resume" y hacer el tratamiento
     public final static String PAUSE_ACTION_COMMAND = "PAUSE";
     public final static String RESUME_ACTION_COMMAND = "RESUME";
@@ -142,10 +151,10 @@ public class PreguntasPanel extends ConectablePanel {
      * Contruye un panel de preguntas vacío (sin pregunta) con el marco y el canal de envío de mensajes especificados.
      *
      * @param title título del marco alrededor del panel.
-     * @param out canal para el envío de datos al servidor.
+     * @param sesion sesión para el envío de datos al servidor.
      */
-    public PreguntasPanel(String title, ObjectOutputStream out) {
-        this(title, "", "", null, 0, false, new RespuestasPanel(new String[]{}), null, out);
+    public PreguntasPanel(String title, SesionCliente sesion) {
+        this(title, "", "", null, 0, false, new RespuestasPanel(new String[]{}), null, sesion);
     }
 
     /**
@@ -154,17 +163,17 @@ public class PreguntasPanel extends ConectablePanel {
      * Construye un panel de preguntas para mostrar la información de la pregunta que se pasa como parámetro.
      *
      * @param pregunta objeto con la información de una pregunta.
-     * @param out canal para el envío de datos al servidor.
+     * @param sesion sesión para el envío de datos al servidor.
      */
-    public PreguntasPanel(Pregunta pregunta, ObjectOutputStream out) {
+    public PreguntasPanel(Pregunta pregunta, SesionCliente sesion) {
         this(pregunta.getTitle(),
                 pregunta.getTexto(),
                 pregunta.getFicheroMultimedia(),
-                pregunta.getFicheroMultimediaData(),
+                pregunta.getReferenciaMultimedia(),
                 pregunta.getDuracionDelAudioEnSegundos(),
                 pregunta.isFicheroMultimediaUnaImagen(),
                 new RespuestasPanel(pregunta),
-                pregunta.getNumeroOrden(), out);
+                pregunta.getNumeroOrden(), sesion);
 
         this.pregunta = pregunta;
     }
@@ -177,23 +186,23 @@ public class PreguntasPanel extends ConectablePanel {
      * @param title título del marco alrededor del panel.
      * @param pregunta texto de la pregunta.
      * @param ficheroMultimedia nombre del fichero multimedia que acompaña a la pregunta.
-     * @param ficheroMultimediaData fichero multimedia (imagen o audio) que acompaña a la pregunta.
+     * @param datosMultimedia referencia al fichero multimedia (imagen o audio) que acompaña a la pregunta.
      * @param duracionDelAudioEnSegundos duración del audio
      * @param isAnImage
      * @param respuestas panel conteniendo las respuestas de la pregunta.
      * @param orden número de orden de la pregunta en el test.
-     * @param out canal para el envío de datos al servidor.
+     * @param sesion sesión para el envío de datos al servidor.
      */
     private PreguntasPanel(String title,
             String pregunta,
             String ficheroMultimedia,
-            byte[] ficheroMultimediaData,
+            ReferenciaMultimedia datosMultimedia,
             long duracionDelAudioEnSegundos,
             boolean isAnImage,
             RespuestasPanel respuestas,
             Integer orden,
-            ObjectOutputStream out) {
-        super(title, out);
+            SesionCliente sesion) {
+        super(title, sesion);
 
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 
@@ -234,7 +243,7 @@ public class PreguntasPanel extends ConectablePanel {
         });
 
         // ¿Hay un fichero multimedia (una imagen o un audio) acompañando a la pregunta?
-        setMultimediaPregunta(ficheroMultimedia, ficheroMultimediaData, duracionDelAudioEnSegundos, isAnImage);
+        setMultimediaPregunta(ficheroMultimedia, datosMultimedia, duracionDelAudioEnSegundos, isAnImage);
 
         preguntaPanel.add(imagenLabel, BorderLayout.LINE_END);
         add(preguntaPanel);
@@ -432,10 +441,10 @@ public class PreguntasPanel extends ConectablePanel {
      */
     private void setMultimediaPregunta(Pregunta pregunta) {
         String ficheroMultimedia = pregunta.getFicheroMultimedia();
-        byte[] arrayData = pregunta.getFicheroMultimediaData();
+        ReferenciaMultimedia datos = pregunta.getReferenciaMultimedia();
         boolean isImage = pregunta.isFicheroMultimediaUnaImagen();
         long duracionEnSegundos = pregunta.getDuracionDelAudioEnSegundos();
-        setMultimediaPregunta(ficheroMultimedia, arrayData, duracionEnSegundos, isImage);
+        setMultimediaPregunta(ficheroMultimedia, datos, duracionEnSegundos, isImage);
     }
 
     /**
@@ -443,19 +452,24 @@ public class PreguntasPanel extends ConectablePanel {
      * preguntas
      *
      * @param ficheroMultimedia nombre del fichero multimedia.
-     * @param byteArrayData array de bytes conteniendo la imagen o el audio.
+     * @param datosMultimedia referencia a los datos de la imagen o el audio.
      * @param duracionEnSegundos duración en segundos del audio asociado al fichero multimedia.
      * @param isAnImage flag que indica si el fichero multimedia es una imagen o un audio.
      */
-    private void setMultimediaPregunta(String ficheroMultimedia, byte[] byteArrayData, long duracionEnSegundos, boolean isAnImage) {
+    private void setMultimediaPregunta(String ficheroMultimedia, ReferenciaMultimedia datosMultimedia,
+            long duracionEnSegundos, boolean isAnImage) {
         // ¿Hay un fichero multimedia (una imagen o un audio) acompañando a la pregunta?
         if (!ficheroMultimedia.equals("")) {
             if (isAnImage) {
-                scaledImageInLabel(imagenLabel, byteArrayData, MULTIMEDIA_LABEL_ANCHO, MULTIMEDIA_LABEL_ALTO);
+                this.datosMultimedia = datosMultimedia;
+                claveImagen = CacheImagenes.clave(ficheroMultimedia, datosMultimedia);
+                scaledImageInLabel(imagenLabel, MULTIMEDIA_LABEL_ANCHO, MULTIMEDIA_LABEL_ALTO);
                 imagenLabel.setToolTipText("Haga doble click para agrandar la imagen");
                 imagenLabel.setName("imagen");
             } else {
                 // Es un audio: mostrar un icono con el símbolo del PLAY
+                imagenLabel.putClientProperty(SOLICITUD_IMAGEN, null);
+                claveImagen = null;
                 ImageIcon iconPlay = new ImageIcon(getClass().getResource("/images/mp3.png"));
                 imagenLabel.setIcon(iconPlay);
                 imagenLabel.setHorizontalAlignment(SwingConstants.CENTER);
@@ -467,11 +481,13 @@ public class PreguntasPanel extends ConectablePanel {
                 duracionDelAudioEnSegundos = duracionEnSegundos;
             }
             imagenLabel.setBorder(BorderFactory.createTitledBorder(""));
-            this.byteArrayData = byteArrayData;
+            this.datosMultimedia = datosMultimedia;
             imagenLabel.setVisible(true);
         } else {
             imagenLabel.setName("");
-            this.byteArrayData = null;
+            imagenLabel.putClientProperty(SOLICITUD_IMAGEN, null);
+            this.datosMultimedia = null;
+            claveImagen = null;
             duracionDelAudioEnSegundos = 0;
             imagenLabel.setVisible(false);
         }
@@ -599,8 +615,8 @@ public class PreguntasPanel extends ConectablePanel {
                         //if (respuesta.esValida()) {
                             // *********  Enviar la respuesta al servidor *********
                             pregunta.setRespuesta(respuesta);
-                            out.writeObject(new Mensaje(respuesta, TipoMensaje.RESPUESTA_ENVIAR));
-                            out.flush();
+                            // La sesión añade las marcas de tiempo con las que el servidor compensa la latencia
+                            sesion.enviarRespuesta(respuesta);
                             // *************************************************
                             // Sólo se deja enviar la respuesta una vez
                             enviarRespuestaButton.setEnabled(false);
@@ -679,8 +695,7 @@ public class PreguntasPanel extends ConectablePanel {
 
                 // Comprobar la opción seleccionada por el usuario
                 if (option == JOptionPane.OK_OPTION) {
-                    out.writeObject(new Mensaje(TipoMensaje.DETENER_TEST));
-                    out.flush();
+                    sesion.detenerTest();
                 }
 
                 return "Ejecución completada.";
@@ -707,8 +722,7 @@ public class PreguntasPanel extends ConectablePanel {
                     // Comprobar la opción seleccionada por el usuario
                     if (option == JOptionPane.OK_OPTION) {
                         // Enviar mensaje al servidor
-                        out.writeObject(new Mensaje(TipoMensaje.PAUSAR_TEST));
-                        out.flush();
+                        sesion.pausarTest();
                         // Actualizar la UI: Poner el icono del Play
                         setResumeButtonEnabled();
                     }
@@ -720,8 +734,7 @@ public class PreguntasPanel extends ConectablePanel {
                     // Comprobar la opción seleccionada por el usuario
                     if (option == JOptionPane.OK_OPTION) {
                         // Enviar mensaje al servidor
-                        out.writeObject(new Mensaje(TipoMensaje.REANUDAR_TEST));
-                        out.flush();
+                        sesion.reanudarTest();
 
                         //  Actualizar la UI: Poner el icono del Pause
                         setPauseButtonEnabled();
@@ -742,21 +755,15 @@ public class PreguntasPanel extends ConectablePanel {
     private void cargarPregunta(int preguntaIndex) {
         Pregunta preguntaMostrada = preguntas.get(preguntaIndex);
 
-        remove(spRespuestasPanel);
-        remove(buttonsPanel);
-
-        respuestasPanel = new RespuestasPanel(preguntaMostrada, true);
+        // El panel de respuestas y su scroll se reutilizan: sólo se enlazan con la pregunta mostrada
+        respuestasPanel.setPregunta(preguntaMostrada, true);
         respuestasPanel.setRespuestas(preguntaMostrada.getRespuestasAsArray(),
                 preguntaMostrada.getRespuesta());
 
         respuestasPanel.setEnabled(true);
-     
-        spRespuestasPanel = new JScrollPane(respuestasPanel);
-        spRespuestasPanel.setPreferredSize(new Dimension(PREGUNTAS_PANEL_ANCHO, PREGUNTAS_PANEL_ALTO));
+
         spRespuestasPanel.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        spRespuestasPanel.setBorder(null);
-        add(spRespuestasPanel);
-        add(buttonsPanel);
+        spRespuestasPanel.getVerticalScrollBar().setValue(0);
 
         preguntaAnteriorButton.setEnabled(true);
         preguntaSiguienteButton.setEnabled(true);
@@ -765,7 +772,9 @@ public class PreguntasPanel extends ConectablePanel {
         setMultimediaPregunta(preguntaMostrada);
         setBorder(BorderFactory.createTitledBorder(preguntaTitle(preguntaMostrada)));
 
-        revalidate();
+        // Sólo se recalcula el layout del panel de respuestas
+        spRespuestasPanel.revalidate();
+        spRespuestasPanel.repaint();
 
         if (preguntaIndex == 0) {
             preguntaAnteriorButton.setEnabled(false);
@@ -789,8 +798,7 @@ public class PreguntasPanel extends ConectablePanel {
         sw = new SwingWorker() {
             @Override
             protected String doInBackground() throws Exception {
-                out.writeObject(new Mensaje(ampliarSegundosComboBox.getSelectedItem(), TipoMensaje.AMPLIAR_TIEMPO_RESPUESTA));
-                out.flush();
+                sesion.ampliarTiempo(ampliarSegundosComboBox.getSelectedItem());
                 return "Ejecución completada.";
             }
         };
@@ -799,24 +807,25 @@ public class PreguntasPanel extends ConectablePanel {
     }
 
     /**
-     * Establece la imagen contenida en el array de bytes <code>imageData</code> como contenido de la etiqueta
-     * <code>imageLabel</code> con la anchura y altura especificadas.
+     * Establece la imagen de la pregunta como contenido de la etiqueta <code>imageLabel</code> con la anchura y altura
+     * especificadas.
+     *
+     * La imagen se obtiene de la caché de imágenes: si no está, se decodifica y se escala en segundo plano y se muestra
+     * cuando está disponible (siempre que la etiqueta no haya solicitado otra imagen entre tanto).
      *
      * @param imageLabel etiqueta que se utiliza para mostrar la imagen.
-     * @param imageData array de bytes con la imagen.
      * @param width anchura (en pixels).
      * @param height altura (en pixels).
      */
-    private void scaledImageInLabel(JLabel imageLabel, byte[] imageData, int width, int height) {
-        try {
-            BufferedImage bi = ImageIO.read(new ByteArrayInputStream(imageData));
-            Image scaledImage = bi.getScaledInstance(width, height, Image.SCALE_FAST);
-            ImageIcon imageIcon = new ImageIcon(scaledImage);
-            imageLabel.setIcon(imageIcon);
-            imageLabel.setPreferredSize(new Dimension(width, height));
-        } catch (IOException ioe) {
-            logger.severe(ioe.getMessage());
-        }
+    private void scaledImageInLabel(JLabel imageLabel, int width, int height) {
+        imageLabel.setPreferredSize(new Dimension(width, height));
+        Object solicitud = new Object();
+        imageLabel.putClientProperty(SOLICITUD_IMAGEN, solicitud);
+        cacheImagenes.cargar(claveImagen, datosMultimedia, width, height, (BufferedImage imagen) -> {
+            if (imageLabel.getClientProperty(SOLICITUD_IMAGEN) == solicitud) {
+                imageLabel.setIcon(new ImageIcon(imagen));
+            }
+        });
     }
 
     /**
@@ -827,8 +836,17 @@ public class PreguntasPanel extends ConectablePanel {
 
         SwingUtilities.invokeLater(() -> {
 
+            // Los datos volcados a disco se proyectan en memoria (no se copian al heap)
+            ByteBuffer audio;
+            try {
+                audio = datosMultimedia.getDatos();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+                return;
+            }
+
             popupWindow = new MP3Player("Audio Mp3",
-                    byteArrayData,
+                    audio,
                     duracionDelAudioEnSegundos,
                     secondsToString(duracionDelAudioEnSegundos));
 
@@ -861,7 +879,7 @@ public class PreguntasPanel extends ConectablePanel {
             popupWindow = new PopupWindow("Imagen");
 
             popupWindowLabel = new JLabel();
-            scaledImageInLabel(popupWindowLabel, byteArrayData, POPUP_WINDOW_ANCHO, POPUP_WINDOW_ALTO);
+            scaledImageInLabel(popupWindowLabel, POPUP_WINDOW_ANCHO, POPUP_WINDOW_ALTO);
             popupWindowLabel.setToolTipText("Redimensione la ventana para ajustar el tamaño");
 
             popupWindow.getContentPane().add(popupWindowLabel);
@@ -871,12 +889,20 @@ public class PreguntasPanel extends ConectablePanel {
             popupWindow.setVisible(true);
             popupWindow.setResizable(true);
 
+            // La imagen se reescala cuando el tamaño de la ventana deja de cambiar (no en cada evento)
+            JFrame ventana = popupWindow;
+            JLabel ventanaLabel = popupWindowLabel;
+            Timer reescalado = new Timer(RETARDO_REESCALADO_MS, (ActionEvent e) -> {
+                Dimension newSize = ventana.getSize();
+                scaledImageInLabel(ventanaLabel, newSize.width, newSize.height);
+            });
+            reescalado.setRepeats(false);
+
             popupWindow.addComponentListener(new ComponentAdapter() {
                 @Override
                 public void componentResized(ComponentEvent e) {
                     // Captura el evento de redimensionamiento
-                    Dimension newSize = e.getComponent().getSize();
-                    scaledImageInLabel(popupWindowLabel, byteArrayData, newSize.width, newSize.height);
+                    reescalado.restart();
                 }
             });
 
@@ -18,17 +18,13 @@
 
 package com.testchallenge.client.gui;
 
-import com.testchallenge.model.Mensaje;
-import com.testchallenge.model.TipoMensaje;
+import com.testchallenge.client.SesionCliente;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
 import java.util.logging.Logger;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -72,12 +68,8 @@ class RegistroDialog extends JDialog {
     private String server;
     // Puerto en el que se encuentra escuchando el servidor de chat
     private int port;
-    //Stream utilizado para la lectura de datos enviados desde el servidor de chat
-    private ObjectInputStream in = null;
-    //Stream utilizado para la escritura de datos hacia el servidor de chat
-    private ObjectOutputStream out = null;
-    //Socket para la conexión con el servidor de chat
-    private Socket serverDataSocket = null;
+    // Sesión del usuario con el servidor de chat
+    private SesionCliente sesion = null;
     // Logger de la clase
     private final static Logger logger = Logger.getLogger(RegistroDialog.class.getName());
 
@@ -195,30 +187,12 @@ class RegistroDialog extends JDialog {
     }
 
     /**
-     * Obtiene el canal de lectura con el servidor.
+     * Obtiene la sesión del usuario con el servidor.
      *
-     * @return canal de lectura con el servidor.
+     * @return sesión con el servidor (con el usuario ya registrado).
      */
-    public ObjectInputStream getInputStream() {
-        return in;
-    }
-
-    /**
-     * Obtiene el canal de escritura con el servidor.
-     *
-     * @return canal de escritura con el servidor.
-     */
-    public ObjectOutputStream getOutputStream() {
-        return out;
-    }
-
-    /**
-     * Socket de conexión con el servidor.
-     *
-     * @return obtiene el socket con el que el cliente se ha conectado con el servidor
-     */
-    public Socket getServerDataSocket() {
-        return serverDataSocket;
+    public SesionCliente getSesion() {
+        return sesion;
     }
 
     /**
@@ -289,45 +263,26 @@ class RegistroDialog extends JDialog {
 
         try {
 
-            // Establecer una conexión con el servidor
-            serverDataSocket = new Socket(servidorField.getText(), Integer.parseInt(puertoField.getText()));
+            // Establecer una conexión con el servidor (si hay un intento anterior fallido, se descarta)
+            if (sesion != null) {
+                sesion.close();
+            }
+            sesion = new SesionCliente(servidorField.getText(), Integer.parseInt(puertoField.getText()));
 
-            // Obtener la información de dirección IP y puerto del socket de conexión del sistema cliente
-            String dirIPCliente = serverDataSocket.getLocalAddress().toString();
-            int puertoCliente = serverDataSocket.getLocalPort();
-            
             // Dirección IP y puerto del servidor con el que el cliente ha conectado
-            server = serverDataSocket.getInetAddress().getHostName();
-            port = serverDataSocket.getPort();
-
-            StringBuilder sb = new StringBuilder();
-            sb.append(String.format("'%s': Conexión establecida desde '%s':'%d' con el servidor '%s':'%d'.\n",
-                    RegistroDialog.class.getSimpleName(), dirIPCliente, puertoCliente, server, port));
+            server = sesion.getServidor();
+            port = sesion.getPuerto();
 
             // Enviar el nickname al servidor, para que lo valide
             String nickname = this.usuarioField.getText();
-            sb.append(String.format("'%s': Registrando nickname '%s' ...\n",
-                    RegistroDialog.class.getSimpleName(), nickname));
-
-            // Obtener el stream de escritura para la comunicación con el servidor y enviar el mensaje
-            out = new ObjectOutputStream(serverDataSocket.getOutputStream());
-            out.writeObject(new Mensaje(nickname));
-            out.flush();
-
-            // Leer la respuesta del server informando si el nickname es válido o ya está en uso
-            in = new ObjectInputStream(serverDataSocket.getInputStream());
-
-            Mensaje nicknameResponse = (Mensaje) in.readObject();
 
             // Si la respuesta del servidor es OK, entonces pasamos a "modo chat"
-            if (nicknameResponse.getTipo().equals(TipoMensaje.NICKNAME_OK)) {
+            if (sesion.registrar(nickname)) {
                 // ****** El nickname se ha registrado correctamente ******
                 return true;
             } else {
-                erroresTextArea.setText(String.format("El nickname '%s' ya está registrado.", nickname));
                 // Informar que el nickname está duplicado y no se ha podido iniciar una sesión
-                logger.info(String.format("'%s': nickname '%s' duplicado. Sesión no iniciada.",
-                        RegistroDialog.class.getSimpleName(), nickname));
+                erroresTextArea.setText(String.format("El nickname '%s' ya está registrado.", nickname));
             }
 
         } catch (IOException | NumberFormatException | ClassNotFoundException e) {
@@ -17,11 +17,14 @@
  */
 package com.testchallenge.client.gui;
 
+import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Respuesta;
+import java.awt.Color;
 import java.awt.Component;
 import java.awt.GridLayout;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -38,6 +41,10 @@ public class RespuestaMultiCheckPanel extends RespuestasPanel {
 
     // Colección que almacena las opciones que se presentan
     private Map<Integer, String> respuestas;
+    // Checks creados hasta el momento (se reutilizan al mostrar otra pregunta)
+    private final List<JCheckBox> opcionesChecks = new ArrayList<>();
+    // Color por defecto del texto de las opciones
+    private Color colorOpcion;
 
      /**
      * Construye un panel de objetos <code>JCheckBox</code> con las opciones indicadas y el 
@@ -64,30 +71,72 @@ public class RespuestaMultiCheckPanel extends RespuestasPanel {
 
         respuestas = new HashMap<>();
 
-        for (int i = 0; i < opciones.length; i++) {
+        setOpciones(opciones);
+    }
 
-            JCheckBox opcionJCheckBox = new JCheckBox(toHTML(opciones[i]));
+    @Override
+    protected void setOpciones(Pregunta pregunta) {
+        setOpciones(pregunta.getOpcionesAsArray());
+    }
 
-            opcionJCheckBox.setName(Integer.toString(i));
+    /**
+     * Muestra las opciones especificadas reutilizando los checks ya creados (y creando los que falten).
+     *
+     * @param opciones array con las opciones que se muestran en el panel.
+     */
+    private void setOpciones(String opciones[]) {
+        this.opciones = opciones;
 
-            if (!revisionEnabled) {
-                opcionJCheckBox.addItemListener((new ItemListener() {
-                    @Override
-                    public void itemStateChanged(ItemEvent e) {
-                        String numeroOpcion = ((JCheckBox) e.getSource()).getName();
-                        JCheckBox cb = (JCheckBox) e.getItemSelectable();
+        removeAll();
+        ((GridLayout) getLayout()).setRows(opciones.length + 1);
 
-                        if (cb.isSelected()) {
-                            String opcion = toText(cb.getText());
-                            respuestas.put(Integer.valueOf(numeroOpcion), opcion);
-                        } else {
-                            respuestas.remove(Integer.valueOf(numeroOpcion));
-                        }
-                    }
-                }));
+        for (int i = 0; i < opciones.length; i++) {
+            if (i == opcionesChecks.size()) {
+                opcionesChecks.add(crearOpcionCheck(i));
+            }
+            JCheckBox opcionJCheckBox = opcionesChecks.get(i);
+            // En el modo revisión el modelo de la pregunta anterior impide deseleccionar el check
+            if (opcionJCheckBox.getModel() instanceof FixedCheckBoxModel) {
+                opcionJCheckBox.setModel(new JToggleButton.ToggleButtonModel());
             }
+            opcionJCheckBox.setSelected(false);
+            opcionJCheckBox.setText(toHTML(opciones[i]));
+            opcionJCheckBox.setForeground(colorOpcion);
             add(opcionJCheckBox);
         }
+
+        respuestas.clear();
+    }
+
+    /**
+     * Crea un check para mostrar la opción con el número especificado.
+     *
+     * @param i número de la opción.
+     * @return check creado.
+     */
+    private JCheckBox crearOpcionCheck(int i) {
+        JCheckBox opcionJCheckBox = new JCheckBox();
+        opcionJCheckBox.setName(Integer.toString(i));
+        if (colorOpcion == null) {
+            colorOpcion = opcionJCheckBox.getForeground();
+        }
+
+        if (!revisionEnabled) {
+            opcionJCheckBox.addItemListener((new ItemListener() {
+                @Override
+                public void itemStateChanged(ItemEvent e) {
+                    String numeroOpcion = ((JCheckBox) e.getSource()).getName();
+                    JCheckBox cb = (JCheckBox) e.getItemSelectable();
+                    if (cb.isSelected()) {
+                        String opcion = toText(cb.getText());
+                        respuestas.put(Integer.valueOf(numeroOpcion), opcion);
+                    } else {
+                        respuestas.remove(Integer.valueOf(numeroOpcion));
+                    }
+                }
+            }));
+        }
+        return opcionJCheckBox;
     }
 
     @Override
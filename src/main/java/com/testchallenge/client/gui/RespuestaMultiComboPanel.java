@@ -17,6 +17,7 @@
  */
 package com.testchallenge.client.gui;
 
+import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Respuesta;
 import java.awt.Color;
 import java.awt.Component;
@@ -25,12 +26,16 @@ import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.ListCellRenderer;
 
 /**
  * Panel para mostrar las respuestas de tipo Multivalor y Emparejada.
@@ -41,8 +46,14 @@ public class RespuestaMultiComboPanel extends RespuestasPanel {
 
     // Respuestas correctas asociadas a las opciones teniendo en cuenta su posición
     private Map<Integer, String> respuestasOpciones;
-    // Textos de las opciones (JLabel) que acompañan a los combos
-    private final JLabel[] labelsOpciones;
+    // Textos de las opciones (JLabel) que acompañan a los combos (se reutilizan al mostrar otra pregunta)
+    private final List<JLabel> labelsOpciones = new ArrayList<>();
+    // Combos con los valores de las opciones (se reutilizan al mostrar otra pregunta)
+    private final List<JComboBox<String>> combosOpciones = new ArrayList<>();
+    // Renderer por defecto de los combos
+    private ListCellRenderer<? super String> rendererPorDefecto;
+    // Color por defecto del texto de las opciones
+    private Color colorOpcion;
     private Respuesta respuestaEnviada;
 
     /**
@@ -56,78 +67,125 @@ public class RespuestaMultiComboPanel extends RespuestasPanel {
     public RespuestaMultiComboPanel(String opciones[], String[][] valoresOpciones, boolean revisionEnabled) {
         super(opciones, revisionEnabled);
 
-        // Array con las JLabel de las opciones
-        labelsOpciones = new JLabel[opciones.length];
         // Mapa con la respuesta correcta a cada pregunta
         respuestasOpciones = new HashMap<>();
 
         setLayout(new GridBagLayout());
 
+        setOpciones(opciones, valoresOpciones);
+    }
+
+    @Override
+    protected void setOpciones(Pregunta pregunta) {
+        setOpciones(pregunta.getOpcionesAsArray(), pregunta.getValoresOpcionesAsArray());
+    }
+
+    /**
+     * Muestra las opciones especificadas reutilizando las etiquetas y los combos ya creados (y creando los que
+     * falten).
+     *
+     * @param opciones opciones a mostrar.
+     * @param valoresOpciones valores de los objetos <code>JComboBox</code> asociados.
+     */
+    private void setOpciones(String opciones[], String[][] valoresOpciones) {
+        this.opciones = opciones;
+
+        removeAll();
+
         GridBagConstraints constraints = new GridBagConstraints();
         constraints.fill = GridBagConstraints.HORIZONTAL;
         constraints.anchor = GridBagConstraints.NORTH;
+        constraints.gridwidth = 1;
+        constraints.gridheight = 1;
+        constraints.weightx = 1.0;
 
         for (int i = 0; i < opciones.length; i++) {
+            if (i == labelsOpciones.size()) {
+                crearOpcion(i);
+            }
 
-            // Creamos la JLabel del Combo (Multi-line), posición x=0, y=i
+            // La JLabel del Combo (Multi-line), posición x=0, y=i
             // ****************************************
-            JLabel opcionLabel = new JLabel();
-
-            opcionLabel.setName(Integer.toString(i));
+            JLabel opcionLabel = labelsOpciones.get(i);
             opcionLabel.setText(toHTML(opciones[i]));
+            opcionLabel.setForeground(colorOpcion);
 
             constraints.gridx = 0;
             constraints.gridy = i;
-            constraints.gridwidth = 1;
-            constraints.gridheight = 1;
-            constraints.weightx = 1.0;
-
             // Añadimos la etiqueta en la posición correcta en el GridBagLayout (x=0, y=i)
             add(opcionLabel, constraints);
 
-            // Y la registramos en el array
-            labelsOpciones[i] = opcionLabel;
-
             // Combo con las opciones:
             // ************************
-            // 1. Reajustamos la longitud del array para poner en la posición 0 el elemento seleccionado por defecto
+            // 1. Ponemos en la posición 0 el elemento seleccionado por defecto
             String[] valoresOpcionesConOpcionPorDefecto = new String[valoresOpciones[i].length + 1];
             System.arraycopy(valoresOpciones[i], 0,
                     valoresOpcionesConOpcionPorDefecto, 1, valoresOpciones[i].length);
             valoresOpcionesConOpcionPorDefecto[0] = Respuesta.OPCION_POR_DEFECTO_EMPAREJADA_MULTIVALOR;
-            valoresOpciones[i] = valoresOpcionesConOpcionPorDefecto;
-
-            // 2. Creamos el JComboBox con las opciones y el valor por defecto, que se muestra como primera opción
-            JComboBox<String> valoresOpcionComboBox = new JComboBox<>(valoresOpciones[i]);
-            valoresOpcionComboBox.setName(Integer.toString(i));
 
+            // 2. Cargamos en el JComboBox las opciones y el valor por defecto, que se muestra como primera opción
+            JComboBox<String> valoresOpcionComboBox = combosOpciones.get(i);
+            valoresOpcionComboBox.setRenderer(rendererPorDefecto);
+            valoresOpcionComboBox.setModel(new DefaultComboBoxModel<>(valoresOpcionesConOpcionPorDefecto));
             // Dejamos seleccionado el elemento 0 que contiene el valor por defecto
             valoresOpcionComboBox.setSelectedIndex(0);
 
             constraints.gridx = 1;
             constraints.gridy = i;
-            constraints.gridwidth = 1;
-            constraints.gridheight = 1;
-            constraints.weightx = 1.0;
-
             // Añadimos el combo en la posición correcta en el GridBagLayout (x=1, y=i)
             add(valoresOpcionComboBox, constraints);
+        }
+
+        // Los listeners de los combos pueden haber registrado el valor por defecto al cargar las opciones
+        respuestasOpciones.clear();
+    }
+
+    /**
+     * Crea la etiqueta y el combo de la opción con el número especificado.
+     *
+     * @param i número de la opción.
+     */
+    private void crearOpcion(int i) {
+        JLabel opcionLabel = new JLabel();
+        opcionLabel.setName(Integer.toString(i));
+        if (colorOpcion == null) {
+            colorOpcion = opcionLabel.getForeground();
+        }
+        labelsOpciones.add(opcionLabel);
+
+        JComboBox<String> valoresOpcionComboBox = new JComboBox<>();
+        valoresOpcionComboBox.setName(Integer.toString(i));
+        if (rendererPorDefecto == null) {
+            rendererPorDefecto = valoresOpcionComboBox.getRenderer();
+        }
 
-            // Si no estamos en modo revisión, registramos un listener en el combo para gestionar los eventos de selección.
-            // En caso contrario, se registra otro listener cuando se establecen las respuestas para reestablecer el valor
-            // seleccionado si el usuario lo cambia. 
-            if (!revisionEnabled) {
-                valoresOpcionComboBox.addActionListener((new ActionListener() {
-                    @Override
-                    public void actionPerformed(ActionEvent event) {
-                        JComboBox cb = (JComboBox) event.getSource();
-                        String numeroOpcion = cb.getName();
+        // Si no estamos en modo revisión, registramos un listener en el combo para gestionar los eventos de selección.
+        // En caso contrario, se registra otro listener para reestablecer el valor seleccionado si el usuario lo cambia.
+        if (!revisionEnabled) {
+            valoresOpcionComboBox.addActionListener((new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent event) {
+                    JComboBox cb = (JComboBox) event.getSource();
+                    String numeroOpcion = cb.getName();
+                    if (cb.getSelectedItem() != null) {
                         String opcion = cb.getSelectedItem().toString();
                         respuestasOpciones.put(Integer.valueOf(numeroOpcion), opcion);
                     }
-                }));
-            }
+                }
+            }));
+        } else {
+            // Si estamos en el modo "revisión" no se permite cambiar el elemento seleccionado
+            valoresOpcionComboBox.addItemListener((ItemEvent event) -> {
+                if (event.getStateChange() == ItemEvent.SELECTED) {
+                    JComboBox cb = (JComboBox) event.getSource();
+                    String respuestaFijada = respuestasOpciones.get(Integer.valueOf(cb.getName()));
+                    if (respuestaFijada != null && !respuestaFijada.equals(cb.getSelectedItem())) {
+                        cb.setSelectedItem(respuestaFijada);
+                    }
+                }
+            });
         }
+        combosOpciones.add(valoresOpcionComboBox);
     }
 
     @Override
@@ -160,32 +218,22 @@ public class RespuestaMultiComboPanel extends RespuestasPanel {
                     String respuestaCorrecta = respuestasCorrectas[comboIndex];
                     opcionComboBox.setRenderer(
                             new ComboRenderer(respuestaCorrecta, 
-                                    respuestaCorrecta, labelsOpciones[comboIndex], 
+                                    respuestaCorrecta, labelsOpciones.get(comboIndex), 
                                     true));
-                    // Seleccionamos en el combo la respuesta correcta
-                    opcionComboBox.setSelectedItem(respuestaCorrecta);
                     // Guardamos la respuesta correcta, para reestablecerla si el usuario cambia el valor seleccionado
                     respuestasOpciones.put(comboIndex, respuestaCorrecta);
+                    // Seleccionamos en el combo la respuesta correcta
+                    opcionComboBox.setSelectedItem(respuestaCorrecta);
                 } else {
                     // Establecemos un renderer para mostrar la respuesta enviada y la correcta en el color adecuado
                     String respuestaSeleccionada = respuestaEnviada.getOpcionesSeleccionadas().get(comboIndex);
                     opcionComboBox.setRenderer(
                             new ComboRenderer(respuestaSeleccionada, 
                                     respuestasCorrectas[comboIndex], 
-                                    labelsOpciones[comboIndex], false));
-                    opcionComboBox.setSelectedItem(respuestaSeleccionada);
+                                    labelsOpciones.get(comboIndex), false));
                     // Guardamos la respuesta correcta, para reestablecerla si el usuario cambia el valor seleccionado
                     respuestasOpciones.put(comboIndex, respuestaSeleccionada);
-                }
-
-                if (revisionEnabled) {
-                    // Si estamos en el modo "revisión" no se permite cambiar el elemento seleccionado
-                    opcionComboBox.addItemListener((ItemEvent event) -> {
-                        if (event.getStateChange() == ItemEvent.SELECTED) {
-                            JComboBox cb = (JComboBox) event.getSource();
-                            cb.setSelectedItem(respuestasOpciones.get(Integer.valueOf(cb.getName())));
-                        }
-                    });
+                    opcionComboBox.setSelectedItem(respuestaSeleccionada);
                 }
             }
         }
@@ -17,10 +17,13 @@
  */
 package com.testchallenge.client.gui;
 
+import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Respuesta;
+import java.awt.Color;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import javax.swing.AbstractButton;
@@ -45,6 +48,12 @@ public class RespuestaRadioPanel extends RespuestasPanel {
     
     // Respuesta enviada: se guarda la referencia cuando se establecen las opciones para ser utilizada por el listener
     private Respuesta respuestaEnviada;
+    // Botones creados hasta el momento (se reutilizan al mostrar otra pregunta)
+    private final List<JRadioButton> opcionesButtons = new ArrayList<>();
+    // Color por defecto del texto de las opciones
+    private Color colorOpcion;
+    // Flag que permite deseleccionar las opciones en el modo revisión al reutilizar el panel
+    private boolean reiniciando = false;
 
     /**
      * Construye un panel de objetos <code>JRadioButton</code> con las opciones especificadas con el 
@@ -72,43 +81,44 @@ public class RespuestaRadioPanel extends RespuestasPanel {
 
         opcionesGroup = new ButtonGroup();
 
-        for (String opcion : opciones) {
+        setOpciones(opciones);
+    }
 
-            JRadioButton opcionButton = new JRadioButton(toHTML(opcion));
+    @Override
+    protected void setOpciones(Pregunta pregunta) {
+        setOpciones(pregunta.getOpcionesAsArray());
+    }
 
-            opcionButton.setActionCommand(opcion);
+    /**
+     * Muestra las opciones especificadas reutilizando los botones ya creados (y creando los que falten).
+     *
+     * @param opciones array con las opciones a mostrar.
+     */
+    private void setOpciones(String opciones[]) {
+        this.opciones = opciones;
+
+        // Deseleccionar la opción de la pregunta anterior y desbloquear la selección
+        reiniciando = true;
+        opcionesGroup.clearSelection();
+        reiniciando = false;
+        opcionSeleccionada = null;
+        opcionBloqueada = false;
+        respuestaEnviada = null;
+
+        removeAll();
+        for (JRadioButton opcionButton : opcionesButtons) {
+            opcionesGroup.remove(opcionButton);
+        }
+        ((GridLayout) getLayout()).setRows(opciones.length + 1);
 
-            // ¿Se está monstrando la respuesta en modo revisión?
-            if (!revisionEnabled) {
-                // Si no estamos revisando las respuestas enviadas, ponemos un actionListener que permita 
-                // deseleccionar la opción seleccionada.
-                ActionListener deselectListener = (ActionEvent e) -> {
-                    JRadioButton clickedButton = (JRadioButton) e.getSource();
-                    if (clickedButton == opcionSeleccionada) {
-                        opcionesGroup.clearSelection();
-                        opcionSeleccionada = null;
-                    } else {
-                        opcionSeleccionada = clickedButton;
-                    }
-                };
-                opcionButton.addActionListener(deselectListener);
-            } else {
-                // Si estamos revisando las respuestas enviadas, modificamos el comportamiento del botón para evitar
-                // que el usuario pueda deseleccionar la opción.
-                JToggleButton.ToggleButtonModel model = new JToggleButton.ToggleButtonModel() {
-                    @Override
-                    public void setSelected(boolean b) {
-                        if (!opcionBloqueada || super.isSelected()) {
-                            // Si el usuario no ha enviado respuesta o esta es vacía, entonces no dejamos hacer la selección
-                            if (respuestaEnviada != null && !respuestaEnviada.isEmpty())
-                                super.setSelected(b);
-                            // Bloqueamos cambios después de la primera selección
-                            opcionBloqueada = true; 
-                        }
-                    }
-                };
-                opcionButton.setModel(model);
+        for (int i = 0; i < opciones.length; i++) {
+            if (i == opcionesButtons.size()) {
+                opcionesButtons.add(crearOpcionButton());
             }
+            JRadioButton opcionButton = opcionesButtons.get(i);
+            opcionButton.setText(toHTML(opciones[i]));
+            opcionButton.setActionCommand(opciones[i]);
+            opcionButton.setForeground(colorOpcion);
 
             // Cambiar el modelo de selección del grupo
             opcionesGroup.add(opcionButton);
@@ -116,6 +126,53 @@ public class RespuestaRadioPanel extends RespuestasPanel {
         }
     }
 
+    /**
+     * Crea un botón para mostrar una opción con el comportamiento que corresponde al modo de revisión del panel.
+     *
+     * @return botón creado.
+     */
+    private JRadioButton crearOpcionButton() {
+        JRadioButton opcionButton = new JRadioButton();
+        if (colorOpcion == null) {
+            colorOpcion = opcionButton.getForeground();
+        }
+
+        // ¿Se está monstrando la respuesta en modo revisión?
+        if (!revisionEnabled) {
+            // Si no estamos revisando las respuestas enviadas, ponemos un actionListener que permita 
+            // deseleccionar la opción seleccionada.
+            ActionListener deselectListener = (ActionEvent e) -> {
+                JRadioButton clickedButton = (JRadioButton) e.getSource();
+                if (clickedButton == opcionSeleccionada) {
+                    opcionesGroup.clearSelection();
+                    opcionSeleccionada = null;
+                } else {
+                    opcionSeleccionada = clickedButton;
+                }
+            };
+            opcionButton.addActionListener(deselectListener);
+        } else {
+            // Si estamos revisando las respuestas enviadas, modificamos el comportamiento del botón para evitar
+            // que el usuario pueda deseleccionar la opción.
+            JToggleButton.ToggleButtonModel model = new JToggleButton.ToggleButtonModel() {
+                @Override
+                public void setSelected(boolean b) {
+                    if (reiniciando) {
+                        super.setSelected(b);
+                    } else if (!opcionBloqueada || super.isSelected()) {
+                        // Si el usuario no ha enviado respuesta o esta es vacía, entonces no dejamos hacer la selección
+                        if (respuestaEnviada != null && !respuestaEnviada.isEmpty())
+                            super.setSelected(b);
+                        // Bloqueamos cambios después de la primera selección
+                        opcionBloqueada = true; 
+                    }
+                }
+            };
+            opcionButton.setModel(model);
+        }
+        return opcionButton;
+    }
+
     @Override
     public String[] getRespuestasSeleccionadas() {
         ButtonModel opcionModel = opcionesGroup.getSelection();
@@ -17,8 +17,10 @@
  */
 package com.testchallenge.client.gui;
 
+import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Respuesta;
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Dimension;
 import java.util.List;
 import javax.swing.JLabel;
@@ -36,6 +38,8 @@ public class RespuestaTextoPanel extends RespuestasPanel {
     private final JTextArea respuestaTextArea;
     // Label que muestra la respuesta enviada (se utiliza en el modo "Ver resultados")
     private final JLabel respuestaEnviadaLabel;
+    // Color por defecto del texto de la respuesta enviada
+    private final Color colorRespuestaEnviada;
 
     // Dimensiones del Panel
     private final static int RESPUESTA_TEXTO_PANEL_ANCHO = 500;
@@ -45,6 +49,7 @@ public class RespuestaTextoPanel extends RespuestasPanel {
         super();
 
         respuestaEnviadaLabel = new JLabel();
+        colorRespuestaEnviada = respuestaEnviadaLabel.getForeground();
 
         add(respuestaEnviadaLabel, BorderLayout.NORTH);
 
@@ -58,6 +63,14 @@ public class RespuestaTextoPanel extends RespuestasPanel {
         add(respuestaScrollPane, BorderLayout.SOUTH);
     }
 
+    @Override
+    protected void setOpciones(Pregunta pregunta) {
+        respuestaEnviadaLabel.setText("");
+        respuestaEnviadaLabel.setForeground(colorRespuestaEnviada);
+        respuestaTextArea.setText("");
+        respuestaTextArea.setEditable(true);
+    }
+
     @Override
     public String[] getRespuestasSeleccionadas() {
         String respuesta = respuestaTextArea.getText().trim();
@@ -111,30 +111,49 @@ public class RespuestasPanel extends SeleccionablePanel {
      */
     public RespuestasPanel(Pregunta pregunta, boolean revisionEnabled) {
         this(pregunta.getOpcionesAsArray(), revisionEnabled);
-        
+
+        setPregunta(pregunta, revisionEnabled);
+    }
+
+    /**
+     * Muestra las respuestas de la pregunta especificada.
+     *
+     * El panel del tipo de la pregunta no se construye: se obtiene de <code>PoolRespuestasPanel</code> enlazado con la
+     * pregunta, reutilizando sus componentes, y sólo se sustituye en este panel si es de otro tipo.
+     *
+     * @param pregunta pregunta cuyas respuestas se muestran.
+     * @param revisionEnabled <code>true</code> si la pregunta se muestra con el modo de revisión activado o
+     * <code>false</code> en caso contrario.
+     */
+    public void setPregunta(Pregunta pregunta, boolean revisionEnabled) {
+        this.opciones = pregunta.getOpcionesAsArray();
+        this.revisionEnabled = revisionEnabled;
         this.tipoPregunta = pregunta.getTipo();
         this.numeroPregunta = pregunta.getNumeroOrden();
 
-        switch (tipoPregunta) {
-            case RESPUESTA_MULTIPLE:
-                respuestasPanel = new RespuestaMultiCheckPanel(opciones, revisionEnabled);
-                add(respuestasPanel, BorderLayout.NORTH);
-                break;
-            case RESPUESTA_UNICA:
-                respuestasPanel = new RespuestaRadioPanel(opciones, revisionEnabled);
-                add(respuestasPanel, BorderLayout.NORTH);
-                break;
-            case RESPUESTA_TEXTO_LIBRE:
-                respuestasPanel = new RespuestaTextoPanel();
+        RespuestasPanel panel = PoolRespuestasPanel.obtener(pregunta, revisionEnabled);
+        if (panel != respuestasPanel || panel.getParent() != this) {
+            removeAll();
+            respuestasPanel = panel;
+            if (tipoPregunta == TipoPregunta.RESPUESTA_TEXTO_LIBRE) {
                 add(respuestasPanel, BorderLayout.SOUTH);
-                break;
-            case RESPUESTA_EMPAREJADA:
-            case RESPUESTA_MULTIVALOR:
-                respuestasPanel = new RespuestaMultiComboPanel(opciones,
-                        pregunta.getValoresOpcionesAsArray(), revisionEnabled);
+            } else {
                 add(respuestasPanel, BorderLayout.NORTH);
-                break;
+            }
         }
+        // El panel reutilizado puede haberse quedado deshabilitado tras enviar la respuesta de la pregunta anterior
+        setEnabled(true);
+    }
+
+    /**
+     * Enlaza el panel con una nueva pregunta reutilizando sus componentes.
+     *
+     * Las subclases que muestran las respuestas de un tipo de pregunta redefinen este método para restablecer su
+     * estado y mostrar las opciones de la pregunta.
+     *
+     * @param pregunta pregunta cuyas respuestas se muestran.
+     */
+    protected void setOpciones(Pregunta pregunta) {
     }
 
     /**
@@ -17,19 +17,13 @@
  */
 package com.testchallenge.client.gui;
 
-import com.testchallenge.client.TestChallengeClientThread;
-import com.testchallenge.model.Mensaje;
-import com.testchallenge.model.Pregunta;
-import com.testchallenge.model.Ranking;
+import com.testchallenge.client.SesionCliente;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.event.WindowAdapter;
 import java.beans.PropertyChangeEvent;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
 import java.util.logging.Logger;
 import javax.swing.JFrame;
 import javax.swing.JSplitPane;
@@ -51,12 +45,8 @@ public class TestChallengeClient extends JFrame {
     private static TestPanel testPanel;
     // Diálogo con el que se inicia la aplicación para realizar el registro del usuario
     private static RegistroDialog establecerConexionDialog;
-    //Stream utilizado para la lectura de datos enviados desde el servidor
-    private static ObjectInputStream in = null;
-    //Stream utilizado para la escritura de datos hacia el servidor
-    private static ObjectOutputStream out = null;
-    // Socket para la conexión con el servidor
-    private static Socket serverDataSocket = null;
+    // Sesión del usuario con el servidor
+    private static SesionCliente sesion = null;
     // Logger de la clase
     private final static Logger logger = Logger.getLogger(TestChallengeClient.class.getName());
 
@@ -80,10 +70,8 @@ public class TestChallengeClient extends JFrame {
                 testChallengeClient = new TestChallengeClient("", "", "");
             }
 
-            
-            serverDataSocket = establecerConexionDialog.getServerDataSocket();
-            in = establecerConexionDialog.getInputStream();
-            out = establecerConexionDialog.getOutputStream();
+
+            sesion = establecerConexionDialog.getSesion();
 
             try {
 
@@ -94,67 +82,9 @@ public class TestChallengeClient extends JFrame {
                 // Construir la GUI
                 buildGUI(nickname, server, port);
 
-                StringBuilder sb = new StringBuilder();
-                // Recibir los nicknames de los clientes conectados en ese momento
-                Mensaje nicknamesMensaje = (Mensaje) in.readObject();
-
-                String nicknamesConectadosMessage = nicknamesMensaje.getTexto();
-                // Informar al usuario de las opciones disponibles
-                sb.append("¡¡Bienvenido a la aplicación!!\n\n");
-                sb.append("[•] Puede enviar un chat a un grupo específico de usuarios escribiendo en el mensaje ");
-                sb.append("su nickname precedido del símbolo @ (p.e. @jprada)\n\n");
-                sb.append("[•] Puede enviar el mensaje BYE para cerrar la sesión y desconectarse del sistema.\n\n");
-                sb.append("[•] Para ejecutar un test, establezca la configuración y pulse \"Iniciar Test\".\n\n");
-                sb.append(nicknamesConectadosMessage).append("\n");
-
-                chatPanel.addMessage(sb.toString());
-
-                // TEMÁTICAS: Recibir las temáticas (obtenidas a partir de la lista de subdirectorios del directorio base)
-                Mensaje tematicasMensaje = (Mensaje) in.readObject();
-                String[] tematicas = tematicasMensaje.getTextArray();
-                testPanel.getConfiguracionPanel().setTematicas(tematicas);
-
-                // RANKING: Recuperar el ranking actual
-                Mensaje rankingActualMensaje = (Mensaje) in.readObject();
-                Ranking rankingActual = rankingActualMensaje.getRanking();
-                testPanel.setRanking(rankingActual, nickname);
-
-            
-                // FLAG TEST EN EJECUCIÓN: Recuperar el flag que indica si hay un test en ejecución
-                Mensaje testEnEjecucionFlagMensaje = (Mensaje) in.readObject();
-
-                if (testEnEjecucionFlagMensaje.getFlag().equals(Boolean.TRUE)) {
-                    // Recuperar el mensaje de arranque del test
-                    Mensaje testEnEjecucionInfoMensaje = (Mensaje) in.readObject();
-
-                    // Informar que hay un test en ejecución y mostrar el mensaje de arranque del test
-                    chatPanel.addMessage("\n[•] Hay un test en ejecución!");
-                    chatPanel.addMessage(testEnEjecucionInfoMensaje.getTexto());
-
-                    // Recibir la pregunta y presentarla en la UI
-                    Mensaje preguntaEnviadaMensaje = (Mensaje) in.readObject();
-                    Pregunta preguntaEnviada = preguntaEnviadaMensaje.getPregunta();
-                    testPanel.resetPanelPreguntas();
-                    testPanel.setPregunta(preguntaEnviada);
-                    chatPanel.addMessage("\n[•] ".concat(preguntaEnviada.getTitle()));
-                }
-
-                //FLAG TEST_PAUSADO: Recuperar el flag que indica si el test en ejecución está pausado
-                Mensaje testPausadoMensaje = (Mensaje) in.readObject();
-
-                if (testPausadoMensaje.getFlag().equals(Boolean.TRUE)) {
-                    chatPanel.addMessage("\n[•] El test, además, está pausado!");
-                    // Si el test está pausado, hay que mostrar el botón de play activado
-                    // Deshabilitar el panel de configuración y el botón Iniciar Test
-                    testPanel.getConfiguracionPanel().setEnabled(false);
-                    testPanel.getIniciarTestButton().setEnabled(false);
-                    testPanel.getPreguntasPanel().setAmpliarSegundosPanelEnabled(false);
-                    testPanel.getPreguntasPanel().setStopButtonEnabled(true);
-                    testPanel.getPreguntasPanel().setResumeButtonEnabled();
-                }
-
-                // Arrancar el hilo de servicio
-                startClientThread(nickname);
+                // Recibir el estado inicial (nicknames conectados, temáticas, ranking y test en ejecución) y
+                // arrancar el hilo de servicio
+                sesion.iniciar(new OyenteSesionSwing(testChallengeClient, nickname));
 
             } catch (IOException
                     | ClassNotFoundException ex) {
@@ -214,12 +144,12 @@ public class TestChallengeClient extends JFrame {
         // ********************
         // *    Chat panel    *
         // ********************
-        chatPanel = new ChatPanel("Chat", out);
+        chatPanel = new ChatPanel("Chat", sesion);
 
         // ********************
         // *    Test panel    *
         // ********************
-        testPanel = new TestPanel("Test", out);
+        testPanel = new TestPanel("Test", sesion);
         testPanel.setParent(testChallengeClient);
         testPanel.setModoRevisionEnabled(false);
 
@@ -259,30 +189,6 @@ public class TestChallengeClient extends JFrame {
         testChallengeClient.setResizable(false);
     }
 
-    /**
-     * Método helper para arrancar el thread que recibe los mensajes asíncronos dirigidos al usuario con el nickname
-     * específicado.
-     *
-     * @param nickname alias del usuario para el que se construye el thread de servicio.
-     */
-    private static void startClientThread(String nickname) {
-
-        //Crear el thread del cliente que escucha los mensajes recibidos por los otros usuarios del chat
-        TestChallengeClientThread cct = new TestChallengeClientThread(nickname);
-
-        // Pasar la referencia al stream de lectura desde el server (para leer los mensajes que llegan del servidor)
-        cct.setServerDataIn(in);
-
-        // Se pasa la referencia al objeto padre que ha instanciado el thread de servicio para que el hilo
-        // hijo pueda acceder a los métodos del padre y realizar determinadas operaciones, como por ejemplo,
-        // finalizar la ejecución del mismo cuando el thread de servicio detecta que la ejecución del 
-        // server ha finalizado.
-        cct.setTestChallengeClient(testChallengeClient);
-
-        //Arrancar el thread 
-        cct.start();
-    }
-
     /**
      * Obtiene la referencia al panel de chat.
      *
@@ -302,27 +208,13 @@ public class TestChallengeClient extends JFrame {
     }
 
     /**
-     * Este método le permite al hilo de servicio <code>TestChallengeClientThread</code> creado por
-     * <code>TestChallengeClient</code> finalizar la ejecución del cliente en el caso que el hijo detecte que el
-     * servidor ya no está disponible.
+     * Este método le permite al oyente de la sesión <code>OyenteSesionSwing</code> finalizar la ejecución del cliente
+     * en el caso que se detecte que el servidor ya no está disponible.
      */
     public void terminar() {
-        try {
-            if (in != null) {
-                in.close();
-            }
-
-            if (out != null) {
-                out.close();
-            }
-
-            // Cerramos el socket de conexión con el servidor
-            if (serverDataSocket != null) {
-                serverDataSocket.close();
-            }
-        } catch (IOException ioe) {
-            // Registrar traza de error
-            logger.severe(ioe.getMessage());
+        // Cerrar la conexión con el servidor
+        if (sesion != null) {
+            sesion.close();
         }
         // Terminar la aplicación
         System.exit(0);
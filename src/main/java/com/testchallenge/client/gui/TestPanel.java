@@ -17,19 +17,18 @@
  */
 package com.testchallenge.client.gui;
 
+import com.testchallenge.client.SesionCliente;
+import com.testchallenge.client.multimedia.AlmacenMultimedia;
 import com.testchallenge.model.Configuracion;
-import com.testchallenge.model.Mensaje;
 import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Puntuacion;
 import com.testchallenge.model.Ranking;
 import com.testchallenge.model.Resultados;
-import com.testchallenge.model.TipoMensaje;
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +64,8 @@ public class TestPanel extends ConectablePanel {
     private final JButton iniciarTestButton;
     // Preguntas que se van presentando en el test
     private List<Pregunta> preguntas;
+    // Almacén en disco de los datos multimedia de las preguntas presentadas
+    private final AlmacenMultimedia almacenMultimedia = new AlmacenMultimedia();
     // Resultados de la ejecución del test
     private Resultados resultados;
     
@@ -81,10 +82,10 @@ public class TestPanel extends ConectablePanel {
      * <code>ConfiguracionPanel</code>.
      *
      * @param title título del borde del panel.
-     * @param out canal para el envío de mensajes al servidor.
+     * @param sesion sesión para el envío de mensajes al servidor.
      */
-    public TestPanel(String title, ObjectOutputStream out) {
-        super(title, out);
+    public TestPanel(String title, SesionCliente sesion) {
+        super(title, sesion);
 
         // ********************
         // *    Test panel    *
@@ -120,7 +121,7 @@ public class TestPanel extends ConectablePanel {
         // *    Preguntas  panel   *
         // *************************
         // Construye un panel de preguntas vacío
-        preguntasPanel = new PreguntasPanel("Preguntas", out);
+        preguntasPanel = new PreguntasPanel("Preguntas", sesion);
         preguntasPanel.setParent(parent);
 
         rankingYPreguntasPanel.add(preguntasPanel, BorderLayout.CENTER);
@@ -128,7 +129,7 @@ public class TestPanel extends ConectablePanel {
         // *************************
         // * Configuraciones panel *
         // *************************
-        configuracionPanel = new ConfiguracionPanel("Configuración", out);
+        configuracionPanel = new ConfiguracionPanel("Configuración", sesion);
         configuracionPanel.setParent(parent);
 
         // **************************
@@ -206,6 +207,8 @@ public class TestPanel extends ConectablePanel {
         
         if (!isEnabled) {
             preguntas = new ArrayList<>();
+            // Los datos multimedia de las preguntas descartadas ya no se necesitan
+            almacenMultimedia.borrar();
         }
         
         preguntasPanel.setPreguntas(preguntas);
@@ -277,7 +280,7 @@ public class TestPanel extends ConectablePanel {
         rankingYPreguntasPanel.remove(preguntasPanel);
         timerPanel.setTimer("");
 
-        preguntasPanel = new PreguntasPanel("Preguntas", out);
+        preguntasPanel = new PreguntasPanel("Preguntas", sesion);
         preguntasPanel.setEnviarRespuestaButtonEnabled(false);
         preguntasPanel.setAnteriorButtonEnabled(true);
         preguntasPanel.setSiguienteButtonEnabled(true);
@@ -301,13 +304,17 @@ public class TestPanel extends ConectablePanel {
         preguntas.add(pregunta);
 
         rankingYPreguntasPanel.remove(preguntasPanel);
-        preguntasPanel = new PreguntasPanel(pregunta, out);
+        preguntasPanel = new PreguntasPanel(pregunta, sesion);
         preguntasPanel.setEnviarRespuestaButtonEnabled(true);
         preguntasPanel.setAmpliarSegundosPanelEnabled(true);
         preguntasPanel.setStopButtonEnabled(true);
         preguntasPanel.setPauseResumeButtonEnabled(true);
         rankingYPreguntasPanel.add(preguntasPanel);
         rankingYPreguntasPanel.revalidate();
+
+        // Una vez mostrada, la pregunta que se guarda para la revisión sólo conserva una referencia a sus datos
+        // multimedia, que se vuelcan a disco
+        almacenMultimedia.volcar(pregunta);
     }
 
     /**
@@ -328,7 +335,7 @@ public class TestPanel extends ConectablePanel {
         // Resetear el panel antes de empezar un nuevo test
         resultados = null;
         rankingYPreguntasPanel.remove(preguntasPanel);
-        preguntasPanel = new PreguntasPanel("Preguntas", out);
+        preguntasPanel = new PreguntasPanel("Preguntas", sesion);
         rankingYPreguntasPanel.add(preguntasPanel);
         rankingYPreguntasPanel.revalidate();
 
@@ -366,8 +373,7 @@ public class TestPanel extends ConectablePanel {
                             configuracionPanel.getTiempoLimite());
 
                     // 3. Enviar el mensaje INICIAR_TEST al servidor para que arranque el test
-                    out.writeObject(new Mensaje(configuracion, TipoMensaje.INICIAR_TEST));
-                    out.flush();
+                    sesion.iniciarTest(configuracion);
                     // *************************************************
                 }
                 return "Ejecución completada.";
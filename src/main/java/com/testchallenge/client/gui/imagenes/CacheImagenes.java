@@ -0,0 +1,362 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui.imagenes;
+
+import com.testchallenge.model.ReferenciaMultimedia;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+/**
+ * Caché LRU de las imágenes de las preguntas, decodificadas y escaladas en segundo plano.
+ *
+ * Las imágenes se decodifican y se escalan en un pool de hilos propio, nunca en el EDT, y el resultado se entrega en el
+ * EDT. Se guardan tanto las imágenes escaladas (por imagen y tamaño) como las originales decodificadas (si no son
+ * demasiado grandes), de modo que volver a mostrar una imagen, o mostrarla con otro tamaño, no obliga a decodificarla de
+ * nuevo. La memoria ocupada por las imágenes guardadas está acotada: al superarla se descartan las usadas hace más
+ * tiempo.
+ *
+ * El escalado es progresivo: se reduce la imagen a la mitad con interpolación bilineal hasta alcanzar el tamaño
+ * solicitado, lo que da mejor calidad que un único escalado y es mucho más rápido que <code>SCALE_SMOOTH</code>.
+ *
+ * @author japrada
+ */
+public class CacheImagenes {
+
+    // Memoria máxima (en MB) que ocupan las imágenes guardadas (configurable con una propiedad del sistema)
+    private static final int MEMORIA_MAXIMA_MB = Integer.getInteger("testchallenge.imagenes.memoriaMb", 64);
+    // Número de hilos que decodifican y escalan las imágenes
+    private static final int HILOS_DECODIFICACION = 2;
+
+    // Imágenes guardadas, de la usada hace más tiempo a la más reciente
+    private final Map<Clave, BufferedImage> imagenes;
+    // Imágenes que se están decodificando o escalando
+    private final Map<Clave, CompletableFuture<BufferedImage>> enCurso;
+    // Memoria (en bytes) ocupada por las imágenes guardadas
+    private long memoriaOcupada;
+    // Memoria máxima (en bytes) que ocupan las imágenes guardadas
+    private final long memoriaMaxima;
+    // Ejecutor en el que se decodifican y escalan las imágenes
+    private final Executor decodificador;
+    // Ejecutor en el que se entregan las imágenes (el EDT)
+    private final Executor entrega;
+    // Número de imágenes decodificadas
+    private final AtomicLong decodificaciones = new AtomicLong();
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(CacheImagenes.class.getName());
+
+    /**
+     * Construye una caché que decodifica las imágenes en un pool de hilos propio y las entrega en el EDT.
+     */
+    public CacheImagenes() {
+        this(MEMORIA_MAXIMA_MB * 1024L * 1024L, crearPoolDecodificacion(), SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Construye una caché con la memoria máxima y los ejecutores especificados.
+     *
+     * @param memoriaMaxima memoria máxima (en bytes) que ocupan las imágenes guardadas.
+     * @param decodificador ejecutor en el que se decodifican y escalan las imágenes.
+     * @param entrega ejecutor en el que se entregan las imágenes.
+     */
+    public CacheImagenes(long memoriaMaxima, Executor decodificador, Executor entrega) {
+        this.memoriaMaxima = memoriaMaxima;
+        this.decodificador = decodificador;
+        this.entrega = entrega;
+        imagenes = new LinkedHashMap<>(16, 0.75f, true);
+        enCurso = new HashMap<>();
+    }
+
+    /**
+     * Construye la clave que identifica una imagen a partir del nombre del fichero y de su contenido.
+     *
+     * @param nombre nombre del fichero de la imagen.
+     * @param datos contenido del fichero de la imagen.
+     * @return clave de la imagen.
+     */
+    public static String clave(String nombre, byte[] datos) {
+        return clave(nombre, datos.length, Arrays.hashCode(datos));
+    }
+
+    /**
+     * Construye la clave que identifica una imagen a partir del nombre del fichero y de la referencia a su contenido
+     * (sin leerlo).
+     *
+     * @param nombre nombre del fichero de la imagen.
+     * @param datos referencia al contenido del fichero de la imagen.
+     * @return clave de la imagen.
+     */
+    public static String clave(String nombre, ReferenciaMultimedia datos) {
+        return clave(nombre, datos.getLongitud(), datos.getHuella());
+    }
+
+    /**
+     * Construye la clave que identifica una imagen.
+     *
+     * @param nombre nombre del fichero de la imagen.
+     * @param longitud longitud del contenido del fichero de la imagen.
+     * @param huella huella (<code>Arrays.hashCode</code>) del contenido del fichero de la imagen.
+     * @return clave de la imagen.
+     */
+    private static String clave(String nombre, int longitud, int huella) {
+        return String.format("%s:%d:%08x", nombre, longitud, huella);
+    }
+
+    /**
+     * Obtiene la imagen escalada al tamaño especificado.
+     *
+     * Si la imagen está guardada, se entrega inmediatamente en el hilo que la solicita; en caso contrario se decodifica
+     * (si es necesario) y se escala en segundo plano y se entrega en el EDT.
+     *
+     * @param clave clave de la imagen.
+     * @param datos contenido del fichero de la imagen.
+     * @param ancho anchura (en pixels).
+     * @param alto altura (en pixels).
+     * @param alCargar acción que recibe la imagen escalada.
+     */
+    public void cargar(String clave, byte[] datos, int ancho, int alto, Consumer<BufferedImage> alCargar) {
+        cargar(clave, ReferenciaMultimedia.enMemoria(datos), ancho, alto, alCargar);
+    }
+
+    /**
+     * Obtiene la imagen escalada al tamaño especificado, leyendo su contenido de la referencia sólo si hay que
+     * decodificarla.
+     *
+     * @param clave clave de la imagen.
+     * @param datos referencia al contenido del fichero de la imagen.
+     * @param ancho anchura (en pixels).
+     * @param alto altura (en pixels).
+     * @param alCargar acción que recibe la imagen escalada.
+     */
+    public void cargar(String clave, ReferenciaMultimedia datos, int ancho, int alto,
+            Consumer<BufferedImage> alCargar) {
+        if (ancho <= 0 || alto <= 0) {
+            return;
+        }
+        Clave claveEscalada = new Clave(clave, ancho, alto);
+        BufferedImage imagen;
+        CompletableFuture<BufferedImage> futuro = null;
+        boolean nuevo = false;
+        synchronized (this) {
+            imagen = imagenes.get(claveEscalada);
+            if (imagen == null) {
+                futuro = enCurso.get(claveEscalada);
+                if (futuro == null) {
+                    futuro = new CompletableFuture<>();
+                    enCurso.put(claveEscalada, futuro);
+                    nuevo = true;
+                }
+            }
+        }
+        if (imagen != null) {
+            alCargar.accept(imagen);
+            return;
+        }
+        if (nuevo) {
+            CompletableFuture<BufferedImage> resultado = futuro;
+            decodificador.execute(() -> {
+                try {
+                    BufferedImage escalada = escalar(getOriginal(clave, datos), ancho, alto);
+                    guardar(claveEscalada, escalada);
+                    resultado.complete(escalada);
+                } catch (IOException | RuntimeException ex) {
+                    resultado.completeExceptionally(ex);
+                } finally {
+                    synchronized (this) {
+                        enCurso.remove(claveEscalada);
+                    }
+                }
+            });
+        }
+        futuro.whenCompleteAsync((escalada, ex) -> {
+            if (ex != null) {
+                logger.severe(ex.getMessage());
+            } else {
+                alCargar.accept(escalada);
+            }
+        }, entrega);
+    }
+
+    /**
+     * Obtiene la memoria ocupada por las imágenes guardadas.
+     *
+     * @return memoria ocupada en bytes.
+     */
+    public synchronized long getMemoriaOcupada() {
+        return memoriaOcupada;
+    }
+
+    /**
+     * Obtiene el número de imágenes decodificadas desde que se creó la caché.
+     *
+     * @return número de imágenes decodificadas.
+     */
+    public long getDecodificaciones() {
+        return decodificaciones.get();
+    }
+
+    /**
+     * Escala una imagen de forma progresiva: mientras sea mayor que el tamaño solicitado, se reduce a la mitad.
+     *
+     * @param origen imagen original.
+     * @param ancho anchura (en pixels).
+     * @param alto altura (en pixels).
+     * @return imagen escalada.
+     */
+    static BufferedImage escalar(BufferedImage origen, int ancho, int alto) {
+        int tipo = origen.getTransparency() == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage actual = origen;
+        int w = origen.getWidth();
+        int h = origen.getHeight();
+        do {
+            w = w > ancho ? Math.max(w / 2, ancho) : ancho;
+            h = h > alto ? Math.max(h / 2, alto) : alto;
+            BufferedImage siguiente = new BufferedImage(w, h, tipo);
+            Graphics2D g2 = siguiente.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(actual, 0, 0, w, h, null);
+            g2.dispose();
+            actual = siguiente;
+        } while (w != ancho || h != alto);
+        return actual;
+    }
+
+    /**
+     * Obtiene la imagen original decodificada, de la caché o decodificándola.
+     *
+     * @param clave clave de la imagen.
+     * @param datos referencia al contenido del fichero de la imagen.
+     * @return imagen original decodificada.
+     * @throws IOException excepción al decodificar la imagen.
+     */
+    private BufferedImage getOriginal(String clave, ReferenciaMultimedia datos) throws IOException {
+        Clave claveOriginal = new Clave(clave, 0, 0);
+        BufferedImage original;
+        synchronized (this) {
+            original = imagenes.get(claveOriginal);
+        }
+        if (original == null) {
+            try (InputStream entrada = datos.abrir()) {
+                original = ImageIO.read(entrada);
+            }
+            if (original == null) {
+                throw new IOException(String.format("Formato de imagen no soportado: '%s'", clave));
+            }
+            decodificaciones.incrementAndGet();
+            // Las imágenes originales muy grandes no se guardan para no desplazar al resto
+            if (memoria(original) <= memoriaMaxima / 4) {
+                guardar(claveOriginal, original);
+            }
+        }
+        return original;
+    }
+
+    /**
+     * Guarda una imagen y descarta las usadas hace más tiempo si se supera la memoria máxima.
+     *
+     * @param clave clave de la imagen.
+     * @param imagen imagen que se guarda.
+     */
+    private synchronized void guardar(Clave clave, BufferedImage imagen) {
+        BufferedImage anterior = imagenes.put(clave, imagen);
+        if (anterior != null) {
+            memoriaOcupada -= memoria(anterior);
+        }
+        memoriaOcupada += memoria(imagen);
+        Iterator<BufferedImage> it = imagenes.values().iterator();
+        while (memoriaOcupada > memoriaMaxima && imagenes.size() > 1) {
+            memoriaOcupada -= memoria(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * Calcula la memoria (aproximada) que ocupa una imagen.
+     *
+     * @param imagen imagen.
+     * @return memoria ocupada en bytes.
+     */
+    private static long memoria(BufferedImage imagen) {
+        return 4L * imagen.getWidth() * imagen.getHeight();
+    }
+
+    /**
+     * Crea el pool de hilos (daemon) en el que se decodifican y escalan las imágenes.
+     *
+     * @return pool de hilos.
+     */
+    private static ExecutorService crearPoolDecodificacion() {
+        return Executors.newFixedThreadPool(HILOS_DECODIFICACION, r -> {
+            Thread t = new Thread(r, CacheImagenes.class.getSimpleName());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Clave de una imagen guardada: la imagen y el tamaño al que está escalada (0 x 0 para la original).
+     */
+    private static final class Clave {
+
+        private final String imagen;
+        private final int ancho;
+        private final int alto;
+
+        Clave(String imagen, int ancho, int alto) {
+            this.imagen = imagen;
+            this.ancho = ancho;
+            this.alto = alto;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Clave)) {
+                return false;
+            }
+            Clave otra = (Clave) o;
+            return ancho == otra.ancho && alto == otra.alto && imagen.equals(otra.imagen);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(imagen, ancho, alto);
+        }
+    }
+}
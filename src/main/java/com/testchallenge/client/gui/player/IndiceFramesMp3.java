@@ -0,0 +1,266 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui.player;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Índice de los frames de un audio MP3: posición (offset) de cada frame dentro de los datos.
+ *
+ * El índice se construye analizando sólo las cabeceras de los frames y se puede actualizar de forma incremental a
+ * medida que llegan más datos (sólo se indexan los frames completos). Como todos los frames de un audio tienen el
+ * mismo número de muestras, el frame correspondiente a un instante se obtiene en tiempo constante, también en los
+ * audios con tasa de bits variable.
+ *
+ * Esta clase no es thread-safe.
+ *
+ * @author japrada
+ */
+public class IndiceFramesMp3 {
+
+    // Tasas de bits (kbps) de MPEG-1 para las capas I, II y III
+    private static final int[][] TASAS_BITS_MPEG1 = {
+        {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+        {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+        {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}
+    };
+    // Tasas de bits (kbps) de MPEG-2 y MPEG-2.5 para las capas I, II y III
+    private static final int[][] TASAS_BITS_MPEG2 = {
+        {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+        {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+        {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    };
+    // Frecuencias de muestreo (Hz) por versión: MPEG-2.5, (reservada), MPEG-2, MPEG-1
+    private static final int[][] FRECUENCIAS = {
+        {11025, 12000, 8000},
+        {0, 0, 0},
+        {22050, 24000, 16000},
+        {44100, 48000, 32000}
+    };
+    // Versiones MPEG (bits de la cabecera)
+    private static final int VERSION_RESERVADA = 1;
+    private static final int VERSION_MPEG1 = 3;
+    // Longitud de la cabecera de un frame
+    private static final int LONGITUD_CABECERA = 4;
+    // Longitud de la cabecera (y del pie) de una etiqueta ID3v2
+    private static final int LONGITUD_CABECERA_ID3 = 10;
+
+    // Offsets de los frames indexados
+    private int[] offsets = new int[256];
+    // Número de frames indexados
+    private int numeroFrames;
+    // Posición de los datos a partir de la que continúa el análisis
+    private int posicion;
+    // Flag que indica si ya se ha analizado la (posible) etiqueta ID3v2 del principio de los datos
+    private boolean etiquetaId3Analizada;
+    // Frecuencia de muestreo (Hz) del audio (0 hasta que se indexa el primer frame)
+    private int frecuencia;
+    // Número de muestras de cada frame
+    private int muestrasPorFrame;
+
+    /**
+     * Indexa los frames completos que hay en los datos disponibles a partir de la última posición analizada.
+     *
+     * @param datos datos del audio, desde su principio (los ya indexados no pueden haber cambiado).
+     * @param disponibles número de bytes disponibles en los datos.
+     */
+    public void indexar(ByteBuffer datos, int disponibles) {
+        if (!etiquetaId3Analizada) {
+            if (disponibles < LONGITUD_CABECERA_ID3) {
+                return;
+            }
+            posicion = longitudEtiquetaId3(datos);
+            etiquetaId3Analizada = true;
+        }
+
+        while (posicion + LONGITUD_CABECERA <= disponibles) {
+            int cabecera = ((datos.get(posicion) & 0xFF) << 24) | ((datos.get(posicion + 1) & 0xFF) << 16)
+                    | ((datos.get(posicion + 2) & 0xFF) << 8) | (datos.get(posicion + 3) & 0xFF);
+            int longitud = longitudFrame(cabecera);
+            if (longitud <= 0 || (frecuencia != 0 && frecuencia(cabecera) != frecuencia)) {
+                // No es una cabecera válida (o es un falso sincronismo): se busca a partir del siguiente byte
+                posicion++;
+                continue;
+            }
+            if (posicion + longitud > disponibles) {
+                // Frame incompleto: se indexará cuando lleguen más datos
+                break;
+            }
+            if (frecuencia == 0) {
+                frecuencia = frecuencia(cabecera);
+                muestrasPorFrame = muestrasPorFrame(cabecera);
+            }
+            if (numeroFrames == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[numeroFrames++] = posicion;
+            posicion += longitud;
+        }
+    }
+
+    /**
+     * Obtiene el número de frames indexados.
+     *
+     * @return número de frames indexados.
+     */
+    public int getNumeroFrames() {
+        return numeroFrames;
+    }
+
+    /**
+     * Obtiene la posición de un frame dentro de los datos.
+     *
+     * @param frame número del frame (empezando en 0).
+     * @return offset del frame.
+     */
+    public int getOffset(int frame) {
+        if (frame < 0 || frame >= numeroFrames) {
+            throw new IndexOutOfBoundsException(String.format("Frame %d fuera del índice (%d frames)",
+                    frame, numeroFrames));
+        }
+        return offsets[frame];
+    }
+
+    /**
+     * Obtiene la frecuencia de muestreo del audio.
+     *
+     * @return frecuencia de muestreo en Hz (0 si aún no se ha indexado ningún frame).
+     */
+    public int getFrecuencia() {
+        return frecuencia;
+    }
+
+    /**
+     * Obtiene el número de muestras de cada frame.
+     *
+     * @return número de muestras de cada frame (0 si aún no se ha indexado ningún frame).
+     */
+    public int getMuestrasPorFrame() {
+        return muestrasPorFrame;
+    }
+
+    /**
+     * Obtiene el instante en el que empieza un frame.
+     *
+     * @param frame número del frame (empezando en 0).
+     * @return instante en segundos.
+     */
+    public double getSegundos(int frame) {
+        return frecuencia == 0 ? 0 : (double) frame * muestrasPorFrame / frecuencia;
+    }
+
+    /**
+     * Obtiene la duración de los frames indexados.
+     *
+     * @return duración en segundos.
+     */
+    public double getDuracionSegundos() {
+        return getSegundos(numeroFrames);
+    }
+
+    /**
+     * Obtiene el frame indexado que se reproduce en un instante (o el último frame indexado si el instante es
+     * posterior).
+     *
+     * @param segundos instante en segundos.
+     * @return número del frame (0 si no hay frames indexados).
+     */
+    public int getFrame(double segundos) {
+        if (numeroFrames == 0 || segundos <= 0) {
+            return 0;
+        }
+        long frame = (long) (segundos * frecuencia / muestrasPorFrame);
+        return (int) Math.min(frame, numeroFrames - 1);
+    }
+
+    /**
+     * Obtiene la longitud de la etiqueta ID3v2 del principio de los datos.
+     *
+     * @param datos datos del audio (al menos 10 bytes).
+     * @return longitud de la etiqueta (0 si no hay etiqueta).
+     */
+    private static int longitudEtiquetaId3(ByteBuffer datos) {
+        if (datos.get(0) != 'I' || datos.get(1) != 'D' || datos.get(2) != '3') {
+            return 0;
+        }
+        // El tamaño se codifica con 7 bits por byte ("syncsafe") y no incluye la cabecera ni el pie
+        int longitud = ((datos.get(6) & 0x7F) << 21) | ((datos.get(7) & 0x7F) << 14)
+                | ((datos.get(8) & 0x7F) << 7) | (datos.get(9) & 0x7F);
+        boolean conPie = (datos.get(5) & 0x10) != 0;
+        return LONGITUD_CABECERA_ID3 + longitud + (conPie ? LONGITUD_CABECERA_ID3 : 0);
+    }
+
+    /**
+     * Obtiene la longitud del frame que empieza con la cabecera especificada.
+     *
+     * @param cabecera los cuatro primeros bytes del frame.
+     * @return longitud del frame en bytes (0 si la cabecera no es válida).
+     */
+    static int longitudFrame(int cabecera) {
+        // 11 bits de sincronismo
+        if ((cabecera & 0xFFE00000) != 0xFFE00000) {
+            return 0;
+        }
+        int version = (cabecera >>> 19) & 0x3;
+        int capa = 4 - ((cabecera >>> 17) & 0x3);
+        int indiceTasaBits = (cabecera >>> 12) & 0xF;
+        int indiceFrecuencia = (cabecera >>> 10) & 0x3;
+        int relleno = (cabecera >>> 9) & 0x1;
+        // Versión y capa reservadas, tasa de bits libre o no válida y frecuencia reservada no se admiten
+        if (version == VERSION_RESERVADA || capa == 4 || indiceTasaBits == 0 || indiceTasaBits == 0xF
+                || indiceFrecuencia == 3) {
+            return 0;
+        }
+
+        int tasaBits = (version == VERSION_MPEG1 ? TASAS_BITS_MPEG1 : TASAS_BITS_MPEG2)[capa - 1][indiceTasaBits]
+                * 1000;
+        int frecuencia = FRECUENCIAS[version][indiceFrecuencia];
+        if (capa == 1) {
+            return (12 * tasaBits / frecuencia + relleno) * 4;
+        }
+        if (capa == 3 && version != VERSION_MPEG1) {
+            return 72 * tasaBits / frecuencia + relleno;
+        }
+        return 144 * tasaBits / frecuencia + relleno;
+    }
+
+    /**
+     * Obtiene la frecuencia de muestreo de una cabecera válida.
+     *
+     * @param cabecera los cuatro primeros bytes del frame.
+     * @return frecuencia de muestreo en Hz.
+     */
+    private static int frecuencia(int cabecera) {
+        return FRECUENCIAS[(cabecera >>> 19) & 0x3][(cabecera >>> 10) & 0x3];
+    }
+
+    /**
+     * Obtiene el número de muestras del frame de una cabecera válida.
+     *
+     * @param cabecera los cuatro primeros bytes del frame.
+     * @return número de muestras del frame.
+     */
+    private static int muestrasPorFrame(int cabecera) {
+        int version = (cabecera >>> 19) & 0x3;
+        int capa = 4 - ((cabecera >>> 17) & 0x3);
+        if (capa == 1) {
+            return 384;
+        }
+        return capa == 3 && version != VERSION_MPEG1 ? 576 : 1152;
+    }
+}
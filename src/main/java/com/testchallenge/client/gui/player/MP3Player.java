@@ -27,17 +27,14 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.logging.Logger;
+import java.nio.ByteBuffer;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
-import javazoom.jl.decoder.JavaLayerException;
-import javazoom.jl.player.Player;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 /**
  * Reproductor MP3.
@@ -47,6 +44,9 @@ import javazoom.jl.player.Player;
  * https://www.codejava.net/nam-ha-minh
  * https://www.codejava.net/coding/java-audio-player-sample-application-in-swing
  * 
+ * La reproducción la realiza un <code>ReproductorMp3</code>; la ventana muestra la posición que éste calcula a partir
+ * de los frames decodificados y permite saltar a cualquier instante con la barra de tiempo.
+ * 
  * @author japrada
  */
 public class MP3Player extends PopupWindow implements ActionListener {
@@ -54,26 +54,21 @@ public class MP3Player extends PopupWindow implements ActionListener {
     private static final int SECONDS_IN_HOUR = 60 * 60;
     private static final int SECONDS_IN_MINUTE = 60;
 
-    private InputStream multimediaDataInputStream;
-
-    private Thread playThread;
-    private PlayingTimer timer;
+    // Intervalo (en milisegundos) de actualización de la posición de reproducción
+    private static final int INTERVALO_ACTUALIZACION_MS = 200;
 
-    private Player player;
-    private final byte[] audioData;
+    private final ReproductorMp3 reproductor;
+    private final Timer timer;
 
-    private boolean paused = false;
     private boolean playing = false;
-
-    private final long secondsLength;
-    private final String secondsLengthString;
+    // Flag que indica que la barra de tiempo se está actualizando con la posición (y no por el usuario)
+    private boolean actualizandoPosicion = false;
 
     private final JLabel labelFileName = new JLabel(""); 
     private final JLabel labelTimeCounter = new JLabel("00:00:00");
     private final JLabel labelDuration = new JLabel("00:00:00");
 
     private final JButton buttonPlay = new JButton("Play");
-    private final JButton buttonPause = new JButton("Pause");
 
     private final JSlider sliderTime = new JSlider();
 
@@ -83,9 +78,7 @@ public class MP3Player extends PopupWindow implements ActionListener {
     private final ImageIcon iconPause = new ImageIcon(getClass().getResource(
             "/images/Pause.png"));
 
-    private final static Logger logger = Logger.getLogger(MP3Player.class.getName());
-
-    public MP3Player(String title, byte[] audioData, long secondsLength, String secondsLengthString) {
+    public MP3Player(String title, ByteBuffer audioData, long secondsLength, String secondsLengthString) {
         super(title);
 
         setLayout(new GridBagLayout());
@@ -101,7 +94,6 @@ public class MP3Player extends PopupWindow implements ActionListener {
         labelDuration.setFont(new Font("Sans", Font.BOLD, 12));
 
         sliderTime.setPreferredSize(new Dimension(400, 20));
-        sliderTime.setEnabled(false);
         sliderTime.setValue(0);
 
         constraints.gridx = 0;
@@ -129,116 +121,122 @@ public class MP3Player extends PopupWindow implements ActionListener {
         add(panelButtons, constraints);
 
         buttonPlay.addActionListener(this);
-        buttonPause.addActionListener(this);
 
         pack();
         setResizable(false);
 
-        this.audioData = audioData;
-        this.secondsLength = secondsLength;
-        this.secondsLengthString = secondsLengthString;
+        reproductor = new ReproductorMp3(audioData);
+        reproductor.setAlFinalizar(() -> SwingUtilities.invokeLater(this::finished));
+
+        // La duración se obtiene del índice de frames (la recibida del servidor sólo si no hay frames)
+        long duration = Math.round(reproductor.getDuracionSegundos());
+        if (duration > 0) {
+            sliderTime.setMaximum((int) duration);
+            labelDuration.setText(secondsToString(duration));
+        } else {
+            sliderTime.setMaximum((int) secondsLength);
+            labelDuration.setText(secondsLengthString);
+        }
+
+        sliderTime.addChangeListener(e -> {
+            if (!actualizandoPosicion) {
+                labelTimeCounter.setText(secondsToString(sliderTime.getValue()));
+                if (!sliderTime.getValueIsAdjusting()) {
+                    reproductor.buscar(sliderTime.getValue());
+                }
+            }
+        });
+
+        timer = new Timer(INTERVALO_ACTUALIZACION_MS, e -> updatePosition());
 
-        multimediaDataInputStream = new ByteArrayInputStream(audioData);
-        
         buttonPlay.doClick();
     }
 
     @Override
-
     public void actionPerformed(ActionEvent event) {
         Object source = event.getSource();
-        if (source instanceof JButton) {
-            JButton button = (JButton) source;
-            if (button == buttonPlay) {
-                if (!playing) {
-                    try {
-                        play();
-                    } catch (IOException | JavaLayerException ex) {
-                        logger.severe(ex.getMessage());
-                    }
-                } else {
-                    pause();
-                }
+        if (source == buttonPlay) {
+            if (!playing) {
+                play();
+            } else {
+                pause();
             }
         }
     }
 
     /**
-     * 
-     * @throws IOException
-     * @throws JavaLayerException 
+     * Empieza o reanuda la reproducción.
      */
-    public void play() throws IOException, JavaLayerException {
-
-        playThread = new Thread(() -> {
-            try {
-
-                player = new Player(multimediaDataInputStream);
-
-                buttonPlay.setText("Pause");
-                buttonPlay.setIcon(iconPause);
-                paused = false;
-
-                playing = true;
-
-                sliderTime.setMaximum((int) secondsLength);
-                labelDuration.setText(secondsLengthString);
-
-                player.play();
-
-                if (multimediaDataInputStream.available() == 0) {
-                    playing = false;
-                    paused = false;
-
-                    buttonPlay.setText("Play");
-                    buttonPlay.setIcon(iconPlay);
-                    timer.interrupt();
-
-                    multimediaDataInputStream = new ByteArrayInputStream(this.audioData);
-                }
-
-            } catch (JavaLayerException | IOException ex) {
-                logger.severe(ex.getMessage());
-            }
-        });
-
-        playThread.start();
-
-        if (!paused) {
-            timer = new PlayingTimer(labelTimeCounter, sliderTime);
-            timer.start();
-        } else {
-            timer.resumeTimer();
-        }
+    public void play() {
+        playing = true;
+        buttonPlay.setText("Pause");
+        buttonPlay.setIcon(iconPause);
 
+        reproductor.reproducir();
+        timer.start();
     }
 
     /**
-     * 
+     * Finaliza la reproducción y libera la línea de audio.
      */
     public void stop() {
-        player.close();
-        playThread.interrupt();
-        timer.interrupt();
-        paused = false;
         playing = false;
-
+        timer.stop();
+        reproductor.close();
     }
 
     /**
-     * 
+     * Pausa la reproducción.
      */
     public void pause() {
-        paused = true;
         playing = false;
-
         buttonPlay.setText("Play");
         buttonPlay.setIcon(iconPlay);
 
-        player.close();
+        reproductor.pausar();
+        timer.stop();
+        updatePosition();
+    }
 
-        playThread.interrupt();
-        timer.pauseTimer();
+    @Override
+    public void dispose() {
+        stop();
+        super.dispose();
+    }
+
+    /**
+     * Muestra la posición de reproducción (salvo mientras el usuario arrastra la barra de tiempo).
+     */
+    private void updatePosition() {
+        if (sliderTime.getValueIsAdjusting()) {
+            return;
+        }
+        long position = (long) reproductor.getPosicionSegundos();
+        actualizandoPosicion = true;
+        try {
+            sliderTime.setValue((int) position);
+            labelTimeCounter.setText(secondsToString(position));
+        } finally {
+            actualizandoPosicion = false;
+        }
+    }
+
+    /**
+     * Deja la ventana preparada para volver a reproducir el audio desde el principio.
+     */
+    private void finished() {
+        playing = false;
+        buttonPlay.setText("Play");
+        buttonPlay.setIcon(iconPlay);
+        timer.stop();
+
+        actualizandoPosicion = true;
+        try {
+            sliderTime.setValue(0);
+            labelTimeCounter.setText("00:00:00");
+        } finally {
+            actualizandoPosicion = false;
+        }
     }
 
     /**
@@ -0,0 +1,485 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui.player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.BitstreamException;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.DecoderException;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.SampleBuffer;
+
+/**
+ * Motor de reproducción de audio MP3.
+ *
+ * Los datos del audio se pueden añadir por trozos a medida que se reciben: el índice de frames se actualiza con cada
+ * trozo y la reproducción empieza en cuanto está disponible el primer frame (si la reproducción alcanza el final de
+ * los datos recibidos, espera a que lleguen más).
+ *
+ * Los frames se decodifican en un único hilo con el decodificador de JLayer y las muestras se escriben en una única
+ * línea de audio, que se abre con el primer frame decodificado y se mantiene abierta (también durante las pausas y
+ * los saltos) hasta que se cierra el reproductor.
+ *
+ * La posición de reproducción se calcula a partir del número de frames decodificados, descontando las muestras que la
+ * línea aún no ha reproducido. Los saltos se resuelven en tiempo constante con el índice de frames.
+ *
+ * @author japrada
+ */
+public class ReproductorMp3 implements Closeable {
+
+    // Número de frames anteriores al del salto que se decodifican sin reproducirse (para recuperar el depósito de
+    // bits de la capa III)
+    private static final int FRAMES_PREVIOS_SALTO = 2;
+    // Duración (en milisegundos) del buffer de la línea de audio
+    private static final int MS_BUFFER_LINEA = 250;
+
+    // Cerrojo que protege el estado del reproductor y los datos
+    private final Object cerrojo = new Object();
+    // Índice de los frames recibidos
+    private final IndiceFramesMp3 indice = new IndiceFramesMp3();
+    // Datos del audio recibidos
+    private ByteBuffer datos;
+    // Buffer en el que se acumulan los trozos recibidos (si los datos se reciben por trozos)
+    private byte[] trozos;
+    // Número de bytes recibidos
+    private int disponibles;
+    // Flag que indica si se han recibido todos los datos
+    private boolean datosCompletos;
+
+    // Hilo de decodificación (se crea al empezar la reproducción)
+    private Thread hiloDecodificacion;
+    // Flag que indica si se está reproduciendo
+    private boolean reproduciendo;
+    // Flag que indica si se ha cerrado el reproductor
+    private boolean cerrado;
+    // Frame desde el que hay que continuar la reproducción (-1 si no hay ningún salto pendiente)
+    private int frameSalto;
+    // Número de frames decodificados y escritos en la línea (posición de reproducción en frames)
+    private volatile int frameActual;
+    // Línea de audio (se abre con el primer frame decodificado)
+    private volatile SourceDataLine linea;
+    // Número de bytes de cada muestra de la línea (todos los canales)
+    private int bytesPorMuestra;
+    // Acción que se ejecuta (en el hilo de decodificación) cuando la reproducción llega al final del audio
+    private Runnable alFinalizar;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(ReproductorMp3.class.getName());
+
+    /**
+     * Construye un reproductor al que se añadirán los datos por trozos.
+     */
+    public ReproductorMp3() {
+        trozos = new byte[64 * 1024];
+        datos = ByteBuffer.wrap(trozos);
+    }
+
+    /**
+     * Construye un reproductor con todos los datos del audio.
+     *
+     * @param datos datos del audio, desde su posición hasta su límite (no se copian).
+     */
+    public ReproductorMp3(ByteBuffer datos) {
+        this.datos = datos.slice();
+        disponibles = this.datos.remaining();
+        datosCompletos = true;
+        indice.indexar(this.datos, disponibles);
+    }
+
+    /**
+     * Añade un trozo de los datos del audio.
+     *
+     * @param trozo datos recibidos.
+     * @param offset posición de los datos recibidos en el trozo.
+     * @param longitud número de bytes recibidos.
+     */
+    public void agregarDatos(byte[] trozo, int offset, int longitud) {
+        synchronized (cerrojo) {
+            if (datosCompletos) {
+                throw new IllegalStateException("Ya se han recibido todos los datos del audio");
+            }
+            if (disponibles + longitud > trozos.length) {
+                trozos = Arrays.copyOf(trozos, Math.max(trozos.length * 2, disponibles + longitud));
+                datos = ByteBuffer.wrap(trozos);
+            }
+            System.arraycopy(trozo, offset, trozos, disponibles, longitud);
+            disponibles += longitud;
+            indice.indexar(datos, disponibles);
+            cerrojo.notifyAll();
+        }
+    }
+
+    /**
+     * Indica que se han recibido todos los datos del audio.
+     */
+    public void finalizarDatos() {
+        synchronized (cerrojo) {
+            datosCompletos = true;
+            cerrojo.notifyAll();
+        }
+    }
+
+    /**
+     * Establece la acción que se ejecuta cuando la reproducción llega al final del audio (tras lo cual el reproductor
+     * queda en pausa al principio del audio).
+     *
+     * La acción se ejecuta en el hilo de decodificación.
+     *
+     * @param alFinalizar acción que se ejecuta al final de la reproducción.
+     */
+    public void setAlFinalizar(Runnable alFinalizar) {
+        synchronized (cerrojo) {
+            this.alFinalizar = alFinalizar;
+        }
+    }
+
+    /**
+     * Empieza o reanuda la reproducción.
+     */
+    public void reproducir() {
+        synchronized (cerrojo) {
+            if (cerrado || reproduciendo) {
+                return;
+            }
+            reproduciendo = true;
+            if (hiloDecodificacion == null) {
+                hiloDecodificacion = new Thread(this::decodificar, "ReproductorMp3");
+                hiloDecodificacion.setDaemon(true);
+                hiloDecodificacion.start();
+            }
+            if (linea != null) {
+                linea.start();
+            }
+            cerrojo.notifyAll();
+        }
+    }
+
+    /**
+     * Pausa la reproducción (la línea de audio se mantiene abierta).
+     */
+    public void pausar() {
+        synchronized (cerrojo) {
+            reproduciendo = false;
+            if (linea != null) {
+                linea.stop();
+            }
+        }
+    }
+
+    /**
+     * Salta al instante especificado (o al último frame recibido si el instante es posterior).
+     *
+     * @param segundos instante en segundos.
+     */
+    public void buscar(double segundos) {
+        synchronized (cerrojo) {
+            if (cerrado) {
+                return;
+            }
+            frameSalto = indice.getFrame(segundos);
+            frameActual = frameSalto;
+            if (linea != null) {
+                linea.flush();
+            }
+        }
+    }
+
+    /**
+     * Indica si se está reproduciendo el audio.
+     *
+     * @return true si se está reproduciendo el audio y false en caso contrario.
+     */
+    public boolean isReproduciendo() {
+        synchronized (cerrojo) {
+            return reproduciendo;
+        }
+    }
+
+    /**
+     * Indica si se han recibido todos los datos del audio.
+     *
+     * @return true si se han recibido todos los datos y false en caso contrario.
+     */
+    public boolean isDatosCompletos() {
+        synchronized (cerrojo) {
+            return datosCompletos;
+        }
+    }
+
+    /**
+     * Obtiene la duración de los frames recibidos (la del audio una vez recibidos todos los datos).
+     *
+     * @return duración en segundos.
+     */
+    public double getDuracionSegundos() {
+        synchronized (cerrojo) {
+            return indice.getDuracionSegundos();
+        }
+    }
+
+    /**
+     * Obtiene la posición de reproducción, calculada a partir de los frames decodificados y de las muestras que la
+     * línea de audio aún no ha reproducido.
+     *
+     * @return posición de reproducción en segundos.
+     */
+    public double getPosicionSegundos() {
+        int frecuencia;
+        long muestras;
+        synchronized (cerrojo) {
+            frecuencia = indice.getFrecuencia();
+            muestras = (long) frameActual * indice.getMuestrasPorFrame();
+        }
+        if (frecuencia == 0) {
+            return 0;
+        }
+        SourceDataLine lineaActual = linea;
+        if (lineaActual != null) {
+            muestras -= (lineaActual.getBufferSize() - lineaActual.available()) / bytesPorMuestra;
+        }
+        return Math.max(0, muestras) / (double) frecuencia;
+    }
+
+    /**
+     * Cierra el reproductor: finaliza el hilo de decodificación y cierra la línea de audio.
+     */
+    @Override
+    public void close() {
+        synchronized (cerrojo) {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            reproduciendo = false;
+            if (linea != null) {
+                linea.stop();
+                linea.flush();
+                linea.close();
+            }
+            cerrojo.notifyAll();
+        }
+    }
+
+    /**
+     * Bucle del hilo de decodificación: decodifica los frames y escribe las muestras en la línea de audio (la línea
+     * bloquea la escritura cuando su buffer está lleno, lo que marca el ritmo de la decodificación).
+     */
+    private void decodificar() {
+        Bitstream bitstream = null;
+        Decoder decoder = null;
+        int framesDescartar = 0;
+        byte[] pcm = new byte[0];
+
+        try {
+            while (true) {
+                int offsetSalto = -1;
+                synchronized (cerrojo) {
+                    while (!reproduciendo && !cerrado) {
+                        cerrojo.wait();
+                    }
+                    if (cerrado) {
+                        return;
+                    }
+                    if (frameSalto >= 0) {
+                        int frameInicio = Math.max(0, frameSalto - FRAMES_PREVIOS_SALTO);
+                        offsetSalto = frameInicio < indice.getNumeroFrames() ? indice.getOffset(frameInicio) : 0;
+                        framesDescartar = frameSalto - frameInicio;
+                        frameActual = frameSalto;
+                        frameSalto = -1;
+                        if (linea != null) {
+                            linea.flush();
+                        }
+                    }
+                }
+                if (offsetSalto >= 0) {
+                    // Se reposiciona el stream en el offset del frame (con un decodificador nuevo)
+                    cerrar(bitstream);
+                    bitstream = new Bitstream(new FlujoDatos(offsetSalto));
+                    decoder = new Decoder();
+                }
+
+                Header cabecera = bitstream.readFrame();
+                if (cabecera == null) {
+                    finalizarReproduccion();
+                    continue;
+                }
+                SampleBuffer salida = (SampleBuffer) decoder.decodeFrame(cabecera, bitstream);
+                bitstream.closeFrame();
+                if (framesDescartar > 0) {
+                    framesDescartar--;
+                    continue;
+                }
+
+                SourceDataLine lineaActual = abrirLinea(decoder);
+                if (lineaActual == null) {
+                    return;
+                }
+                int longitud = salida.getBufferLength() * 2;
+                if (pcm.length < longitud) {
+                    pcm = new byte[longitud];
+                }
+                short[] muestras = salida.getBuffer();
+                for (int i = 0, j = 0; j < longitud; i++) {
+                    pcm[j++] = (byte) muestras[i];
+                    pcm[j++] = (byte) (muestras[i] >> 8);
+                }
+                frameActual++;
+                lineaActual.write(pcm, 0, longitud);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (BitstreamException | DecoderException ex) {
+            logger.severe(ex.getMessage());
+        } finally {
+            cerrar(bitstream);
+        }
+    }
+
+    /**
+     * Espera a que la línea reproduzca las muestras pendientes y deja el reproductor en pausa al principio del audio
+     * (salvo que mientras tanto se haya solicitado un salto o se haya cerrado el reproductor).
+     */
+    private void finalizarReproduccion() {
+        SourceDataLine lineaActual = linea;
+        if (lineaActual != null) {
+            lineaActual.drain();
+        }
+        Runnable accion = null;
+        synchronized (cerrojo) {
+            if (frameSalto < 0 && !cerrado) {
+                reproduciendo = false;
+                frameSalto = 0;
+                accion = alFinalizar;
+            }
+        }
+        if (accion != null) {
+            accion.run();
+        }
+    }
+
+    /**
+     * Abre la línea de audio con el formato de salida del decodificador (si no está ya abierta).
+     *
+     * @param decoder decodificador que ha decodificado el primer frame.
+     * @return línea de audio o null si no se ha podido abrir o el reproductor se ha cerrado.
+     */
+    private SourceDataLine abrirLinea(Decoder decoder) {
+        synchronized (cerrojo) {
+            if (cerrado) {
+                return null;
+            }
+            if (linea == null) {
+                AudioFormat formato = new AudioFormat(decoder.getOutputFrequency(), 16,
+                        decoder.getOutputChannels(), true, false);
+                try {
+                    SourceDataLine nuevaLinea = AudioSystem.getSourceDataLine(formato);
+                    bytesPorMuestra = formato.getFrameSize();
+                    nuevaLinea.open(formato, (int) (formato.getFrameRate() * MS_BUFFER_LINEA / 1000)
+                            * bytesPorMuestra);
+                    if (reproduciendo) {
+                        nuevaLinea.start();
+                    }
+                    linea = nuevaLinea;
+                } catch (LineUnavailableException | IllegalArgumentException ex) {
+                    logger.severe(ex.getMessage());
+                    reproduciendo = false;
+                    return null;
+                }
+            }
+            return linea;
+        }
+    }
+
+    /**
+     * Cierra un bitstream registrando los errores.
+     *
+     * @param bitstream bitstream que se cierra (puede ser null).
+     */
+    private static void cerrar(Bitstream bitstream) {
+        if (bitstream != null) {
+            try {
+                bitstream.close();
+            } catch (BitstreamException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stream de lectura de los datos recibidos a partir de una posición, que espera a que lleguen más datos cuando
+     * alcanza el final de los datos recibidos.
+     */
+    private class FlujoDatos extends InputStream {
+
+        // Posición de lectura
+        private int posicion;
+
+        FlujoDatos(int posicion) {
+            this.posicion = posicion;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            synchronized (cerrojo) {
+                try {
+                    while (posicion >= disponibles && !datosCompletos && !cerrado) {
+                        cerrojo.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(ex.getMessage());
+                }
+                if (posicion >= disponibles) {
+                    return -1;
+                }
+                int leidos = Math.min(len, disponibles - posicion);
+                ByteBuffer lectura = datos.duplicate();
+                lectura.position(posicion);
+                lectura.get(b, off, leidos);
+                posicion += leidos;
+                return leidos;
+            }
+        }
+
+        @Override
+        public int available() {
+            synchronized (cerrojo) {
+                return disponibles - posicion;
+            }
+        }
+    }
+}
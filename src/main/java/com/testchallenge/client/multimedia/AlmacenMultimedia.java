@@ -0,0 +1,255 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.multimedia;
+
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.ReferenciaMultimedia;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Almacén en disco de los datos multimedia de las preguntas recibidas durante un test.
+ *
+ * Cuando se muestra una pregunta, sus datos multimedia se vuelcan a un fichero temporal y la pregunta (que se guarda
+ * para la revisión) sólo conserva una referencia a ellos, de modo que la memoria ocupada no depende del número de
+ * preguntas con imágenes o audios del test. La escritura se realiza en segundo plano: hasta que termina, la referencia
+ * mantiene los datos en memoria. Los datos volcados se leen proyectando en memoria (<code>mmap</code>) la zona del
+ * fichero que ocupan.
+ *
+ * @author japrada
+ */
+public class AlmacenMultimedia implements Closeable {
+
+    // Ejecutor de las escrituras en el fichero
+    private final Executor escritor;
+    // Fichero temporal con los datos volcados (se crea con el primer volcado)
+    private Path fichero;
+    // Canal de lectura/escritura del fichero
+    private FileChannel canal;
+    // Número de bytes reservados en el fichero (posición del siguiente volcado)
+    private long bytesVolcados;
+    // Generación de los datos: se incrementa cada vez que se borra el almacén
+    private int generacion;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(AlmacenMultimedia.class.getName());
+
+    /**
+     * Construye un almacén que escribe los datos en un hilo (daemon) propio.
+     */
+    public AlmacenMultimedia() {
+        this(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, AlmacenMultimedia.class.getSimpleName());
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /**
+     * Construye un almacén que escribe los datos con el ejecutor especificado.
+     *
+     * @param escritor ejecutor de las escrituras en el fichero (debe ejecutarlas de una en una).
+     */
+    public AlmacenMultimedia(Executor escritor) {
+        this.escritor = escritor;
+    }
+
+    /**
+     * Vuelca a disco los datos multimedia de una pregunta, que pasa a guardar sólo una referencia a ellos.
+     *
+     * @param pregunta pregunta ya mostrada (si no tiene datos multimedia no se hace nada).
+     */
+    public void volcar(Pregunta pregunta) {
+        byte[] datos = pregunta.getFicheroMultimediaData();
+        if (datos == null || datos.length == 0) {
+            return;
+        }
+
+        Referencia referencia;
+        synchronized (this) {
+            referencia = new Referencia(datos, bytesVolcados, generacion);
+            bytesVolcados += datos.length;
+        }
+        pregunta.setReferenciaMultimedia(referencia);
+        pregunta.setFicheroMultimediaData(null);
+
+        escritor.execute(() -> escribir(referencia));
+    }
+
+    /**
+     * Borra los datos volcados (las referencias existentes dejan de ser válidas).
+     */
+    public synchronized void borrar() {
+        cerrarFichero();
+        bytesVolcados = 0;
+        generacion++;
+    }
+
+    /**
+     * Obtiene el número de bytes volcados desde que se borró el almacén por última vez.
+     *
+     * @return número de bytes volcados.
+     */
+    public synchronized long getBytesVolcados() {
+        return bytesVolcados;
+    }
+
+    @Override
+    public synchronized void close() {
+        borrar();
+    }
+
+    /**
+     * Escribe en el fichero los datos de una referencia y libera la copia en memoria.
+     *
+     * @param referencia referencia a los datos que se escriben.
+     */
+    private void escribir(Referencia referencia) {
+        FileChannel destino;
+        synchronized (this) {
+            if (referencia.generacion != generacion) {
+                // El almacén se ha borrado antes de escribir los datos
+                return;
+            }
+            try {
+                abrirFichero();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+                return;
+            }
+            destino = canal;
+        }
+
+        try {
+            ByteBuffer datos = ByteBuffer.wrap(referencia.pendientes);
+            long posicion = referencia.offset;
+            while (datos.hasRemaining()) {
+                posicion += destino.write(datos, posicion);
+            }
+            referencia.volcada(destino);
+        } catch (ClosedChannelException ex) {
+            // El almacén se ha borrado durante la escritura: los datos ya no se necesitan
+        } catch (IOException ex) {
+            // Si no se pueden escribir los datos, la referencia los mantiene en memoria
+            logger.severe(ex.getMessage());
+        }
+    }
+
+    /**
+     * Crea el fichero temporal si todavía no existe.
+     *
+     * @throws IOException excepción al crear el fichero.
+     */
+    private void abrirFichero() throws IOException {
+        if (canal == null) {
+            File temporal = File.createTempFile("testchallenge-multimedia", ".dat");
+            temporal.deleteOnExit();
+            fichero = temporal.toPath();
+            canal = FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * Cierra y borra el fichero temporal (las zonas ya proyectadas en memoria siguen siendo válidas).
+     */
+    private void cerrarFichero() {
+        if (canal != null) {
+            try {
+                canal.close();
+                Files.deleteIfExists(fichero);
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+            canal = null;
+            fichero = null;
+        }
+    }
+
+    /**
+     * Referencia a los datos volcados de una pregunta.
+     */
+    private class Referencia implements ReferenciaMultimedia {
+
+        // Longitud de los datos
+        private final int longitud;
+        // Huella de los datos
+        private final int huella;
+        // Posición de los datos en el fichero
+        private final long offset;
+        // Generación del almacén en la que se volcaron los datos
+        private final int generacion;
+        // Datos pendientes de escribir en el fichero (null una vez escritos)
+        private volatile byte[] pendientes;
+        // Canal del fichero en el que se han escrito los datos
+        private FileChannel canalVolcado;
+
+        Referencia(byte[] datos, long offset, int generacion) {
+            this.longitud = datos.length;
+            this.huella = Arrays.hashCode(datos);
+            this.offset = offset;
+            this.generacion = generacion;
+            this.pendientes = datos;
+        }
+
+        /**
+         * Registra que los datos se han escrito en el fichero (a partir de aquí se leen de él).
+         *
+         * @param canal canal del fichero en el que se han escrito los datos.
+         */
+        void volcada(FileChannel canal) {
+            synchronized (AlmacenMultimedia.this) {
+                canalVolcado = canal;
+            }
+            pendientes = null;
+        }
+
+        @Override
+        public int getLongitud() {
+            return longitud;
+        }
+
+        @Override
+        public int getHuella() {
+            return huella;
+        }
+
+        @Override
+        public ByteBuffer getDatos() throws IOException {
+            byte[] datos = pendientes;
+            if (datos != null) {
+                return ByteBuffer.wrap(datos).asReadOnlyBuffer();
+            }
+            synchronized (AlmacenMultimedia.this) {
+                if (generacion != AlmacenMultimedia.this.generacion || canalVolcado == null) {
+                    throw new IOException("Los datos multimedia de la pregunta se han descartado");
+                }
+                return canalVolcado.map(FileChannel.MapMode.READ_ONLY, offset, longitud);
+            }
+        }
+    }
+}
@@ -244,6 +244,16 @@ public class Mensaje implements Serializable {
         return (Boolean) object;
     }
 
+    /**
+     * Obtiene las marcas de tiempo (en milisegundos) transportadas en un mensaje <code>PING</code> o
+     * <code>PONG</code>.
+     *
+     * @return marcas de tiempo transportadas en el mensaje.
+     */
+    public long[] getMarcasTiempo() {
+        return (long[]) object;
+    }
+
     /**
      * Obtiene el array de textos del mensaje.
      *
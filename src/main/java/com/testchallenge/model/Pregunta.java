@@ -47,6 +47,8 @@ public class Pregunta implements Serializable {
     private String ficheroMultimedia;
     // Array de bytes con los datos del fichero multimedia
     private byte[] ficheroMultimediaData;
+    // Referencia a los datos del fichero multimedia cuando el cliente los ha volcado a disco (no se serializa)
+    private transient ReferenciaMultimedia referenciaMultimedia;
     // En el caso de que la pregunta lleve asociado un .mp3, obtenemos su duración en segundos
     private long duracionDelAudioEnSegundos;
     // Opciones de la pregunta (en los casos de respuesta de tipo simple o múltiple)
@@ -269,6 +271,28 @@ public class Pregunta implements Serializable {
         return ficheroMultimediaData;
     }
 
+    /**
+     * Establece la referencia a los datos del fichero multimedia cuando éstos se han volcado a disco.
+     *
+     * @param referenciaMultimedia referencia a los datos del fichero multimedia.
+     */
+    public void setReferenciaMultimedia(ReferenciaMultimedia referenciaMultimedia) {
+        this.referenciaMultimedia = referenciaMultimedia;
+    }
+
+    /**
+     * Obtiene la referencia a los datos del fichero multimedia asociado a la pregunta, estén en memoria o volcados a
+     * disco.
+     *
+     * @return referencia a los datos del fichero multimedia o null si la pregunta no tiene datos multimedia.
+     */
+    public ReferenciaMultimedia getReferenciaMultimedia() {
+        if (referenciaMultimedia != null) {
+            return referenciaMultimedia;
+        }
+        return ficheroMultimediaData != null ? ReferenciaMultimedia.enMemoria(ficheroMultimediaData) : null;
+    }
+
     /**
      * Obtiene la duración del audio en segundos.
      *
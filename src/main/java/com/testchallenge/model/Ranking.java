@@ -37,6 +37,8 @@ public class Ranking implements Serializable {
     
     // Puntuaciones de los usuarios
     private Map<String, Integer> puntuaciones;
+    // Posición en la clasificación del usuario que ha solicitado el ranking (0 si no se ha calculado)
+    private int posicion;
 
     /**
      * Construye un objeto <code>Ranking</code> vacío.
@@ -123,7 +125,24 @@ public class Ranking implements Serializable {
         this.endDate = endDate;
     }
 
-    
+    /**
+     * Obtiene la posición en la clasificación del usuario que ha solicitado el ranking.
+     *
+     * @return posición del usuario en la clasificación (empezando en 1) o 0 si no se ha calculado.
+     */
+    public int getPosicion() {
+        return posicion;
+    }
+
+    /**
+     * Establece la posición en la clasificación del usuario que ha solicitado el ranking.
+     *
+     * @param posicion posición del usuario en la clasificación (empezando en 1).
+     */
+    public void setPosicion(int posicion) {
+        this.posicion = posicion;
+    }
+
     @Override
     public String toString() {
         return "Puntuaciones {" + "puntuaciones=" + puntuaciones + '}';
@@ -0,0 +1,112 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Referencia a los datos de un fichero multimedia, que pueden estar en memoria o volcados a disco (el cliente vuelca
+ * los datos de las preguntas ya mostradas para que no ocupen memoria durante la revisión).
+ *
+ * @author japrada
+ */
+public interface ReferenciaMultimedia {
+
+    /**
+     * Obtiene la longitud de los datos.
+     *
+     * @return longitud de los datos en bytes.
+     */
+    int getLongitud();
+
+    /**
+     * Obtiene la huella de los datos (<code>Arrays.hashCode</code>), que permite identificarlos sin leerlos.
+     *
+     * @return huella de los datos.
+     */
+    int getHuella();
+
+    /**
+     * Obtiene los datos.
+     *
+     * @return buffer de sólo lectura con los datos (posicionado al principio).
+     * @throws IOException excepción al leer los datos.
+     */
+    ByteBuffer getDatos() throws IOException;
+
+    /**
+     * Abre un stream de lectura de los datos.
+     *
+     * @return stream de lectura de los datos.
+     * @throws IOException excepción al leer los datos.
+     */
+    default InputStream abrir() throws IOException {
+        ByteBuffer datos = getDatos();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return datos.hasRemaining() ? datos.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!datos.hasRemaining()) {
+                    return -1;
+                }
+                int leidos = Math.min(len, datos.remaining());
+                datos.get(b, off, leidos);
+                return leidos;
+            }
+
+            @Override
+            public int available() {
+                return datos.remaining();
+            }
+        };
+    }
+
+    /**
+     * Construye una referencia a unos datos en memoria.
+     *
+     * @param datos datos del fichero multimedia (no se copian).
+     * @return referencia a los datos.
+     */
+    static ReferenciaMultimedia enMemoria(byte[] datos) {
+        return new ReferenciaMultimedia() {
+            @Override
+            public int getLongitud() {
+                return datos.length;
+            }
+
+            @Override
+            public int getHuella() {
+                return Arrays.hashCode(datos);
+            }
+
+            @Override
+            public ByteBuffer getDatos() {
+                return ByteBuffer.wrap(datos).asReadOnlyBuffer();
+            }
+        };
+    }
+}
@@ -36,6 +36,10 @@ public class Respuesta implements Serializable {
     private TipoPregunta tipoPregunta;
     // Número de orden de la pregunta (en un test) con la que está asociada la respuesta
     private Integer numeroPregunta;
+    // Instante (reloj monótono del cliente, en milisegundos) en el que el cliente recibió la pregunta (0 si se desconoce)
+    private long instanteRecepcionPregunta;
+    // Instante (reloj monótono del cliente, en milisegundos) en el que el cliente envió la respuesta (0 si se desconoce)
+    private long instanteEnvio;
     // Valor por defecto seleccionado en las respuestas de tipo "Emparejada" y "Multivalor"
     public static final String OPCION_POR_DEFECTO_EMPAREJADA_MULTIVALOR = "-";
 
@@ -127,6 +131,36 @@ public class Respuesta implements Serializable {
         return opciones;
     }
 
+    /**
+     * Establece los instantes, medidos con el reloj del cliente, en los que se recibió la pregunta y se envió la
+     * respuesta. El servidor los utiliza para compensar la latencia de red al decidir quién ha contestado el primero.
+     *
+     * @param instanteRecepcionPregunta instante (en milisegundos) en el que el cliente recibió la pregunta.
+     * @param instanteEnvio instante (en milisegundos) en el que el cliente envió la respuesta.
+     */
+    public void setMarcasTiempo(long instanteRecepcionPregunta, long instanteEnvio) {
+        this.instanteRecepcionPregunta = instanteRecepcionPregunta;
+        this.instanteEnvio = instanteEnvio;
+    }
+
+    /**
+     * Obtiene el instante (reloj del cliente, en milisegundos) en el que el cliente recibió la pregunta.
+     *
+     * @return instante en el que el cliente recibió la pregunta o 0 si se desconoce.
+     */
+    public long getInstanteRecepcionPregunta() {
+        return instanteRecepcionPregunta;
+    }
+
+    /**
+     * Obtiene el instante (reloj del cliente, en milisegundos) en el que el cliente envió la respuesta.
+     *
+     * @return instante en el que el cliente envió la respuesta o 0 si se desconoce.
+     */
+    public long getInstanteEnvio() {
+        return instanteEnvio;
+    }
+
     /**
      * Establece el número de orden de la pregunta (dentro del test) con el que está asociada la respuesta.
      *
@@ -49,6 +49,12 @@ public enum TipoMensaje implements Serializable {
     NICKNAME_KO("NICKNAME_KO"),
     // Mensaje en el que se envía el ranking actual al usuario que se acaba de conectar
     RANKING_ACTUAL("RANKING_ACTUAL"),
+    // Mensaje enviado por el cliente para solicitar los primeros del ranking y los usuarios más próximos a él
+    RANKING_SOLICITAR("RANKING_SOLICITAR"),
+    // Mensaje enviado por el servidor para medir el RTT y el desfase del reloj del cliente
+    PING("PING"),
+    // Respuesta del cliente a un mensaje PING con sus marcas de tiempo de recepción y envío
+    PONG("PONG"),
     // Mensaje utilizado por el cliente para preguntar al servidor si hay un test en ejecución
     TEST_EN_EJECUCION("TEST_EN_EJECUCION"),
     // Mensaje enviado por el cliente para ampliar el tiempo de respuesta
@@ -78,7 +84,12 @@ public enum TipoMensaje implements Serializable {
     // Mensaje enviado por el cliente para abandonar la aplicación,
     BYE("BYE"),
     // Array de tipo String
-    TEXTO_ARRAY("TEXTO_ARRAY");
+    TEXTO_ARRAY("TEXTO_ARRAY"),
+    // Mensaje enviado por un espectador (en lugar del nickname) para recibir el test sin participar en él
+    ESPECTADOR("ESPECTADOR"),
+    // Solicitud de reanudación de una sesión tras perder la conexión [nickname, token, último mensaje recibido] y
+    // respuesta del servidor (flag)
+    REANUDAR_SESION("REANUDAR_SESION");
 
     // Tipo del mensaje
     private final String tipo;
@@ -22,18 +22,42 @@ import com.testchallenge.model.TipoMensaje;
 import com.testchallenge.model.Mensaje;
 import com.testchallenge.model.Pregunta;
 import com.testchallenge.model.Ranking;
+import com.testchallenge.server.admin.ServidorAdministracion;
+import com.testchallenge.server.diario.DiarioEventos;
+import com.testchallenge.server.espectadores.SalaEspectadores;
+import com.testchallenge.server.estadisticas.AgregadorEstadisticas;
+import com.testchallenge.server.historico.ArchivoHistorico;
+import com.testchallenge.server.jfr.EventoInicioTest;
+import com.testchallenge.server.jfr.EventoRegistro;
+import com.testchallenge.server.log.ManejadorAsincrono;
+import com.testchallenge.server.metricas.MetricasServidor;
+import com.testchallenge.server.recuperacion.EstadoTest;
+import com.testchallenge.server.recuperacion.RegistroRecuperacion;
+import com.testchallenge.server.seleccion.RegistroPreguntasVistas;
+import com.testchallenge.server.sesion.MonitorLatidos;
+import com.testchallenge.server.sesion.SesionReanudable;
+import com.testchallenge.server.temporizador.RuedaTemporizadores;
+import com.testchallenge.server.ranking.Clasificacion;
 import java.io.File;
 import java.io.IOException;
 
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -62,11 +86,23 @@ import java.util.logging.Logger;
  * En el caso de que el nickname ya esté en uso, el servidor informa al cliente que no se ha podido iniciar la sesión y
  * cierra la conexión.
  *
+ * Si en lugar del nickname se recibe un mensaje <code>ESPECTADOR</code>, el servidor envía un OK y pasa la conexión a
+ * la sala de espectadores (ver <code>SalaEspectadores</code>), que sólo le envía el desarrollo de los tests.
+ *
+ * El OK del registro lleva un token con el que el cliente puede reanudar su sesión si pierde la conexión: durante un
+ * periodo de gracia, el usuario sigue conectado y se le guardan los mensajes; si se reconecta con un mensaje
+ * <code>REANUDAR_SESION</code> (nickname, token y número del último mensaje recibido), se le reenvían los que le
+ * faltan (ver <code>SesionReanudable</code>).
+ *
+ * El estado del test en ejecución se registra en el directorio del histórico (ver <code>RegistroRecuperacion</code>):
+ * si el proceso termina durante un test, al arrancar de nuevo se continúa y los usuarios pueden reconectarse a él.
+ *
  * @author jprada
  */
 public class TestChallengeServer extends Thread {
 
-    // Lista de clientes conectados
+    // Lista de clientes conectados (la recorren sin bloqueo los hilos que reenvían mensajes mientras se conectan y
+    // desconectan clientes, por lo que cada recorrido trabaja sobre una copia inmutable de la lista)
     private final List<TestChallengeServerThread> clientesConectados;
     // Puerto de escucha del servidor
     private final int listeningPort;
@@ -80,17 +116,80 @@ public class TestChallengeServer extends Thread {
     // Directorio raíz o base en el que se encuentran las preguntas organizadas por materias
     private final String directorioRaizPreguntas;
     // Ranking mantenido por el servidor durante la sesión
-    private final Map<String, Integer> ranking;
+    private final Clasificacion clasificacion;
+    // Histórico de los tests finalizados
+    private final ArchivoHistorico archivoHistorico;
+    // Estadísticas por usuario y por pregunta
+    private final AgregadorEstadisticas agregadorEstadisticas;
+    // Preguntas vistas por cada usuario (por temática)
+    private final RegistroPreguntasVistas registroPreguntasVistas;
+    // Planificador compartido de los temporizadores de todos los tests
+    private final RuedaTemporizadores ruedaTemporizadores;
+    // Socket servidor en el que se aceptan las conexiones de los clientes
+    private volatile ServerSocket serverSocket;
+    // Flag que indica si se ha detenido el servidor
+    private volatile boolean detenido;
+    // Métricas del servidor (publicadas como MBean de la plataforma)
+    private final MetricasServidor metricas;
+    // Espectadores de los tests (no participan en ellos)
+    private final SalaEspectadores salaEspectadores;
+    // Diario de los mensajes intercambiados con los clientes (desactivado si no se ha configurado)
+    private final DiarioEventos diario;
+    // Registro del test en ejecución para recuperarlo si el proceso termina
+    private final RegistroRecuperacion registroRecuperacion;
+    // Sesiones de los usuarios conectados (por token de reanudación)
+    private final Map<String, SesionReanudable> sesiones = new ConcurrentHashMap<>();
+    // Tiempo durante el que se puede reanudar una sesión tras perder la conexión (en milisegundos)
+    private final long graciaReanudacionMs;
+    // Vigilancia de la actividad de las conexiones con latidos (en la rueda de temporizadores)
+    private final MonitorLatidos monitorLatidos;
+    // Fichero (en el directorio del histórico) en el que se vuelcan las estadísticas
+    private static final String FICHERO_ESTADISTICAS = "estadisticas.dat";
+    // Fichero (en el directorio del histórico) en el que se registra el test en ejecución
+    private static final String FICHERO_RECUPERACION = "test-en-curso.dat";
+    // Subdirectorio (en el directorio del histórico) en el que se guardan las preguntas vistas por cada usuario
+    private static final String SUBDIRECTORIO_VISTAS = "vistas";
+    // Directorio por defecto del histórico de tests (relativo al directorio de trabajo)
+    private static final String DIRECTORIO_HISTORICO_POR_DEFECTO = "historico";
+    // Número de usuarios que se envían con la cabeza del ranking cuando un cliente lo solicita
+    private static final int RANKING_NUMERO_PRIMEROS = 20;
+    // Número de posiciones por encima y por debajo del usuario que se envían cuando un cliente solicita el ranking
+    private static final int RANKING_RADIO_VECINDARIO = 2;
+    // Propiedad de sistema con el directorio en el que se crea el diario de eventos (si no se indica, no se registra)
+    private static final String PROPIEDAD_DIRECTORIO_DIARIO = "testchallenge.diario";
+    // Propiedad de sistema con el puerto del servidor HTTP de administración (si no se indica, no se arranca)
+    private static final String PROPIEDAD_PUERTO_ADMINISTRACION = "testchallenge.admin.puerto";
+    // Propiedad de sistema con la dirección en la que escucha el servidor HTTP de administración
+    private static final String PROPIEDAD_DIRECCION_ADMINISTRACION = "testchallenge.admin.direccion";
+    // Dirección por defecto del servidor HTTP de administración (sólo accesible desde la propia máquina)
+    private static final String DIRECCION_ADMINISTRACION_POR_DEFECTO = "127.0.0.1";
+    // Propiedad de sistema con los segundos durante los que se puede reanudar una sesión (0 lo desactiva)
+    private static final String PROPIEDAD_GRACIA_REANUDACION = "testchallenge.sesion.gracia";
+    // Segundos por defecto durante los que se puede reanudar una sesión tras perder la conexión
+    private static final int GRACIA_REANUDACION_POR_DEFECTO = 30;
+    // Propiedad de sistema con los segundos entre latidos a los clientes (0 los desactiva)
+    private static final String PROPIEDAD_INTERVALO_LATIDOS = "testchallenge.latido.intervalo";
+    // Propiedad de sistema con los segundos sin recibir nada de un cliente tras los que se cierra su conexión
+    private static final String PROPIEDAD_LIMITE_INACTIVIDAD = "testchallenge.latido.limite";
+    // Segundos por defecto entre latidos a los clientes
+    private static final int INTERVALO_LATIDOS_POR_DEFECTO = 5;
+    // Segundos por defecto sin recibir nada de un cliente tras los que se cierra su conexión
+    private static final int LIMITE_INACTIVIDAD_POR_DEFECTO = 15;
     // Logger de la clase
     private final static Logger logger = Logger.getLogger(TestChallengeServer.class.getName());
 
     public static void main(String[] args) {
+        // El log se publica desde un hilo propio para no bloquear el tratamiento de los mensajes
+        ManejadorAsincrono.instalar();
+
         // Recogemos los parámetros en el hilo principal
         int listeningPort = Integer.parseInt(args[0]);
         String directorio = args[1];
+        // El directorio del histórico de tests es opcional
+        String directorioHistorico = args.length > 2 ? args[2] : DIRECTORIO_HISTORICO_POR_DEFECTO;
 
         // y arrancamos un nuevo thread de servicio
-        new TestChallengeServer(listeningPort, directorio).start();
+        new TestChallengeServer(listeningPort, directorio, directorioHistorico).start();
     }
 
     /**
@@ -103,12 +202,39 @@ public class TestChallengeServer extends Thread {
      *
      */
     public TestChallengeServer(int listeningPort, String directorioRaizPreguntas) {
+        this(listeningPort, directorioRaizPreguntas, DIRECTORIO_HISTORICO_POR_DEFECTO);
+    }
+
+    /**
+     * Construye una instancia que recibe solicitudes de conexiones en el puerto especificado y que registra los tests
+     * finalizados en el directorio de histórico indicado.
+     *
+     * @param listeningPort puerto en el que se encuentra a la escucha el servidor de chat.
+     * @param directorioRaizPreguntas directorio raíz en el que se almacenan las preguntas.
+     * @param directorioHistorico directorio en el que se almacena el histórico de los tests finalizados.
+     */
+    public TestChallengeServer(int listeningPort, String directorioRaizPreguntas, String directorioHistorico) {
         this.listeningPort = listeningPort;
         this.directorioRaizPreguntas = directorioRaizPreguntas;
-        clientesConectados = new ArrayList<>();
-        ranking = new HashMap<>();
+        clientesConectados = new CopyOnWriteArrayList<>();
+        clasificacion = new Clasificacion();
+        archivoHistorico = new ArchivoHistorico(new File(directorioHistorico));
+        agregadorEstadisticas = new AgregadorEstadisticas(new File(directorioHistorico, FICHERO_ESTADISTICAS));
+        registroPreguntasVistas = new RegistroPreguntasVistas(new File(directorioHistorico, SUBDIRECTORIO_VISTAS));
+        registroRecuperacion = new RegistroRecuperacion(new File(directorioHistorico, FICHERO_RECUPERACION));
+        ruedaTemporizadores = new RuedaTemporizadores();
+        monitorLatidos = crearMonitorLatidos();
+        metricas = new MetricasServidor(clientesConectados::size, () -> testIniciado, this::getEnviosPendientes);
+        salaEspectadores = new SalaEspectadores(ruedaTemporizadores);
+        diario = abrirDiario();
+        graciaReanudacionMs = TimeUnit.SECONDS.toMillis(
+                Math.max(0, Integer.getInteger(PROPIEDAD_GRACIA_REANUDACION, GRACIA_REANUDACION_POR_DEFECTO)));
         testIniciado = Boolean.FALSE;
         testPausado = Boolean.FALSE;
+        // Estado que reciben los espectadores que se conectan antes del primer test
+        salaEspectadores.publicarEstado(new Mensaje(new Ranking(clasificacion.getPuntuaciones()),
+                TipoMensaje.RANKING_ACTUAL));
+        salaEspectadores.publicarEstado(new Mensaje(testIniciado, TipoMensaje.TEST_EN_EJECUCION));
     }
 
     @Override
@@ -119,9 +245,24 @@ public class TestChallengeServer extends Thread {
         // Registramos el hook para capturar la combinación de teclas CTRL+C para detener el proceso
         addShutDownHook();
 
+        // Cargamos las estadísticas acumuladas en ejecuciones anteriores y arrancamos su volcado periódico
+        try {
+            agregadorEstadisticas.cargar();
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+        }
+        agregadorEstadisticas.iniciarVolcadoPeriodico();
+        // Continuamos el test que estaba en ejecución si el proceso anterior terminó durante el mismo
+        recuperarTest();
+
+        // Publicamos las métricas del servidor como MBean de la plataforma
+        metricas.registrarMBean(listeningPort);
+        // y arrancamos el servidor HTTP de administración si se ha configurado
+        iniciarAdministracion();
+
         try {
             // Creamos un socket servidor para aceptar las peticiones de conexión de los clientes en el puerto indicado
-            ServerSocket serverSocket = new ServerSocket(listeningPort);
+            serverSocket = new ServerSocket(listeningPort);
             logger.info(String.format("'%s': Servidor iniciado y escuchando en el puerto '%d'.",
                     TestChallengeServer.class.getSimpleName(), listeningPort));
 
@@ -129,138 +270,271 @@ public class TestChallengeServer extends Thread {
             while (true) {
                 // El servidor se queda bloqueado a la espera de recibir una conexión
                 Socket clientDataSocket = serverSocket.accept();
+                // Una conexión aceptada mientras se detiene el servidor no se atiende
+                if (detenido) {
+                    clientDataSocket.close();
+                    break;
+                }
+                try {
+                    atenderConexion(clientDataSocket);
+                } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+                    // Un error al registrar a un cliente (p. ej., porque se desconecta durante el registro) sólo
+                    // afecta a su conexión: el servidor sigue aceptando conexiones
+                    logger.log(Level.WARNING, "''{0}'': Error al registrar la conexión desde ''{1}'': {2}",
+                            new Object[]{TestChallengeServer.class.getSimpleName(),
+                                clientDataSocket.getRemoteSocketAddress(), ex.getMessage()});
+                    cerrar(clientDataSocket);
+                }
+            } // while (true)
+
+        } catch (IOException ex) {
+            // Al detener el servidor se cierra el socket servidor y la espera de conexiones termina con una excepción
+            if (!detenido) {
+                logger.severe(ex.getMessage());
+            }
+        } finally {
+            logger.info(String.format("'%s': Servidor finalizado.", TestChallengeServer.class.getSimpleName()));
+        }
+
+    }
 
-                // Obtener la información de dirección IP y puerto del socket de conexión del sistema cliente
-                String dirIPCliente = clientDataSocket.getInetAddress().toString();
-                int puertoCliente = clientDataSocket.getPort();
-
-                logger.info(String.format("'%s': Conexión establecida desde la dirección IP '%s' puerto '%d'.",
-                        TestChallengeServer.class.getSimpleName(), dirIPCliente, puertoCliente));
-
-                // Se recibe la conexión y se obtienen los streams para la comunicación con el cliente
-                ObjectInputStream in = new ObjectInputStream(clientDataSocket.getInputStream());
-                ObjectOutputStream out = new ObjectOutputStream(clientDataSocket.getOutputStream());
-
-                // Se ejecuta el siguiente protocolo:
-                // ---------------------------------
-                // 1º.- Recibir el nickname
-                Mensaje mensaje = (Mensaje) in.readObject();
-                String nickname = mensaje.getTexto();
-                logger.info(String.format("'%s': Validando el nickname '%s' del usuario ...",
-                        TestChallengeServer.class.getSimpleName(), nickname));
-
-                // 2º.- Comprobar si el nickname del cliente es único o ya está en uso
-                TestChallengeServerThread testChallengeServerThread = new TestChallengeServerThread(nickname);
-
-                // La clase TestChallengeServerThread reescribe el método equals para poder hacer comparaciones entre objetos
-                if (!clientesConectados.contains(testChallengeServerThread)) {
-                    // 3º.- Comunicar al cliente que su sesión se ha registrado en el chat
-                    out.writeObject(new Mensaje(TipoMensaje.NICKNAME_OK));
-                    out.flush();
-
-                    // 4º.- Comunicar al cliente los nicknames de los usuarios que están conectados
-                    String nicknamesConectados = getNicknamesConectadosMessage(nickname);
-                    out.writeObject(new Mensaje(nicknamesConectados));
-                    out.flush();
-
-                    // 5º.- TEMÁTICAS: Indicar al cliente las temáticas disponibles (carpetas en el directorio base)
-                    String[] tematicas = getTematicas();
-                    out.writeObject(new Mensaje(tematicas));
-                    out.flush();
-
-                    logger.info(String.format("'%s': Sesión con el nickname '%s' registrada correctamente.",
-                            TestChallengeServer.class.getSimpleName(), nickname));
-
-                    // 6º.- Inicializar el hilo de procesamiento del cliente en el lado del servidor
-                    testChallengeServerThread.setClientDataSocket(clientDataSocket);
-                    // Se pasa al hilo los streams de lectura y escritura para la comunicación, que ya están inicializados
-                    testChallengeServerThread.setClientDataIn(in);
-                    testChallengeServerThread.setClientDataOut(out);
-                    // Se pasa la referencia al objeto padre que ha instanciado el thread de servicio. Esto le permitirá
-                    // al hilo hijo acceder a los métodos del padre para realizar determinadas operaciones. 
-                    testChallengeServerThread.setTestChallengeServer(this);
-
-                    // 8º.- RANKING: Enviar el ranking actual al nuevo cliente
-                    logger.info(String.format("'%s': Enviando el ranking actual a '%s'.",
-                            TestChallengeServer.class.getSimpleName(), nickname));
-                    out.writeObject(new Mensaje(new Ranking(ranking), TipoMensaje.RANKING_ACTUAL));
-                    out.flush();
-
-                    // 9º.- FLAG TEST EN EJECUCION: Enviar el flag de test iniciado al nuevo cliente                    
-                    out.writeObject(new Mensaje(testIniciado, TipoMensaje.TEST_EN_EJECUCION));
-                    out.flush();
-
-                    if (testIniciado) {
-                        logger.info(String.format("'%s': Enviando el flag que indica que hay un test en ejecución a '%s'.",
-                                TestChallengeServer.class.getSimpleName(), nickname));
-
-                        // Enviar un mensaje al cliente con la parametrización del test
-                        out.writeObject((new Mensaje(testServer.getMensajeInicioTest())));
-                        out.flush();
+    /**
+     * Atiende una conexión recién aceptada: registra al usuario (o al espectador) y arranca su hilo de servicio, o
+     * reanuda la sesión de un usuario que ha perdido la conexión.
+     *
+     * @param clientDataSocket socket de la conexión aceptada.
+     * @throws IOException excepción en la comunicación con el cliente.
+     * @throws ClassNotFoundException si el cliente envía un objeto desconocido.
+     */
+    private void atenderConexion(Socket clientDataSocket) throws IOException, ClassNotFoundException {
+        long inicioRegistro = System.nanoTime();
+        EventoRegistro eventoRegistro = new EventoRegistro();
+        eventoRegistro.begin();
+
+        // Obtener la información de dirección IP y puerto del socket de conexión del sistema cliente
+        String dirIPCliente = clientDataSocket.getInetAddress().toString();
+        int puertoCliente = clientDataSocket.getPort();
+
+        logger.log(Level.INFO,
+                "''{0}'': Conexión establecida desde la dirección IP ''{1}'' puerto ''{2,number,#}''.",
+                new Object[]{TestChallengeServer.class.getSimpleName(), dirIPCliente, puertoCliente});
+
+        // Se recibe la conexión y se obtienen los streams para la comunicación con el cliente
+        // (envueltos para contar los bytes recibidos y enviados)
+        ObjectInputStream in = new ObjectInputStream(metricas.contar(clientDataSocket.getInputStream()));
+        ObjectOutputStream out = new ObjectOutputStream(metricas.contar(clientDataSocket.getOutputStream()));
+
+        // Se ejecuta el siguiente protocolo:
+        // ---------------------------------
+        // 1º.- Recibir el nickname
+        Mensaje mensaje = (Mensaje) in.readObject();
+        metricas.registrarMensajeRecibido(mensaje.getTipo());
+
+        // Un cliente que ha perdido la conexión reanuda su sesión en lugar de registrarse de nuevo
+        if (mensaje.getTipo() == TipoMensaje.REANUDAR_SESION) {
+            reanudarSesion(mensaje, clientDataSocket, in, out);
+            return;
+        }
+        String nickname = mensaje.getTexto();
+        diario.registrarEntrada(nickname, mensaje);
+
+        // Los espectadores no se registran como usuarios: pasan a la sala y no tienen hilo de servicio
+        if (mensaje.getTipo() == TipoMensaje.ESPECTADOR) {
+            // La respuesta la envían los hilos de la sala: este hilo no se bloquea si el espectador no lee
+            salaEspectadores.registrar(nickname, clientDataSocket, out, new Mensaje(TipoMensaje.NICKNAME_OK));
+            metricas.registrarMensajeEnviado(TipoMensaje.NICKNAME_OK);
+            diario.registrarSalida(nickname, TipoMensaje.NICKNAME_OK);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "''{0}'': Espectador ''{1}'' registrado.",
+                        new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+            }
+            return;
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "''{0}'': Validando el nickname ''{1}'' del usuario ...",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+        }
+
+        // 2º.- Comprobar si el nickname del cliente es único o ya está en uso
+        TestChallengeServerThread testChallengeServerThread = new TestChallengeServerThread(nickname);
+
+        // La clase TestChallengeServerThread reescribe el método equals para poder hacer comparaciones entre objetos
+        if (!clientesConectados.contains(testChallengeServerThread)) {
+            // 3º.- Comunicar al cliente que su sesión se ha registrado en el chat (con el token para
+            // reanudarla si pierde la conexión)
+            SesionReanudable sesion = new SesionReanudable(nickname, out, testChallengeServerThread);
+            testChallengeServerThread.setSesion(sesion, false);
+            escribir(nickname, out, new Mensaje(sesion.getToken(), TipoMensaje.NICKNAME_OK));
+
+            // 4º.- Comunicar al cliente los nicknames de los usuarios que están conectados
+            String nicknamesConectados = getNicknamesConectadosMessage(nickname);
+            escribir(nickname, out, new Mensaje(nicknamesConectados));
+
+            // 5º.- TEMÁTICAS: Indicar al cliente las temáticas disponibles (carpetas en el directorio base)
+            String[] tematicas = getTematicas();
+            escribir(nickname, out, new Mensaje(tematicas));
+
+            logger.log(Level.INFO, "''{0}'': Sesión con el nickname ''{1}'' registrada correctamente.",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+
+            // 6º.- Inicializar el hilo de procesamiento del cliente en el lado del servidor
+            testChallengeServerThread.setClientDataSocket(clientDataSocket);
+            // Se pasa al hilo los streams de lectura y escritura para la comunicación, que ya están inicializados
+            testChallengeServerThread.setClientDataIn(in);
+            testChallengeServerThread.setClientDataOut(out);
+            // Se pasa la referencia al objeto padre que ha instanciado el thread de servicio. Esto le permitirá
+            // al hilo hijo acceder a los métodos del padre para realizar determinadas operaciones. 
+            testChallengeServerThread.setTestChallengeServer(this);
+
+            // 8º.- RANKING: Enviar el ranking actual al nuevo cliente
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "''{0}'': Enviando el ranking actual a ''{1}''.",
+                        new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+            }
+            escribir(nickname, out,
+                    new Mensaje(new Ranking(clasificacion.getPuntuaciones()), TipoMensaje.RANKING_ACTUAL));
+
+            // 9º.- FLAG TEST EN EJECUCION: Enviar el flag de test iniciado al nuevo cliente                    
+            escribir(nickname, out, new Mensaje(testIniciado, TipoMensaje.TEST_EN_EJECUCION));
+
+            if (testIniciado) {
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE,
+                            "''{0}'': Enviando el flag que indica que hay un test en ejecución a ''{1}''.",
+                            new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+                }
+
+                // Enviar un mensaje al cliente con la parametrización del test
+                escribir(nickname, out, new Mensaje(testServer.getMensajeInicioTest()));
                         
-                        // Enviar la pregunta al cliente 
-                        Pregunta preguntaEnviada = testServer.getPreguntaEnviada();
-                        logger.info(String.format("'%s': Enviando la pregunta al usuario '%s' recién conectado.",
-                                TestChallengeServer.class.getSimpleName(), nickname));
+                // Enviar la pregunta al cliente 
+                Pregunta preguntaEnviada = testServer.getPreguntaEnviada();
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE,
+                            "''{0}'': Enviando la pregunta al usuario ''{1}'' recién conectado.",
+                            new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+                }
                         
-                        out.writeObject(new Mensaje(preguntaEnviada, TipoMensaje.TEST_PREGUNTA));
-                        out.flush();
+                escribir(nickname, out, new Mensaje(preguntaEnviada, TipoMensaje.TEST_PREGUNTA));
+                testServer.registrarEnvioPregunta(nickname);
 
-                        // Incializar la puntuación del usuario para la pregunta enviada cuando se incorpora a un test iniciado
-                        testServer.inicializarPuntuacionConTestIniciado(nickname);
-                    }
+                // Incializar la puntuación del usuario para la pregunta enviada cuando se incorpora a un test iniciado
+                testServer.inicializarPuntuacionConTestIniciado(nickname);
+            }
 
-                    // 10º.- FLAG TEST PAUSADO: Enviar el flag de test pausado al nuevo cliente
-                    out.writeObject(new Mensaje(testPausado, TipoMensaje.TEST_PAUSADO));
-                    out.flush();
+            // 10º.- FLAG TEST PAUSADO: Enviar el flag de test pausado al nuevo cliente
+            escribir(nickname, out, new Mensaje(testPausado, TipoMensaje.TEST_PAUSADO));
                     
-                    if (testPausado) {
-                        logger.info(String.format("'%s': Enviando el flag que indica que el test está pausado a '%s'.",
-                                TestChallengeServer.class.getSimpleName(), nickname));
-                    }
+            if (testPausado && logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE,
+                        "''{0}'': Enviando el flag que indica que el test está pausado a ''{1}''.",
+                        new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+            }
 
-                    // NOTA: el orden de las operaciones 11 y 12 es importante para que no se produzcan problemas
-                    // en el envío de mensajes.
+            // NOTA: el orden de las operaciones 11 y 12 es importante para que no se produzcan problemas
+            // en el envío de mensajes.
                     
-                    // 11º.- Añadir el cliente a la lista de clientes conectados
-                    registrarConexion(testChallengeServerThread);
+            // 11º.- Añadir el cliente a la lista de clientes conectados
+            registrarConexion(testChallengeServerThread);
+            sesiones.put(sesion.getToken(), sesion);
+
+            // 12º.- Arrancar el hilo de servicio para el nuevo cliente de chat (de ese modo,
+            // el cliente empieza a recibir notificaciones desde el servidor (TIMER_TICK, etc):
+            // Ver clase TestChallengeClientThread.java
+            testChallengeServerThread.start();
+            metricas.registrarRegistro(System.nanoTime() - inicioRegistro);
+            eventoRegistro.finalizar(nickname, true, testIniciado);
+
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "''{0}'': Thread de servicio para ''{1}'' arrancado.",
+                        new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+            }
+
+        } else {
+            // Se le informa al cliente que el nickname ya está en uso y que no se puede iniciar la sesión
+            escribir(nickname, out, new Mensaje(TipoMensaje.NICKNAME_KO));
+            eventoRegistro.finalizar(nickname, false, testIniciado);
 
-                    // 12º.- Arrancar el hilo de servicio para el nuevo cliente de chat (de ese modo,
-                    // el cliente empieza a recibir notificaciones desde el servidor (TIMER_TICK, etc):
-                    // Ver clase TestChallengeClientThread.java
-                    testChallengeServerThread.start();
+            // y se muestra el mensaje en la consola del servidor
+            logger.log(Level.INFO, "''{0}'': El nickname ''{1}'' ya se encuentra registrado.",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
 
-                    logger.info(String.format("'%s': Thread de servicio para '%s' arrancado.",
-                            TestChallengeServer.class.getSimpleName(), nickname));
+            clientDataSocket.close();
+        }
+    }
+
+    /**
+     * Cierra el socket de una conexión (si ya estaba cerrado, no se hace nada).
+     *
+     * @param socket socket de la conexión.
+     */
+    private void cerrar(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // La conexión ya estaba cerrada
+        }
+    }
 
-                } else {
-                    // Se le informa al cliente que el nickname ya está en uso y que no se puede iniciar la sesión
-                    out.writeObject(new Mensaje(TipoMensaje.NICKNAME_KO));
-                    out.flush();
+    /**
+     * Obtiene la clasificación con las puntuaciones de la sesión actual.
+     *
+     * @return clasificación con las puntuaciones de la sesión actual.
+     */
+    public Clasificacion getClasificacion() {
+        return clasificacion;
+    }
 
-                    // y se muestra el mensaje en la consola del servidor
-                    logger.info(String.format("'%s': El nickname '%s' ya se encuentra registrado.",
-                            TestChallengeServer.class.getSimpleName(), nickname));
+    /**
+     * Obtiene el histórico de los tests finalizados.
+     *
+     * @return histórico de los tests finalizados.
+     */
+    public ArchivoHistorico getArchivoHistorico() {
+        return archivoHistorico;
+    }
 
-                    clientDataSocket.close();
-                }
-            } // while (true)
+    /**
+     * Obtiene el agregador de estadísticas por usuario y por pregunta.
+     *
+     * @return agregador de estadísticas por usuario y por pregunta.
+     */
+    public AgregadorEstadisticas getAgregadorEstadisticas() {
+        return agregadorEstadisticas;
+    }
 
-        } catch (IOException | ClassNotFoundException ex) {
-            logger.severe(ex.getMessage());
-        } finally {
-            logger.info(String.format("'%s': Servidor finalizado.", TestChallengeServer.class.getSimpleName()));
-        }
+    /**
+     * Obtiene el registro de las preguntas vistas por cada usuario.
+     *
+     * @return registro de las preguntas vistas por cada usuario.
+     */
+    public RegistroPreguntasVistas getRegistroPreguntasVistas() {
+        return registroPreguntasVistas;
+    }
 
+    /**
+     * Obtiene el planificador compartido de los temporizadores de los tests.
+     *
+     * @return planificador compartido de los temporizadores de los tests.
+     */
+    public RuedaTemporizadores getRuedaTemporizadores() {
+        return ruedaTemporizadores;
     }
 
     /**
-     * Obtiene el ranking con las puntuaciones de la sesión actual.
+     * Obtiene un ranking parcial para el usuario especificado con los primeros de la clasificación y los usuarios que
+     * se encuentran más próximos a él, junto con la posición que ocupa.
      *
-     * @return ranking con las puntuaciones de la sesión actual.
+     * @param nickname nickname del usuario que solicita el ranking.
+     * @return ranking parcial con los primeros de la clasificación y los usuarios más próximos al usuario.
      */
-    public Map<String, Integer> getRanking() {
-        return ranking;
+    public Ranking getRankingParcial(String nickname) {
+        Map<String, Integer> puntuaciones = clasificacion.getPrimeros(RANKING_NUMERO_PRIMEROS);
+        puntuaciones.putAll(clasificacion.getVecindario(nickname, RANKING_RADIO_VECINDARIO));
+
+        Ranking rankingParcial = new Ranking(puntuaciones);
+        rankingParcial.setPosicion(clasificacion.getPosicion(nickname));
+        return rankingParcial;
     }
 
     /**
@@ -299,19 +573,47 @@ public class TestChallengeServer extends Thread {
      */
     public synchronized void startTest(String nickname, Configuracion configuracion) {
         if (!testIniciado) {
-            logger.info(String.format("------> El usuario @%s ha solicitado ejecutar un test.\n", nickname));
+            logger.log(Level.INFO, "------> El usuario @{0} ha solicitado ejecutar un test.\n", nickname);
             // Notificar a todos los clientes (salvo el que ha solicitado el inicio del test) 
             // que empieza un nuevo Test, para que reajusten la interfaz 
             enviarTestIniciar(nickname);
 
             // Iniciar el servidor para ejecutar el test
             testIniciado = Boolean.TRUE;
+            metricas.registrarInicioTest();
+            EventoInicioTest.emitir(nickname, configuracion.getTematica(), configuracion.getNivel(),
+                    configuracion.getNumeroPreguntas(), configuracion.getTiempoLimite(), clientesConectados.size());
             testServer = new TestServer(nickname, configuracion);
             testServer.setTestChallengeServer(this);
             testServer.start();
         }
     }
 
+    /**
+     * Recupera el test que estaba en ejecución cuando terminó el proceso anterior del servidor (si lo había) y lo
+     * continúa con un nuevo <code>TestServer</code>, que espera a que se reconecten los usuarios.
+     */
+    private synchronized void recuperarTest() {
+        EstadoTest estado;
+        try {
+            estado = registroRecuperacion.leer();
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+            return;
+        }
+        if (estado == null) {
+            return;
+        }
+        logger.log(Level.INFO, "''{0}'': Recuperando el test solicitado por @{1}.",
+                new Object[]{TestChallengeServer.class.getSimpleName(), estado.getNickname()});
+        registroRecuperacion.reanudarTest(estado);
+        testIniciado = Boolean.TRUE;
+        metricas.registrarInicioTest();
+        testServer = new TestServer(estado);
+        testServer.setTestChallengeServer(this);
+        testServer.start();
+    }
+
     /**
      * Método helper que envía una notificación a todos los usuarios conectados (menos al que ha realizado la solicitud)
      * de que va a empezar la ejecución de un test.
@@ -322,8 +624,7 @@ public class TestChallengeServer extends Thread {
         for (TestChallengeServerThread cst : clientesConectados) {
             if (!cst.getNickname().equals(nickname)) {
                 try {
-                    cst.getClientDataOut().writeObject(new Mensaje(TipoMensaje.INICIAR_TEST));
-                    cst.getClientDataOut().flush();
+                    cst.enviar(new Mensaje(TipoMensaje.INICIAR_TEST));
                 } catch (IOException ex) {
                     logger.severe(ex.getMessage());
                 }
@@ -331,6 +632,243 @@ public class TestChallengeServer extends Thread {
         }
     }
 
+    /**
+     * Arranca el servidor HTTP de administración si se ha indicado su puerto con la propiedad de sistema
+     * <code>testchallenge.admin.puerto</code>. Por defecto sólo escucha en la interfaz local; la dirección se puede
+     * cambiar con la propiedad <code>testchallenge.admin.direccion</code>.
+     */
+    private void iniciarAdministracion() {
+        String puerto = System.getProperty(PROPIEDAD_PUERTO_ADMINISTRACION);
+        if (puerto == null) {
+            return;
+        }
+        String direccion = System.getProperty(PROPIEDAD_DIRECCION_ADMINISTRACION, DIRECCION_ADMINISTRACION_POR_DEFECTO);
+        try {
+            new ServidorAdministracion(this, new InetSocketAddress(direccion, Integer.parseInt(puerto))).iniciar();
+        } catch (IOException | IllegalArgumentException ex) {
+            logger.severe(ex.getMessage());
+        }
+    }
+
+    /**
+     * Crea el monitor de latidos con el intervalo y el tiempo máximo de inactividad indicados con las propiedades de
+     * sistema <code>testchallenge.latido.intervalo</code> y <code>testchallenge.latido.limite</code> (en segundos).
+     *
+     * @return monitor de latidos (con los valores por defecto si los indicados no son válidos).
+     */
+    private MonitorLatidos crearMonitorLatidos() {
+        int intervalo = Integer.getInteger(PROPIEDAD_INTERVALO_LATIDOS, INTERVALO_LATIDOS_POR_DEFECTO);
+        int limite = Integer.getInteger(PROPIEDAD_LIMITE_INACTIVIDAD, LIMITE_INACTIVIDAD_POR_DEFECTO);
+        try {
+            return new MonitorLatidos(ruedaTemporizadores, TimeUnit.SECONDS.toMillis(Math.max(0, intervalo)),
+                    TimeUnit.SECONDS.toMillis(limite));
+        } catch (IllegalArgumentException ex) {
+            logger.severe(ex.getMessage());
+            return new MonitorLatidos(ruedaTemporizadores, TimeUnit.SECONDS.toMillis(INTERVALO_LATIDOS_POR_DEFECTO),
+                    TimeUnit.SECONDS.toMillis(LIMITE_INACTIVIDAD_POR_DEFECTO));
+        }
+    }
+
+    /**
+     * Abre el diario de eventos si se ha indicado su directorio con la propiedad de sistema
+     * <code>testchallenge.diario</code>. Cada arranque del servidor crea un diario nuevo en el directorio.
+     *
+     * @return diario de eventos (desactivado si no se ha configurado o no se puede crear).
+     */
+    private DiarioEventos abrirDiario() {
+        String directorio = System.getProperty(PROPIEDAD_DIRECTORIO_DIARIO);
+        if (directorio == null) {
+            return DiarioEventos.desactivado();
+        }
+        File fichero = new File(directorio, String.format("diario-%d-%s.tcj", listeningPort,
+                new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())));
+        try {
+            Files.createDirectories(fichero.getParentFile().toPath());
+            DiarioEventos diarioEventos = DiarioEventos.abrir(fichero);
+            logger.log(Level.INFO, "''{0}'': Registrando los eventos en el diario ''{1}''.",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), fichero});
+            return diarioEventos;
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+            return DiarioEventos.desactivado();
+        }
+    }
+
+    /**
+     * Reanuda la sesión de un cliente que ha perdido la conexión: si el token y el nickname se corresponden con una
+     * sesión que no ha terminado, se arranca un nuevo hilo de servicio para la nueva conexión, que le reenvía los
+     * mensajes que no recibió (ver <code>completarReanudacion</code>). En caso contrario, se le deniega y se cierra la
+     * conexión (debe registrarse de nuevo).
+     *
+     * @param mensaje mensaje <code>REANUDAR_SESION</code> [nickname, token, número del último mensaje recibido].
+     * @param clientDataSocket socket de la nueva conexión.
+     * @param in stream de lectura de la nueva conexión.
+     * @param out stream de escritura de la nueva conexión.
+     * @throws IOException si se produce un error en el envío.
+     */
+    private void reanudarSesion(Mensaje mensaje, Socket clientDataSocket, ObjectInputStream in,
+            ObjectOutputStream out) throws IOException {
+        String[] datos = mensaje.getTextArray();
+        String nickname = datos != null && datos.length == 3 ? datos[0] : null;
+        diario.registrarEntrada(nickname, mensaje);
+
+        SesionReanudable sesion = nickname != null ? sesiones.get(datos[1]) : null;
+        TestChallengeServerThread anterior = sesion != null ? getClienteConectado(nickname) : null;
+        if (anterior != null && anterior.getSesion() == sesion && !sesion.isTerminada()) {
+            TestChallengeServerThread cst = new TestChallengeServerThread(nickname);
+            cst.setClientDataSocket(clientDataSocket);
+            cst.setClientDataIn(in);
+            cst.setClientDataOut(out);
+            cst.setTestChallengeServer(this);
+            cst.setSesion(sesion, true);
+            cst.setUltimaRecibida(getUltimaRecibida(datos[2]));
+            // Si el servidor aún no había detectado la pérdida de la conexión anterior, se cierra antes de reanudar
+            // la sesión: un envío bloqueado en esa conexión retiene el cerrojo de la sesión y, con él, al hilo que
+            // reanuda la sesión
+            anterior.getClientDataSocket().close();
+            // El reenvío de los mensajes (que puede bloquearse) lo hace el nuevo hilo: este hilo sigue aceptando
+            // conexiones
+            cst.start();
+        } else {
+            denegarReanudacion(nickname, out, clientDataSocket);
+        }
+    }
+
+    /**
+     * Completa, desde el hilo de servicio de la nueva conexión, la reanudación de una sesión: le reenvía al cliente
+     * los mensajes que no recibió y sustituye en la lista de clientes conectados el hilo de la conexión perdida. Si la
+     * sesión ya no se puede reanudar (ha terminado o ya no se guardan todos los mensajes que le faltan al cliente), se
+     * le deniega y se cierra la conexión.
+     *
+     * @param cst hilo de servicio de la nueva conexión.
+     * @param ultimaRecibida número del último mensaje recibido por el cliente.
+     * @return <code>true</code> si la sesión se ha reanudado y el hilo debe atender la conexión.
+     */
+    public boolean completarReanudacion(TestChallengeServerThread cst, long ultimaRecibida) {
+        String nickname = cst.getNickname();
+        try {
+            // A partir de aquí, los mensajes de la sesión se escriben en la nueva conexión
+            int reenviados = cst.getSesion().reanudar(cst, cst.getClientDataOut(), ultimaRecibida);
+            if (reenviados < 0) {
+                denegarReanudacion(nickname, cst.getClientDataOut(), cst.getClientDataSocket());
+                return false;
+            }
+            metricas.registrarMensajeEnviado(TipoMensaje.REANUDAR_SESION);
+            diario.registrarSalida(nickname, TipoMensaje.REANUDAR_SESION);
+            TestChallengeServerThread anterior = getClienteConectado(nickname);
+            if (anterior != null) {
+                reemplazarConexion(anterior, cst);
+            }
+            logger.log(Level.INFO, "''{0}'': Sesión de ''{1}'' reanudada ({2} mensajes reenviados).",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), nickname, reenviados});
+            return true;
+        } catch (IOException ex) {
+            // La sesión sigue suspendida: el cliente puede volver a intentar reanudarla
+            logger.log(Level.WARNING, "''{0}'': Error al reanudar la sesión de ''{1}'': {2}",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), nickname, ex.getMessage()});
+            cerrar(cst.getClientDataSocket());
+            return false;
+        }
+    }
+
+    /**
+     * Deniega la reanudación de una sesión y cierra la conexión.
+     *
+     * @param nickname nickname con el que se solicita reanudar la sesión.
+     * @param out stream de escritura de la conexión.
+     * @param clientDataSocket socket de la conexión.
+     * @throws IOException si se produce un error en el envío.
+     */
+    private void denegarReanudacion(String nickname, ObjectOutputStream out, Socket clientDataSocket)
+            throws IOException {
+        try {
+            escribir(nickname, out, new Mensaje(Boolean.FALSE, TipoMensaje.REANUDAR_SESION));
+            logger.log(Level.INFO, "''{0}'': No se puede reanudar la sesión de ''{1}''.",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), nickname});
+        } finally {
+            cerrar(clientDataSocket);
+        }
+    }
+
+    /**
+     * Obtiene el número del último mensaje recibido por el cliente que solicita reanudar su sesión.
+     *
+     * @param texto número enviado por el cliente.
+     * @return número del último mensaje recibido (-1 si no es válido).
+     */
+    private static long getUltimaRecibida(String texto) {
+        try {
+            return Long.parseLong(texto);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Método helper que envía un mensaje del protocolo de registro por el stream de un cliente que aún no se ha
+     * añadido a la lista de clientes conectados.
+     *
+     * @param nickname nickname con el que se registra el cliente.
+     * @param out stream de salida del cliente.
+     * @param mensaje mensaje a enviar.
+     * @throws IOException si se produce un error en el envío.
+     */
+    private void escribir(String nickname, ObjectOutputStream out, Mensaje mensaje) throws IOException {
+        out.writeObject(mensaje);
+        out.flush();
+        metricas.registrarMensajeEnviado(mensaje.getTipo());
+        diario.registrarSalida(nickname, mensaje.getTipo());
+    }
+
+    /**
+     * Obtiene el registro del test en ejecución con el que se recupera si el proceso del servidor termina.
+     *
+     * @return registro de recuperación del test.
+     */
+    public RegistroRecuperacion getRegistroRecuperacion() {
+        return registroRecuperacion;
+    }
+
+    /**
+     * Obtiene el diario de los mensajes intercambiados con los clientes.
+     *
+     * @return diario de eventos (desactivado si no se ha configurado).
+     */
+    public DiarioEventos getDiario() {
+        return diario;
+    }
+
+    /**
+     * Obtiene la sala con los espectadores de los tests.
+     *
+     * @return sala de espectadores.
+     */
+    public SalaEspectadores getSalaEspectadores() {
+        return salaEspectadores;
+    }
+
+    /**
+     * Obtiene las métricas del servidor.
+     *
+     * @return métricas del servidor.
+     */
+    public MetricasServidor getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Obtiene los envíos en curso o en espera de cada cliente conectado.
+     *
+     * @return número de envíos pendientes por nickname.
+     */
+    public Map<String, Integer> getEnviosPendientes() {
+        Map<String, Integer> enviosPendientes = new LinkedHashMap<>();
+        for (TestChallengeServerThread cst : clientesConectados) {
+            enviosPendientes.put(cst.getNickname(), cst.getEnviosPendientes());
+        }
+        return enviosPendientes;
+    }
+
     /**
      * Obtiene una referencia al servidor de test que se ha iniciado.
      *
@@ -457,6 +995,9 @@ public class TestChallengeServer extends Thread {
         try {
             // Deregistramos el usuario
             clientesConectados.remove(cst);
+            // y terminamos su sesión (ya no se puede reanudar)
+            sesiones.remove(cst.getSesion().getToken());
+            cst.getSesion().terminar();
 
             // ***********
             // NOTA: no le quitamos los puntos porque tendríamos que actualizar el ranking de todos los usuarios conectados
@@ -465,8 +1006,8 @@ public class TestChallengeServer extends Thread {
             // ***********
             // Finalmente, cerramos la conexión.
             cst.getClientDataSocket().close();
-            logger.info(String.format("'%s': El usuario '%s' se ha desconectado.",
-                    TestChallengeServer.class.getSimpleName(), cst.getNickname()));
+            logger.log(Level.INFO, "''{0}'': El usuario ''{1}'' se ha desconectado.",
+                    new Object[]{TestChallengeServer.class.getSimpleName(), cst.getNickname()});
 
             // Si no quedan más usuarios conectados y hay un test en ejecución, detenerlo.
             if (clientesConectados.isEmpty() && (isTestInProgress() || isTestPaused())) {
@@ -487,6 +1028,99 @@ public class TestChallengeServer extends Thread {
         clientesConectados.add(cst);
     }
 
+    /**
+     * Sustituye en la lista de clientes conectados el hilo de servicio de una sesión por el de la conexión con la
+     * que se ha reanudado.
+     *
+     * @param anterior hilo de servicio de la conexión perdida.
+     * @param nuevo hilo de servicio de la nueva conexión.
+     * @return <code>true</code> si el usuario seguía en la lista de clientes conectados.
+     */
+    public synchronized boolean reemplazarConexion(TestChallengeServerThread anterior,
+            TestChallengeServerThread nuevo) {
+        int posicion = clientesConectados.indexOf(anterior);
+        if (posicion == -1) {
+            return false;
+        }
+        clientesConectados.set(posicion, nuevo);
+        return true;
+    }
+
+    /**
+     * Indica si se atiende la conexión del usuario especificado (está conectado y no se espera a que reanude su
+     * sesión).
+     *
+     * @param nickname nickname del usuario.
+     * @return <code>true</code> si la conexión del usuario está activa.
+     */
+    public boolean isConexionActiva(String nickname) {
+        TestChallengeServerThread cst = getClienteConectado(nickname);
+        return cst != null && !cst.isCerrada();
+    }
+
+    /**
+     * Registra que ha dejado de atenderse la conexión de un usuario para que el test en ejecución no espere su
+     * respuesta.
+     *
+     * @param nickname nickname del usuario.
+     */
+    public void registrarConexionInactiva(String nickname) {
+        TestServer servidorTest = testServer;
+        if (servidorTest != null && (isTestInProgress() || isTestPaused())) {
+            servidorTest.registrarConexionInactiva(nickname);
+        }
+    }
+
+    /**
+     * Obtiene el monitor que vigila la actividad de las conexiones con los clientes.
+     *
+     * @return monitor de latidos.
+     */
+    public MonitorLatidos getMonitorLatidos() {
+        return monitorLatidos;
+    }
+
+    /**
+     * Obtiene el tiempo durante el que se puede reanudar una sesión tras perder la conexión.
+     *
+     * @return tiempo de gracia en milisegundos (0 si la reanudación está desactivada).
+     */
+    public long getGraciaReanudacionMs() {
+        return graciaReanudacionMs;
+    }
+
+    /**
+     * Detiene el servidor sin terminar el proceso: deja de aceptar conexiones, cierra las de los clientes conectados y
+     * detiene los hilos auxiliares. Permite arrancar y detener varios servidores en el mismo proceso (p. ej., en los
+     * bancos de pruebas).
+     */
+    public void detener() {
+        detenido = true;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }
+        for (TestChallengeServerThread cst : clientesConectados) {
+            // La sesión termina para que el hilo de servicio no espere a que el cliente la reanude
+            cst.getSesion().terminar();
+            try {
+                cst.getClientDataSocket().close();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }
+        salaEspectadores.cerrar();
+        monitorLatidos.detener();
+        ruedaTemporizadores.detener();
+        agregadorEstadisticas.detenerVolcadoPeriodico();
+        diario.cerrar();
+        logger.info(String.format("'%s': Servidor detenido.", TestChallengeServer.class.getSimpleName()));
+    }
+
     /**
      * Hook para capturar la finalización del proceso mediante CTRL+C
      */
@@ -494,19 +1128,20 @@ public class TestChallengeServer extends Thread {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info(String.format("'%s': Finalizando el proceso servidor. Enviando notificaciones a los clientes conectados ...",
                     TestChallengeServer.class.getSimpleName()));
+            // Cerrar antes que nada el registro del test en ejecución para poder recuperarlo en el siguiente arranque
+            // (la desconexión de los clientes detendría el test)
+            registroRecuperacion.cerrar();
 
             // Enviar un mensaje de notificación a los clientes conectados cuando el proceso servidor se finaliza
             if (!clientesConectados.isEmpty()) {
                 for (TestChallengeServerThread cst : clientesConectados) {
                     logger.info(String.format("'%s': Enviando notificación a '%s'.",
                             TestChallengeServer.class.getSimpleName(), cst.getNickname()));
-                    ObjectOutputStream out = cst.getClientDataOut();
                     Mensaje mensaje = new Mensaje(
                             String.format("'%s': El proceso servidor ha finalizado.",
                                     TestChallengeServer.class.getSimpleName()));
                     try {
-                        out.writeObject(mensaje);
-                        out.flush();
+                        cst.enviar(mensaje);
                     } catch (IOException ex) {
                         logger.severe(ex.getMessage());
                     }
@@ -515,6 +1150,19 @@ public class TestChallengeServer extends Thread {
                 logger.info(String.format("'%s': No hay clientes conectados.",
                         TestChallengeServer.class.getSimpleName()));
             }
+            // Detener los latidos y la rueda de temporizadores
+            monitorLatidos.detener();
+            ruedaTemporizadores.detener();
+            // Escribir los eventos pendientes del diario
+            diario.cerrar();
+
+            // Volcar las estadísticas pendientes antes de terminar
+            try {
+                agregadorEstadisticas.volcar();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+
             // Registrar el mensaje en la consola del servidor
             logger.info(String.format("'%s': El proceso servidor ha finalizado.",
                     TestChallengeServer.class.getSimpleName()));
@@ -20,8 +20,14 @@ package com.testchallenge.server;
 import com.testchallenge.model.Configuracion;
 import com.testchallenge.model.Mensaje;
 import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
 import com.testchallenge.model.Respuesta;
 import com.testchallenge.model.TipoMensaje;
+import com.testchallenge.server.jfr.EventoPreguntaGuardada;
+import com.testchallenge.server.jfr.EventoRespuestaCorregida;
+import com.testchallenge.server.latencia.EstimadorLatencia;
+import com.testchallenge.server.sesion.ConexionVigilada;
+import com.testchallenge.server.sesion.SesionReanudable;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FilenameFilter;
@@ -35,6 +41,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -47,9 +55,12 @@ import org.apache.commons.io.FileUtils;
  * Se encarga de recepcionar los mensajes enviados por el cliente al que da servicio, reenviarlos a los demás usuarios
  * conectados al chat o ejecutar una acción en el lado del servidor.
  *
+ * La actividad de la conexión la vigila el <code>MonitorLatidos</code> del servidor, que cierra la conexión si el
+ * cliente deja de responder a los latidos.
+ *
  * @author jprada
  */
-public final class TestChallengeServerThread extends Thread {
+public final class TestChallengeServerThread extends Thread implements ConexionVigilada {
 
     // Referencia al hilo padre que ejecuta el servidor de chat
     private TestChallengeServer testChallengeServer;
@@ -64,6 +75,20 @@ public final class TestChallengeServerThread extends Thread {
     // Patrón para encontrar referencias a nicknames en un mensaje
     //private final Pattern pattern = Pattern.compile("@[a-zA-Z0-9._-]+", Pattern.CASE_INSENSITIVE); 
     private final Pattern pattern = Pattern.compile("@[^@\\s,.;\"'?!#]+", Pattern.CASE_INSENSITIVE); 
+    // Estimador del RTT y del desfase del reloj del cliente (a partir de los intercambios PING/PONG)
+    private final EstimadorLatencia estimadorLatencia = new EstimadorLatencia();
+    // Envíos al cliente en curso o a la espera del stream de escritura
+    private final AtomicInteger enviosPendientes = new AtomicInteger();
+    // Sesión del usuario (numera y guarda los mensajes enviados para reenviarlos si se pierde la conexión)
+    private SesionReanudable sesion;
+    // Indica si el hilo atiende una sesión reanudada (el resto de usuarios no sabe que se perdió la conexión)
+    private boolean reanudada;
+    // Número del último mensaje que recibió el cliente de una sesión reanudada (el hilo le reenvía los posteriores)
+    private long ultimaRecibida;
+    // Instante (System.nanoTime()) en el que se recibió el último mensaje del cliente
+    private volatile long instanteUltimaRecepcion = System.nanoTime();
+    // Indica si el hilo ha dejado de leer los mensajes del cliente (conexión perdida o sesión cerrada)
+    private volatile boolean cerrada;
     
     // Logger de la clase
     private final static Logger logger = Logger.getLogger(TestChallengeServerThread.class.getName());
@@ -152,6 +177,36 @@ public final class TestChallengeServerThread extends Thread {
         this.testChallengeServer = testChallengeServer;
     }
 
+    /**
+     * Establece la sesión del usuario al que da servicio el thread.
+     *
+     * @param sesion sesión del usuario.
+     * @param reanudada <code>true</code> si el hilo atiende la nueva conexión de una sesión reanudada.
+     */
+    public void setSesion(SesionReanudable sesion, boolean reanudada) {
+        this.sesion = sesion;
+        this.reanudada = reanudada;
+    }
+
+    /**
+     * Establece el número del último mensaje que recibió el cliente de una sesión reanudada: al arrancar, el hilo le
+     * reenvía los mensajes posteriores antes de atender la conexión.
+     *
+     * @param ultimaRecibida número del último mensaje recibido por el cliente.
+     */
+    public void setUltimaRecibida(long ultimaRecibida) {
+        this.ultimaRecibida = ultimaRecibida;
+    }
+
+    /**
+     * Obtiene la sesión del usuario al que da servicio el thread.
+     *
+     * @return sesión del usuario.
+     */
+    public SesionReanudable getSesion() {
+        return sesion;
+    }
+
     /**
      * Obtiene la referencia al servidor de chat desde el que se ha creado este hilo de servicio.
      *
@@ -161,6 +216,97 @@ public final class TestChallengeServerThread extends Thread {
         return testChallengeServer;
     }
     
+    /**
+     * Obtiene el estimador del RTT y del desfase del reloj del cliente al que da servicio el thread.
+     *
+     * @return estimador del RTT y del desfase del reloj del cliente.
+     */
+    public EstimadorLatencia getEstimadorLatencia() {
+        return estimadorLatencia;
+    }
+
+    /**
+     * Envía al cliente un mensaje PING con el instante de envío para medir el RTT y el desfase de su reloj.
+     *
+     * @throws IOException excepción generada al enviar el mensaje por el canal de escritura
+     */
+    public void enviarPing() throws IOException {
+        enviar(new Mensaje(new long[]{EstimadorLatencia.ahora()}, TipoMensaje.PING));
+    }
+
+    /**
+     * Envía un mensaje al cliente.
+     *
+     * Al stream de escritura del cliente escriben varios hilos (el propio hilo de servicio, los de los demás clientes al
+     * reenviar el chat y el del test en ejecución), por lo que todas las escrituras se serializan sobre el stream: si
+     * dos mensajes se intercalan, el stream queda corrupto y el cliente pierde la conexión. Las escrituras se hacen a
+     * través de la sesión, que numera los mensajes y los guarda para reenviarlos si se pierde la conexión.
+     *
+     * @param mensaje mensaje a enviar.
+     * @throws IOException excepción generada al enviar el mensaje por el canal de escritura
+     */
+    public void enviar(Mensaje mensaje) throws IOException {
+        enviosPendientes.incrementAndGet();
+        try {
+            sesion.enviar(mensaje);
+        } finally {
+            enviosPendientes.decrementAndGet();
+        }
+        testChallengeServer.getMetricas().registrarMensajeEnviado(mensaje.getTipo());
+        testChallengeServer.getDiario().registrarSalida(nickname, mensaje.getTipo());
+    }
+
+    /**
+     * Envía un latido (PING) al cliente, salvo que haya un envío en curso: si el cliente no lee, el latido bloquearía
+     * al hilo que lo envía y no aportaría nada.
+     *
+     * @throws IOException excepción generada al enviar el mensaje por el canal de escritura
+     */
+    @Override
+    public void enviarLatido() throws IOException {
+        if (enviosPendientes.get() == 0) {
+            enviarPing();
+        }
+    }
+
+    /**
+     * Cierra la conexión con el cliente por inactividad (el hilo de servicio lo trata como una conexión perdida).
+     */
+    @Override
+    public void cerrarPorInactividad() {
+        try {
+            clientDataSocket.close();
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+        }
+    }
+
+    @Override
+    public long getInstanteUltimaRecepcion() {
+        return instanteUltimaRecepcion;
+    }
+
+    /**
+     * Indica si el hilo ha dejado de leer los mensajes del cliente. Mientras se espera a que el cliente reanude su
+     * sesión, el usuario sigue en la lista de conectados, pero no se esperan sus respuestas.
+     *
+     * @return <code>true</code> si la conexión ha dejado de atenderse.
+     */
+    @Override
+    public boolean isCerrada() {
+        return cerrada;
+    }
+
+    /**
+     * Obtiene el número de envíos al cliente en curso o a la espera del stream de escritura (si crece, el cliente no
+     * está leyendo al ritmo al que se le envían los mensajes).
+     *
+     * @return número de envíos pendientes.
+     */
+    public int getEnviosPendientes() {
+        return enviosPendientes.get();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o instanceof TestChallengeServerThread) {
@@ -171,9 +317,22 @@ public final class TestChallengeServerThread extends Thread {
     
     @Override
     public void run() {
+        // En una sesión reanudada, se reenvían primero los mensajes que no recibió el cliente (si ya no se puede
+        // reanudar, el servidor se la deniega y el hilo termina sin atender la conexión)
+        if (reanudada && !testChallengeServer.completarReanudacion(this, ultimaRecibida)) {
+            return;
+        }
+        // Indica si la conexión se ha perdido sin que el cliente haya cerrado la sesión
+        boolean conexionPerdida = true;
         try {
+            instanteUltimaRecepcion = System.nanoTime();
+            testChallengeServer.getMonitorLatidos().vigilar(this);
             // Informar a los usuarios del chat que el usuario con el nickname especificado se acaba de conectar
-            enviarMensajeAlResto(String.format("------> El usuario @%s se ha conectado.", nickname));
+            if (!reanudada) {
+                enviarMensajeAlResto(String.format("------> El usuario @%s se ha conectado.", nickname));
+            }
+            // Primera medida del RTT y del desfase del reloj del cliente
+            enviarPing();
             
             Mensaje mensaje;
             
@@ -181,9 +340,14 @@ public final class TestChallengeServerThread extends Thread {
                 // Tratar el mensaje enviado por el cliente
                 // ***********************************************
                 mensaje = (Mensaje) clientDataIn.readObject();
+                // Instante de recepción (antes de cualquier espera por exclusión) para medir tiempos de respuesta
+                long instanteRecepcion = EstimadorLatencia.ahora();
+                instanteUltimaRecepcion = System.nanoTime();
                 
                 if (mensaje != null) {
                     TipoMensaje tipoMensaje = mensaje.getTipo();
+                    testChallengeServer.getMetricas().registrarMensajeRecibido(tipoMensaje);
+                    testChallengeServer.getDiario().registrarEntrada(nickname, mensaje);
                     // Analizar si el mensaje contiene la expresión regular @<nickname> de uno o más usuarios. Si el nickname
                     // se corresponde con alguno de los usuarios conectados, se lo envía sólo a ese usuario.
                     if (!tipoMensaje.equals(TipoMensaje.BYE)) {
@@ -201,7 +365,13 @@ public final class TestChallengeServerThread extends Thread {
                                 // Se recibe la respuesta enviada por el usuario
                                 Respuesta respuesta = mensaje.getRespuesta();
                                 // y se almacena en la lista de respuestas enviadas
-                                testChallengeServer.getTestServer().recibirRespuesta(nickname, respuesta);
+                                long inicioCorreccion = System.nanoTime();
+                                EventoRespuestaCorregida eventoRespuesta = new EventoRespuestaCorregida();
+                                eventoRespuesta.begin();
+                                Puntuacion puntuacion = testChallengeServer.getTestServer()
+                                        .recibirRespuesta(nickname, respuesta, instanteRecepcion);
+                                testChallengeServer.getMetricas().registrarCorreccion(System.nanoTime() - inicioCorreccion);
+                                eventoRespuesta.finalizar(nickname, respuesta.getNumeroPregunta(), puntuacion);
                                 break;
                             case PREGUNTA_ENVIAR:
                                 // Se recibe la petición de crear un fichero con la pregunta en el lado del servidor
@@ -217,6 +387,16 @@ public final class TestChallengeServerThread extends Thread {
                                                 "El usuario @%s ha solicitado ampliar el tiempo de respuesta en %s segundos.",
                                                 nickname, numeroSegundos));
                                 break;
+                            case RANKING_SOLICITAR:
+                                // El cliente solicita los primeros del ranking y los usuarios más próximos a él
+                                enviar(new Mensaje(
+                                        testChallengeServer.getRankingParcial(nickname), TipoMensaje.RANKING_ACTUAL));
+                                break;
+                            case PONG:
+                                // Respuesta a un PING: [envío PING (servidor), recepción PING y envío PONG (cliente)]
+                                long[] marcas = mensaje.getMarcasTiempo();
+                                estimadorLatencia.registrarMuestra(marcas[0], marcas[1], marcas[2], instanteRecepcion);
+                                break;
                             case DETENER_TEST:
                                 testChallengeServer.getTestServer().stopTest(nickname);
                                 enviarMensaje(
@@ -245,6 +425,7 @@ public final class TestChallengeServerThread extends Thread {
                     }
                 }
             } while (!(mensaje == null || mensaje.getTipo().equals(TipoMensaje.BYE)));
+            conexionPerdida = mensaje == null;
             
         } catch (IOException | ClassNotFoundException ex) {
             if (!(ex instanceof EOFException)) {
@@ -253,16 +434,51 @@ public final class TestChallengeServerThread extends Thread {
                 logger.severe(ex.getMessage());
             }
         } finally {
-            try {
-                // Informar al resto de usuarios de la desconexión
-                enviarMensajeAlResto(
-                        String.format("------> El usuario @%s se ha desconectado.", nickname));
-            } catch (IOException ex) {
-                logger.severe(ex.getMessage());
+            // Ya no se esperan las respuestas del usuario (si reanuda la sesión, se esperan las de la nueva conexión)
+            cerrada = true;
+            testChallengeServer.registrarConexionInactiva(nickname);
+
+            // Si se ha perdido la conexión, la sesión continúa en otro hilo si el cliente la reanuda a tiempo
+            if (!(conexionPerdida && esperarReanudacion())) {
+                try {
+                    // Informar al resto de usuarios de la desconexión
+                    enviarMensajeAlResto(
+                            String.format("------> El usuario @%s se ha desconectado.", nickname));
+                } catch (IOException ex) {
+                    logger.severe(ex.getMessage());
+                }
+
+                // Registrar la desconexión del usuario en el servidor
+                this.testChallengeServer.registrarDesconexion(this);
+                this.testChallengeServer.getDiario().registrarDesconexion(nickname);
             }
+        }
+    }
 
-            // Registrar la desconexión del usuario en el servidor
-            this.testChallengeServer.registrarDesconexion(this);
+    /**
+     * Espera, tras perder la conexión con el cliente, a que reanude su sesión desde una nueva conexión.
+     *
+     * Mientras tanto, el usuario sigue en la lista de usuarios conectados y los mensajes que se le envían se guardan
+     * en la sesión para reenviárselos.
+     *
+     * @return <code>true</code> si la sesión continúa en otra conexión y <code>false</code> si ha terminado.
+     */
+    private boolean esperarReanudacion() {
+        try {
+            clientDataSocket.close();
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+        }
+        long graciaMs = testChallengeServer.getGraciaReanudacionMs();
+        if (graciaMs > 0 && sesion.isConexionActual(this)) {
+            logger.log(Level.INFO, "''{0}'': Conexión con ''{1}'' perdida. Esperando {2} ms a que reanude la sesión.",
+                    new Object[]{TestChallengeServerThread.class.getSimpleName(), nickname, graciaMs});
+        }
+        try {
+            return sesion.esperarReanudacion(this, graciaMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
@@ -301,7 +517,7 @@ public final class TestChallengeServerThread extends Thread {
      * @throws IOException excepción generada al enviar el mensaje por el canal de escritura
      */
     private void reenviarMensaje(String mensaje) throws IOException {
-        logger.info(String.format("Reenvío del mensaje '%s'.\n", mensaje));
+        logger.log(Level.FINE, "Reenvío del mensaje ''{0}''.\n", mensaje);
         Set<String> nicknames = getNicknames(mensaje);
         String chatMessage = String.format("@%s:%s", nickname, mensaje);
         if (!nicknames.isEmpty()) {
@@ -319,15 +535,17 @@ public final class TestChallengeServerThread extends Thread {
      * @throws IOException excepción generada al enviar el mensaje por el canal de escritura
      */
     private void reenviarMensajeAlResto(String mensaje) throws IOException {
-        logger.info(String.format("El mensaje '%s' se reenvía al resto de usuarios.\n",mensaje));
+        logger.log(Level.FINE, "El mensaje ''{0}'' se reenvía al resto de usuarios.\n", mensaje);
         // y se lo reenvía a todos los clientes conectados (menos a él mismo) al servidor de chat
         List<TestChallengeServerThread> clientesConectados = testChallengeServer.getClientesConectados();
         
+        long inicioDifusion = System.nanoTime();
         for (TestChallengeServerThread cst : clientesConectados) {
             if (!cst.getNickname().equals(nickname)) {
                 enviarMensaje(cst, mensaje);
             }
         }
+        testChallengeServer.getMetricas().registrarDifusion(TipoMensaje.TEXTO, System.nanoTime() - inicioDifusion);
     }
 
     /**
@@ -360,8 +578,7 @@ public final class TestChallengeServerThread extends Thread {
      * @throws IOException excepción generada al enviar el mensaje por el canal de escritura
      */
     private void enviarMensaje(TestChallengeServerThread cst, String mensaje) throws IOException {
-        cst.getClientDataOut().writeObject(new Mensaje(mensaje));
-        cst.getClientDataOut().flush();
+        cst.enviar(new Mensaje(mensaje));
     }
 
     /**
@@ -400,6 +617,8 @@ public final class TestChallengeServerThread extends Thread {
      */
     private synchronized void crearPregunta(Pregunta pregunta) throws IOException {
         
+        EventoPreguntaGuardada evento = new EventoPreguntaGuardada();
+        evento.begin();
         String rutaBase = testChallengeServer.getDirectorioRaizPreguntas();
         String rutaCompleta = rutaBase;
         
@@ -439,6 +658,7 @@ public final class TestChallengeServerThread extends Thread {
             
             FileUtils.writeByteArrayToFile(ficheroMultimediaFile, ficheroMultimediaData);
         }
+        evento.finalizar(nickname, pregunta);
 
         // Enviar un mensaje a todos los usuarios (incluído el que sube la pregunta)
         enviarMensaje(String.format("------> El usuario @%s ha subido una nueva pregunta de tipo '%s'.\n",
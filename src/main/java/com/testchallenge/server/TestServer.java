@@ -25,6 +25,17 @@ import com.testchallenge.model.Ranking;
 import com.testchallenge.model.Respuesta;
 import com.testchallenge.model.TipoMensaje;
 import com.testchallenge.model.TipoPregunta;
+import com.testchallenge.server.espectadores.SalaEspectadores;
+import com.testchallenge.server.historico.RegistroTest;
+import com.testchallenge.server.jfr.EventoCargaBanco;
+import com.testchallenge.server.jfr.EventoPreguntaEnviada;
+import com.testchallenge.server.jfr.EventoTest;
+import com.testchallenge.server.latencia.EstimadorLatencia;
+import com.testchallenge.server.ranking.Clasificacion;
+import com.testchallenge.server.recuperacion.EstadoTest;
+import com.testchallenge.server.recuperacion.RegistroRecuperacion;
+import com.testchallenge.server.seleccion.RegistroPreguntasVistas;
+import com.testchallenge.server.temporizador.CuentaAtras;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -40,6 +51,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
@@ -83,18 +95,18 @@ public class TestServer extends Thread {
     private final int numeroPreguntas;
     // Generador de números aleatorios
     private static final Random random = new Random();
-    // Intervalo de cuenta atrás (cada 1 segundo)
-    private static final int SLEEP_TIME = 1000;
     // Segundos para la cuenta atrás del test (por defecto, arranca 10 segundos después de la haber hecho la solicitud)
     private static final int DEFAULT_START_TIME = 10;
-    // Número de segundos que dispone el usuario para enviar la respuesta
-    private int segundos = DEFAULT_START_TIME;
+    // Segundos que se esperan a que los usuarios se reconecten antes de continuar un test recuperado
+    private static final int TIEMPO_RECONEXION = 30;
+    // Cada cuántos segundos se registra el tiempo restante de la pregunta en curso para poder recuperar el test
+    private static final int INTERVALO_REGISTRO_TIEMPO = 5;
     // Subdirectorio en el que se encuentran las imagenes de las preguntas  
     private static final String SUBDIRECTORIO_MULTIMEDIA = "Multimedia";
-    // Flag para indicar que se desea interrumpir la cuenta atrás
-    private boolean interrumpirCuentaAtras = false;
-    // Ampliación de tiempo de respuesta (en segundos)
-    private int segundosAmpliacionTiempoRespuesta = 0;
+    // Cuenta atrás en curso (inicio del test o tiempo de respuesta de la pregunta enviada)
+    private CuentaAtras cuentaAtras;
+    // Flag que indica si la cuenta atrás en curso es la del tiempo de respuesta de una pregunta (se puede adelantar)
+    private boolean cuentaAtrasDePregunta;
     // Flag para indicar que la pregunta ha sido respondida correctamente (y es la primera vez)
     private boolean preguntaContestadaCorrectamente = false;
     // Flag que indica si el test ha sido pausado o no para controlar la cuenta atrás
@@ -105,6 +117,32 @@ public class TestServer extends Thread {
     private Date startDate;
     // Fecha y hora en la que finaliza el test
     private Date endDate;
+    // Identificadores de las preguntas enviadas (para el histórico)
+    private final List<Integer> idsPreguntasEnviadas;
+    // Puntuaciones parciales de cada una de las preguntas enviadas (para el histórico)
+    private final List<Map<String, Puntuacion>> puntuacionesPorPregunta;
+    // Instante (EstimadorLatencia.ahora) en el que se empezó a enviar la pregunta en curso
+    private long instanteEnvioPregunta;
+    // Instante (System.nanoTime) en el que se empezó a enviar la pregunta en curso (para medir su difusión)
+    private volatile long instanteEnvioPreguntaNanos;
+    // Instante en el que se envió la pregunta en curso a cada cliente (el orden del envío varía entre clientes)
+    private Map<String, Long> instantesEnvioPregunta;
+    // Tiempo de respuesta compensado por la latencia (en milisegundos) de cada usuario en la pregunta en curso
+    private Map<String, Long> tiemposRespuesta;
+    // Usuario que, de momento, ha contestado correctamente el primero a la pregunta en curso
+    private String nicknamePrimero;
+    // Tiempo de respuesta compensado del usuario que, de momento, ha contestado correctamente el primero
+    private long tiempoPrimero;
+    // Número de orden de la pregunta en curso (para la consulta del estado del test desde otros hilos)
+    private volatile int numeroPreguntaEnCurso;
+    // Número de preguntas seleccionadas para el test (para la consulta del estado del test desde otros hilos)
+    private volatile int numeroPreguntasTest;
+    // Preguntas del banco cargadas en memoria para el test
+    private volatile int preguntasBanco;
+    // Bytes de los ficheros multimedia del banco cargados en memoria para el test
+    private volatile long bytesMultimediaBanco;
+    // Estado del test recuperado tras un reinicio del servidor (null si es un test nuevo)
+    private EstadoTest estadoRecuperado;
 
     // Logger de la clase
     private final static Logger logger = Logger.getLogger(TestServer.class.getName());
@@ -127,25 +165,60 @@ public class TestServer extends Thread {
         preguntas = new ArrayList<>();
         preguntasSeleccionadas = new ArrayList<>();
         resultados = new HashMap<>();
+        idsPreguntasEnviadas = new ArrayList<>();
+        puntuacionesPorPregunta = new ArrayList<>();
+        instantesEnvioPregunta = new HashMap<>();
+        tiemposRespuesta = new HashMap<>();
         isPaused = Boolean.FALSE;
         isTerminatedByServer = Boolean.FALSE;
     }
 
+    /**
+     * Construye un objeto de tipo <code>TestServer</code> que continúa un test que estaba en ejecución cuando terminó
+     * el proceso del servidor (ver <code>RegistroRecuperacion</code>).
+     *
+     * @param estado estado del test recuperado.
+     */
+    public TestServer(EstadoTest estado) {
+        this(estado.getNickname(), estado.getConfiguracion());
+        estadoRecuperado = estado;
+    }
+
     @Override
     public void run() {
         logger.info(String.format("'%s': Iniciando el TestServer ...", TestServer.class.getSimpleName()));
+        EventoTest eventoTest = new EventoTest();
+        eventoTest.begin();
 
         try {
-            // Notificar a todos los clientes que se ha solicitado la ejecución de un test
-            enviarMensaje(new Mensaje(getMensajeInicioTest()));
+            // Notificar a todos los clientes (y a los espectadores) que se ha solicitado la ejecución de un test
+            Mensaje mensajeInicio = new Mensaje(getMensajeInicioTest());
+            enviarMensaje(mensajeInicio);
+            testChallengeServer.getSalaEspectadores().publicarEstado(
+                    new Mensaje(Boolean.TRUE, TipoMensaje.TEST_EN_EJECUCION));
+            testChallengeServer.getSalaEspectadores().publicar(mensajeInicio);
             // Notificar a todos los clientes que se está preparando el test
             enviarMensaje(new Mensaje("[•] Preparando el test ... "));
             // Cargar en memoria el banco de preguntas
             cargarPreguntas();
-            // Seleccionar el subconjunto de preguntas a partir de los parámetros de configuración establecidos
-            seleccionarPreguntasTest();
+            if (estadoRecuperado == null) {
+                // Seleccionar el subconjunto de preguntas a partir de los parámetros de configuración establecidos
+                seleccionarPreguntasTest();
+            } else {
+                // Recuperar las preguntas y las puntuaciones del test que estaba en ejecución
+                restaurarTest();
+            }
+            numeroPreguntasTest = preguntasSeleccionadas.size();
+
+            if (!preguntasSeleccionadas.isEmpty() && estadoRecuperado != null) {
+                // Continuar el test recuperado cuando se hayan reconectado los usuarios
+                reanudarTest();
+            } else if (!preguntasSeleccionadas.isEmpty()) {
+                // Registrar el test para poder recuperarlo si el proceso del servidor termina durante su ejecución
+                testChallengeServer.getRegistroRecuperacion().iniciarTest(nickname,
+                        new Configuracion(tematica, nivel, tipoPreguntas, numeroPreguntas, tiempoLimite),
+                        startDate.getTime(), idsPreguntasSeleccionadas());
 
-            if (!preguntasSeleccionadas.isEmpty()) {
                 // Notificar a los usuarios que la preparación del test ha finalizado 
                 enviarMensaje(new Mensaje(
                         String.format(
@@ -153,11 +226,16 @@ public class TestServer extends Thread {
                                 preguntasSeleccionadas.size(), DEFAULT_START_TIME)));
 
                 // Iniciar la cuenta atrás para el comienzo del test
-                startCountDown(DEFAULT_START_TIME, SLEEP_TIME);
+                startCountDown(DEFAULT_START_TIME);
                 // Notificar a todos los clientes que la cuenta atrás ha finalizado y comienza la ejecución del test
                 enviarMensaje(new Mensaje("[•] El test comienza ¡YA!. ¡Buena suerte!\n"));
                 // Ejecutar el test: enviar las preguntas a todos los clientes conectados
-                enviarPreguntas();
+                enviarPreguntas(1, tiempoLimite, false);
+            }
+
+            if (!preguntasSeleccionadas.isEmpty()) {
+                // Registrar las preguntas que ha visto cada participante para no repetirlas en próximos tests
+                registrarPreguntasVistas();
                 // Registrar la fecha y hora en la que el test ha finalizado porque se han enviado todas las preguntas
                 endDate = new Date();
                 enviarMensaje(new Mensaje(String.format("\n[•] El test ha finalizado a las %s.",
@@ -165,25 +243,146 @@ public class TestServer extends Thread {
                 
                 // actualizar el ranking con los resultados finales.
                 if (!isTerminatedByServer) {
-                    logger.info(String.format("Resultados del test [%s]:", resultados));
+                    if (logger.isLoggable(Level.INFO)) {
+                        logger.log(Level.INFO, "Resultados del test [{0}]:", resultados.toString());
+                    }
                     Ranking rankingActualizado = actualizarRanking();
                     enviarMensaje(new Mensaje(String.format("\n[•] Resultados del test: %s", resultados)));
                     enviarMensaje(new Mensaje(rankingActualizado, TipoMensaje.TEST_PARAR));
+                    testChallengeServer.getSalaEspectadores().publicar(
+                            new Mensaje(rankingActualizado, TipoMensaje.TEST_PARAR));
+                    // Registrar el test en el histórico
+                    archivarTest();
                 }
             } else {
                 logger.info("No se han encontrado preguntas para los criterios especificados.");
                 // No se han encontrado preguntas para los criterios seleccionados. El test no se ejecuta y no hay ranking que enviar
                 enviarMensaje(new Mensaje(null, TipoMensaje.TEST_PARAR));
+                testChallengeServer.getSalaEspectadores().publicar(new Mensaje(null, TipoMensaje.TEST_PARAR));
             }
 
         } catch (InterruptedException | IOException ex) {
             logger.severe(ex.getMessage());
         } finally {
             logger.info(String.format("'%s': servidor finalizado.", TestServer.class.getSimpleName()));
+            eventoTest.finalizar(nickname, tematica, preguntasSeleccionadas.size(), idsPreguntasEnviadas.size(),
+                    testChallengeServer.getClientesConectados().size());
+            publicarFinTestEspectadores();
+            // El test ha terminado: ya no hay nada que recuperar
+            testChallengeServer.getRegistroRecuperacion().finalizarTest();
             testChallengeServer.stopTest();
         }
     }
 
+    /**
+     * Método helper que recupera las preguntas seleccionadas y las puntuaciones del test que estaba en ejecución
+     * cuando terminó el proceso del servidor.
+     *
+     * Si alguna de las preguntas ya no está en el banco de preguntas, el test no se puede recuperar y no se selecciona
+     * ninguna pregunta.
+     */
+    private void restaurarTest() {
+        for (Integer id : estadoRecuperado.getIdsPreguntas()) {
+            Pregunta pregunta = preguntas.stream().filter(p -> p.getId() == id).findFirst().orElse(null);
+            if (pregunta == null) {
+                logger.log(Level.WARNING, "La pregunta ''{0}'' del test recuperado no está en el banco de preguntas.",
+                        id);
+                preguntasSeleccionadas.clear();
+                return;
+            }
+            pregunta.setPuntuacion(Puntuacion.NO_CONTESTADA);
+            preguntasSeleccionadas.add(pregunta);
+        }
+
+        startDate = new Date(estadoRecuperado.getInicio());
+        resultados.putAll(estadoRecuperado.getResultados());
+        List<Map<String, Puntuacion>> puntuacionesRecuperadas = estadoRecuperado.getPuntuacionesPorPregunta();
+        for (int i = 0; i < puntuacionesRecuperadas.size(); i++) {
+            idsPreguntasEnviadas.add(preguntasSeleccionadas.get(i).getId());
+            puntuacionesPorPregunta.add(new HashMap<>(puntuacionesRecuperadas.get(i)));
+        }
+
+        if (estadoRecuperado.isPreguntaEnCurso()) {
+            // La pregunta en curso queda disponible para los usuarios que se reconecten, con el mismo orden de
+            // opciones con el que se envió y con las respuestas que ya se habían recibido
+            int numero = estadoRecuperado.getNumeroPregunta();
+            Pregunta pregunta = preguntasSeleccionadas.get(numero - 1);
+            List<String> opciones = estadoRecuperado.getOpciones(numero);
+            if (!opciones.equals(pregunta.getOpciones()) && opciones.size() == pregunta.getOpciones().size()
+                    && opciones.containsAll(pregunta.getOpciones())) {
+                ordenarOpciones(pregunta, opciones);
+            }
+            pregunta.setTitle(String.format("Pregunta '%d / %d'", numero, preguntasSeleccionadas.size()));
+            pregunta.setNumeroOrden(numero);
+
+            synchronized (this) {
+                puntuaciones = puntuacionesPorPregunta.get(numero - 1);
+                tiemposRespuesta = new HashMap<>(estadoRecuperado.getTiemposRespuesta());
+                for (Map.Entry<String, Puntuacion> entry : puntuaciones.entrySet()) {
+                    if (entry.getValue() == Puntuacion.CORRECTA_Y_PRIMERA) {
+                        nicknamePrimero = entry.getKey();
+                        tiempoPrimero = tiemposRespuesta.getOrDefault(nicknamePrimero, 0L);
+                        preguntaContestadaCorrectamente = true;
+                    }
+                }
+                preguntaEnviada = pregunta;
+                numeroPreguntaEnCurso = numero;
+                instanteEnvioPregunta = EstimadorLatencia.ahora();
+            }
+        }
+    }
+
+    /**
+     * Método helper que continúa el test recuperado: espera a que se reconecten los usuarios y sigue enviando las
+     * preguntas desde la que estaba en curso (con el tiempo que le quedaba) o desde la siguiente a la última cerrada.
+     *
+     * Si no se reconecta ningún usuario, el test se da por terminado por el servidor.
+     *
+     * @throws InterruptedException excepción al interrumpir la ejecución del hilo que lleva la cuenta atrás
+     */
+    private void reanudarTest() throws InterruptedException {
+        logger.log(Level.INFO, "Recuperado el test solicitado por @{0}: {1} de {2} preguntas enviadas.",
+                new Object[]{nickname, idsPreguntasEnviadas.size(), preguntasSeleccionadas.size()});
+        enviarMensaje(new Mensaje(String.format(
+                "[•] El servidor se ha reiniciado durante el test. El test continuará en '%d' segundos.",
+                TIEMPO_RECONEXION)));
+        startCountDown(TIEMPO_RECONEXION);
+
+        if (testChallengeServer.getClientesConectados().isEmpty()) {
+            logger.info("El test recuperado se ha detenido porque no se ha reconectado ningún usuario");
+            isTerminatedByServer = Boolean.TRUE;
+            return;
+        }
+
+        if (estadoRecuperado.isPausado()) {
+            synchronized (this) {
+                isPaused = Boolean.TRUE;
+                testChallengeServer.pauseTest();
+                if (puntuaciones != null) {
+                    enviarPauseResume(new Mensaje(TipoMensaje.TEST_PAUSADO), null);
+                }
+            }
+        }
+
+        enviarMensaje(new Mensaje("[•] El test continúa ¡YA!\n"));
+        if (estadoRecuperado.isPreguntaEnCurso()) {
+            int segundosRestantes = estadoRecuperado.getSegundosRestantes();
+            enviarPreguntas(estadoRecuperado.getNumeroPregunta(),
+                    segundosRestantes >= 0 ? segundosRestantes : tiempoLimite, true);
+        } else {
+            enviarPreguntas(estadoRecuperado.getPreguntasCerradas() + 1, tiempoLimite, false);
+        }
+    }
+
+    /**
+     * Obtiene los identificadores de las preguntas seleccionadas para el test.
+     *
+     * @return identificadores de las preguntas seleccionadas, en el orden de envío.
+     */
+    private List<Integer> idsPreguntasSeleccionadas() {
+        return preguntasSeleccionadas.stream().map(Pregunta::getId).collect(Collectors.toList());
+    }
+
     /**
      * Método helper que construye el mensaje que notifica a los clientes conectados que se va a realizar un test.
      *
@@ -201,20 +400,44 @@ public class TestServer extends Thread {
         return sb.toString();
     }
 
+    /**
+     * Obtiene el instante en el que se empezó a enviar la pregunta en curso a los clientes conectados.
+     *
+     * Tiene resolución de nanosegundos para poder medir la difusión de la pregunta en local (ver
+     * <code>BenchmarkDifusion</code>).
+     *
+     * @return instante (<code>System.nanoTime</code>) del inicio del envío de la pregunta en curso.
+     */
+    public long getInstanteEnvioPreguntaNanos() {
+        return instanteEnvioPreguntaNanos;
+    }
+
     /**
      * Recibe la respuesta enviada por el usuario indicado.
      *
      * El método se sincroniza para garantizar que sólo se procesa una petición de forma completa en exclusión.
      *
+     * El primero en contestar correctamente no es el primero cuya respuesta llega al servidor, sino el que tiene el
+     * menor tiempo de respuesta compensado por la latencia de su conexión (ver <code>EstimadorLatencia</code>). Si llega
+     * una respuesta correcta con un tiempo compensado menor que el del que hasta ese momento era el primero, éste pasa a
+     * tener la puntuación <code>CORRECTA</code> y se le notifica.
+     *
      * @param nickname usuario que envía la respuesta.
      * @param respuestaRecibida respuesta recibida por el servidor.
+     * @param instanteRecepcion instante (<code>EstimadorLatencia.ahora()</code>) en el que se leyó la respuesta.
+     * @return puntuación obtenida por el usuario con la respuesta.
      * @throws IOException excepción al enviar el mensaje por el canal de escritura.
      */
-    public synchronized void recibirRespuesta(String nickname, Respuesta respuestaRecibida) throws IOException {
-        logger.info(String.format("'%s': respuesta '%s' recibida de '%s'",
-                TestServer.class.getSimpleName(),
-                respuestaRecibida,
-                nickname));
+    public synchronized Puntuacion recibirRespuesta(String nickname, Respuesta respuestaRecibida,
+            long instanteRecepcion) throws IOException {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "''{0}'': respuesta ''{1}'' recibida de ''{2}''",
+                    new Object[]{TestServer.class.getSimpleName(), respuestaRecibida.toString(), nickname});
+        }
+
+        // Tiempo de respuesta compensado por la latencia de la conexión del usuario
+        long tiempoRespuesta = calcularTiempoRespuesta(nickname, respuestaRecibida, instanteRecepcion);
+        tiemposRespuesta.put(nickname, tiempoRespuesta);
 
         // Recibida la respuesta se comprueba si es correcta (o no) para el conteo de puntos
         Respuesta respuestaEnviada = new Respuesta(
@@ -225,27 +448,27 @@ public class TestServer extends Thread {
         // Si la respuesta recibida coincide con la respuesta de la pregunta que se ha enviado ...
         if (respuestaRecibida.equals(respuestaEnviada)) {
             // El usuario ha contestado correctamente a la pregunta: analizar qué puntos se lleva en función
-            // de si es el primero en contestarla o no
-            boolean blnYaContestada = false;
-
-            for (String nicknameKey : puntuaciones.keySet()) {
-                Puntuacion puntuacion = puntuaciones.get(nicknameKey);
-                blnYaContestada = puntuacion != null && puntuacion.equals(Puntuacion.CORRECTA_Y_PRIMERA);
-                if (blnYaContestada) {
-                    break;
+            // de si es el primero en contestarla (con el tiempo compensado) o no
+            if (nicknamePrimero == null || tiempoRespuesta < tiempoPrimero) {
+                if (nicknamePrimero != null) {
+                    // El que hasta ahora era el primero ha tardado más una vez descontada la latencia
+                    puntuar(nicknamePrimero, Puntuacion.CORRECTA);
+                    enviarMensaje(new Mensaje(TipoMensaje.PREGUNTA_CONTESTADA_CORRECTAMENTE), nicknamePrimero);
+                    enviarMensaje(new Mensaje(
+                            String.format("\n'%s' ha contestado antes que '%s' (%d ms frente a %d ms, descontando la latencia)",
+                                    nickname, nicknamePrimero, tiempoRespuesta, tiempoPrimero)));
                 }
-            }
-
-            if (!blnYaContestada) {
                 // Acierta y contesta el primero
-                puntuaciones.put(nickname, Puntuacion.CORRECTA_Y_PRIMERA);
+                nicknamePrimero = nickname;
+                tiempoPrimero = tiempoRespuesta;
+                puntuar(nickname, Puntuacion.CORRECTA_Y_PRIMERA);
                 preguntaContestadaCorrectamente = true;
                 enviarMensaje(new Mensaje(TipoMensaje.PREGUNTA_CONTESTADA_CORRECTAMENTE_Y_PRIMERA), nickname);
                 enviarMensaje(new Mensaje(
                         String.format("\n'%s' ha contestado el primero correctamente :-)", nickname)));
             } else {
                 // Acierta, pero no ha contestado el primero
-                puntuaciones.put(nickname, Puntuacion.CORRECTA);
+                puntuar(nickname, Puntuacion.CORRECTA);
                 enviarMensaje(new Mensaje(TipoMensaje.PREGUNTA_CONTESTADA_CORRECTAMENTE), nickname);
                 enviarMensaje(new Mensaje(
                         String.format("\n'%s' ha contestado correctamente, pero no ha sido el primero :-(", nickname)));
@@ -256,13 +479,13 @@ public class TestServer extends Thread {
             if (respuestaRecibida.isEmpty() || respuestaRecibida.isRespuestaPorDefecto()) {
                 // La respuesta se ha enviado pero no se han seleccionado opciones o se ha seleccionado la opción
                 // por defecto en todas las respuestas de una pregunta de tipo "Emparejada" o "Multivalor".
-                puntuaciones.put(nickname, Puntuacion.NO_RESPONDIDA);
+                puntuar(nickname, Puntuacion.NO_RESPONDIDA);
                 enviarMensaje(new Mensaje(TipoMensaje.PREGUNTA_NO_RESPONDIDA), nickname);
                 enviarMensaje(new Mensaje(
                         String.format("\n'%s' no ha respondido la pregunta :-(", nickname)));
             } else {
                 // La respuesta se ha enviado, pero las opciones seleccionadas son incorrectas
-                puntuaciones.put(nickname, Puntuacion.INCORRECTA);
+                puntuar(nickname, Puntuacion.INCORRECTA);
                 enviarMensaje(new Mensaje(TipoMensaje.PREGUNTA_NO_CONTESTADA_CORRECTAMENTE), nickname);
                 enviarMensaje(new Mensaje(
                         String.format("\n'%s' no ha contestado correctamente :-(", nickname)));
@@ -272,19 +495,45 @@ public class TestServer extends Thread {
 
         // Si todos los usuarios conectados han enviado su respuesta, interrumpimos la cuenta atrás
         // NOTA: tener en cuenta que un cliente se puede desconectar en cualquier momento a la hora de hacer el conteo
-        if (todasLasRespuestasHanSidoEnviadas()) {
-            interrumpirCuentaAtras = true;
-            // Antes de lanzar la siguiente pregunta, actualizar la tabla de resultados con las puntuaciones obtenidas
-            logger.info("Todos los usuarios han enviado su respuesta. Se pasa automáticamente a la siguiente pregunta.");
-            enviarMensaje(new Mensaje("Todos los usuarios han enviado su respuesta. Se pasa automáticamente a la siguiente pregunta."));
-        }
+        avanzarSiTodasLasRespuestasHanSidoEnviadas();
 
         // NOTA (2): esta implementación es para cuando sólo hay un cliente conectado y ha enviado la respuesta.
         /*
         if (testChallengeServer.getClientesConectados().size() == 1) {
-            interrumpirCuentaAtras = true;
+            interrumpirCuentaAtras();
         }
          */
+        return puntuaciones.get(nickname);
+    }
+
+    /**
+     * Deja de esperar la respuesta de un usuario cuya conexión ha dejado de atenderse (se ha desconectado, o se ha
+     * perdido la conexión y puede reanudar su sesión): si era el único que faltaba por responder, se pasa a la
+     * siguiente pregunta sin esperar al final de la cuenta atrás.
+     *
+     * @param nickname nickname del usuario.
+     */
+    public synchronized void registrarConexionInactiva(String nickname) {
+        if (puntuaciones != null && puntuaciones.get(nickname) == Puntuacion.NO_CONTESTADA) {
+            logger.log(Level.INFO, "No se espera la respuesta de ''{0}'' a la pregunta ''{1,number,#}''.",
+                    new Object[]{nickname, numeroPreguntaEnCurso});
+            avanzarSiTodasLasRespuestasHanSidoEnviadas();
+        }
+    }
+
+    /**
+     * Si todos los usuarios conectados han respondido a la pregunta en curso, interrumpe su cuenta atrás para pasar a
+     * la siguiente pregunta.
+     */
+    private synchronized void avanzarSiTodasLasRespuestasHanSidoEnviadas() {
+        if (cuentaAtrasDePregunta && todasLasRespuestasHanSidoEnviadas()) {
+            cuentaAtrasDePregunta = false;
+            interrumpirCuentaAtras();
+            // Antes de lanzar la siguiente pregunta, actualizar la tabla de resultados con las puntuaciones obtenidas
+            String aviso = "Todos los usuarios han enviado su respuesta. Se pasa automáticamente a la siguiente pregunta.";
+            logger.info(aviso);
+            enviarMensaje(new Mensaje(aviso));
+        }
     }
 
     /**
@@ -302,12 +551,11 @@ public class TestServer extends Thread {
      * @param segundosAdicionales segundos adicionales a añadir al tiempo límite para enviar una respuesta
      */
     public synchronized void ampliarTiempoRespuesta(String segundosAdicionales) {
-        segundosAmpliacionTiempoRespuesta = Integer.parseInt(segundosAdicionales);
+        int segundosAmpliacionTiempoRespuesta = Integer.parseInt(segundosAdicionales);
 
         //if (!preguntaContestadaCorrectamente && segundosAmpliacionTiempoRespuesta > 0) {
-        if (segundosAmpliacionTiempoRespuesta > 0) {
-            segundos += segundosAmpliacionTiempoRespuesta;
-            segundosAmpliacionTiempoRespuesta = 0;
+        if (segundosAmpliacionTiempoRespuesta > 0 && cuentaAtras != null) {
+            cuentaAtras.ampliar(segundosAmpliacionTiempoRespuesta);
         }
     }
 
@@ -342,7 +590,11 @@ public class TestServer extends Thread {
         // NOTA: además, no se debe notificar al que ha enviado el mensaje (nickname)
         if (!isPaused) {
             isPaused = Boolean.TRUE;
+            if (cuentaAtras != null) {
+                cuentaAtras.pausar();
+            }
             testChallengeServer.pauseTest();
+            testChallengeServer.getRegistroRecuperacion().registrarTiempo(numeroPreguntaEnCurso, -1, true);
             // Notificar a los clientes conectados que TODAVÍA NO HAN enviado la respuesta para ajustar la UI
             enviarPauseResume(new Mensaje(TipoMensaje.TEST_PAUSADO), nickname);
         }
@@ -369,10 +621,29 @@ public class TestServer extends Thread {
     /**
      * Incializa la puntuación de la pregunta en curso de un usuario incorporado a un test iniciado.
      *
+     * Si el usuario ya tenía puntuación en la pregunta (por ejemplo, porque se reconecta a un test recuperado tras un
+     * reinicio del servidor), se conserva.
+     *
      * @param nickname nickname del usuario incorporado a un test iniciado.
      */
     public synchronized void inicializarPuntuacionConTestIniciado(String nickname) {
-        puntuaciones.put(nickname, Puntuacion.NO_CONTESTADA);
+        if (puntuaciones != null && !puntuaciones.containsKey(nickname)) {
+            puntuar(nickname, Puntuacion.NO_CONTESTADA);
+        }
+    }
+
+    /**
+     * Método helper que establece la puntuación de un usuario en la pregunta en curso y la registra para poder
+     * recuperar el test.
+     *
+     * @param aNickname usuario.
+     * @param puntuacion puntuación del usuario en la pregunta en curso.
+     */
+    private void puntuar(String aNickname, Puntuacion puntuacion) {
+        puntuaciones.put(aNickname, puntuacion);
+        Long tiempoRespuesta = tiemposRespuesta.get(aNickname);
+        testChallengeServer.getRegistroRecuperacion().registrarPuntuacion(numeroPreguntaEnCurso, aNickname,
+                puntuacion, tiempoRespuesta != null ? tiempoRespuesta : -1);
     }
 
     /**
@@ -384,7 +655,11 @@ public class TestServer extends Thread {
         logger.info(String.format("Reanudación del test solicitada por '%s'", nickname));
         if (isPaused) {
             isPaused = Boolean.FALSE;
+            if (cuentaAtras != null) {
+                cuentaAtras.reanudar();
+            }
             testChallengeServer.resumeTest();
+            testChallengeServer.getRegistroRecuperacion().registrarTiempo(numeroPreguntaEnCurso, -1, false);
             // @TODO: Notificar a los clientes conectados que TODAVÍA NO HAN enviado la respuesta para ajustar la UI
             enviarPauseResume(new Mensaje(TipoMensaje.TEST_REANUDADO), nickname);
         }
@@ -393,31 +668,71 @@ public class TestServer extends Thread {
     /**
      * Cuenta atrás para el inicio del test y el envío de la siguiente pregunta.
      *
+     * Los plazos los gobierna la rueda de temporizadores compartida por el servidor: este hilo sólo espera a que
+     * cambie el segundo para enviar el contador a los clientes conectados.
+     *
      * @param tiempoLimite tiempoLimite de la cuenta atrás
-     * @param sleepTime número de milisegundos para hacer el conteo
      * @throws InterruptedException excepción al interrumpir la ejecución del hilo que lleva la cuenta atrás
      */
-    private void startCountDown(int tiempoLimite, int sleepTime) throws InterruptedException {
-
-        Integer segundosTranscurridos = 0;
-
-        segundos = tiempoLimite;
-        int tiempoRestante = segundos;
+    private void startCountDown(int tiempoLimite) throws InterruptedException {
+        startCountDown(tiempoLimite, 0);
+    }
 
-        interrumpirCuentaAtras = false;
+    /**
+     * Cuenta atrás del tiempo de respuesta de una pregunta.
+     *
+     * Cada pocos segundos se registra el tiempo restante para que, si se recupera el test, la pregunta continúe con
+     * el tiempo que le quedaba.
+     *
+     * @param tiempoLimite tiempoLimite de la cuenta atrás
+     * @param numeroPregunta número de orden de la pregunta en curso (0 si la cuenta atrás no es de una pregunta)
+     * @throws InterruptedException excepción al interrumpir la ejecución del hilo que lleva la cuenta atrás
+     */
+    private void startCountDown(int tiempoLimite, int numeroPregunta) throws InterruptedException {
+        RegistroRecuperacion registroRecuperacion = testChallengeServer.getRegistroRecuperacion();
+
+        CuentaAtras cuenta;
+        synchronized (this) {
+            // Si el test está pausado, la cuenta atrás comienza detenida
+            cuenta = new CuentaAtras(testChallengeServer.getRuedaTemporizadores(), tiempoLimite, isPaused);
+            cuentaAtras = cuenta;
+            cuentaAtrasDePregunta = numeroPregunta > 0;
+        }
 
-        while (segundosTranscurridos <= segundos && !interrumpirCuentaAtras) {
-            // Enviar el contador a los clientes conectados
-            enviarMensaje(new Mensaje(Integer.toString(tiempoRestante), TipoMensaje.TIMER_TICK));
+        try {
+            int tiempoRestante;
+            while ((tiempoRestante = cuenta.esperarTick()) >= 0) {
+                // Enviar el contador a los clientes conectados
+                enviarMensaje(new Mensaje(Integer.toString(tiempoRestante), TipoMensaje.TIMER_TICK));
+                testChallengeServer.getSalaEspectadores().publicarTick(tiempoRestante);
+                if (numeroPregunta > 0 && tiempoRestante % INTERVALO_REGISTRO_TIEMPO == 0) {
+                    registroRecuperacion.registrarTiempo(numeroPregunta, tiempoRestante, isPaused);
+                }
+            }
+        } finally {
+            cuenta.interrumpir();
+        }
+    }
 
-            Thread.sleep(sleepTime);
+    /**
+     * Deja en la sala de espectadores el estado de un servidor sin test en ejecución: sin pregunta ni temporizador y
+     * con el ranking de la sesión.
+     */
+    private void publicarFinTestEspectadores() {
+        SalaEspectadores salaEspectadores = testChallengeServer.getSalaEspectadores();
+        salaEspectadores.descartarEstado(TipoMensaje.TIMER_TICK);
+        salaEspectadores.descartarEstado(TipoMensaje.TEST_PREGUNTA);
+        Ranking ranking = new Ranking(testChallengeServer.getClasificacion().getPuntuaciones());
+        salaEspectadores.publicarEstado(new Mensaje(ranking, TipoMensaje.RANKING_ACTUAL));
+        salaEspectadores.publicarEstado(new Mensaje(Boolean.FALSE, TipoMensaje.TEST_EN_EJECUCION));
+    }
 
-            // Si el test está pausado, la cuenta atrás se detiene
-            if (!isPaused) {
-                // En caso contrario, el test está en ejecución y se descuentan los segundos transcurridos al tiempo restante
-                segundosTranscurridos += sleepTime / SLEEP_TIME;
-                tiempoRestante = segundos - segundosTranscurridos;
-            }
+    /**
+     * Interrumpe la cuenta atrás en curso (si la hay).
+     */
+    private synchronized void interrumpirCuentaAtras() {
+        if (cuentaAtras != null) {
+            cuentaAtras.interrumpir();
         }
     }
 
@@ -426,6 +741,9 @@ public class TestServer extends Thread {
      */
     private void cargarPreguntas() {
 
+        long inicioCarga = System.nanoTime();
+        EventoCargaBanco evento = new EventoCargaBanco();
+        evento.begin();
         String rutaCompleta = getRutaCompletaTematica();
 
         // Cargar en memoria todas las preguntas que se encuentran en el directorio especificado
@@ -447,6 +765,15 @@ public class TestServer extends Thread {
                 logger.severe(ex.getMessage());
             }
         }
+        long bytesMultimedia = 0;
+        for (Pregunta pregunta : preguntas) {
+            byte[] datos = pregunta.getFicheroMultimediaData();
+            bytesMultimedia += datos != null ? datos.length : 0;
+        }
+        preguntasBanco = preguntas.size();
+        bytesMultimediaBanco = bytesMultimedia;
+        testChallengeServer.getMetricas().registrarCargaBanco(preguntas.size(), System.nanoTime() - inicioCarga);
+        evento.finalizar(tematica, preguntas.size());
     }
 
     /**
@@ -538,57 +865,73 @@ public class TestServer extends Thread {
         int numeroFinalPreguntas = numeroPreguntas > preguntasSeleccionadasConUnNivelYUnTipo.size()
                 ? preguntasSeleccionadasConUnNivelYUnTipo.size() : numeroPreguntas;
 
+        // Clasificar las preguntas según las hayan visto ya los participantes conectados en tests anteriores: primero
+        // las que no ha visto ninguno, después las que han visto sólo algunos y, por último, las que han visto todos
+        List<List<Pregunta>> gruposPreguntas = testChallengeServer.getRegistroPreguntasVistas().agruparPorVistas(
+                tematica, testChallengeServer.getNicknames(), preguntasSeleccionadasConUnNivelYUnTipo);
+
         // Seleccionar aleatoriamente un subconjunto de ellas en función del nivel especificado
-        for (int i = 0; i < numeroFinalPreguntas; i++) {
+        for (List<Pregunta> grupoPreguntas : gruposPreguntas) {
+            seleccionarPreguntasAleatoriamente(grupoPreguntas, numeroFinalPreguntas);
+        }
+        // El orden de envío no debe delatar en qué grupo estaba cada pregunta
+        Collections.shuffle(preguntasSeleccionadas, random);
+    }
+
+    /**
+     * Método helper que selecciona aleatoriamente preguntas de una colección hasta completar el número de preguntas del
+     * test.
+     *
+     * @param candidatas preguntas candidatas (las seleccionadas se quitan de la colección).
+     * @param numeroFinalPreguntas número de preguntas del test.
+     */
+    private void seleccionarPreguntasAleatoriamente(List<Pregunta> candidatas, int numeroFinalPreguntas) {
+        while (preguntasSeleccionadas.size() < numeroFinalPreguntas && !candidatas.isEmpty()) {
             // Genera un número aleatorio entre [0 y size-1]
-            int indicePreguntaSeleccionada = random.nextInt(preguntasSeleccionadasConUnNivelYUnTipo.size());
-            Pregunta preguntaSeleccionada = preguntasSeleccionadasConUnNivelYUnTipo.get(indicePreguntaSeleccionada);
+            int indicePreguntaSeleccionada = random.nextInt(candidatas.size());
+            Pregunta preguntaSeleccionada = candidatas.get(indicePreguntaSeleccionada);
             preguntaSeleccionada.setPuntuacion(Puntuacion.NO_CONTESTADA);
             preguntasSeleccionadas.add(preguntaSeleccionada);
             // Quitamos la pregunta seleccionada de la colección para que no se repita 
-            preguntasSeleccionadasConUnNivelYUnTipo.remove(indicePreguntaSeleccionada);
+            candidatas.remove(indicePreguntaSeleccionada);
         }
     }
 
     /**
      * Método helper que envía las preguntas a los clientes conectados.
+     *
+     * @param primera número de orden de la primera pregunta que se envía.
+     * @param tiempoPrimera tiempo de respuesta de la primera pregunta.
+     * @param primeraEnviada <code>true</code> si la primera pregunta ya se había enviado antes de recuperar el test
+     * (sólo se completa su cuenta atrás).
      */
-    private void enviarPreguntas() {
+    private void enviarPreguntas(int primera, int tiempoPrimera, boolean primeraEnviada) {
         // Enviar las preguntas
-        int i = 1;
+        int i = primera;
 
         try {
-            for (Pregunta pregunta : preguntasSeleccionadas) {
-                // Flag para controlar el panel que permite ampliar el tiempo de respuesta
-                preguntaContestadaCorrectamente = false;
-                // Inicializar las puntuaciones para la pregunta
-                inicializarPuntuaciones();
-                // Pregunta enviada
-                preguntaEnviada = pregunta;
-                // Título de la pregunta
-                String preguntaTitle = String.format("Pregunta '%d / %d'", i, preguntasSeleccionadas.size());
-                pregunta.setTitle(preguntaTitle);
-                pregunta.setNumeroOrden(i);
-
-                // Comprobar si la pregunta tiene el flag desordenar_opciones activado
-                if (pregunta.getDesordenarOpcionesFlag()) {
-                    // Barajar las opciones
-                    barajarOpciones(pregunta);
+            for (Pregunta pregunta : preguntasSeleccionadas.subList(primera - 1, preguntasSeleccionadas.size())) {
+                if (i > primera || !primeraEnviada) {
+                    enviarPregunta(pregunta, i);
                 }
 
-                // Informar del número de la pregunta del Test que se está ejecutando (útil para ver conteos por pregunta)
-                enviarMensaje(new Mensaje("[•] ".concat(preguntaTitle)));
-
-                // Envíar la pregunta a todos los clientes conectados
-                enviarMensaje(new Mensaje(pregunta));
-
                 // Informar del tiempo restante hasta enviar la siguiente pregunta
-                startCountDown(tiempoLimite, SLEEP_TIME);
+                startCountDown(i == primera ? tiempoPrimera : tiempoLimite, i);
+                // Los espectadores reciben la pregunta una vez cerrada
+                testChallengeServer.getSalaEspectadores().publicarEstado(new Mensaje(pregunta));
 
                 // Antes de lanzar la siguiente pregunta, actualizar la tabla de resultados con las puntuaciones obtenidas
-                logger.info(String.format("Resultados de la pregunta '%d':%s", i, puntuaciones));
+                if (logger.isLoggable(Level.INFO)) {
+                    logger.log(Level.INFO, "Resultados de la pregunta ''{0,number,#}'':{1}",
+                            new Object[]{i, puntuaciones.toString()});
+                }
 
+                registrarEstadisticasPregunta();
                 actualizarResultados();
+                testChallengeServer.getRegistroRecuperacion().registrarCierrePregunta(i);
+                // Clasificación del test para los espectadores (se serializa al publicarla)
+                testChallengeServer.getSalaEspectadores().publicarEstado(
+                        new Mensaje(new Ranking(resultados), TipoMensaje.RANKING_ACTUAL));
 
                 // y enviar un mensaje con las puntuaciones obtenidas
                 enviarMensaje(new Mensaje(String.format("\nPuntuaciones: %s\n", puntuacionesToString())));
@@ -602,6 +945,7 @@ public class TestServer extends Thread {
             logger.info(ie.getMessage());
             // Registrar la fecha y hora de finalización (en este caso, porque el test ha sido detenido por un usuario);
             endDate = new Date();
+            registrarEstadisticasPregunta();
             // Se actualizan los resultados a partir de los puntos obtenidos en la última pregunta  
             // teniendo encuenta, además, la penalización que se le aplica al usuario que ha detenido el test.
             Integer penalizacion = (preguntasSeleccionadas.size() - i + 1);
@@ -616,15 +960,82 @@ public class TestServer extends Thread {
 
     }
 
+    /**
+     * Método helper que envía una pregunta a los clientes conectados.
+     *
+     * @param pregunta pregunta a enviar.
+     * @param i número de orden de la pregunta.
+     */
+    private void enviarPregunta(Pregunta pregunta, int i) {
+        // Flag para controlar el panel que permite ampliar el tiempo de respuesta
+        preguntaContestadaCorrectamente = false;
+        // Inicializar las puntuaciones para la pregunta
+        inicializarPuntuaciones();
+        // Pregunta enviada
+        preguntaEnviada = pregunta;
+        numeroPreguntaEnCurso = i;
+        // Registrar la pregunta y sus puntuaciones parciales (se completan a medida que llegan respuestas)
+        idsPreguntasEnviadas.add(pregunta.getId());
+        puntuacionesPorPregunta.add(puntuaciones);
+        // Título de la pregunta
+        String preguntaTitle = String.format("Pregunta '%d / %d'", i, preguntasSeleccionadas.size());
+        pregunta.setTitle(preguntaTitle);
+        pregunta.setNumeroOrden(i);
+        testChallengeServer.getDiario().registrarPregunta(i, pregunta.getId());
+
+        // Comprobar si la pregunta tiene el flag desordenar_opciones activado
+        if (pregunta.getDesordenarOpcionesFlag()) {
+            // Barajar las opciones
+            barajarOpciones(pregunta);
+        }
+        // Registrar la pregunta (con el orden de sus opciones) para poder recuperar el test
+        synchronized (this) {
+            testChallengeServer.getRegistroRecuperacion().registrarPregunta(i, pregunta.getOpciones(),
+                    puntuaciones.keySet());
+        }
+
+        // Renovar la medida del RTT y del desfase de reloj de cada cliente antes de la pregunta
+        enviarPing();
+
+        // Informar del número de la pregunta del Test que se está ejecutando (útil para ver conteos por pregunta)
+        enviarMensaje(new Mensaje("[•] ".concat(preguntaTitle)));
+
+        // Envíar la pregunta a todos los clientes conectados
+        instanteEnvioPreguntaNanos = System.nanoTime();
+        EventoPreguntaEnviada eventoPregunta = new EventoPreguntaEnviada();
+        eventoPregunta.begin();
+        instanteEnvioPregunta = EstimadorLatencia.ahora();
+        enviarMensaje(new Mensaje(pregunta));
+        eventoPregunta.finalizar(pregunta, testChallengeServer.getClientesConectados().size());
+    }
+
     /**
      * Genera una nueva secuencia en orden aleatorio de las opciones para las preguntas de tipo:
      *
      * - <code>TipoPregunta.RESPUESTA_MULTIPLE</code>, - <code>TipoPregunta.RESPUESTA_UNICA</code> -
      * <code>TipoPregunta.RESPUESTA_EMPAREJADA</code> - <code>TipoPregunta.RESPUESTA_MULTIVALOR</code>.
      *
+     * Es visible en el paquete para poder medirlo con los benchmarks (ver <code>BenchmarkBarajarOpciones</code>).
+     *
+     * @param pregunta pregunta que se está procesando.
+     */
+    static void barajarOpciones(Pregunta pregunta) {
+        List<String> opciones = new ArrayList<>(pregunta.getOpciones());
+        Collections.shuffle(opciones);
+        ordenarOpciones(pregunta, opciones);
+    }
+
+    /**
+     * Establece el orden de las opciones de una pregunta reajustando sus respuestas (y los valores de las opciones)
+     * para los mismos tipos de pregunta que <code>barajarOpciones</code>.
+     *
+     * Se utiliza también para enviar la pregunta en curso de un test recuperado con el mismo orden de opciones con el
+     * que se había enviado.
+     *
      * @param pregunta pregunta que se está procesando.
+     * @param orden opciones de la pregunta en el nuevo orden.
      */
-    private void barajarOpciones(Pregunta pregunta) {
+    static void ordenarOpciones(Pregunta pregunta, List<String> orden) {
 
         TipoPregunta tipoPregunta = pregunta.getTipo();
 
@@ -668,7 +1079,7 @@ public class TestServer extends Thread {
             }
 
             // Reordenación de las opciones
-            Collections.shuffle(pregunta.getOpciones());
+            pregunta.setOpciones(new ArrayList<>(orden));
 
             // Reajuste de las respuestas si la pregunta es de tipo "Emparejada"
             if (tipoPregunta.equals(TipoPregunta.RESPUESTA_EMPAREJADA)
@@ -703,20 +1114,26 @@ public class TestServer extends Thread {
      * Método helper para enviar un mensaje a todos los clientes conectados.
      *
      * @param mensaje mensaje a enviar a todos los clientes.
-     * @throws IOException excepción al enviar el mensaje por el canal de escritura.
      */
     private synchronized void enviarMensaje(Mensaje mensaje) {
         // Enviar un mensaje a todos los clientes conectados
         List<TestChallengeServerThread> clientesConectados = testChallengeServer.getClientesConectados();
 
-        try {
-            for (TestChallengeServerThread cst : clientesConectados) {
-                cst.getClientDataOut().writeObject(mensaje);
-                cst.getClientDataOut().flush();
+        long inicioDifusion = System.nanoTime();
+        for (TestChallengeServerThread cst : clientesConectados) {
+            try {
+                cst.enviar(mensaje);
+            } catch (IOException ioe) {
+                // Un cliente cuya sesión ha terminado (o cuya conexión se ha perdido) no impide el envío a los demás
+                logger.severe(ioe.getMessage());
+                continue;
+            }
+            // El instante de envío de la pregunta se registra por cliente: los últimos de la lista la reciben después
+            if (mensaje.getTipo() == TipoMensaje.TEST_PREGUNTA) {
+                instantesEnvioPregunta.put(cst.getNickname(), EstimadorLatencia.ahora());
             }
-        } catch (IOException ioe) {
-            logger.severe(ioe.getMessage());
         }
+        testChallengeServer.getMetricas().registrarDifusion(mensaje.getTipo(), System.nanoTime() - inicioDifusion);
     }
 
     /**
@@ -728,8 +1145,7 @@ public class TestServer extends Thread {
     private synchronized void enviarMensaje(Mensaje mensaje, String nickname) {
         try {
             TestChallengeServerThread cst = testChallengeServer.getClienteConectado(nickname);
-            cst.getClientDataOut().writeObject(mensaje);
-            cst.getClientDataOut().flush();
+            cst.enviar(mensaje);
         } catch (IOException ioe) {
             logger.severe(ioe.getMessage());
         }
@@ -738,7 +1154,11 @@ public class TestServer extends Thread {
     /**
      * Método helper para inicializar las puntuaciones de una pregunta de todos los clientes conectados
      */
-    private void inicializarPuntuaciones() {
+    private synchronized void inicializarPuntuaciones() {
+        // Tiempos de envío y de respuesta de la pregunta y usuario que la ha contestado correctamente el primero
+        instantesEnvioPregunta = new HashMap<>();
+        tiemposRespuesta = new HashMap<>();
+        nicknamePrimero = null;
         // Registro de las respuestas (acertadas, no contestadas, falladas, y acertadas pero no la primera
         puntuaciones = new HashMap<>();
         for (String aNickname : testChallengeServer.getNicknames()) {
@@ -748,7 +1168,7 @@ public class TestServer extends Thread {
 
     /**
      * Evalúa si todos los clientes han enviado su respuesta devolviendo <code>true</code> en ese caso o
-     * <code>false</code> e.c.c.
+     * <code>false</code> e.c.c. Sólo se tienen en cuenta los clientes cuya conexión está activa.
      *
      * Este método se utiliza para determinar si el servidor debe enviar la siguiente pregunta en el caso en el que
      * todos los clientes hayan enviado su respuesta.
@@ -757,14 +1177,74 @@ public class TestServer extends Thread {
      */
     private boolean todasLasRespuestasHanSidoEnviadas() {
         boolean todasLasRespuestasEnviadas = true;
+        boolean hayConexionesActivas = false;
         for (String nicknameKey : puntuaciones.keySet()) {
+            // No se espera a los usuarios cuya conexión ha dejado de atenderse (aunque puedan reanudar su sesión)
+            if (!testChallengeServer.isConexionActiva(nicknameKey)) {
+                continue;
+            }
+            hayConexionesActivas = true;
             Puntuacion puntuacion = puntuaciones.get(nicknameKey);
             if (puntuacion == Puntuacion.NO_CONTESTADA) {
                 todasLasRespuestasEnviadas = false;
                 break;
             }
         }
-        return todasLasRespuestasEnviadas;
+        // Si no queda ninguna conexión activa, la pregunta sigue hasta el final de la cuenta atrás
+        return todasLasRespuestasEnviadas && hayConexionesActivas;
+    }
+
+    /**
+     * Registra en las estadísticas las puntuaciones finales de la pregunta en curso junto con el tiempo de respuesta
+     * compensado de cada usuario.
+     *
+     * Se registran al cerrar la pregunta (y no al recibir cada respuesta) porque la puntuación
+     * <code>CORRECTA_Y_PRIMERA</code> puede cambiar de usuario mientras llegan respuestas.
+     */
+    private synchronized void registrarEstadisticasPregunta() {
+        testChallengeServer.getAgregadorEstadisticas().registrarPregunta(tematica, preguntaEnviada, puntuaciones,
+                tiemposRespuesta);
+    }
+
+    /**
+     * Calcula el tiempo de respuesta de un usuario compensado por la latencia de su conexión.
+     *
+     * @param nickname usuario que envía la respuesta.
+     * @param respuesta respuesta recibida.
+     * @param instanteRecepcion instante en el que se leyó la respuesta.
+     * @return tiempo de respuesta compensado en milisegundos.
+     */
+    private long calcularTiempoRespuesta(String nickname, Respuesta respuesta, long instanteRecepcion) {
+        Long instanteEnvio = instantesEnvioPregunta.get(nickname);
+        long envio = instanteEnvio != null ? instanteEnvio : instanteEnvioPregunta;
+        TestChallengeServerThread cst = testChallengeServer.getClienteConectado(nickname);
+        if (cst == null) {
+            return Math.max(instanteRecepcion - envio, 0);
+        }
+        return cst.getEstimadorLatencia().compensarTiempoRespuesta(envio, instanteRecepcion, respuesta);
+    }
+
+    /**
+     * Registra el instante en el que se ha enviado la pregunta en curso a un usuario que se incorpora al test iniciado.
+     *
+     * @param nickname nickname del usuario incorporado al test iniciado.
+     */
+    public synchronized void registrarEnvioPregunta(String nickname) {
+        instantesEnvioPregunta.put(nickname, EstimadorLatencia.ahora());
+    }
+
+    /**
+     * Método helper que envía un mensaje PING a todos los clientes conectados para actualizar la estimación de su RTT y
+     * del desfase de su reloj.
+     */
+    private synchronized void enviarPing() {
+        for (TestChallengeServerThread cst : testChallengeServer.getClientesConectados()) {
+            try {
+                cst.enviarPing();
+            } catch (IOException ioe) {
+                logger.severe(ioe.getMessage());
+            }
+        }
     }
 
     /**
@@ -836,27 +1316,21 @@ public class TestServer extends Thread {
      * Método helper que actualiza el ranking con los resultados obtenidos al finalizar el test.
      */
     private Ranking actualizarRanking() throws IOException {
-        Map<String, Integer> ranking = testChallengeServer.getRanking();
+        Clasificacion clasificacion = testChallengeServer.getClasificacion();
 
         for (String nicknameKey : resultados.keySet()) {
             Integer resultado = resultados.get(nicknameKey);
             if (resultado != null) {
-                Integer puntuacionRanking = ranking.get(nicknameKey);
-                if (puntuacionRanking == null) {
-                    // Es la primera vez que el usuario obtiene un punto (0 o 1)
-                    ranking.put(nicknameKey, resultado);
-                } else {
-                    // El usuario ya tenía algún punto (o cero, después de la primera ejecución del test)
-                    ranking.put(nicknameKey, puntuacionRanking + resultado);
-                }
+                // Se suman los puntos obtenidos (si es la primera vez, el usuario se incorpora a la clasificación)
+                clasificacion.sumarPuntos(nicknameKey, resultado);
             } else {
                 // El usuario no ha enviado ninguna respuesta en este test (su contador se pone a 0)
-                ranking.put(nicknameKey, Integer.valueOf("0"));
+                clasificacion.establecerPuntos(nicknameKey, 0);
             }
         }
 
         // Envía una copia del ranking actualizado almacenado en el servidor
-        Ranking rankingActualizado = new Ranking(new HashMap<>(ranking));
+        Ranking rankingActualizado = new Ranking(clasificacion.getPuntuaciones());
         // Establecemos la información de la fecha de inicio y de fin del test como parte de la información del ranking
         rankingActualizado.setStartDate(startDate);
         rankingActualizado.setEndDate(endDate);
@@ -864,6 +1338,45 @@ public class TestServer extends Thread {
         return rankingActualizado;
     }
 
+    /**
+     * Método helper que registra el test finalizado en el histórico del servidor.
+     */
+    private void archivarTest() {
+        if (idsPreguntasEnviadas.isEmpty()) {
+            return;
+        }
+
+        Configuracion configuracion = new Configuracion(tematica, nivel, tipoPreguntas, numeroPreguntas, tiempoLimite);
+        try {
+            testChallengeServer.getArchivoHistorico().archivar(
+                    new RegistroTest(configuracion, startDate, endDate, idsPreguntasEnviadas, puntuacionesPorPregunta));
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+        }
+    }
+
+    /**
+     * Método helper que marca las preguntas enviadas como vistas por los participantes que las recibieron y guarda el
+     * registro de la temática.
+     */
+    private void registrarPreguntasVistas() {
+        if (idsPreguntasEnviadas.isEmpty()) {
+            return;
+        }
+
+        RegistroPreguntasVistas registroPreguntasVistas = testChallengeServer.getRegistroPreguntasVistas();
+        for (int i = 0; i < idsPreguntasEnviadas.size(); i++) {
+            for (String aNickname : puntuacionesPorPregunta.get(i).keySet()) {
+                registroPreguntasVistas.marcarVista(tematica, aNickname, idsPreguntasEnviadas.get(i));
+            }
+        }
+        try {
+            registroPreguntasVistas.guardar(tematica);
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+        }
+    }
+
     /**
      * Obtiene la pregunta enviada.
      *
@@ -872,4 +1385,85 @@ public class TestServer extends Thread {
     public Pregunta getPreguntaEnviada() {
         return preguntaEnviada;
     }
+
+    /**
+     * Obtiene el nickname del usuario que ha solicitado el test.
+     *
+     * @return nickname del usuario que ha solicitado el test.
+     */
+    public String getNickname() {
+        return nickname;
+    }
+
+    /**
+     * Obtiene la temática del test.
+     *
+     * @return temática del test.
+     */
+    public String getTematica() {
+        return tematica;
+    }
+
+    /**
+     * Obtiene el número de orden de la pregunta en curso.
+     *
+     * @return número de orden de la pregunta en curso o 0 si aún no se ha enviado ninguna.
+     */
+    public int getNumeroPreguntaEnCurso() {
+        return numeroPreguntaEnCurso;
+    }
+
+    /**
+     * Obtiene el número de preguntas seleccionadas para el test.
+     *
+     * @return número de preguntas del test o 0 si aún no se han seleccionado.
+     */
+    public int getNumeroPreguntasTest() {
+        return numeroPreguntasTest;
+    }
+
+    /**
+     * Obtiene el número de preguntas del banco cargadas en memoria para el test.
+     *
+     * @return número de preguntas cargadas.
+     */
+    public int getPreguntasBanco() {
+        return preguntasBanco;
+    }
+
+    /**
+     * Obtiene los bytes de los ficheros multimedia del banco cargados en memoria para el test.
+     *
+     * @return bytes multimedia en memoria.
+     */
+    public long getBytesMultimediaBanco() {
+        return bytesMultimediaBanco;
+    }
+
+    /**
+     * Obtiene los segundos que le quedan a la cuenta atrás en curso (inicio del test o tiempo de respuesta).
+     *
+     * @return segundos restantes o 0 si no hay ninguna cuenta atrás en curso.
+     */
+    public synchronized int getSegundosRestantes() {
+        return cuentaAtras != null ? cuentaAtras.getSegundosRestantes() : 0;
+    }
+
+    /**
+     * Obtiene los usuarios que aún no han respondido a la pregunta en curso.
+     *
+     * @return nicknames de los usuarios con la respuesta pendiente.
+     */
+    public synchronized List<String> getRespuestasPendientes() {
+        List<String> pendientes = new ArrayList<>();
+        if (puntuaciones != null) {
+            for (Map.Entry<String, Puntuacion> entry : puntuaciones.entrySet()) {
+                if (entry.getValue() == Puntuacion.NO_CONTESTADA) {
+                    pendientes.add(entry.getKey());
+                }
+            }
+        }
+        Collections.sort(pendientes);
+        return pendientes;
+    }
 }
@@ -0,0 +1,330 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.admin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.testchallenge.server.TestChallengeServer;
+import com.testchallenge.server.TestChallengeServerThread;
+import com.testchallenge.server.TestServer;
+import com.testchallenge.server.latencia.EstimadorLatencia;
+import com.testchallenge.server.metricas.MetricasServidor;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Servidor HTTP de administración que permite consultar el estado del servidor en ejecución y actuar sobre él.
+ *
+ * Las respuestas son documentos JSON:
+ *
+ * - <code>GET /admin/sesiones</code>: participantes conectados con sus envíos pendientes y su RTT.
+ *
+ * - <code>GET /admin/test</code>: estado del test en curso (pregunta N/M, segundos restantes, respuestas pendientes).
+ *
+ * - <code>GET /admin/banco</code>: banco de preguntas cargado en memoria para el test y temáticas disponibles.
+ *
+ * - <code>GET /admin/metricas</code>: valores actuales de las métricas del servidor.
+ *
+ * - <code>POST /admin/sesiones/desconectar?nickname=&lt;nickname&gt;</code>: cierra la conexión de un participante (su
+ * hilo de servicio la da por perdida y lo desconecta como si hubiese cerrado el cliente).
+ *
+ * Las peticiones se atienden en un ejecutor propio con pocos hilos y solo leen el estado que los hilos del juego ya
+ * publican, por lo que una consulta lenta no retrasa el tratamiento de los mensajes.
+ *
+ * @author japrada
+ */
+public class ServidorAdministracion {
+
+    // Número de hilos que atienden las peticiones
+    private static final int HILOS = 2;
+    // Subdirectorio de los ficheros multimedia de cada temática
+    private static final String SUBDIRECTORIO_MULTIMEDIA = "Multimedia";
+
+    // Servidor de chat que se administra
+    private final TestChallengeServer testChallengeServer;
+    // Servidor HTTP
+    private final HttpServer servidorHttp;
+    // Ejecutor de las peticiones
+    private final ExecutorService ejecutor;
+    // Serializador JSON de las respuestas
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(ServidorAdministracion.class.getName());
+
+    /**
+     * Constructor de la clase (el servidor no atiende peticiones hasta que se llama a <code>iniciar</code>).
+     *
+     * @param testChallengeServer servidor de chat que se administra.
+     * @param direccion dirección y puerto de escucha (puerto 0 para uno libre).
+     * @throws IOException excepción al abrir el puerto de escucha.
+     */
+    public ServidorAdministracion(TestChallengeServer testChallengeServer, InetSocketAddress direccion)
+            throws IOException {
+        this.testChallengeServer = testChallengeServer;
+        servidorHttp = HttpServer.create(direccion, 0);
+        AtomicInteger numeroHilo = new AtomicInteger();
+        ejecutor = Executors.newFixedThreadPool(HILOS, tarea -> {
+            Thread hilo = new Thread(tarea, String.format("admin-http-%d", numeroHilo.incrementAndGet()));
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        servidorHttp.setExecutor(ejecutor);
+        servidorHttp.createContext("/admin/sesiones/desconectar", conMetodo("POST", this::desconectar));
+        servidorHttp.createContext("/admin/sesiones", conMetodo("GET", i -> responder(i, 200, getSesiones())));
+        servidorHttp.createContext("/admin/test", conMetodo("GET", i -> responder(i, 200, getEstadoTest())));
+        servidorHttp.createContext("/admin/banco", conMetodo("GET", i -> responder(i, 200, getBanco())));
+        servidorHttp.createContext("/admin/metricas", conMetodo("GET", i -> responder(i, 200, getMetricas())));
+    }
+
+    /**
+     * Empieza a atender peticiones.
+     */
+    public void iniciar() {
+        servidorHttp.start();
+        logger.log(Level.INFO, "''{0}'': Administración disponible en http://{1}:{2,number,#}/admin/",
+                new Object[]{ServidorAdministracion.class.getSimpleName(),
+                    servidorHttp.getAddress().getHostString(), getPuerto()});
+    }
+
+    /**
+     * Deja de atender peticiones y libera el puerto.
+     */
+    public void detener() {
+        servidorHttp.stop(0);
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Obtiene el puerto de escucha.
+     *
+     * @return puerto de escucha.
+     */
+    public int getPuerto() {
+        return servidorHttp.getAddress().getPort();
+    }
+
+    /**
+     * Construye la lista de participantes conectados.
+     *
+     * @return participantes con su dirección, envíos pendientes, si esperan a reanudar su sesión, tiempo desde su
+     * último mensaje, RTT y desfase de reloj.
+     */
+    List<Map<String, Object>> getSesiones() {
+        List<Map<String, Object>> sesiones = new ArrayList<>();
+        for (TestChallengeServerThread cst : testChallengeServer.getClientesConectados()) {
+            Map<String, Object> sesion = new LinkedHashMap<>();
+            sesion.put("nickname", cst.getNickname());
+            Socket socket = cst.getClientDataSocket();
+            sesion.put("direccion", socket != null ? String.valueOf(socket.getRemoteSocketAddress()) : null);
+            sesion.put("enviosPendientes", cst.getEnviosPendientes());
+            sesion.put("suspendida", cst.getSesion().isSuspendida());
+            sesion.put("inactividadMs",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cst.getInstanteUltimaRecepcion()));
+            EstimadorLatencia estimador = cst.getEstimadorLatencia();
+            if (estimador.hayMuestras()) {
+                sesion.put("rttMs", estimador.getRttMs());
+                sesion.put("desfaseMs", estimador.getDesfaseMs());
+            }
+            sesiones.add(sesion);
+        }
+        return sesiones;
+    }
+
+    /**
+     * Construye el estado del test en curso.
+     *
+     * @return estado del test.
+     */
+    Map<String, Object> getEstadoTest() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        boolean enEjecucion = testChallengeServer.isTestInProgress();
+        estado.put("enEjecucion", enEjecucion);
+        estado.put("espectadores", testChallengeServer.getSalaEspectadores().getNumeroEspectadores());
+        TestServer testServer = testChallengeServer.getTestServer();
+        if (enEjecucion && testServer != null) {
+            estado.put("pausado", testChallengeServer.isTestPaused());
+            estado.put("solicitante", testServer.getNickname());
+            estado.put("tematica", testServer.getTematica());
+            estado.put("pregunta", testServer.getNumeroPreguntaEnCurso());
+            estado.put("preguntas", testServer.getNumeroPreguntasTest());
+            estado.put("segundosRestantes", testServer.getSegundosRestantes());
+            estado.put("respuestasPendientes", testServer.getRespuestasPendientes());
+        }
+        return estado;
+    }
+
+    /**
+     * Construye la descripción del banco de preguntas: el cargado en memoria para el test en curso y las temáticas
+     * disponibles en disco.
+     *
+     * @return descripción del banco de preguntas.
+     */
+    Map<String, Object> getBanco() {
+        Map<String, Object> banco = new LinkedHashMap<>();
+        TestServer testServer = testChallengeServer.getTestServer();
+        if (testChallengeServer.isTestInProgress() && testServer != null) {
+            Map<String, Object> enMemoria = new LinkedHashMap<>();
+            enMemoria.put("tematica", testServer.getTematica());
+            enMemoria.put("preguntas", testServer.getPreguntasBanco());
+            enMemoria.put("bytesMultimedia", testServer.getBytesMultimediaBanco());
+            banco.put("enMemoria", enMemoria);
+        }
+        List<Map<String, Object>> tematicas = new ArrayList<>();
+        File[] directorios = new File(testChallengeServer.getDirectorioRaizPreguntas()).listFiles(File::isDirectory);
+        if (directorios != null) {
+            Arrays.sort(directorios);
+            for (File directorio : directorios) {
+                Map<String, Object> tematica = new LinkedHashMap<>();
+                tematica.put("tematica", directorio.getName());
+                File[] preguntas = directorio.listFiles((dir, nombre) -> nombre.endsWith(".json"));
+                tematica.put("preguntas", preguntas != null ? preguntas.length : 0);
+                tematica.put("bytesMultimedia", getBytes(new File(directorio, SUBDIRECTORIO_MULTIMEDIA)));
+                tematicas.add(tematica);
+            }
+        }
+        banco.put("tematicas", tematicas);
+        return banco;
+    }
+
+    /**
+     * Construye la instantánea de las métricas del servidor.
+     *
+     * @return valores actuales de las métricas.
+     */
+    Map<String, Object> getMetricas() {
+        MetricasServidor metricas = testChallengeServer.getMetricas();
+        Map<String, Object> valores = new LinkedHashMap<>();
+        valores.put("sesionesConectadas", metricas.getSesionesConectadas());
+        valores.put("registros", metricas.getRegistros());
+        valores.put("registrosPorSegundo", metricas.getRegistrosPorSegundo());
+        valores.put("registro", metricas.getRegistro());
+        valores.put("mensajesRecibidos", metricas.getMensajesRecibidos());
+        valores.put("mensajesEnviados", metricas.getMensajesEnviados());
+        valores.put("bytesRecibidos", metricas.getBytesRecibidos());
+        valores.put("bytesEnviados", metricas.getBytesEnviados());
+        valores.put("difusionPreguntas", metricas.getDifusionPreguntas());
+        valores.put("difusionMensajes", metricas.getDifusionMensajes());
+        valores.put("correccionRespuestas", metricas.getCorreccionRespuestas());
+        valores.put("cargaBanco", metricas.getCargaBanco());
+        valores.put("preguntasBanco", metricas.getPreguntasBanco());
+        valores.put("enviosPendientesMaximo", metricas.getEnviosPendientesMaximo());
+        valores.put("testsActivos", metricas.getTestsActivos());
+        valores.put("testsIniciados", metricas.getTestsIniciados());
+        return valores;
+    }
+
+    /**
+     * Cierra la conexión del participante indicado en el parámetro <code>nickname</code>.
+     *
+     * @param intercambio petición HTTP.
+     * @throws IOException excepción al enviar la respuesta.
+     */
+    private void desconectar(HttpExchange intercambio) throws IOException {
+        String nickname = getParametro(intercambio, "nickname");
+        if (nickname == null) {
+            responder(intercambio, 400, Map.of("error", "Falta el parámetro 'nickname'"));
+            return;
+        }
+        for (TestChallengeServerThread cst : testChallengeServer.getClientesConectados()) {
+            if (cst.getNickname().equals(nickname)) {
+                logger.log(Level.INFO, "''{0}'': Desconectando a ''{1}'' a petición del administrador.",
+                        new Object[]{ServidorAdministracion.class.getSimpleName(), nickname});
+                // La sesión termina: el cliente no la puede reanudar
+                cst.getSesion().terminar();
+                cst.getClientDataSocket().close();
+                responder(intercambio, 200, Map.of("desconectado", nickname));
+                return;
+            }
+        }
+        responder(intercambio, 404, Map.of("error", String.format("El usuario '%s' no está conectado", nickname)));
+    }
+
+    private void responder(HttpExchange intercambio, int codigo, Object contenido) throws IOException {
+        byte[] cuerpo = gson.toJson(contenido).getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, cuerpo.length);
+        try (OutputStream out = intercambio.getResponseBody()) {
+            out.write(cuerpo);
+        }
+    }
+
+    private HttpHandler conMetodo(String metodo, HttpHandler manejador) {
+        return intercambio -> {
+            try {
+                if (!intercambio.getRequestURI().getPath().equals(intercambio.getHttpContext().getPath())) {
+                    responder(intercambio, 404, Map.of("error", "Recurso no encontrado"));
+                    return;
+                }
+                if (!intercambio.getRequestMethod().equals(metodo)) {
+                    intercambio.getResponseHeaders().set("Allow", metodo);
+                    responder(intercambio, 405, Map.of("error", String.format("Sólo se admite %s", metodo)));
+                    return;
+                }
+                manejador.handle(intercambio);
+            } catch (IOException | RuntimeException ex) {
+                logger.severe(ex.getMessage());
+                throw ex;
+            } finally {
+                intercambio.close();
+            }
+        };
+    }
+
+    private static String getParametro(HttpExchange intercambio, String nombre) {
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        if (consulta != null) {
+            for (String parametro : consulta.split("&")) {
+                int separador = parametro.indexOf('=');
+                if (separador > 0 && parametro.substring(0, separador).equals(nombre)) {
+                    return URLDecoder.decode(parametro.substring(separador + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long getBytes(File directorio) {
+        long bytes = 0;
+        File[] ficheros = directorio.listFiles(File::isFile);
+        if (ficheros != null) {
+            for (File fichero : ficheros) {
+                bytes += fichero.length();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.diario;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Diario de los mensajes intercambiados con los clientes: un fichero binario, compacto y de sólo escritura al final
+ * (ver <code>FormatoDiario</code>) a partir del cual se puede reproducir una sesión del servidor (ver
+ * <code>ReproductorDiario</code>).
+ *
+ * Registra los mensajes recibidos completos (son los que hay que volver a enviar en la reproducción), el tipo de los
+ * mensajes enviados, las desconexiones y las preguntas que se envían en cada test, con el instante monótono
+ * (<code>System.nanoTime</code>) en el que se producen.
+ *
+ * Los hilos que registran los eventos no escriben en el fichero: encolan el evento y lo escribe un hilo propio. Si la
+ * cola se llena, los eventos se descartan y se avisa en el log.
+ *
+ * @author japrada
+ */
+public class DiarioEventos {
+
+    // Número de eventos pendientes de escribir que caben en la cola
+    public static final int CAPACIDAD_POR_DEFECTO = 65536;
+    // Espera del hilo del diario cuando no hay eventos pendientes
+    private static final long PAUSA = 5;
+    // Tiempo máximo de espera al cerrar el diario
+    private static final long ESPERA_CIERRE = TimeUnit.SECONDS.toMillis(2);
+    // Diario que no registra nada (cuando no se ha configurado)
+    private static final DiarioEventos DESACTIVADO = new DiarioEventos();
+
+    // Eventos pendientes de escribir (null si el diario está desactivado)
+    private final BlockingQueue<Registro> pendientes;
+    // Stream de escritura del fichero
+    private final DataOutputStream out;
+    // Hilo que escribe los eventos
+    private final Thread hilo;
+    // Instante de apertura del diario (origen de los instantes de los eventos)
+    private final long origen;
+    // Eventos descartados desde el último aviso
+    private final LongAdder descartados = new LongAdder();
+    // Flag que indica que el diario se está cerrando
+    private volatile boolean cerrado;
+
+    // Identificador de cada sesión ya escrita en el fichero (sólo lo usa el hilo del diario)
+    private final Map<String, Integer> sesiones = new HashMap<>();
+    // Instante del último evento escrito (sólo lo usa el hilo del diario)
+    private long ultimoInstante;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(DiarioEventos.class.getName());
+
+    private DiarioEventos() {
+        pendientes = null;
+        out = null;
+        hilo = null;
+        origen = 0;
+    }
+
+    private DiarioEventos(File fichero, int capacidad) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fichero, false)));
+        out.writeInt(FormatoDiario.MAGIA);
+        out.writeByte(FormatoDiario.VERSION);
+        out.writeLong(System.currentTimeMillis());
+        origen = System.nanoTime();
+        pendientes = new ArrayBlockingQueue<>(capacidad);
+        hilo = new Thread(this::escribirPendientes, "diario-eventos");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Crea un diario en el fichero especificado (si existe, se sobrescribe).
+     *
+     * @param fichero fichero del diario.
+     * @return diario abierto.
+     * @throws IOException si no se puede crear el fichero.
+     */
+    public static DiarioEventos abrir(File fichero) throws IOException {
+        return new DiarioEventos(fichero, CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Obtiene un diario que no registra nada.
+     *
+     * @return diario desactivado.
+     */
+    public static DiarioEventos desactivado() {
+        return DESACTIVADO;
+    }
+
+    /**
+     * Indica si el diario registra los eventos.
+     *
+     * @return <code>true</code> si el diario está abierto.
+     */
+    public boolean isActivo() {
+        return pendientes != null && !cerrado;
+    }
+
+    /**
+     * Registra un mensaje recibido de un cliente.
+     *
+     * @param nickname nickname del cliente.
+     * @param mensaje mensaje recibido.
+     */
+    public void registrarEntrada(String nickname, Mensaje mensaje) {
+        if (!isActivo()) {
+            return;
+        }
+        long instante = ahora();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream mensajeOut = new ObjectOutputStream(bytes)) {
+            mensajeOut.writeObject(mensaje);
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+            return;
+        }
+        ofrecer(new Registro(TipoEvento.ENTRADA, instante, nickname, bytes.toByteArray(), 0, 0));
+    }
+
+    /**
+     * Registra un mensaje enviado a un cliente.
+     *
+     * @param nickname nickname del cliente.
+     * @param tipo tipo del mensaje enviado.
+     */
+    public void registrarSalida(String nickname, TipoMensaje tipo) {
+        if (isActivo()) {
+            ofrecer(new Registro(TipoEvento.SALIDA, ahora(), nickname, null, tipo.ordinal(), 0));
+        }
+    }
+
+    /**
+     * Registra la desconexión de un cliente.
+     *
+     * @param nickname nickname del cliente.
+     */
+    public void registrarDesconexion(String nickname) {
+        if (isActivo()) {
+            ofrecer(new Registro(TipoEvento.DESCONEXION, ahora(), nickname, null, 0, 0));
+        }
+    }
+
+    /**
+     * Registra el envío de una pregunta del test en curso.
+     *
+     * @param numeroPregunta número de orden de la pregunta en el test.
+     * @param idPregunta identificador de la pregunta.
+     */
+    public void registrarPregunta(int numeroPregunta, int idPregunta) {
+        if (isActivo()) {
+            ofrecer(new Registro(TipoEvento.PREGUNTA, ahora(), null, null, numeroPregunta, idPregunta));
+        }
+    }
+
+    /**
+     * Escribe los eventos pendientes y cierra el fichero.
+     */
+    public void cerrar() {
+        if (!isActivo()) {
+            return;
+        }
+        cerrado = true;
+        try {
+            hilo.join(ESPERA_CIERRE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long ahora() {
+        return System.nanoTime() - origen;
+    }
+
+    private void ofrecer(Registro registro) {
+        if (!pendientes.offer(registro)) {
+            descartados.increment();
+        }
+    }
+
+    /**
+     * Bucle del hilo del diario: escribe los eventos pendientes hasta que se cierra el diario.
+     */
+    private void escribirPendientes() {
+        try {
+            while (!(cerrado && pendientes.isEmpty())) {
+                Registro registro = pendientes.poll(PAUSA, TimeUnit.MILLISECONDS);
+                if (registro == null) {
+                    continue;
+                }
+                do {
+                    escribir(registro);
+                } while ((registro = pendientes.poll()) != null);
+                out.flush();
+
+                long numeroDescartados = descartados.sumThenReset();
+                if (numeroDescartados > 0) {
+                    logger.warning(String.format(
+                            "Se han descartado %d eventos del diario por estar llena la cola (capacidad %d).",
+                            numeroDescartados, CAPACIDAD_POR_DEFECTO));
+                }
+            }
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+            cerrado = true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }
+    }
+
+    private void escribir(Registro registro) throws IOException {
+        int sesion = registro.nickname != null ? sesion(registro.nickname) : -1;
+        out.writeByte(FormatoDiario.codigo(registro.tipo));
+        FormatoDiario.escribirDiferencia(out, registro.instante - ultimoInstante);
+        ultimoInstante = registro.instante;
+        switch (registro.tipo) {
+            case ENTRADA:
+                FormatoDiario.escribirEntero(out, sesion);
+                FormatoDiario.escribirEntero(out, registro.bytes.length);
+                out.write(registro.bytes);
+                break;
+            case SALIDA:
+                FormatoDiario.escribirEntero(out, sesion);
+                FormatoDiario.escribirEntero(out, registro.numero);
+                break;
+            case DESCONEXION:
+                FormatoDiario.escribirEntero(out, sesion);
+                break;
+            default:
+                FormatoDiario.escribirEntero(out, registro.numero);
+                FormatoDiario.escribirEntero(out, registro.idPregunta);
+                break;
+        }
+    }
+
+    /**
+     * Obtiene el identificador de la sesión y, si es la primera vez que aparece, escribe su definición.
+     */
+    private int sesion(String nickname) throws IOException {
+        Integer id = sesiones.get(nickname);
+        if (id == null) {
+            id = sesiones.size();
+            sesiones.put(nickname, id);
+            out.writeByte(FormatoDiario.SESION);
+            FormatoDiario.escribirEntero(out, id);
+            out.writeUTF(nickname);
+        }
+        return id;
+    }
+
+    /**
+     * Evento pendiente de escribir.
+     */
+    private static final class Registro {
+
+        private final TipoEvento tipo;
+        private final long instante;
+        private final String nickname;
+        // Mensaje serializado (eventos de tipo ENTRADA)
+        private final byte[] bytes;
+        // Ordinal del tipo de mensaje (SALIDA) o número de orden de la pregunta (PREGUNTA)
+        private final int numero;
+        // Identificador de la pregunta (PREGUNTA)
+        private final int idPregunta;
+
+        private Registro(TipoEvento tipo, long instante, String nickname, byte[] bytes, int numero, int idPregunta) {
+            this.tipo = tipo;
+            this.instante = instante;
+            this.nickname = nickname;
+            this.bytes = bytes;
+            this.numero = numero;
+            this.idPregunta = idPregunta;
+        }
+    }
+}
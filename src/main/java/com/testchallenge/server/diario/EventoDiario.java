@@ -0,0 +1,109 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.diario;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+
+/**
+ * Evento leído de un diario.
+ *
+ * @author japrada
+ */
+public final class EventoDiario {
+
+    // Tipo del evento
+    private final TipoEvento tipo;
+    // Instante del evento (nanosegundos desde la apertura del diario)
+    private final long instante;
+    // Nickname de la sesión (null en los eventos de tipo PREGUNTA)
+    private final String nickname;
+    // Mensaje recibido (sólo en los eventos de tipo ENTRADA)
+    private final Mensaje mensaje;
+    // Tipo del mensaje recibido o enviado (null en los eventos de tipo DESCONEXION y PREGUNTA)
+    private final TipoMensaje tipoMensaje;
+    // Número de orden y identificador de la pregunta (sólo en los eventos de tipo PREGUNTA)
+    private final int numeroPregunta;
+    private final int idPregunta;
+
+    private EventoDiario(TipoEvento tipo, long instante, String nickname, Mensaje mensaje, TipoMensaje tipoMensaje,
+            int numeroPregunta, int idPregunta) {
+        this.tipo = tipo;
+        this.instante = instante;
+        this.nickname = nickname;
+        this.mensaje = mensaje;
+        this.tipoMensaje = tipoMensaje;
+        this.numeroPregunta = numeroPregunta;
+        this.idPregunta = idPregunta;
+    }
+
+    static EventoDiario entrada(long instante, String nickname, Mensaje mensaje) {
+        return new EventoDiario(TipoEvento.ENTRADA, instante, nickname, mensaje, mensaje.getTipo(), 0, 0);
+    }
+
+    static EventoDiario salida(long instante, String nickname, TipoMensaje tipoMensaje) {
+        return new EventoDiario(TipoEvento.SALIDA, instante, nickname, null, tipoMensaje, 0, 0);
+    }
+
+    static EventoDiario desconexion(long instante, String nickname) {
+        return new EventoDiario(TipoEvento.DESCONEXION, instante, nickname, null, null, 0, 0);
+    }
+
+    static EventoDiario pregunta(long instante, int numeroPregunta, int idPregunta) {
+        return new EventoDiario(TipoEvento.PREGUNTA, instante, null, null, null, numeroPregunta, idPregunta);
+    }
+
+    public TipoEvento getTipo() {
+        return tipo;
+    }
+
+    public long getInstante() {
+        return instante;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public Mensaje getMensaje() {
+        return mensaje;
+    }
+
+    public TipoMensaje getTipoMensaje() {
+        return tipoMensaje;
+    }
+
+    public int getNumeroPregunta() {
+        return numeroPregunta;
+    }
+
+    public int getIdPregunta() {
+        return idPregunta;
+    }
+
+    @Override
+    public String toString() {
+        switch (tipo) {
+            case PREGUNTA:
+                return String.format("%d %s %d %d", instante, tipo, numeroPregunta, idPregunta);
+            case DESCONEXION:
+                return String.format("%d %s %s", instante, tipo, nickname);
+            default:
+                return String.format("%d %s %s %s", instante, tipo, nickname, tipoMensaje);
+        }
+    }
+}
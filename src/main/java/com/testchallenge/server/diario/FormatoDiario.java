@@ -0,0 +1,95 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.diario;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constantes y codificación de enteros del fichero del diario de eventos.
+ *
+ * El fichero empieza con una cabecera (<code>MAGIA</code>, <code>VERSION</code> y la fecha de apertura en milisegundos)
+ * seguida de las entradas, que empiezan con un byte con su código:
+ *
+ * <ul>
+ * <li><code>SESION</code>: identificador y nickname de una sesión (se escribe antes de su primer evento).</li>
+ * <li><code>ENTRADA</code>: instante, sesión y mensaje recibido serializado.</li>
+ * <li><code>SALIDA</code>: instante, sesión y tipo del mensaje enviado.</li>
+ * <li><code>DESCONEXION</code>: instante y sesión.</li>
+ * <li><code>PREGUNTA</code>: instante, número de orden e identificador de la pregunta enviada.</li>
+ * </ul>
+ *
+ * Los instantes se escriben como la diferencia (en nanosegundos, con signo) con el de la entrada anterior y los enteros
+ * con una longitud variable (7 bits por byte), de modo que la mayoría de los eventos ocupan unos pocos bytes. Los tipos
+ * de mensaje se guardan por su ordinal, por lo que los nuevos tipos se deben añadir al final de
+ * <code>TipoMensaje</code>.
+ *
+ * @author japrada
+ */
+final class FormatoDiario {
+
+    // Marca de inicio del fichero ("TCJ1")
+    static final int MAGIA = 0x54434A31;
+    // Versión del formato
+    static final int VERSION = 1;
+    // Código de la entrada que asocia un identificador de sesión con su nickname (el resto son ordinal + 1)
+    static final int SESION = 0;
+
+    private FormatoDiario() {
+    }
+
+    /**
+     * Código de la entrada de un tipo de evento.
+     *
+     * @param tipo tipo de evento.
+     * @return código de la entrada.
+     */
+    static int codigo(TipoEvento tipo) {
+        return tipo.ordinal() + 1;
+    }
+
+    static void escribirEntero(DataOutput out, long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            out.writeByte((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        out.writeByte((int) valor);
+    }
+
+    static long leerEntero(DataInput in) throws IOException {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            int b = in.readUnsignedByte();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IOException("Entero mal codificado en el diario");
+    }
+
+    static void escribirDiferencia(DataOutput out, long diferencia) throws IOException {
+        // Codificación zigzag: los valores pequeños, positivos o negativos, ocupan pocos bytes
+        escribirEntero(out, (diferencia << 1) ^ (diferencia >> 63));
+    }
+
+    static long leerDiferencia(DataInput in) throws IOException {
+        long valor = leerEntero(in);
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
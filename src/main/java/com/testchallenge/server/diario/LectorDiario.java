@@ -0,0 +1,175 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.diario;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de un diario de eventos (ver <code>DiarioEventos</code>).
+ *
+ * Lee un diario completo o el principio de uno que se sigue escribiendo o que quedó a medias: una entrada incompleta
+ * al final del fichero se trata como el final del diario.
+ *
+ * @author japrada
+ */
+public class LectorDiario implements Closeable {
+
+    // Stream de lectura del fichero
+    private final DataInputStream in;
+    // Fecha de apertura del diario (milisegundos)
+    private final long fechaApertura;
+    // Nickname de cada identificador de sesión
+    private final List<String> sesiones = new ArrayList<>();
+    // Instante de la última entrada leída
+    private long instante;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param fichero fichero del diario.
+     * @throws IOException si el fichero no se puede leer o no es un diario.
+     */
+    public LectorDiario(File fichero) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(fichero)));
+        try {
+            if (in.readInt() != FormatoDiario.MAGIA || in.readUnsignedByte() != FormatoDiario.VERSION) {
+                throw new IOException(String.format("'%s' no es un diario de eventos", fichero));
+            }
+            fechaApertura = in.readLong();
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Lee todos los eventos de un diario.
+     *
+     * @param fichero fichero del diario.
+     * @return eventos del diario.
+     * @throws IOException si el fichero no se puede leer o no es un diario.
+     * @throws ClassNotFoundException si un mensaje no se puede decodificar.
+     */
+    public static List<EventoDiario> leerTodos(File fichero) throws IOException, ClassNotFoundException {
+        List<EventoDiario> eventos = new ArrayList<>();
+        try (LectorDiario lector = new LectorDiario(fichero)) {
+            EventoDiario evento;
+            while ((evento = lector.leer()) != null) {
+                eventos.add(evento);
+            }
+        }
+        return eventos;
+    }
+
+    /**
+     * Obtiene la fecha de apertura del diario.
+     *
+     * @return fecha de apertura del diario (milisegundos desde la época).
+     */
+    public long getFechaApertura() {
+        return fechaApertura;
+    }
+
+    /**
+     * Lee el siguiente evento.
+     *
+     * @return evento leído o <code>null</code> al llegar al final del diario.
+     * @throws IOException si el fichero no se puede leer o está mal formado.
+     * @throws ClassNotFoundException si un mensaje no se puede decodificar.
+     */
+    public EventoDiario leer() throws IOException, ClassNotFoundException {
+        try {
+            while (true) {
+                int codigo = in.read();
+                if (codigo < 0) {
+                    return null;
+                }
+                if (codigo == FormatoDiario.SESION) {
+                    int id = (int) FormatoDiario.leerEntero(in);
+                    String nickname = in.readUTF();
+                    if (id != sesiones.size()) {
+                        throw new IOException(String.format("Sesión '%d' fuera de secuencia en el diario", id));
+                    }
+                    sesiones.add(nickname);
+                    continue;
+                }
+                if (codigo > TipoEvento.values().length) {
+                    throw new IOException(String.format("Entrada '%d' no válida en el diario", codigo));
+                }
+                TipoEvento tipo = TipoEvento.values()[codigo - 1];
+                instante += FormatoDiario.leerDiferencia(in);
+                switch (tipo) {
+                    case ENTRADA:
+                        String nickname = sesion();
+                        byte[] bytes = new byte[(int) FormatoDiario.leerEntero(in)];
+                        in.readFully(bytes);
+                        return EventoDiario.entrada(instante, nickname, decodificar(bytes));
+                    case SALIDA:
+                        return EventoDiario.salida(instante, sesion(), tipoMensaje());
+                    case DESCONEXION:
+                        return EventoDiario.desconexion(instante, sesion());
+                    default:
+                        int numeroPregunta = (int) FormatoDiario.leerEntero(in);
+                        int idPregunta = (int) FormatoDiario.leerEntero(in);
+                        return EventoDiario.pregunta(instante, numeroPregunta, idPregunta);
+                }
+            }
+        } catch (EOFException ex) {
+            // Entrada incompleta: el servidor terminó mientras la escribía
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String sesion() throws IOException {
+        int id = (int) FormatoDiario.leerEntero(in);
+        if (id >= sesiones.size()) {
+            throw new IOException(String.format("Sesión '%d' no definida en el diario", id));
+        }
+        return sesiones.get(id);
+    }
+
+    private TipoMensaje tipoMensaje() throws IOException {
+        int ordinal = (int) FormatoDiario.leerEntero(in);
+        if (ordinal >= TipoMensaje.values().length) {
+            throw new IOException(String.format("Tipo de mensaje '%d' no válido en el diario", ordinal));
+        }
+        return TipoMensaje.values()[ordinal];
+    }
+
+    private static Mensaje decodificar(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream mensajeIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Mensaje) mensajeIn.readObject();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.diario;
+
+/**
+ * Tipos de los eventos del diario.
+ *
+ * @author japrada
+ */
+public enum TipoEvento {
+    // Mensaje recibido de un cliente (incluido el del registro)
+    ENTRADA,
+    // Mensaje enviado a un cliente
+    SALIDA,
+    // Desconexión de un cliente
+    DESCONEXION,
+    // Pregunta enviada en el test en curso
+    PREGUNTA
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.espectadores;
+
+import com.testchallenge.model.Mensaje;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Conexión de un espectador con las tramas pendientes de enviarle.
+ *
+ * Las tramas se encolan sin bloquear desde el hilo que las publica y las escribe un hilo del ejecutor de la sala. Una
+ * trama sustituible reemplaza a la trama pendiente del mismo tipo, por lo que un espectador lento recibe el último
+ * estado en lugar de acumular retraso. Si aun así se llena la cola, la sala desconecta al espectador. También lo
+ * desconecta si una escritura lleva bloqueada demasiado tiempo (el espectador ha dejado de leer y se ha llenado el
+ * búfer de envío de la conexión), para que no retenga indefinidamente uno de los hilos de escritura.
+ *
+ * @author japrada
+ */
+final class Espectador {
+
+    /**
+     * Resultado de encolar una trama.
+     */
+    enum Encolado {
+        // La trama se ha encolado y el llamante debe programar el vaciado de la cola
+        PROGRAMAR,
+        // La trama se ha encolado y ya hay un vaciado programado
+        PENDIENTE,
+        // La cola estaba llena: el espectador no consume las tramas al ritmo al que se publican
+        DESBORDADO,
+        // La conexión está cerrada
+        CERRADO
+    }
+
+    // Nombre con el que se ha identificado el espectador
+    private final String nombre;
+    // Socket de la conexión
+    private final Socket socket;
+    // Stream de escritura (las tramas se escriben como datos, sin serializar de nuevo)
+    private final ObjectOutputStream out;
+    // Número máximo de tramas pendientes
+    private final int capacidad;
+    // Respuesta al registro, que se envía antes que las tramas (null una vez enviada)
+    private Mensaje respuesta;
+    // Tramas pendientes de enviar (también es el cerrojo del estado de la cola)
+    private final ArrayDeque<Trama> pendientes = new ArrayDeque<>();
+    // Flag que indica si hay un vaciado de la cola programado o en curso
+    private boolean programado;
+    // Flag que indica si la conexión se ha cerrado
+    private volatile boolean cerrado;
+    // Instante (System.nanoTime) en el que empezó la escritura en curso, o 0 si no se está escribiendo
+    private volatile long inicioEscritura;
+
+    /**
+     * Constructor de la clase.
+     *
+     * El espectador se crea con el vaciado de la cola programado: el llamante debe programarlo para que se envíe la
+     * respuesta al registro.
+     *
+     * @param nombre nombre con el que se ha identificado el espectador.
+     * @param socket socket de la conexión.
+     * @param out stream de escritura de la conexión.
+     * @param capacidad número máximo de tramas pendientes.
+     * @param respuesta respuesta al registro (se envía serializada, antes que las tramas).
+     */
+    Espectador(String nombre, Socket socket, ObjectOutputStream out, int capacidad, Mensaje respuesta) {
+        this.nombre = nombre;
+        this.socket = socket;
+        this.out = out;
+        this.capacidad = capacidad;
+        this.respuesta = respuesta;
+        this.programado = true;
+    }
+
+    /**
+     * Encola una trama.
+     *
+     * @param trama trama a enviar.
+     * @return resultado de encolar la trama.
+     */
+    Encolado encolar(Trama trama) {
+        synchronized (pendientes) {
+            if (cerrado) {
+                return Encolado.CERRADO;
+            }
+            if (trama.isSustituible()) {
+                // La trama sustituye a la pendiente del mismo tipo (si la hay)
+                for (Iterator<Trama> it = pendientes.iterator(); it.hasNext();) {
+                    Trama pendiente = it.next();
+                    if (pendiente.isSustituible() && pendiente.getTipo() == trama.getTipo()) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+            if (pendientes.size() == capacidad) {
+                return Encolado.DESBORDADO;
+            }
+            pendientes.add(trama);
+            if (programado) {
+                return Encolado.PENDIENTE;
+            }
+            programado = true;
+            return Encolado.PROGRAMAR;
+        }
+    }
+
+    /**
+     * Escribe las tramas pendientes hasta vaciar la cola.
+     *
+     * Cada trama se escribe precedida de su longitud. En el primer vaciado se envía antes la respuesta al registro.
+     *
+     * @throws IOException error al escribir en la conexión.
+     */
+    void vaciar() throws IOException {
+        if (respuesta != null) {
+            inicioEscritura = System.nanoTime();
+            try {
+                out.writeObject(respuesta);
+                respuesta = null;
+            } finally {
+                inicioEscritura = 0;
+            }
+        }
+        while (true) {
+            Trama trama;
+            boolean ultima;
+            synchronized (pendientes) {
+                trama = pendientes.poll();
+                if (trama == null) {
+                    programado = false;
+                    return;
+                }
+                ultima = pendientes.isEmpty();
+            }
+            inicioEscritura = System.nanoTime();
+            try {
+                out.writeInt(trama.getBytes().length);
+                out.write(trama.getBytes());
+                // Las tramas que se han acumulado se envían juntas
+                if (ultima) {
+                    out.flush();
+                }
+            } finally {
+                inicioEscritura = 0;
+            }
+        }
+    }
+
+    /**
+     * Indica si la escritura en curso (si la hay) lleva bloqueada al menos el tiempo especificado.
+     *
+     * @param ahora instante actual (System.nanoTime).
+     * @param limiteNanos tiempo máximo de una escritura (en nanosegundos).
+     * @return <code>true</code> si la escritura en curso ha superado el tiempo máximo.
+     */
+    boolean isEscrituraBloqueada(long ahora, long limiteNanos) {
+        long inicio = inicioEscritura;
+        return inicio != 0 && ahora - inicio >= limiteNanos;
+    }
+
+    /**
+     * Cierra la conexión y descarta las tramas pendientes.
+     */
+    void cerrar() {
+        cerrado = true;
+        synchronized (pendientes) {
+            pendientes.clear();
+        }
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // La conexión ya estaba cerrada
+        }
+    }
+
+    String getNombre() {
+        return nombre;
+    }
+}
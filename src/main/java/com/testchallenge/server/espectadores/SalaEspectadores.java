@@ -0,0 +1,287 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.espectadores;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import com.testchallenge.server.temporizador.RuedaTemporizadores;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sala con los espectadores de los tests: conexiones de sólo lectura que no participan en el test.
+ *
+ * Los espectadores no tienen puntuación ni cuentan para la corrección: reciben el mensaje de inicio del test, las
+ * preguntas una vez cerradas, la clasificación del test tras cada pregunta, el temporizador (con menos frecuencia que
+ * los participantes) y el ranking final.
+ *
+ * Para que la sala escale a miles de espectadores, cada mensaje se serializa una única vez (ver <code>Trama</code>) y
+ * la publicación sólo encola la trama en cada espectador, sin bloquear al hilo que la publica. Las escrituras las hace
+ * un grupo reducido de hilos, de modo que un espectador no ocupa ningún hilo mientras no tiene tramas pendientes. Como
+ * las escrituras se bloquean si el espectador deja de leer, una tarea periódica en la rueda de temporizadores del
+ * servidor desconecta a los espectadores cuya escritura en curso supera un tiempo máximo, liberando así su hilo.
+ *
+ * Las tramas de estado (temporizador, pregunta, clasificación y flag de test en ejecución) se guardan para
+ * enviárselas a los espectadores que se conectan después. Salvo las preguntas, que se envían todas, sustituyen a la
+ * trama pendiente del mismo tipo.
+ *
+ * @author japrada
+ */
+public class SalaEspectadores {
+
+    // Número de hilos por defecto que escriben las tramas
+    public static final int HILOS_POR_DEFECTO = 4;
+    // Número máximo por defecto de tramas pendientes por espectador
+    public static final int CAPACIDAD_POR_DEFECTO = 64;
+    // Tiempo máximo por defecto de una escritura en la conexión de un espectador (en milisegundos)
+    public static final long LIMITE_ESCRITURA_POR_DEFECTO = 10000;
+    // Cada cuántos segundos se envía el temporizador a los espectadores
+    public static final int INTERVALO_TIMER_TICK = 5;
+
+    // Espectadores conectados
+    private final List<Espectador> espectadores = new CopyOnWriteArrayList<>();
+    // Última trama de cada tipo de estado
+    private final Map<TipoMensaje, Trama> estado = new ConcurrentHashMap<>();
+    // Hilos que escriben las tramas en las conexiones
+    private final ExecutorService ejecutor;
+    // Número máximo de tramas pendientes por espectador
+    private final int capacidad;
+    // Rueda en la que se programa la comprobación de las escrituras bloqueadas
+    private final RuedaTemporizadores rueda;
+    // Tiempo máximo de una escritura (en milisegundos; 0 no limita las escrituras)
+    private final long limiteEscrituraMs;
+    // Espectadores desconectados por no consumir las tramas a tiempo
+    private final LongAdder desbordados = new LongAdder();
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(SalaEspectadores.class.getName());
+
+    /**
+     * Constructor de la clase con el número de hilos, la capacidad y el tiempo máximo de escritura por defecto.
+     *
+     * @param rueda rueda de temporizadores en la que se comprueban las escrituras bloqueadas.
+     */
+    public SalaEspectadores(RuedaTemporizadores rueda) {
+        this(rueda, HILOS_POR_DEFECTO, CAPACIDAD_POR_DEFECTO, LIMITE_ESCRITURA_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param rueda rueda de temporizadores en la que se comprueban las escrituras bloqueadas.
+     * @param hilos número de hilos que escriben las tramas.
+     * @param capacidad número máximo de tramas pendientes por espectador.
+     * @param limiteEscrituraMs tiempo máximo de una escritura (en milisegundos; 0 no limita las escrituras).
+     */
+    public SalaEspectadores(RuedaTemporizadores rueda, int hilos, int capacidad, long limiteEscrituraMs) {
+        this.rueda = rueda;
+        this.capacidad = capacidad;
+        this.limiteEscrituraMs = limiteEscrituraMs;
+        AtomicInteger numeroHilo = new AtomicInteger();
+        ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, String.format("espectadores-%d", numeroHilo.incrementAndGet()));
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programarComprobacion();
+    }
+
+    /**
+     * Añade un espectador a la sala y le envía la respuesta al registro y el estado actual.
+     *
+     * La respuesta al registro es lo primero que se escribe en la conexión (también desde los hilos de la sala, para
+     * que un espectador que no lee no bloquee al llamante): a partir de ahí, por la conexión sólo se envían tramas.
+     *
+     * @param nombre nombre con el que se ha identificado el espectador.
+     * @param socket socket de la conexión.
+     * @param out stream de escritura de la conexión.
+     * @param respuesta respuesta al registro.
+     */
+    public void registrar(String nombre, Socket socket, ObjectOutputStream out, Mensaje respuesta) {
+        Espectador espectador = new Espectador(nombre, socket, out, capacidad, respuesta);
+        espectadores.add(espectador);
+        for (TipoMensaje tipo : TipoMensaje.values()) {
+            Trama trama = estado.get(tipo);
+            if (trama != null) {
+                entregar(espectador, trama);
+            }
+        }
+        // El espectador se crea con el vaciado programado: la respuesta se envía aunque no haya estado
+        ejecutor.execute(() -> vaciar(espectador));
+    }
+
+    /**
+     * Publica un mensaje puntual (se envía a los espectadores conectados, pero no a los que se conecten después).
+     *
+     * @param mensaje mensaje a publicar.
+     */
+    public void publicar(Mensaje mensaje) {
+        publicar(mensaje, false);
+    }
+
+    /**
+     * Publica un mensaje que forma parte del estado: sustituye al anterior del mismo tipo en el estado que se envía a
+     * los espectadores que se conecten después y, salvo que sea una pregunta, en las colas de los espectadores.
+     *
+     * @param mensaje mensaje a publicar.
+     */
+    public void publicarEstado(Mensaje mensaje) {
+        publicar(mensaje, true);
+    }
+
+    /**
+     * Publica el temporizador cada <code>INTERVALO_TIMER_TICK</code> segundos (el resto de ticks se descartan).
+     *
+     * @param segundos segundos restantes.
+     */
+    public void publicarTick(int segundos) {
+        if (segundos % INTERVALO_TIMER_TICK == 0) {
+            publicarEstado(new Mensaje(Integer.toString(segundos), TipoMensaje.TIMER_TICK));
+        }
+    }
+
+    /**
+     * Olvida el estado del tipo especificado (los espectadores que se conecten después no lo reciben).
+     *
+     * @param tipo tipo de mensaje.
+     */
+    public void descartarEstado(TipoMensaje tipo) {
+        estado.remove(tipo);
+    }
+
+    /**
+     * Obtiene el número de espectadores conectados.
+     *
+     * @return número de espectadores conectados.
+     */
+    public int getNumeroEspectadores() {
+        return espectadores.size();
+    }
+
+    /**
+     * Obtiene el número de espectadores que se han desconectado por no consumir las tramas a tiempo (porque se ha
+     * llenado su cola o porque una escritura ha superado el tiempo máximo).
+     *
+     * @return número de espectadores desconectados por lentos.
+     */
+    public long getEspectadoresDesbordados() {
+        return desbordados.sum();
+    }
+
+    /**
+     * Desconecta a todos los espectadores y detiene los hilos de escritura.
+     */
+    public void cerrar() {
+        ejecutor.shutdownNow();
+        for (Espectador espectador : espectadores) {
+            retirar(espectador);
+        }
+    }
+
+    private void publicar(Mensaje mensaje, boolean esEstado) {
+        Trama trama;
+        try {
+            trama = Trama.codificar(mensaje, esEstado && mensaje.getTipo() != TipoMensaje.TEST_PREGUNTA);
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+            return;
+        }
+        if (esEstado) {
+            estado.put(trama.getTipo(), trama);
+        }
+        for (Espectador espectador : espectadores) {
+            entregar(espectador, trama);
+        }
+    }
+
+    private void entregar(Espectador espectador, Trama trama) {
+        switch (espectador.encolar(trama)) {
+            case PROGRAMAR:
+                ejecutor.execute(() -> vaciar(espectador));
+                break;
+            case DESBORDADO:
+                retirar(espectador);
+                desbordados.increment();
+                logger.log(Level.INFO, "''{0}'': Espectador ''{1}'' desconectado por no recibir los mensajes a tiempo.",
+                        new Object[]{SalaEspectadores.class.getSimpleName(), espectador.getNombre()});
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void programarComprobacion() {
+        if (limiteEscrituraMs > 0 && !ejecutor.isShutdown()) {
+            try {
+                // Se comprueba dos veces por periodo para no superar el tiempo máximo en más de la mitad
+                rueda.programar(this::comprobarEscrituras, Math.max(1, limiteEscrituraMs / 2), TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException ex) {
+                // La rueda se ha detenido: el servidor está finalizando
+            }
+        }
+    }
+
+    /**
+     * Comprobación periódica de las escrituras bloqueadas (se ejecuta en el hilo de la rueda).
+     *
+     * Cerrar el socket no se bloquea y hace que la escritura bloqueada falle, lo que libera el hilo que la hacía.
+     */
+    private void comprobarEscrituras() {
+        long ahora = System.nanoTime();
+        long limiteNanos = TimeUnit.MILLISECONDS.toNanos(limiteEscrituraMs);
+        for (Espectador espectador : espectadores) {
+            if (espectador.isEscrituraBloqueada(ahora, limiteNanos)) {
+                retirar(espectador);
+                desbordados.increment();
+                logger.log(Level.INFO, "''{0}'': Espectador ''{1}'' desconectado por no leer los mensajes en {2} ms.",
+                        new Object[]{SalaEspectadores.class.getSimpleName(), espectador.getNombre(),
+                            limiteEscrituraMs});
+            }
+        }
+        programarComprobacion();
+    }
+
+    private void vaciar(Espectador espectador) {
+        try {
+            espectador.vaciar();
+        } catch (IOException ex) {
+            // El espectador ha cerrado la conexión
+            retirar(espectador);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "''{0}'': Espectador ''{1}'' desconectado.",
+                        new Object[]{SalaEspectadores.class.getSimpleName(), espectador.getNombre()});
+            }
+        }
+    }
+
+    private void retirar(Espectador espectador) {
+        espectadores.remove(espectador);
+        espectador.cerrar();
+    }
+}
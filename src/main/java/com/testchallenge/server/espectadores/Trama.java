@@ -0,0 +1,76 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.espectadores;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ * Mensaje serializado una única vez para enviarlo tal cual a todos los espectadores.
+ *
+ * Cada trama es un stream de serialización completo e independiente, de modo que los bytes se pueden escribir en
+ * cualquier conexión sin depender del estado (descriptores de clase, referencias, ...) de su
+ * <code>ObjectOutputStream</code>.
+ *
+ * @author japrada
+ */
+final class Trama {
+
+    // Tipo del mensaje serializado
+    private final TipoMensaje tipo;
+    // Mensaje serializado
+    private final byte[] bytes;
+    // Flag que indica si una trama posterior del mismo tipo sustituye a ésta mientras esté pendiente de enviar
+    private final boolean sustituible;
+
+    private Trama(TipoMensaje tipo, byte[] bytes, boolean sustituible) {
+        this.tipo = tipo;
+        this.bytes = bytes;
+        this.sustituible = sustituible;
+    }
+
+    /**
+     * Serializa un mensaje.
+     *
+     * @param mensaje mensaje a serializar.
+     * @param sustituible <code>true</code> si una trama posterior del mismo tipo sustituye a ésta.
+     * @return trama con el mensaje serializado.
+     * @throws IOException si el mensaje no se puede serializar.
+     */
+    static Trama codificar(Mensaje mensaje, boolean sustituible) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(mensaje);
+        }
+        return new Trama(mensaje.getTipo(), bytes.toByteArray(), sustituible);
+    }
+
+    TipoMensaje getTipo() {
+        return tipo;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    boolean isSustituible() {
+        return sustituible;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.estadisticas;
+
+import com.testchallenge.model.Nivel;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.TipoPregunta;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Agregador de estadísticas por usuario y por pregunta que se alimenta, de forma incremental, con las respuestas
+ * recibidas por el <code>TestServer</code>.
+ *
+ * Las estadísticas se mantienen en memoria con contadores primitivos y se vuelcan periódicamente a disco (sólo si han
+ * cambiado desde el último volcado) para que los cuadros de mando y la selección adaptativa de preguntas puedan leer
+ * los valores ya calculados sin recorrer el histórico.
+ *
+ * @author japrada
+ */
+public class AgregadorEstadisticas {
+
+    // Versión del formato del fichero de estadísticas
+    private static final int VERSION_FORMATO = 1;
+    // Intervalo por defecto entre volcados a disco (en segundos)
+    private static final int INTERVALO_VOLCADO_POR_DEFECTO = 60;
+
+    // Fichero en el que se vuelcan las estadísticas
+    private final File fichero;
+    // Estadísticas por usuario
+    private final Map<String, EstadisticasUsuario> usuarios;
+    // Estadísticas por pregunta (la clave es "<temática>/<id>")
+    private final Map<String, Estadisticas> preguntas;
+    // Flag que indica si hay cambios pendientes de volcar
+    private boolean modificado;
+    // Planificador del volcado periódico
+    private ScheduledExecutorService planificador;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(AgregadorEstadisticas.class.getName());
+
+    /**
+     * Construye un agregador que vuelca las estadísticas en el fichero especificado.
+     *
+     * @param fichero fichero en el que se vuelcan las estadísticas.
+     */
+    public AgregadorEstadisticas(File fichero) {
+        this.fichero = fichero;
+        usuarios = new HashMap<>();
+        preguntas = new HashMap<>();
+    }
+
+    /**
+     * Registra la respuesta de un usuario a una pregunta.
+     *
+     * @param nickname nickname del usuario.
+     * @param tematica temática del test en el que se ha enviado la pregunta.
+     * @param pregunta pregunta respondida.
+     * @param puntuacion puntuación obtenida.
+     * @param tiempoMs tiempo empleado en enviar la respuesta (en milisegundos) o un valor negativo si no se envió.
+     */
+    public synchronized void registrar(String nickname,
+            String tematica,
+            Pregunta pregunta,
+            Puntuacion puntuacion,
+            long tiempoMs) {
+
+        usuarios.computeIfAbsent(nickname, k -> new EstadisticasUsuario())
+                .registrar(pregunta.getTipo(), Nivel.valueOfLabel(pregunta.getNivel()), puntuacion, tiempoMs);
+        preguntas.computeIfAbsent(clavePregunta(tematica, pregunta.getId()), k -> new Estadisticas())
+                .registrar(puntuacion, tiempoMs);
+        modificado = true;
+    }
+
+    /**
+     * Registra las puntuaciones finales de una pregunta que se acaba de cerrar.
+     *
+     * Los usuarios que no enviaron su respuesta figuran en las puntuaciones como <code>NO_CONTESTADA</code> y no
+     * tienen tiempo de respuesta, por lo que cuentan en el total de respuestas pero no en los tiempos.
+     *
+     * @param tematica temática del test en el que se ha enviado la pregunta.
+     * @param pregunta pregunta cerrada.
+     * @param puntuaciones puntuación final de cada usuario.
+     * @param tiemposRespuestaMs tiempo de respuesta (en milisegundos) de los usuarios que enviaron su respuesta.
+     */
+    public synchronized void registrarPregunta(String tematica,
+            Pregunta pregunta,
+            Map<String, Puntuacion> puntuaciones,
+            Map<String, Long> tiemposRespuestaMs) {
+
+        for (Map.Entry<String, Puntuacion> entry : puntuaciones.entrySet()) {
+            Long tiempoRespuesta = tiemposRespuestaMs.get(entry.getKey());
+            registrar(entry.getKey(), tematica, pregunta, entry.getValue(),
+                    tiempoRespuesta != null ? tiempoRespuesta : -1);
+        }
+    }
+
+    /**
+     * Obtiene una copia de las estadísticas de un usuario.
+     *
+     * @param nickname nickname del usuario.
+     * @return copia de las estadísticas del usuario o <code>null</code> si no hay estadísticas del usuario.
+     */
+    public synchronized EstadisticasUsuario getEstadisticasUsuario(String nickname) {
+        EstadisticasUsuario estadisticas = usuarios.get(nickname);
+        if (estadisticas == null) {
+            return null;
+        }
+        EstadisticasUsuario copia = new EstadisticasUsuario();
+        copia.copiar(estadisticas);
+        return copia;
+    }
+
+    /**
+     * Obtiene una copia de las estadísticas de una pregunta.
+     *
+     * @param tematica temática de la pregunta.
+     * @param id identificador de la pregunta.
+     * @return copia de las estadísticas de la pregunta o <code>null</code> si no hay estadísticas de la pregunta.
+     */
+    public synchronized Estadisticas getEstadisticasPregunta(String tematica, int id) {
+        Estadisticas estadisticas = preguntas.get(clavePregunta(tematica, id));
+        if (estadisticas == null) {
+            return null;
+        }
+        Estadisticas copia = new Estadisticas();
+        copia.copiar(estadisticas);
+        return copia;
+    }
+
+    /**
+     * Carga las estadísticas volcadas previamente en el fichero (si existe).
+     *
+     * @throws IOException excepción al leer el fichero.
+     */
+    public synchronized void cargar() throws IOException {
+        if (!fichero.isFile()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fichero)))) {
+            if (in.readInt() != VERSION_FORMATO
+                    || in.readInt() != Puntuacion.values().length
+                    || in.readInt() != TipoPregunta.values().length
+                    || in.readInt() != Nivel.values().length) {
+                logger.warning(String.format("El formato del fichero '%s' no es compatible. Se ignora.", fichero));
+                return;
+            }
+
+            int numeroUsuarios = in.readInt();
+            for (int i = 0; i < numeroUsuarios; i++) {
+                String nickname = in.readUTF();
+                EstadisticasUsuario estadisticas = new EstadisticasUsuario();
+                estadisticas.leer(in);
+                usuarios.put(nickname, estadisticas);
+            }
+
+            int numeroPreguntas = in.readInt();
+            for (int i = 0; i < numeroPreguntas; i++) {
+                String clave = in.readUTF();
+                Estadisticas estadisticas = new Estadisticas();
+                estadisticas.leer(in);
+                preguntas.put(clave, estadisticas);
+            }
+        }
+    }
+
+    /**
+     * Vuelca las estadísticas al fichero si han cambiado desde el último volcado.
+     *
+     * La copia de los contadores se hace en exclusión (es una operación rápida en memoria) y la escritura en disco fuera
+     * de ella, en un fichero temporal que después sustituye al anterior. Si la escritura falla, las estadísticas siguen
+     * pendientes de volcar y se reintenta en el siguiente volcado.
+     *
+     * @throws IOException excepción al escribir el fichero.
+     */
+    public void volcar() throws IOException {
+        byte[] datos;
+        synchronized (this) {
+            if (!modificado) {
+                return;
+            }
+            datos = serializar();
+            // Se marca antes de escribir para no perder los cambios que se registren durante la escritura
+            modificado = false;
+        }
+
+        try {
+            File directorio = fichero.getAbsoluteFile().getParentFile();
+            if (!directorio.isDirectory() && !directorio.mkdirs()) {
+                throw new IOException(String.format("No se ha podido crear el directorio '%s'.", directorio));
+            }
+            File temporal = new File(directorio, fichero.getName() + ".tmp");
+            Files.write(temporal.toPath(), datos);
+            Files.move(temporal.toPath(), fichero.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            synchronized (this) {
+                modificado = true;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Arranca el volcado periódico de las estadísticas en un hilo de baja prioridad.
+     */
+    public synchronized void iniciarVolcadoPeriodico() {
+        if (planificador != null) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AgregadorEstadisticas-volcado");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        planificador.scheduleWithFixedDelay(() -> {
+            try {
+                volcar();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }, INTERVALO_VOLCADO_POR_DEFECTO, INTERVALO_VOLCADO_POR_DEFECTO, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Detiene el volcado periódico de las estadísticas (las pendientes no se vuelcan).
+     */
+    public synchronized void detenerVolcadoPeriodico() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+            planificador = null;
+        }
+    }
+
+    /**
+     * Serializa todas las estadísticas.
+     *
+     * @return array de bytes con las estadísticas serializadas.
+     * @throws IOException excepción al serializar las estadísticas.
+     */
+    private byte[] serializar() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+
+        out.writeInt(VERSION_FORMATO);
+        out.writeInt(Puntuacion.values().length);
+        out.writeInt(TipoPregunta.values().length);
+        out.writeInt(Nivel.values().length);
+
+        out.writeInt(usuarios.size());
+        for (Map.Entry<String, EstadisticasUsuario> entry : usuarios.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().escribir(out);
+        }
+
+        out.writeInt(preguntas.size());
+        for (Map.Entry<String, Estadisticas> entry : preguntas.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().escribir(out);
+        }
+
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    /**
+     * Construye la clave de una pregunta.
+     *
+     * @param tematica temática de la pregunta.
+     * @param id identificador de la pregunta.
+     * @return clave de la pregunta.
+     */
+    private String clavePregunta(String tematica, int id) {
+        return tematica + "/" + id;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.estadisticas;
+
+import com.testchallenge.model.Puntuacion;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Contadores acumulados de las respuestas a una pregunta (o de un usuario).
+ *
+ * Se mantiene el número de respuestas por cada valor de <code>Puntuacion</code> y el tiempo empleado en enviar las
+ * respuestas. Todos los contadores son tipos primitivos para que su actualización no genere objetos.
+ *
+ * @author japrada
+ */
+public class Estadisticas {
+
+    // Número de respuestas por cada valor de Puntuacion (indexado por el ordinal)
+    protected final long[] contadores;
+    // Número de respuestas en las que se ha medido el tiempo de respuesta
+    protected long respuestasConTiempo;
+    // Suma de los tiempos de respuesta (en milisegundos)
+    protected long tiempoTotalMs;
+    // Máximo tiempo de respuesta (en milisegundos)
+    protected long tiempoMaximoMs;
+
+    /**
+     * Construye un objeto con todos los contadores a cero.
+     */
+    public Estadisticas() {
+        contadores = new long[Puntuacion.values().length];
+    }
+
+    /**
+     * Registra una respuesta.
+     *
+     * @param puntuacion puntuación obtenida.
+     * @param tiempoMs tiempo empleado en enviar la respuesta (en milisegundos) o un valor negativo si no se envió.
+     */
+    void registrar(Puntuacion puntuacion, long tiempoMs) {
+        contadores[puntuacion.ordinal()]++;
+        if (tiempoMs >= 0) {
+            respuestasConTiempo++;
+            tiempoTotalMs += tiempoMs;
+            tiempoMaximoMs = Math.max(tiempoMaximoMs, tiempoMs);
+        }
+    }
+
+    /**
+     * Obtiene el número de respuestas con la puntuación especificada.
+     *
+     * @param puntuacion puntuación.
+     * @return número de respuestas con la puntuación especificada.
+     */
+    public long getContador(Puntuacion puntuacion) {
+        return contadores[puntuacion.ordinal()];
+    }
+
+    /**
+     * Obtiene el número total de respuestas registradas (incluidas las no enviadas).
+     *
+     * @return número total de respuestas registradas.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long contador : contadores) {
+            total += contador;
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene el número de respuestas correctas (siendo o no el primero en contestar).
+     *
+     * @return número de respuestas correctas.
+     */
+    public long getAciertos() {
+        return getContador(Puntuacion.CORRECTA_Y_PRIMERA) + getContador(Puntuacion.CORRECTA);
+    }
+
+    /**
+     * Obtiene la tasa de acierto: respuestas correctas entre el total de respuestas registradas.
+     *
+     * @return tasa de acierto (entre 0 y 1) o 0 si no hay respuestas registradas.
+     */
+    public double getTasaAcierto() {
+        long total = getTotal();
+        return total == 0 ? 0 : (double) getAciertos() / total;
+    }
+
+    /**
+     * Obtiene el tiempo medio de respuesta de las respuestas enviadas.
+     *
+     * @return tiempo medio de respuesta (en milisegundos) o 0 si no hay respuestas enviadas.
+     */
+    public double getTiempoMedioMs() {
+        return respuestasConTiempo == 0 ? 0 : (double) tiempoTotalMs / respuestasConTiempo;
+    }
+
+    /**
+     * Obtiene el máximo tiempo de respuesta de las respuestas enviadas.
+     *
+     * @return máximo tiempo de respuesta (en milisegundos).
+     */
+    public long getTiempoMaximoMs() {
+        return tiempoMaximoMs;
+    }
+
+    /**
+     * Copia los contadores de otro objeto en este.
+     *
+     * @param origen objeto del que se copian los contadores.
+     */
+    void copiar(Estadisticas origen) {
+        System.arraycopy(origen.contadores, 0, contadores, 0, contadores.length);
+        respuestasConTiempo = origen.respuestasConTiempo;
+        tiempoTotalMs = origen.tiempoTotalMs;
+        tiempoMaximoMs = origen.tiempoMaximoMs;
+    }
+
+    /**
+     * Escribe los contadores en el stream especificado.
+     *
+     * @param out stream de escritura.
+     * @throws IOException excepción al escribir en el stream.
+     */
+    void escribir(DataOutput out) throws IOException {
+        for (long contador : contadores) {
+            out.writeLong(contador);
+        }
+        out.writeLong(respuestasConTiempo);
+        out.writeLong(tiempoTotalMs);
+        out.writeLong(tiempoMaximoMs);
+    }
+
+    /**
+     * Lee los contadores del stream especificado.
+     *
+     * @param in stream de lectura.
+     * @throws IOException excepción al leer del stream.
+     */
+    void leer(DataInput in) throws IOException {
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] = in.readLong();
+        }
+        respuestasConTiempo = in.readLong();
+        tiempoTotalMs = in.readLong();
+        tiempoMaximoMs = in.readLong();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.estadisticas;
+
+import com.testchallenge.model.Nivel;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.TipoPregunta;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Contadores acumulados de las respuestas de un usuario.
+ *
+ * Además de los contadores por <code>Puntuacion</code> y el tiempo de respuesta, se mantiene el número de respuestas y
+ * de aciertos por tipo de pregunta y por nivel.
+ *
+ * @author japrada
+ */
+public class EstadisticasUsuario extends Estadisticas {
+
+    // Respuestas y aciertos por tipo de pregunta: [ordinal TipoPregunta][0 = respuestas, 1 = aciertos]
+    private final long[][] porTipo;
+    // Respuestas y aciertos por nivel: [ordinal Nivel][0 = respuestas, 1 = aciertos]
+    private final long[][] porNivel;
+
+    /**
+     * Construye un objeto con todos los contadores a cero.
+     */
+    public EstadisticasUsuario() {
+        super();
+        porTipo = new long[TipoPregunta.values().length][2];
+        porNivel = new long[Nivel.values().length][2];
+    }
+
+    /**
+     * Registra una respuesta del usuario.
+     *
+     * @param tipo tipo de la pregunta.
+     * @param nivel nivel de la pregunta (puede ser <code>null</code> si el nivel no es uno de los definidos).
+     * @param puntuacion puntuación obtenida.
+     * @param tiempoMs tiempo empleado en enviar la respuesta (en milisegundos) o un valor negativo si no se envió.
+     */
+    void registrar(TipoPregunta tipo, Nivel nivel, Puntuacion puntuacion, long tiempoMs) {
+        registrar(puntuacion, tiempoMs);
+
+        int acierto = puntuacion == Puntuacion.CORRECTA_Y_PRIMERA || puntuacion == Puntuacion.CORRECTA ? 1 : 0;
+        porTipo[tipo.ordinal()][0]++;
+        porTipo[tipo.ordinal()][1] += acierto;
+        if (nivel != null) {
+            porNivel[nivel.ordinal()][0]++;
+            porNivel[nivel.ordinal()][1] += acierto;
+        }
+    }
+
+    /**
+     * Obtiene la tasa de acierto del usuario en las preguntas del tipo especificado.
+     *
+     * @param tipo tipo de pregunta.
+     * @return tasa de acierto (entre 0 y 1) o 0 si no hay respuestas de ese tipo.
+     */
+    public double getTasaAcierto(TipoPregunta tipo) {
+        long[] contador = porTipo[tipo.ordinal()];
+        return contador[0] == 0 ? 0 : (double) contador[1] / contador[0];
+    }
+
+    /**
+     * Obtiene la tasa de acierto del usuario en las preguntas del nivel especificado.
+     *
+     * @param nivel nivel de las preguntas.
+     * @return tasa de acierto (entre 0 y 1) o 0 si no hay respuestas de ese nivel.
+     */
+    public double getTasaAcierto(Nivel nivel) {
+        long[] contador = porNivel[nivel.ordinal()];
+        return contador[0] == 0 ? 0 : (double) contador[1] / contador[0];
+    }
+
+    @Override
+    void copiar(Estadisticas origen) {
+        super.copiar(origen);
+        EstadisticasUsuario usuario = (EstadisticasUsuario) origen;
+        for (int i = 0; i < porTipo.length; i++) {
+            System.arraycopy(usuario.porTipo[i], 0, porTipo[i], 0, 2);
+        }
+        for (int i = 0; i < porNivel.length; i++) {
+            System.arraycopy(usuario.porNivel[i], 0, porNivel[i], 0, 2);
+        }
+    }
+
+    @Override
+    void escribir(DataOutput out) throws IOException {
+        super.escribir(out);
+        for (long[] contador : porTipo) {
+            out.writeLong(contador[0]);
+            out.writeLong(contador[1]);
+        }
+        for (long[] contador : porNivel) {
+            out.writeLong(contador[0]);
+            out.writeLong(contador[1]);
+        }
+    }
+
+    @Override
+    void leer(DataInput in) throws IOException {
+        super.leer(in);
+        for (long[] contador : porTipo) {
+            contador[0] = in.readLong();
+            contador[1] = in.readLong();
+        }
+        for (long[] contador : porNivel) {
+            contador[0] = in.readLong();
+            contador[1] = in.readLong();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.historico;
+
+import com.testchallenge.model.Configuracion;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * Histórico de los tests finalizados.
+ *
+ * Los tests se almacenan en segmentos de sólo añadir: un segmento por temática y día (según la fecha de inicio del
+ * test), en el directorio <code>&lt;directorio&gt;/&lt;temática&gt;/&lt;yyyyMMdd&gt;.dat</code>. Cada test ocupa un
+ * bloque en el que la información se guarda por columnas (identificadores de las preguntas, nicknames y, por cada
+ * pregunta, un byte por participante con la puntuación obtenida).
+ *
+ * Junto a cada segmento se mantiene un índice temporal (<code>.idx</code>) con una entrada de tamaño fijo por test:
+ * fecha de inicio, fecha de finalización, desplazamiento y longitud del bloque. Las consultas por rango de fechas sólo
+ * abren los segmentos de los días afectados, recorren su índice y leen únicamente los bloques seleccionados, que se
+ * entregan de uno en uno al consumidor sin cargar el histórico en memoria.
+ *
+ * @author japrada
+ */
+public class ArchivoHistorico {
+
+    // Versión del formato de los bloques
+    private static final byte VERSION_FORMATO = 1;
+    // Extensiones de los ficheros de datos y de índice de un segmento
+    private static final String EXTENSION_DATOS = ".dat";
+    private static final String EXTENSION_INDICE = ".idx";
+    // Formato del nombre de un segmento (un segmento por día)
+    private static final DateTimeFormatter FORMATO_SEGMENTO = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // Tamaño de una entrada del índice: inicio (long), fin (long), desplazamiento (long) y longitud (int)
+    private static final int TAMANO_ENTRADA_INDICE = 8 + 8 + 8 + 4;
+
+    // Directorio raíz del histórico
+    private final File directorio;
+    // Zona horaria utilizada para asignar los tests a los segmentos diarios
+    private final ZoneId zona;
+
+    /**
+     * Construye un histórico que almacena los segmentos en el directorio especificado.
+     *
+     * @param directorio directorio raíz del histórico.
+     */
+    public ArchivoHistorico(File directorio) {
+        this.directorio = directorio;
+        this.zona = ZoneId.systemDefault();
+    }
+
+    /**
+     * Añade un test finalizado al segmento que le corresponde según su temática y su fecha de inicio.
+     *
+     * @param registro registro del test finalizado.
+     * @throws IOException excepción al escribir en el histórico.
+     */
+    public synchronized void archivar(RegistroTest registro) throws IOException {
+        File directorioTematica = new File(directorio, registro.getConfiguracion().getTematica());
+        if (!directorioTematica.isDirectory() && !directorioTematica.mkdirs()) {
+            throw new IOException(String.format("No se ha podido crear el directorio '%s'.", directorioTematica));
+        }
+
+        String segmento = FORMATO_SEGMENTO.format(toLocalDate(registro.getStartDate()));
+        byte[] bloque = codificar(registro);
+
+        // Primero se añade el bloque al fichero de datos y, después, su entrada en el índice. Si el proceso se
+        // interrumpe entre ambas escrituras, el bloque queda huérfano pero el segmento sigue siendo consistente.
+        long desplazamiento;
+        try (FileChannel datos = FileChannel.open(new File(directorioTematica, segmento + EXTENSION_DATOS).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            desplazamiento = datos.size();
+            escribir(datos, ByteBuffer.wrap(bloque));
+            datos.force(false);
+        }
+
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANO_ENTRADA_INDICE);
+        entrada.putLong(registro.getStartDate().getTime());
+        entrada.putLong(registro.getEndDate().getTime());
+        entrada.putLong(desplazamiento);
+        entrada.putInt(bloque.length);
+        entrada.flip();
+
+        try (FileChannel indice = FileChannel.open(new File(directorioTematica, segmento + EXTENSION_INDICE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            escribir(indice, entrada);
+            indice.force(false);
+        }
+    }
+
+    /**
+     * Recorre los tests de una temática cuya fecha de inicio se encuentra en el rango especificado (ambos extremos
+     * incluidos), entregándolos de uno en uno al consumidor en orden cronológico.
+     *
+     * @param tematica temática de los tests.
+     * @param desde fecha y hora de inicio del rango.
+     * @param hasta fecha y hora de fin del rango.
+     * @param consumidor consumidor que recibe cada uno de los tests seleccionados.
+     * @return número de tests entregados al consumidor.
+     * @throws IOException excepción al leer del histórico.
+     */
+    public int consultar(String tematica, Date desde, Date hasta, Consumer<RegistroTest> consumidor) throws IOException {
+        File directorioTematica = new File(directorio, tematica);
+        String[] indices = directorioTematica.list((dir, nombre) -> nombre.endsWith(EXTENSION_INDICE));
+        if (indices == null) {
+            return 0;
+        }
+
+        // Sólo se abren los segmentos de los días comprendidos en el rango (el nombre se ordena cronológicamente)
+        String primerSegmento = FORMATO_SEGMENTO.format(toLocalDate(desde));
+        String ultimoSegmento = FORMATO_SEGMENTO.format(toLocalDate(hasta));
+        Arrays.sort(indices);
+
+        int encontrados = 0;
+        for (String indice : indices) {
+            String segmento = indice.substring(0, indice.length() - EXTENSION_INDICE.length());
+            if (segmento.compareTo(primerSegmento) >= 0 && segmento.compareTo(ultimoSegmento) <= 0) {
+                encontrados += consultarSegmento(directorioTematica, segmento, tematica,
+                        desde.getTime(), hasta.getTime(), consumidor);
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Recorre el índice de un segmento y entrega al consumidor los tests cuyo inicio está en el rango especificado.
+     *
+     * @param directorioTematica directorio de la temática.
+     * @param segmento nombre del segmento (sin extensión).
+     * @param tematica temática de los tests.
+     * @param desde inicio del rango (milisegundos).
+     * @param hasta fin del rango (milisegundos).
+     * @param consumidor consumidor que recibe cada uno de los tests seleccionados.
+     * @return número de tests entregados al consumidor.
+     * @throws IOException excepción al leer el segmento.
+     */
+    private int consultarSegmento(File directorioTematica,
+            String segmento,
+            String tematica,
+            long desde,
+            long hasta,
+            Consumer<RegistroTest> consumidor) throws IOException {
+
+        int encontrados = 0;
+        try (DataInputStream indice = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(new File(directorioTematica, segmento + EXTENSION_INDICE))));
+                FileChannel datos = FileChannel.open(new File(directorioTematica, segmento + EXTENSION_DATOS).toPath(),
+                        StandardOpenOption.READ)) {
+
+            while (true) {
+                long inicio;
+                long fin;
+                long desplazamiento;
+                int longitud;
+                try {
+                    inicio = indice.readLong();
+                    fin = indice.readLong();
+                    desplazamiento = indice.readLong();
+                    longitud = indice.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+
+                if (inicio >= desde && inicio <= hasta) {
+                    ByteBuffer bloque = ByteBuffer.allocate(longitud);
+                    while (bloque.hasRemaining()) {
+                        if (datos.read(bloque, desplazamiento + bloque.position()) < 0) {
+                            throw new EOFException(String.format("Bloque truncado en el segmento '%s'.", segmento));
+                        }
+                    }
+                    consumidor.accept(decodificar(bloque.array(), tematica, inicio, fin));
+                    encontrados++;
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Codifica un test en un bloque del segmento.
+     *
+     * @param registro registro del test.
+     * @return bloque codificado.
+     * @throws IOException excepción al codificar el bloque.
+     */
+    private byte[] codificar(RegistroTest registro) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+
+        Configuracion configuracion = registro.getConfiguracion();
+        out.writeByte(VERSION_FORMATO);
+        out.writeUTF(configuracion.getNivel());
+        String[] tiposPreguntas = configuracion.getTiposPreguntas();
+        out.writeByte(tiposPreguntas.length);
+        for (String tipo : tiposPreguntas) {
+            out.writeUTF(tipo);
+        }
+        out.writeInt(configuracion.getNumeroPreguntas());
+        out.writeInt(configuracion.getTiempoLimite());
+
+        // Columna de preguntas
+        int[] idsPreguntas = registro.getIdsPreguntas();
+        out.writeInt(idsPreguntas.length);
+        for (int id : idsPreguntas) {
+            out.writeInt(id);
+        }
+
+        // Columna de participantes
+        String[] nicknames = registro.getColumnaNicknames();
+        out.writeInt(nicknames.length);
+        for (String nickname : nicknames) {
+            out.writeUTF(nickname);
+        }
+
+        // Columnas de puntuaciones (una por pregunta)
+        for (byte[] columna : registro.getColumnasPuntuaciones()) {
+            out.write(columna);
+        }
+
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    /**
+     * Decodifica un bloque del segmento.
+     *
+     * @param bloque bloque codificado.
+     * @param tematica temática del segmento.
+     * @param inicio fecha de inicio del test (milisegundos).
+     * @param fin fecha de finalización del test (milisegundos).
+     * @return registro del test.
+     * @throws IOException excepción al decodificar el bloque.
+     */
+    private RegistroTest decodificar(byte[] bloque, String tematica, long inicio, long fin) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bloque));
+
+        byte version = in.readByte();
+        if (version != VERSION_FORMATO) {
+            throw new IOException(String.format("Versión del formato del histórico no soportada: %d.", version));
+        }
+
+        String nivel = in.readUTF();
+        String[] tiposPreguntas = new String[in.readByte()];
+        for (int i = 0; i < tiposPreguntas.length; i++) {
+            tiposPreguntas[i] = in.readUTF();
+        }
+        int numeroPreguntas = in.readInt();
+        int tiempoLimite = in.readInt();
+
+        int[] idsPreguntas = new int[in.readInt()];
+        for (int i = 0; i < idsPreguntas.length; i++) {
+            idsPreguntas[i] = in.readInt();
+        }
+
+        String[] nicknames = new String[in.readInt()];
+        for (int i = 0; i < nicknames.length; i++) {
+            nicknames[i] = in.readUTF();
+        }
+
+        byte[][] puntuaciones = new byte[idsPreguntas.length][nicknames.length];
+        for (byte[] columna : puntuaciones) {
+            in.readFully(columna);
+        }
+
+        return new RegistroTest(
+                new Configuracion(tematica, nivel, tiposPreguntas, numeroPreguntas, tiempoLimite),
+                new Date(inicio),
+                new Date(fin),
+                idsPreguntas,
+                nicknames,
+                puntuaciones);
+    }
+
+    /**
+     * Escribe completamente el buffer en el canal.
+     *
+     * @param canal canal de escritura.
+     * @param buffer buffer con los datos.
+     * @throws IOException excepción al escribir en el canal.
+     */
+    private void escribir(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    /**
+     * Obtiene el día (en la zona horaria del servidor) de una fecha.
+     *
+     * @param fecha fecha.
+     * @return día de la fecha.
+     */
+    private LocalDate toLocalDate(Date fecha) {
+        return Instant.ofEpochMilli(fecha.getTime()).atZone(zona).toLocalDate();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.historico;
+
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Puntuacion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Registro de un test finalizado tal y como se almacena en el histórico.
+ *
+ * La información se organiza por columnas: la lista de identificadores de las preguntas enviadas, la lista de
+ * nicknames de los participantes y, para cada pregunta, la puntuación obtenida por cada participante (en el mismo
+ * orden que la lista de nicknames).
+ *
+ * @author japrada
+ */
+public class RegistroTest {
+
+    // Valor de la columna de puntuaciones para un usuario que no participaba cuando se envió la pregunta
+    static final byte SIN_PARTICIPACION = -1;
+
+    // Configuración del test
+    private final Configuracion configuracion;
+    // Fecha y hora de inicio del test
+    private final Date startDate;
+    // Fecha y hora de finalización del test
+    private final Date endDate;
+    // Identificadores de las preguntas enviadas (en el orden en el que se enviaron)
+    private final int[] idsPreguntas;
+    // Nicknames de los participantes
+    private final String[] nicknames;
+    // Puntuaciones por pregunta y participante (ordinal de Puntuacion o SIN_PARTICIPACION)
+    private final byte[][] puntuaciones;
+
+    /**
+     * Construye un registro a partir de las puntuaciones parciales obtenidas en cada una de las preguntas del test.
+     *
+     * @param configuracion configuración del test.
+     * @param startDate fecha y hora de inicio del test.
+     * @param endDate fecha y hora de finalización del test.
+     * @param idsPreguntas identificadores de las preguntas enviadas.
+     * @param puntuacionesPorPregunta puntuaciones de los usuarios en cada una de las preguntas enviadas.
+     */
+    public RegistroTest(Configuracion configuracion,
+            Date startDate,
+            Date endDate,
+            List<Integer> idsPreguntas,
+            List<Map<String, Puntuacion>> puntuacionesPorPregunta) {
+
+        this.configuracion = configuracion;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.idsPreguntas = idsPreguntas.stream().mapToInt(Integer::intValue).toArray();
+
+        // Los participantes son todos los usuarios que han tenido puntuación en alguna de las preguntas
+        TreeSet<String> participantes = new TreeSet<>();
+        puntuacionesPorPregunta.forEach(p -> participantes.addAll(p.keySet()));
+        this.nicknames = participantes.toArray(new String[0]);
+
+        this.puntuaciones = new byte[this.idsPreguntas.length][nicknames.length];
+        for (int i = 0; i < this.idsPreguntas.length; i++) {
+            Arrays.fill(puntuaciones[i], SIN_PARTICIPACION);
+            if (i < puntuacionesPorPregunta.size()) {
+                Map<String, Puntuacion> puntuacionesPregunta = puntuacionesPorPregunta.get(i);
+                for (int j = 0; j < nicknames.length; j++) {
+                    Puntuacion puntuacion = puntuacionesPregunta.get(nicknames[j]);
+                    if (puntuacion != null) {
+                        puntuaciones[i][j] = (byte) puntuacion.ordinal();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Construye un registro a partir de sus columnas (utilizado al leer del histórico).
+     *
+     * @param configuracion configuración del test.
+     * @param startDate fecha y hora de inicio del test.
+     * @param endDate fecha y hora de finalización del test.
+     * @param idsPreguntas columna con los identificadores de las preguntas.
+     * @param nicknames columna con los nicknames de los participantes.
+     * @param puntuaciones columnas con las puntuaciones de cada pregunta.
+     */
+    RegistroTest(Configuracion configuracion,
+            Date startDate,
+            Date endDate,
+            int[] idsPreguntas,
+            String[] nicknames,
+            byte[][] puntuaciones) {
+        this.configuracion = configuracion;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.idsPreguntas = idsPreguntas;
+        this.nicknames = nicknames;
+        this.puntuaciones = puntuaciones;
+    }
+
+    /**
+     * Obtiene la configuración del test.
+     *
+     * @return configuración del test.
+     */
+    public Configuracion getConfiguracion() {
+        return configuracion;
+    }
+
+    /**
+     * Obtiene la fecha y hora de inicio del test.
+     *
+     * @return fecha y hora de inicio del test.
+     */
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Obtiene la fecha y hora de finalización del test.
+     *
+     * @return fecha y hora de finalización del test.
+     */
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Obtiene los identificadores de las preguntas enviadas en el test.
+     *
+     * @return identificadores de las preguntas enviadas en el test.
+     */
+    public int[] getIdsPreguntas() {
+        return idsPreguntas;
+    }
+
+    /**
+     * Obtiene los nicknames de los participantes en el test.
+     *
+     * @return lista con los nicknames de los participantes.
+     */
+    public List<String> getNicknames() {
+        return Collections.unmodifiableList(Arrays.asList(nicknames));
+    }
+
+    /**
+     * Obtiene la puntuación obtenida por un usuario en una pregunta.
+     *
+     * @param nickname nickname del usuario.
+     * @param indicePregunta índice (empezando en 0) de la pregunta en el test.
+     * @return puntuación del usuario o <code>null</code> si el usuario no participaba cuando se envió la pregunta.
+     */
+    public Puntuacion getPuntuacion(String nickname, int indicePregunta) {
+        int j = Arrays.binarySearch(nicknames, nickname);
+        if (j < 0 || puntuaciones[indicePregunta][j] == SIN_PARTICIPACION) {
+            return null;
+        }
+        return Puntuacion.values()[puntuaciones[indicePregunta][j]];
+    }
+
+    /**
+     * Obtiene las puntuaciones obtenidas por un usuario en todas las preguntas del test.
+     *
+     * @param nickname nickname del usuario.
+     * @return lista con las puntuaciones del usuario (con <code>null</code> en las preguntas en las que no participó).
+     */
+    public List<Puntuacion> getPuntuaciones(String nickname) {
+        List<Puntuacion> puntuacionesUsuario = new ArrayList<>();
+        for (int i = 0; i < idsPreguntas.length; i++) {
+            puntuacionesUsuario.add(getPuntuacion(nickname, i));
+        }
+        return puntuacionesUsuario;
+    }
+
+    /**
+     * Obtiene la columna interna de nicknames.
+     *
+     * @return columna de nicknames.
+     */
+    String[] getColumnaNicknames() {
+        return nicknames;
+    }
+
+    /**
+     * Obtiene las columnas internas de puntuaciones.
+     *
+     * @return columnas de puntuaciones.
+     */
+    byte[][] getColumnasPuntuaciones() {
+        return puntuaciones;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JFR que abarca la carga del banco de preguntas de una temática al preparar un test.
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.CargaBanco")
+@Label("Carga del banco de preguntas")
+@Category({"TestChallenge", "Banco de preguntas"})
+@Description("Lectura de las preguntas de una temática y de sus ficheros multimedia")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class EventoCargaBanco extends Event {
+
+    @Label("Temática")
+    String tematica;
+
+    @Label("Preguntas")
+    int preguntas;
+
+    /**
+     * Finaliza el evento y lo emite si supera el umbral.
+     *
+     * @param tematica temática cargada.
+     * @param preguntas número de preguntas cargadas.
+     */
+    public void finalizar(String tematica, int preguntas) {
+        end();
+        if (shouldCommit()) {
+            this.tematica = tematica;
+            this.preguntas = preguntas;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento de JFR que se emite cuando un usuario arranca un test.
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.InicioTest")
+@Label("Inicio de test")
+@Category({"TestChallenge", "Test"})
+@Description("Un usuario ha solicitado la ejecución de un test")
+@StackTrace(false)
+public final class EventoInicioTest extends Event {
+
+    @Label("Nickname")
+    @Description("Usuario que ha solicitado el test")
+    String nickname;
+
+    @Label("Temática")
+    String tematica;
+
+    @Label("Nivel")
+    String nivel;
+
+    @Label("Preguntas solicitadas")
+    int numeroPreguntas;
+
+    @Label("Tiempo límite")
+    @Timespan(Timespan.SECONDS)
+    long tiempoLimite;
+
+    @Label("Participantes")
+    int participantes;
+
+    /**
+     * Emite el evento si está habilitado.
+     *
+     * @param nickname usuario que ha solicitado el test.
+     * @param tematica temática del test.
+     * @param nivel nivel del test.
+     * @param numeroPreguntas número de preguntas solicitado.
+     * @param tiempoLimite tiempo límite de cada pregunta (en segundos).
+     * @param participantes participantes conectados.
+     */
+    public static void emitir(String nickname, String tematica, String nivel, int numeroPreguntas, int tiempoLimite,
+            int participantes) {
+        EventoInicioTest evento = new EventoInicioTest();
+        if (evento.shouldCommit()) {
+            evento.nickname = nickname;
+            evento.tematica = tematica;
+            evento.nivel = nivel;
+            evento.numeroPreguntas = numeroPreguntas;
+            evento.tiempoLimite = tiempoLimite;
+            evento.participantes = participantes;
+            evento.commit();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento de JFR que se emite cuando se agota el plazo de una cuenta atrás (inicio del test o tiempo de respuesta de
+ * una pregunta).
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.PlazoAgotado")
+@Label("Plazo agotado")
+@Category({"TestChallenge", "Temporizadores"})
+@Description("Se ha agotado el plazo de una cuenta atrás")
+@StackTrace(false)
+public final class EventoPlazoAgotado extends Event {
+
+    @Label("Segundos")
+    @Description("Duración inicial de la cuenta atrás")
+    @Timespan(Timespan.SECONDS)
+    long segundos;
+
+    @Label("Retraso")
+    @Description("Retraso con el que la rueda de temporizadores ha detectado el fin del plazo")
+    @Timespan(Timespan.NANOSECONDS)
+    long retraso;
+
+    /**
+     * Emite el evento si está habilitado.
+     *
+     * @param segundos duración inicial de la cuenta atrás (en segundos).
+     * @param retraso retraso en la detección del fin del plazo (en nanosegundos).
+     */
+    public static void emitir(int segundos, long retraso) {
+        EventoPlazoAgotado evento = new EventoPlazoAgotado();
+        if (evento.shouldCommit()) {
+            evento.segundos = segundos;
+            evento.retraso = retraso;
+            evento.commit();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.ReferenciaMultimedia;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JFR que abarca el envío de una pregunta a todos los participantes.
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.PreguntaEnviada")
+@Label("Pregunta enviada")
+@Category({"TestChallenge", "Test"})
+@Description("Envío de una pregunta a todos los participantes conectados")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class EventoPreguntaEnviada extends Event {
+
+    @Label("Número de orden")
+    int numeroOrden;
+
+    @Label("Identificador")
+    @Description("Identificador de la pregunta en el banco de preguntas")
+    int idPregunta;
+
+    @Label("Tipo")
+    String tipo;
+
+    @Label("Bytes multimedia")
+    @DataAmount
+    long bytesMultimedia;
+
+    @Label("Participantes")
+    int participantes;
+
+    /**
+     * Finaliza el evento y lo emite si supera el umbral.
+     *
+     * @param pregunta pregunta enviada.
+     * @param participantes participantes a los que se ha enviado.
+     */
+    public void finalizar(Pregunta pregunta, int participantes) {
+        end();
+        if (shouldCommit()) {
+            numeroOrden = pregunta.getNumeroOrden();
+            idPregunta = pregunta.getId();
+            tipo = pregunta.getTipo().getTipo();
+            ReferenciaMultimedia multimedia = pregunta.getReferenciaMultimedia();
+            bytesMultimedia = multimedia != null ? multimedia.getLongitud() : 0;
+            this.participantes = participantes;
+            commit();
+        }
+    }
+}
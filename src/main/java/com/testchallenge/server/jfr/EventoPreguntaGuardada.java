@@ -0,0 +1,72 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import com.testchallenge.model.Pregunta;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JFR que abarca el guardado en el banco de preguntas de una pregunta subida por un participante.
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.PreguntaGuardada")
+@Label("Pregunta guardada")
+@Category({"TestChallenge", "Banco de preguntas"})
+@Description("Escritura en disco de una pregunta subida por un participante y de su fichero multimedia")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class EventoPreguntaGuardada extends Event {
+
+    @Label("Nickname")
+    String nickname;
+
+    @Label("Temática")
+    String tematica;
+
+    @Label("Identificador")
+    int idPregunta;
+
+    @Label("Bytes multimedia")
+    @DataAmount
+    long bytesMultimedia;
+
+    /**
+     * Finaliza el evento y lo emite si supera el umbral.
+     *
+     * @param nickname participante que ha subido la pregunta.
+     * @param pregunta pregunta guardada.
+     */
+    public void finalizar(String nickname, Pregunta pregunta) {
+        end();
+        if (shouldCommit()) {
+            this.nickname = nickname;
+            tematica = pregunta.getTematica();
+            idPregunta = pregunta.getId();
+            byte[] multimedia = pregunta.getFicheroMultimediaData();
+            bytesMultimedia = multimedia != null ? multimedia.length : 0;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JFR que abarca el registro de un participante, desde que se acepta la conexión hasta que queda registrado
+ * (o se rechaza su nickname).
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.Registro")
+@Label("Registro")
+@Category({"TestChallenge", "Conexiones"})
+@Description("Protocolo de registro de un participante")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class EventoRegistro extends Event {
+
+    @Label("Nickname")
+    String nickname;
+
+    @Label("Aceptado")
+    @Description("El nickname no estaba en uso y el participante ha quedado registrado")
+    boolean aceptado;
+
+    @Label("Test en ejecución")
+    @Description("El participante se ha incorporado a un test en ejecución")
+    boolean testEnEjecucion;
+
+    /**
+     * Finaliza el evento y lo emite si supera el umbral.
+     *
+     * @param nickname nickname del participante.
+     * @param aceptado <code>true</code> si el participante ha quedado registrado.
+     * @param testEnEjecucion <code>true</code> si hay un test en ejecución.
+     */
+    public void finalizar(String nickname, boolean aceptado, boolean testEnEjecucion) {
+        end();
+        if (shouldCommit()) {
+            this.nickname = nickname;
+            this.aceptado = aceptado;
+            this.testEnEjecucion = testEnEjecucion;
+            commit();
+        }
+    }
+}
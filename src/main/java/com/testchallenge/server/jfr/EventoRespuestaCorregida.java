@@ -0,0 +1,69 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import com.testchallenge.model.Puntuacion;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JFR que abarca la corrección de una respuesta, desde que se lee del stream del participante hasta que se
+ * le notifica el resultado (incluida la espera por el servidor de test, que corrige las respuestas de una en una).
+ *
+ * Por defecto solo se emiten las correcciones que superan 1 ms.
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.RespuestaCorregida")
+@Label("Respuesta corregida")
+@Category({"TestChallenge", "Test"})
+@Description("Recepción y corrección de la respuesta de un participante")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class EventoRespuestaCorregida extends Event {
+
+    @Label("Nickname")
+    String nickname;
+
+    @Label("Número de pregunta")
+    int numeroPregunta;
+
+    @Label("Puntuación")
+    String puntuacion;
+
+    /**
+     * Finaliza el evento y lo emite si supera el umbral.
+     *
+     * @param nickname participante que ha enviado la respuesta.
+     * @param numeroPregunta número de orden de la pregunta respondida.
+     * @param puntuacion puntuación obtenida.
+     */
+    public void finalizar(String nickname, Integer numeroPregunta, Puntuacion puntuacion) {
+        end();
+        if (shouldCommit()) {
+            this.nickname = nickname;
+            this.numeroPregunta = numeroPregunta != null ? numeroPregunta : 0;
+            this.puntuacion = puntuacion != null ? puntuacion.name() : null;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JFR que abarca la ejecución de un test, desde que se prepara hasta que finaliza.
+ *
+ * Se inicia con <code>begin()</code> al arrancar el servidor de test y se emite con <code>finalizar</code>.
+ *
+ * @author japrada
+ */
+@Name("com.testchallenge.Test")
+@Label("Test")
+@Category({"TestChallenge", "Test"})
+@Description("Ejecución de un test, desde su preparación hasta su finalización")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class EventoTest extends Event {
+
+    @Label("Nickname")
+    @Description("Usuario que ha solicitado el test")
+    String nickname;
+
+    @Label("Temática")
+    String tematica;
+
+    @Label("Preguntas seleccionadas")
+    int preguntasSeleccionadas;
+
+    @Label("Preguntas enviadas")
+    int preguntasEnviadas;
+
+    @Label("Participantes")
+    @Description("Participantes conectados al finalizar el test")
+    int participantes;
+
+    @Label("Detenido")
+    @Description("El test ha finalizado antes de enviar todas las preguntas")
+    boolean detenido;
+
+    /**
+     * Finaliza el evento y lo emite si supera el umbral.
+     *
+     * @param nickname usuario que ha solicitado el test.
+     * @param tematica temática del test.
+     * @param preguntasSeleccionadas preguntas seleccionadas para el test.
+     * @param preguntasEnviadas preguntas enviadas a los participantes.
+     * @param participantes participantes conectados al finalizar el test.
+     */
+    public void finalizar(String nickname, String tematica, int preguntasSeleccionadas, int preguntasEnviadas,
+            int participantes) {
+        end();
+        if (shouldCommit()) {
+            this.nickname = nickname;
+            this.tematica = tematica;
+            this.preguntasSeleccionadas = preguntasSeleccionadas;
+            this.preguntasEnviadas = preguntasEnviadas;
+            this.participantes = participantes;
+            this.detenido = preguntasEnviadas < preguntasSeleccionadas;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.latencia;
+
+import com.testchallenge.model.Respuesta;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimador del tiempo de ida y vuelta (RTT) y del desfase entre el reloj del cliente y el del servidor de una sesión.
+ *
+ * Cada intercambio PING/PONG aporta cuatro marcas de tiempo, al estilo de NTP: envío del PING en el servidor
+ * (<code>t0</code>), recepción en el cliente (<code>t1</code>), envío del PONG en el cliente (<code>t2</code>) y
+ * recepción en el servidor (<code>t3</code>). De las últimas muestras se toma el desfase de la de menor RTT, que es la
+ * menos afectada por colas en la red, y el RTT se suaviza con una media móvil exponencial.
+ *
+ * Todas las marcas son milisegundos de un reloj monótono: <code>ahora()</code> en el servidor y el equivalente en el
+ * cliente. El desfase absorbe la diferencia entre ambos orígenes.
+ *
+ * @author japrada
+ */
+public class EstimadorLatencia {
+
+    // Número de muestras que se conservan para elegir la de menor RTT
+    private static final int NUMERO_MUESTRAS = 8;
+    // Peso de la última muestra en la media móvil del RTT (como el SRTT de TCP)
+    private static final double PESO_MUESTRA_RTT = 0.125;
+    // Margen de tolerancia (en milisegundos) al contrastar las marcas de tiempo del cliente con las del servidor
+    private static final long MARGEN_MS = 5;
+
+    // RTT de las últimas muestras (buffer circular)
+    private final long[] rtts;
+    // Desfase de las últimas muestras (buffer circular)
+    private final long[] desfases;
+    // Número de muestras registradas
+    private int muestras;
+    // RTT suavizado (en milisegundos)
+    private double rttSuavizado;
+
+    /**
+     * Construye un estimador sin muestras.
+     */
+    public EstimadorLatencia() {
+        rtts = new long[NUMERO_MUESTRAS];
+        desfases = new long[NUMERO_MUESTRAS];
+    }
+
+    /**
+     * Obtiene el instante actual del reloj monótono en milisegundos.
+     *
+     * @return instante actual en milisegundos.
+     */
+    public static long ahora() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Registra un intercambio PING/PONG completo.
+     *
+     * @param t0 envío del PING (reloj del servidor).
+     * @param t1 recepción del PING (reloj del cliente).
+     * @param t2 envío del PONG (reloj del cliente).
+     * @param t3 recepción del PONG (reloj del servidor).
+     */
+    public synchronized void registrarMuestra(long t0, long t1, long t2, long t3) {
+        long rtt = Math.max((t3 - t0) - (t2 - t1), 0);
+        long desfase = ((t1 - t0) + (t2 - t3)) / 2;
+
+        int i = muestras % NUMERO_MUESTRAS;
+        rtts[i] = rtt;
+        desfases[i] = desfase;
+        rttSuavizado = muestras == 0 ? rtt : (1 - PESO_MUESTRA_RTT) * rttSuavizado + PESO_MUESTRA_RTT * rtt;
+        muestras++;
+    }
+
+    /**
+     * Indica si ya se ha registrado alguna muestra.
+     *
+     * @return <code>true</code> si hay al menos una muestra.
+     */
+    public synchronized boolean hayMuestras() {
+        return muestras > 0;
+    }
+
+    /**
+     * Obtiene el RTT suavizado.
+     *
+     * @return RTT suavizado en milisegundos (0 si no hay muestras).
+     */
+    public synchronized long getRttMs() {
+        return Math.round(rttSuavizado);
+    }
+
+    /**
+     * Obtiene el desfase del reloj del cliente respecto al del servidor (reloj cliente - reloj servidor), tomado de la
+     * muestra reciente con menor RTT.
+     *
+     * @return desfase en milisegundos (0 si no hay muestras).
+     */
+    public synchronized long getDesfaseMs() {
+        int n = Math.min(muestras, NUMERO_MUESTRAS);
+        int mejor = -1;
+        for (int i = 0; i < n; i++) {
+            if (mejor < 0 || rtts[i] < rtts[mejor]) {
+                mejor = i;
+            }
+        }
+        return mejor < 0 ? 0 : desfases[mejor];
+    }
+
+    /**
+     * Calcula el tiempo de respuesta compensado por la latencia de red: el tiempo transcurrido desde que el cliente
+     * recibió la pregunta hasta que envió la respuesta.
+     *
+     * Se parte del tiempo medido en el servidor entre el envío de la pregunta a este cliente y la llegada de la
+     * respuesta, que incluye el viaje de ida y el de vuelta. Si el cliente ha enviado sus marcas de tiempo y, pasadas al
+     * reloj del servidor con el desfase estimado, caen dentro de ese intervalo, se usa el tiempo medido por el cliente,
+     * acotado de modo que no pueda descontar más que el RTT estimado. En otro caso se descuenta el RTT estimado.
+     *
+     * @param envioPregunta instante (reloj del servidor) en el que se envió la pregunta a este cliente.
+     * @param recepcionRespuesta instante (reloj del servidor) en el que se recibió la respuesta.
+     * @param respuesta respuesta recibida (con las marcas de tiempo del cliente, si las ha enviado).
+     * @return tiempo de respuesta compensado en milisegundos.
+     */
+    public synchronized long compensarTiempoRespuesta(long envioPregunta, long recepcionRespuesta, Respuesta respuesta) {
+        long tiempoServidor = Math.max(recepcionRespuesta - envioPregunta, 0);
+        if (muestras == 0) {
+            return tiempoServidor;
+        }
+
+        long rtt = getRttMs();
+        long minimo = Math.max(tiempoServidor - rtt - MARGEN_MS, 0);
+
+        long recepcionCliente = respuesta.getInstanteRecepcionPregunta();
+        long envioCliente = respuesta.getInstanteEnvio();
+        if (recepcionCliente > 0 && envioCliente >= recepcionCliente) {
+            long desfase = getDesfaseMs();
+            boolean coherente = recepcionCliente - desfase >= envioPregunta - MARGEN_MS
+                    && envioCliente - desfase <= recepcionRespuesta + MARGEN_MS;
+            if (coherente) {
+                return Math.min(Math.max(envioCliente - recepcionCliente, minimo), tiempoServidor);
+            }
+        }
+        return Math.max(tiempoServidor - rtt, 0);
+    }
+}
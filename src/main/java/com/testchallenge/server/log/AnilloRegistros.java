@@ -0,0 +1,119 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.LogRecord;
+
+/**
+ * Anillo acotado de registros de log con varios productores y un único consumidor.
+ *
+ * Cada posición del anillo tiene una secuencia que indica si está libre para la vuelta en curso o si contiene un
+ * registro pendiente de consumir. Los productores reservan posiciones con una operación CAS y nunca esperan: si el
+ * anillo está lleno, <code>ofrecer</code> devuelve <code>false</code> y el registro se descarta.
+ *
+ * @author japrada
+ */
+class AnilloRegistros {
+
+    // Registros del anillo (la visibilidad entre hilos la garantizan las escrituras y lecturas de las secuencias)
+    private final LogRecord[] registros;
+    // Secuencia de cada posición: igual a la posición de escritura si está libre, y a ésta más uno si está ocupada
+    private final AtomicLongArray secuencias;
+    // Máscara para obtener el índice de una posición (la capacidad es potencia de dos)
+    private final int mascara;
+    // Siguiente posición de escritura
+    private final AtomicLong cola = new AtomicLong();
+    // Siguiente posición de lectura (solo la modifica el consumidor)
+    private long cabeza;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param capacidad número de registros del anillo (se redondea a la siguiente potencia de dos).
+     */
+    AnilloRegistros(int capacidad) {
+        if (capacidad < 1 || capacidad > (1 << 30)) {
+            throw new IllegalArgumentException(String.format("Capacidad '%d' no válida", capacidad));
+        }
+        int tamano = Integer.highestOneBit(capacidad);
+        if (tamano < capacidad) {
+            tamano <<= 1;
+        }
+        registros = new LogRecord[tamano];
+        secuencias = new AtomicLongArray(tamano);
+        for (int i = 0; i < tamano; i++) {
+            secuencias.set(i, i);
+        }
+        mascara = tamano - 1;
+    }
+
+    /**
+     * Añade un registro al anillo si hay sitio (puede llamarse desde cualquier hilo).
+     *
+     * @param registro registro a añadir.
+     * @return <code>true</code> si se ha añadido o <code>false</code> si el anillo está lleno.
+     */
+    boolean ofrecer(LogRecord registro) {
+        long posicion = cola.get();
+        while (true) {
+            int i = (int) (posicion & mascara);
+            long diferencia = secuencias.get(i) - posicion;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(posicion, posicion + 1)) {
+                    registros[i] = registro;
+                    secuencias.set(i, posicion + 1);
+                    return true;
+                }
+                posicion = cola.get();
+            } else if (diferencia < 0) {
+                // La posición aún tiene el registro de la vuelta anterior: el anillo está lleno
+                return false;
+            } else {
+                // Otro productor ha reservado la posición
+                posicion = cola.get();
+            }
+        }
+    }
+
+    /**
+     * Extrae el registro más antiguo del anillo (solo puede llamarse desde el hilo consumidor).
+     *
+     * @return registro extraído o <code>null</code> si no hay registros pendientes.
+     */
+    LogRecord extraer() {
+        int i = (int) (cabeza & mascara);
+        if (secuencias.get(i) != cabeza + 1) {
+            return null;
+        }
+        LogRecord registro = registros[i];
+        registros[i] = null;
+        secuencias.set(i, cabeza + registros.length);
+        cabeza++;
+        return registro;
+    }
+
+    /**
+     * Obtiene la capacidad del anillo.
+     *
+     * @return número de registros que caben en el anillo.
+     */
+    int getCapacidad() {
+        return registros.length;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Manejador de <code>java.util.logging</code> que publica los registros de log en otro manejador desde un hilo propio.
+ *
+ * Los hilos del servidor solo dejan el registro en un anillo acotado (<code>AnilloRegistros</code>): el formateo del
+ * mensaje y la escritura en consola se hacen en el hilo del manejador, de modo que el log nunca bloquea el tratamiento
+ * de los mensajes. Si el anillo está lleno, el registro se descarta y el hilo del manejador informa después del número
+ * de registros descartados.
+ *
+ * Como el mensaje se formatea más tarde y en otro hilo, los parámetros de los registros deben ser inmutables (cadenas,
+ * números...): el estado mutable se pasa ya convertido a texto, protegido por <code>Logger.isLoggable</code>. El origen
+ * del registro es el nombre del logger (obtener la clase y el método que lo emiten exige recorrer la pila).
+ *
+ * @author japrada
+ */
+public class ManejadorAsincrono extends Handler {
+
+    // Capacidad por defecto del anillo de registros
+    public static final int CAPACIDAD_POR_DEFECTO = 8192;
+    // Pausa del hilo del manejador cuando no hay registros pendientes
+    private static final long PAUSA = TimeUnit.MILLISECONDS.toNanos(5);
+    // Tiempo máximo de espera al cerrar el manejador
+    private static final long ESPERA_CIERRE = TimeUnit.SECONDS.toMillis(2);
+
+    // Manejador en el que se publican los registros
+    private final Handler destino;
+    // Registros pendientes de publicar
+    private final AnilloRegistros anillo;
+    // Registros descartados desde el último aviso
+    private final LongAdder descartados = new LongAdder();
+    // Hilo que publica los registros
+    private final Thread hilo;
+    // Flag que indica que el manejador se está cerrando
+    private volatile boolean cerrado;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param destino manejador en el que se publican los registros.
+     * @param capacidad número de registros pendientes que caben en el anillo.
+     */
+    public ManejadorAsincrono(Handler destino, int capacidad) {
+        this.destino = destino;
+        this.anillo = new AnilloRegistros(capacidad);
+        // El nivel lo aplica el manejador de destino, pero filtrar aquí evita encolar registros que se van a descartar
+        setLevel(destino.getLevel());
+        hilo = new Thread(this::publicarPendientes, "log-asincrono");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Sustituye los manejadores del logger raíz por manejadores asíncronos que publican en ellos.
+     */
+    public static void instalar() {
+        Logger raiz = Logger.getLogger("");
+        for (Handler manejador : raiz.getHandlers()) {
+            if (!(manejador instanceof ManejadorAsincrono)) {
+                raiz.removeHandler(manejador);
+                raiz.addHandler(new ManejadorAsincrono(manejador, CAPACIDAD_POR_DEFECTO));
+            }
+        }
+    }
+
+    @Override
+    public void publish(LogRecord registro) {
+        if (cerrado || !isLoggable(registro)) {
+            return;
+        }
+        // Evita que el origen se calcule recorriendo la pila (en el hilo del manejador, además, sería incorrecto)
+        registro.setSourceClassName(registro.getLoggerName());
+        if (!anillo.ofrecer(registro)) {
+            descartados.increment();
+        }
+    }
+
+    @Override
+    public void flush() {
+        destino.flush();
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        LockSupport.unpark(hilo);
+        try {
+            hilo.join(ESPERA_CIERRE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        destino.close();
+    }
+
+    /**
+     * Obtiene el número de registros descartados que aún no se han notificado.
+     *
+     * @return número de registros descartados.
+     */
+    long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Bucle del hilo del manejador: publica los registros pendientes hasta que se cierra el manejador.
+     */
+    private void publicarPendientes() {
+        while (true) {
+            boolean finalizar = cerrado;
+            int publicados = 0;
+            LogRecord registro;
+            while ((registro = anillo.extraer()) != null) {
+                publicar(registro);
+                publicados++;
+            }
+            long numeroDescartados = descartados.sumThenReset();
+            if (numeroDescartados > 0) {
+                LogRecord aviso = new LogRecord(Level.WARNING, String.format(
+                        "Se han descartado %d registros de log por estar lleno el anillo (capacidad %d).",
+                        numeroDescartados, anillo.getCapacidad()));
+                aviso.setLoggerName(ManejadorAsincrono.class.getName());
+                aviso.setSourceClassName(ManejadorAsincrono.class.getName());
+                publicar(aviso);
+            }
+            if (finalizar) {
+                return;
+            }
+            if (publicados == 0) {
+                LockSupport.parkNanos(this, PAUSA);
+            }
+        }
+    }
+
+    private void publicar(LogRecord registro) {
+        try {
+            destino.publish(registro);
+        } catch (RuntimeException ex) {
+            reportError(ex.getMessage(), ex, ErrorManager.WRITE_FAILURE);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stream de salida que suma a un contador los bytes que se escriben.
+ *
+ * Las escrituras de bloques se delegan tal cual (<code>FilterOutputStream</code> las escribiría byte a byte).
+ *
+ * @author japrada
+ */
+class FlujoSalidaContado extends FilterOutputStream {
+
+    // Contador de bytes escritos (compartido por todas las conexiones)
+    private final LongAdder bytes;
+
+    FlujoSalidaContado(OutputStream out, LongAdder bytes) {
+        super(out);
+        this.bytes = bytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        bytes.increment();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        bytes.add(len);
+    }
+}
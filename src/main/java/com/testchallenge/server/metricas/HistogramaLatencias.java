@@ -0,0 +1,179 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias (en microsegundos) con el que se calculan percentiles.
+ *
+ * Los valores se agrupan en intervalos log-lineales: los valores menores que 128 tienen un intervalo propio y, a
+ * partir de ahí, cada potencia de dos se divide en 64 intervalos, de modo que el error relativo de los percentiles es
+ * menor que el 1,6% sea cual sea la magnitud de los valores. La memoria ocupada es fija y el registro de un valor ni
+ * bloquea ni reserva memoria, por lo que se puede usar en los caminos críticos del servidor y desde todos los clientes
+ * simulados de una prueba de carga a la vez.
+ *
+ * @author japrada
+ */
+public class HistogramaLatencias {
+
+    // Número de intervalos en los que se divide cada potencia de dos
+    private static final int SUBINTERVALOS = 64;
+    // Bits de los subintervalos
+    private static final int BITS_SUBINTERVALOS = 6;
+    // Número total de intervalos (suficientes para cualquier valor long positivo)
+    private static final int INTERVALOS = SUBINTERVALOS * (Long.SIZE - BITS_SUBINTERVALOS);
+
+    // Nombre del histograma
+    private final String nombre;
+    // Número de valores de cada intervalo
+    private final AtomicLongArray contadores = new AtomicLongArray(INTERVALOS);
+    // Número de valores registrados
+    private final LongAdder total = new LongAdder();
+    // Suma de los valores registrados
+    private final LongAdder suma = new LongAdder();
+    // Valor máximo registrado
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param nombre nombre del histograma (se usa en el informe).
+     */
+    public HistogramaLatencias(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Registra un valor.
+     *
+     * @param microsegundos latencia en microsegundos (los valores negativos se registran como 0).
+     */
+    public void registrar(long microsegundos) {
+        long valor = Math.max(0, microsegundos);
+        contadores.incrementAndGet(intervalo(valor));
+        total.increment();
+        suma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    /**
+     * Obtiene el nombre del histograma.
+     *
+     * @return nombre del histograma.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Obtiene el número de valores registrados.
+     *
+     * @return número de valores registrados.
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * Obtiene el valor máximo registrado.
+     *
+     * @return valor máximo en microsegundos.
+     */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Obtiene la media de los valores registrados.
+     *
+     * @return media en microsegundos (0 si no hay valores).
+     */
+    public double getMedia() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    /**
+     * Obtiene el valor por debajo del cual se encuentra el porcentaje especificado de los valores registrados.
+     *
+     * @param percentil percentil (entre 0 y 100).
+     * @return límite superior del intervalo que contiene el percentil, en microsegundos (0 si no hay valores).
+     */
+    public long getPercentil(double percentil) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(n * percentil / 100.0));
+        long acumulados = 0;
+        for (int i = 0; i < INTERVALOS; i++) {
+            acumulados += contadores.get(i);
+            if (acumulados >= objetivo) {
+                return Math.min(limiteSuperior(i), getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+
+    /**
+     * Obtiene una línea de resumen con el número de valores y los percentiles principales en milisegundos.
+     *
+     * @return resumen del histograma.
+     */
+    public String getResumen() {
+        return String.format("%-28s n=%-8d media=%9.2f p50=%9.2f p90=%9.2f p99=%9.2f p99.9=%9.2f max=%9.2f (ms)",
+                nombre, getTotal(), getMedia() / 1000.0, getPercentil(50) / 1000.0, getPercentil(90) / 1000.0,
+                getPercentil(99) / 1000.0, getPercentil(99.9) / 1000.0, getMaximo() / 1000.0);
+    }
+
+    /**
+     * Obtiene el intervalo al que pertenece un valor.
+     *
+     * @param valor valor no negativo.
+     * @return índice del intervalo.
+     */
+    static int intervalo(long valor) {
+        if (valor < 2 * SUBINTERVALOS) {
+            return (int) valor;
+        }
+        int exponente = (Long.SIZE - 1 - Long.numberOfLeadingZeros(valor)) - BITS_SUBINTERVALOS;
+        int mantisa = (int) (valor >>> exponente);
+        return SUBINTERVALOS * (exponente + 1) + (mantisa - SUBINTERVALOS);
+    }
+
+    /**
+     * Obtiene el mayor valor que pertenece a un intervalo.
+     *
+     * @param intervalo índice del intervalo.
+     * @return límite superior del intervalo.
+     */
+    static long limiteSuperior(int intervalo) {
+        if (intervalo < 2 * SUBINTERVALOS) {
+            return intervalo;
+        }
+        int exponente = intervalo / SUBINTERVALOS - 1;
+        long mantisa = intervalo % SUBINTERVALOS + SUBINTERVALOS;
+        if (exponente >= Long.SIZE - 1 - BITS_SUBINTERVALOS - 1) {
+            // El límite del último intervalo no se puede representar
+            return Long.MAX_VALUE;
+        }
+        return ((mantisa + 1) << exponente) - 1;
+    }
+}
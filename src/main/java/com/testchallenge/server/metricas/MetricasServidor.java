@@ -0,0 +1,321 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import com.testchallenge.model.TipoMensaje;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas del servidor.
+ *
+ * Los métodos <code>registrarXxx</code> se llaman desde los hilos del servidor: solo incrementan contadores
+ * (<code>LongAdder</code>) o histogramas, por lo que no bloquean ni reservan memoria. Los valores que dependen del
+ * estado del servidor (participantes conectados, envíos pendientes, test en ejecución) se obtienen al consultarlos.
+ *
+ * @author japrada
+ */
+public class MetricasServidor implements MetricasServidorMXBean {
+
+    // Segundos sobre los que se calcula la tasa de registros
+    private static final int VENTANA_TASA = 10;
+
+    private static final TipoMensaje[] TIPOS = TipoMensaje.values();
+
+    private final IntSupplier sesionesConectadas;
+    private final BooleanSupplier testEnEjecucion;
+    private final Supplier<Map<String, Integer>> enviosPendientes;
+
+    private final LongAdder registros = new LongAdder();
+    private final TasaPorSegundo tasaRegistros = new TasaPorSegundo(VENTANA_TASA);
+    private final HistogramaLatencias registro = new HistogramaLatencias("registro");
+
+    // Mensajes por tipo (indexados por el ordinal del tipo)
+    private final LongAdder[] mensajesRecibidos = crearContadores();
+    private final LongAdder[] mensajesEnviados = crearContadores();
+
+    private final LongAdder bytesRecibidos = new LongAdder();
+    private final LongAdder bytesEnviados = new LongAdder();
+
+    private final HistogramaLatencias difusionPreguntas = new HistogramaLatencias("difusion_preguntas");
+    private final HistogramaLatencias difusionMensajes = new HistogramaLatencias("difusion_mensajes");
+    private final HistogramaLatencias correccionRespuestas = new HistogramaLatencias("correccion_respuestas");
+    private final HistogramaLatencias cargaBanco = new HistogramaLatencias("carga_banco");
+
+    private volatile int preguntasBanco;
+    private final LongAdder testsIniciados = new LongAdder();
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(MetricasServidor.class.getName());
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param sesionesConectadas proporciona el número de participantes conectados.
+     * @param testEnEjecucion indica si hay un test en ejecución.
+     * @param enviosPendientes proporciona los envíos pendientes de cada participante.
+     */
+    public MetricasServidor(IntSupplier sesionesConectadas, BooleanSupplier testEnEjecucion,
+            Supplier<Map<String, Integer>> enviosPendientes) {
+        this.sesionesConectadas = sesionesConectadas;
+        this.testEnEjecucion = testEnEjecucion;
+        this.enviosPendientes = enviosPendientes;
+    }
+
+    /**
+     * Registra el MBean en el servidor de MBeans de la plataforma con el nombre
+     * <code>com.testchallenge:type=Servidor,puerto=&lt;puerto&gt;</code>.
+     *
+     * Si no se puede registrar, se deja constancia en el log y el servidor sigue funcionando sin él.
+     *
+     * @param puerto puerto de escucha del servidor.
+     */
+    public void registrarMBean(int puerto) {
+        try {
+            MBeanServer servidorMBeans = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = getNombreMBean(puerto);
+            if (!servidorMBeans.isRegistered(nombre)) {
+                servidorMBeans.registerMBean(this, nombre);
+            }
+        } catch (JMException ex) {
+            logger.severe(ex.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el nombre con el que se registra el MBean.
+     *
+     * @param puerto puerto de escucha del servidor.
+     * @return nombre del MBean.
+     * @throws JMException si el nombre no es válido.
+     */
+    public static ObjectName getNombreMBean(int puerto) throws JMException {
+        return new ObjectName(String.format("com.testchallenge:type=Servidor,puerto=%d", puerto));
+    }
+
+    /**
+     * Envuelve el stream de entrada de una conexión para contar los bytes recibidos.
+     *
+     * @param in stream de entrada de la conexión.
+     * @return stream que cuenta los bytes leídos.
+     */
+    public InputStream contar(InputStream in) {
+        return new FlujoEntradaContado(in, bytesRecibidos);
+    }
+
+    /**
+     * Envuelve el stream de salida de una conexión para contar los bytes enviados.
+     *
+     * @param out stream de salida de la conexión.
+     * @return stream que cuenta los bytes escritos.
+     */
+    public OutputStream contar(OutputStream out) {
+        return new FlujoSalidaContado(out, bytesEnviados);
+    }
+
+    /**
+     * Registra un participante que ha completado el registro.
+     *
+     * @param nanos duración del registro.
+     */
+    public void registrarRegistro(long nanos) {
+        registros.increment();
+        tasaRegistros.registrar();
+        registro.registrar(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Registra un mensaje recibido de un participante.
+     *
+     * @param tipo tipo del mensaje.
+     */
+    public void registrarMensajeRecibido(TipoMensaje tipo) {
+        if (tipo != null) {
+            mensajesRecibidos[tipo.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Registra un mensaje enviado a un participante.
+     *
+     * @param tipo tipo del mensaje.
+     */
+    public void registrarMensajeEnviado(TipoMensaje tipo) {
+        if (tipo != null) {
+            mensajesEnviados[tipo.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Registra el envío de un mensaje a todos los participantes.
+     *
+     * @param tipo tipo del mensaje.
+     * @param nanos duración del envío.
+     */
+    public void registrarDifusion(TipoMensaje tipo, long nanos) {
+        HistogramaLatencias histograma = tipo == TipoMensaje.TEST_PREGUNTA ? difusionPreguntas : difusionMensajes;
+        histograma.registrar(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Registra la corrección de una respuesta.
+     *
+     * @param nanos duración de la corrección.
+     */
+    public void registrarCorreccion(long nanos) {
+        correccionRespuestas.registrar(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Registra la carga del banco de preguntas de un test.
+     *
+     * @param preguntas número de preguntas cargadas.
+     * @param nanos duración de la carga.
+     */
+    public void registrarCargaBanco(int preguntas, long nanos) {
+        preguntasBanco = preguntas;
+        cargaBanco.registrar(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Registra el inicio de un test.
+     */
+    public void registrarInicioTest() {
+        testsIniciados.increment();
+    }
+
+    @Override
+    public int getSesionesConectadas() {
+        return sesionesConectadas.getAsInt();
+    }
+
+    @Override
+    public long getRegistros() {
+        return registros.sum();
+    }
+
+    @Override
+    public double getRegistrosPorSegundo() {
+        return tasaRegistros.getTasa();
+    }
+
+    @Override
+    public ResumenHistograma getRegistro() {
+        return ResumenHistograma.de(registro);
+    }
+
+    @Override
+    public Map<String, Long> getMensajesRecibidos() {
+        return porTipo(mensajesRecibidos);
+    }
+
+    @Override
+    public Map<String, Long> getMensajesEnviados() {
+        return porTipo(mensajesEnviados);
+    }
+
+    @Override
+    public long getBytesRecibidos() {
+        return bytesRecibidos.sum();
+    }
+
+    @Override
+    public long getBytesEnviados() {
+        return bytesEnviados.sum();
+    }
+
+    @Override
+    public ResumenHistograma getDifusionPreguntas() {
+        return ResumenHistograma.de(difusionPreguntas);
+    }
+
+    @Override
+    public ResumenHistograma getDifusionMensajes() {
+        return ResumenHistograma.de(difusionMensajes);
+    }
+
+    @Override
+    public ResumenHistograma getCorreccionRespuestas() {
+        return ResumenHistograma.de(correccionRespuestas);
+    }
+
+    @Override
+    public ResumenHistograma getCargaBanco() {
+        return ResumenHistograma.de(cargaBanco);
+    }
+
+    @Override
+    public int getPreguntasBanco() {
+        return preguntasBanco;
+    }
+
+    @Override
+    public Map<String, Integer> getEnviosPendientesPorCliente() {
+        return enviosPendientes.get();
+    }
+
+    @Override
+    public int getEnviosPendientesMaximo() {
+        int maximo = 0;
+        for (int pendientes : enviosPendientes.get().values()) {
+            maximo = Math.max(maximo, pendientes);
+        }
+        return maximo;
+    }
+
+    @Override
+    public int getTestsActivos() {
+        return testEnEjecucion.getAsBoolean() ? 1 : 0;
+    }
+
+    @Override
+    public long getTestsIniciados() {
+        return testsIniciados.sum();
+    }
+
+    private static LongAdder[] crearContadores() {
+        LongAdder[] contadores = new LongAdder[TIPOS.length];
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+
+    private static Map<String, Long> porTipo(LongAdder[] contadores) {
+        Map<String, Long> valores = new LinkedHashMap<>();
+        for (TipoMensaje tipo : TIPOS) {
+            long valor = contadores[tipo.ordinal()].sum();
+            if (valor > 0) {
+                valores.put(tipo.name(), valor);
+            }
+        }
+        return Collections.unmodifiableMap(valores);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import java.util.Map;
+
+/**
+ * Métricas del servidor publicadas como MXBean de la plataforma (consultables con JConsole, VisualVM o
+ * Mission Control).
+ *
+ * Las duraciones se expresan en microsegundos.
+ *
+ * @author japrada
+ */
+public interface MetricasServidorMXBean {
+
+    /**
+     * @return número de participantes conectados.
+     */
+    int getSesionesConectadas();
+
+    /**
+     * @return número de participantes registrados (handshakes completados) desde el arranque.
+     */
+    long getRegistros();
+
+    /**
+     * @return registros por segundo en los últimos segundos.
+     */
+    double getRegistrosPorSegundo();
+
+    /**
+     * @return duración del registro de un participante, desde que se acepta la conexión hasta que queda registrado.
+     */
+    ResumenHistograma getRegistro();
+
+    /**
+     * @return mensajes recibidos de los participantes por tipo de mensaje.
+     */
+    Map<String, Long> getMensajesRecibidos();
+
+    /**
+     * @return mensajes enviados a los participantes por tipo de mensaje.
+     */
+    Map<String, Long> getMensajesEnviados();
+
+    /**
+     * @return bytes recibidos de los participantes.
+     */
+    long getBytesRecibidos();
+
+    /**
+     * @return bytes enviados a los participantes.
+     */
+    long getBytesEnviados();
+
+    /**
+     * @return duración del envío de una pregunta a todos los participantes.
+     */
+    ResumenHistograma getDifusionPreguntas();
+
+    /**
+     * @return duración del envío de un mensaje que no es una pregunta a todos los participantes.
+     */
+    ResumenHistograma getDifusionMensajes();
+
+    /**
+     * @return duración de la corrección de una respuesta.
+     */
+    ResumenHistograma getCorreccionRespuestas();
+
+    /**
+     * @return duración de la carga del banco de preguntas de un test.
+     */
+    ResumenHistograma getCargaBanco();
+
+    /**
+     * @return número de preguntas del último banco cargado.
+     */
+    int getPreguntasBanco();
+
+    /**
+     * @return envíos en curso o en espera de cada participante.
+     */
+    Map<String, Integer> getEnviosPendientesPorCliente();
+
+    /**
+     * @return máximo de envíos en curso o en espera de un participante.
+     */
+    int getEnviosPendientesMaximo();
+
+    /**
+     * @return número de tests en ejecución (0 o 1).
+     */
+    int getTestsActivos();
+
+    /**
+     * @return número de tests iniciados desde el arranque.
+     */
+    long getTestsIniciados();
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Resumen de un histograma de latencias en un instante dado (en microsegundos).
+ *
+ * Es el valor de los atributos de tipo histograma del MBean de métricas, que lo publica como un
+ * <code>CompositeData</code>.
+ *
+ * @author japrada
+ */
+public class ResumenHistograma {
+
+    private final long muestras;
+    private final double media;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long maximo;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param muestras número de valores registrados.
+     * @param media media de los valores.
+     * @param p50 percentil 50.
+     * @param p90 percentil 90.
+     * @param p99 percentil 99.
+     * @param p999 percentil 99,9.
+     * @param maximo valor máximo.
+     */
+    @ConstructorProperties({"muestras", "media", "p50", "p90", "p99", "p999", "maximo"})
+    public ResumenHistograma(long muestras, double media, long p50, long p90, long p99, long p999, long maximo) {
+        this.muestras = muestras;
+        this.media = media;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.maximo = maximo;
+    }
+
+    /**
+     * Construye el resumen de un histograma.
+     *
+     * @param histograma histograma.
+     * @return resumen con los valores actuales del histograma.
+     */
+    public static ResumenHistograma de(HistogramaLatencias histograma) {
+        return new ResumenHistograma(histograma.getTotal(), histograma.getMedia(), histograma.getPercentil(50),
+                histograma.getPercentil(90), histograma.getPercentil(99), histograma.getPercentil(99.9),
+                histograma.getMaximo());
+    }
+
+    public long getMuestras() {
+        return muestras;
+    }
+
+    public double getMedia() {
+        return media;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMaximo() {
+        return maximo;
+    }
+}
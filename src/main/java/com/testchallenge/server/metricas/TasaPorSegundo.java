@@ -0,0 +1,109 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tasa de eventos por segundo en una ventana deslizante de los últimos segundos completos.
+ *
+ * Los eventos se cuentan en un anillo de contadores, uno por segundo, que se reutilizan al dar la vuelta. El registro
+ * de un evento no bloquea ni reserva memoria; a cambio, un evento que coincide con la reutilización de su contador se
+ * puede perder, por lo que la tasa es aproximada.
+ *
+ * @author japrada
+ */
+public class TasaPorSegundo {
+
+    // Número de segundos del anillo (potencia de dos)
+    private static final int SEGUNDOS = 64;
+
+    // Segundos completos sobre los que se calcula la tasa
+    private final int ventana;
+    // Eventos de cada segundo del anillo
+    private final AtomicLongArray contadores = new AtomicLongArray(SEGUNDOS);
+    // Segundo al que corresponde cada contador del anillo
+    private final AtomicLongArray segundos = new AtomicLongArray(SEGUNDOS);
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param ventana segundos completos sobre los que se calcula la tasa (entre 1 y 63).
+     */
+    public TasaPorSegundo(int ventana) {
+        if (ventana < 1 || ventana >= SEGUNDOS) {
+            throw new IllegalArgumentException(String.format("Ventana '%d' no válida", ventana));
+        }
+        this.ventana = ventana;
+        for (int i = 0; i < SEGUNDOS; i++) {
+            segundos.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Registra un evento en el segundo actual.
+     */
+    public void registrar() {
+        registrar(segundoActual());
+    }
+
+    /**
+     * Obtiene la tasa de eventos por segundo en la ventana que termina en el último segundo completo.
+     *
+     * @return eventos por segundo.
+     */
+    public double getTasa() {
+        return getTasa(segundoActual());
+    }
+
+    /**
+     * Registra un evento en el segundo especificado.
+     *
+     * @param segundo segundo en el que se produce el evento.
+     */
+    void registrar(long segundo) {
+        int i = (int) (segundo & (SEGUNDOS - 1));
+        long marca = segundos.get(i);
+        if (marca != segundo && segundos.compareAndSet(i, marca, segundo)) {
+            // El contador era de una vuelta anterior del anillo
+            contadores.set(i, 0);
+        }
+        contadores.incrementAndGet(i);
+    }
+
+    /**
+     * Obtiene la tasa de eventos por segundo en la ventana que termina antes del segundo especificado.
+     *
+     * @param segundo segundo actual (no se incluye porque aún no está completo).
+     * @return eventos por segundo.
+     */
+    double getTasa(long segundo) {
+        long eventos = 0;
+        for (long s = segundo - ventana; s < segundo; s++) {
+            int i = (int) (s & (SEGUNDOS - 1));
+            if (segundos.get(i) == s) {
+                eventos += contadores.get(i);
+            }
+        }
+        return (double) eventos / ventana;
+    }
+
+    private static long segundoActual() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.ranking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Clasificación de los usuarios ordenada por puntos que mantiene el servidor durante la sesión.
+ *
+ * Internamente se implementa como una "skip list" indexada: cada enlace guarda, además de la referencia al siguiente
+ * nodo del nivel, el número de posiciones que salta (su anchura). De ese modo, la actualización de la puntuación de un
+ * usuario, la obtención de su posición en la clasificación y el acceso a la posición n-ésima tienen un coste
+ * O(log n), y la obtención de los k primeros un coste O(log n + k), sin necesidad de reordenar todo el ranking.
+ *
+ * El orden es descendente por puntos y, a igualdad de puntos, ascendente por nickname.
+ *
+ * Los métodos públicos están sincronizados porque la clasificación se consulta desde el hilo que acepta las conexiones
+ * y se actualiza desde el hilo del <code>TestServer</code>.
+ *
+ * @author japrada
+ */
+public class Clasificacion {
+
+    // Número máximo de niveles de la skip list (suficiente para 2^32 usuarios)
+    private static final int MAX_NIVEL = 32;
+    // Probabilidad de promocionar un nodo al siguiente nivel
+    private static final double PROBABILIDAD_NIVEL = 0.25;
+
+    // Nodo cabecera (centinela) de la skip list
+    private final Nodo cabecera;
+    // Puntos actuales de cada usuario para localizar su nodo en la skip list
+    private final Map<String, Integer> puntuaciones;
+    // Número de niveles en uso
+    private int nivel;
+    // Número de usuarios en la clasificación
+    private int size;
+
+    /**
+     * Construye una clasificación vacía.
+     */
+    public Clasificacion() {
+        cabecera = new Nodo(null, 0, MAX_NIVEL);
+        puntuaciones = new HashMap<>();
+        nivel = 1;
+        size = 0;
+    }
+
+    /**
+     * Suma los puntos especificados a la puntuación del usuario. Si el usuario no estaba en la clasificación, se
+     * incorpora con esos puntos.
+     *
+     * @param nickname nickname del usuario.
+     * @param puntos puntos que se suman (pueden ser negativos).
+     * @return nueva puntuación del usuario.
+     */
+    public synchronized int sumarPuntos(String nickname, int puntos) {
+        Integer puntuacionActual = puntuaciones.get(nickname);
+        int nuevaPuntuacion = puntuacionActual == null ? puntos : puntuacionActual + puntos;
+        establecerPuntos(nickname, nuevaPuntuacion);
+        return nuevaPuntuacion;
+    }
+
+    /**
+     * Establece la puntuación del usuario, reubicándolo en la clasificación.
+     *
+     * @param nickname nickname del usuario.
+     * @param puntos puntuación total del usuario.
+     */
+    public synchronized void establecerPuntos(String nickname, int puntos) {
+        Integer puntuacionActual = puntuaciones.get(nickname);
+        if (puntuacionActual != null) {
+            if (puntuacionActual == puntos) {
+                return;
+            }
+            borrar(nickname, puntuacionActual);
+        }
+        insertar(nickname, puntos);
+        puntuaciones.put(nickname, puntos);
+    }
+
+    /**
+     * Elimina al usuario de la clasificación.
+     *
+     * @param nickname nickname del usuario.
+     */
+    public synchronized void eliminar(String nickname) {
+        Integer puntuacionActual = puntuaciones.remove(nickname);
+        if (puntuacionActual != null) {
+            borrar(nickname, puntuacionActual);
+        }
+    }
+
+    /**
+     * Obtiene los puntos del usuario.
+     *
+     * @param nickname nickname del usuario.
+     * @return puntos del usuario o <code>null</code> si el usuario no está en la clasificación.
+     */
+    public synchronized Integer getPuntos(String nickname) {
+        return puntuaciones.get(nickname);
+    }
+
+    /**
+     * Obtiene la posición (empezando en 1) que ocupa el usuario en la clasificación.
+     *
+     * @param nickname nickname del usuario.
+     * @return posición del usuario en la clasificación o 0 si el usuario no está en la clasificación.
+     */
+    public synchronized int getPosicion(String nickname) {
+        Integer puntos = puntuaciones.get(nickname);
+        if (puntos == null) {
+            return 0;
+        }
+
+        int posicion = 0;
+        Nodo x = cabecera;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguientes[i] != null && comparar(x.siguientes[i], nickname, puntos) <= 0) {
+                posicion += x.anchos[i];
+                x = x.siguientes[i];
+            }
+            if (x != cabecera && x.nickname.equals(nickname)) {
+                return posicion;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Obtiene los <code>k</code> primeros usuarios de la clasificación.
+     *
+     * @param k número de usuarios.
+     * @return mapa ordenado (de mayor a menor puntuación) con los <code>k</code> primeros usuarios.
+     */
+    public synchronized Map<String, Integer> getPrimeros(int k) {
+        Map<String, Integer> primeros = new LinkedHashMap<>();
+        Nodo x = cabecera.siguientes[0];
+        while (x != null && primeros.size() < k) {
+            primeros.put(x.nickname, x.puntos);
+            x = x.siguientes[0];
+        }
+        return primeros;
+    }
+
+    /**
+     * Obtiene los usuarios que se encuentran alrededor del usuario especificado, hasta <code>radio</code> posiciones
+     * por encima y por debajo de él (incluido el propio usuario).
+     *
+     * @param nickname nickname del usuario.
+     * @param radio número de posiciones por encima y por debajo del usuario.
+     * @return mapa ordenado (de mayor a menor puntuación) con los usuarios cercanos o vacío si el usuario no está en la
+     * clasificación.
+     */
+    public synchronized Map<String, Integer> getVecindario(String nickname, int radio) {
+        Map<String, Integer> vecindario = new LinkedHashMap<>();
+        int posicion = getPosicion(nickname);
+        if (posicion > 0) {
+            Nodo x = getNodo(Math.max(1, posicion - radio));
+            int ultimaPosicion = posicion + radio;
+            for (int p = Math.max(1, posicion - radio); x != null && p <= ultimaPosicion; p++) {
+                vecindario.put(x.nickname, x.puntos);
+                x = x.siguientes[0];
+            }
+        }
+        return vecindario;
+    }
+
+    /**
+     * Obtiene una copia de las puntuaciones de todos los usuarios de la clasificación.
+     *
+     * @return copia de las puntuaciones de todos los usuarios.
+     */
+    public synchronized Map<String, Integer> getPuntuaciones() {
+        return new HashMap<>(puntuaciones);
+    }
+
+    /**
+     * Obtiene el número de usuarios en la clasificación.
+     *
+     * @return número de usuarios en la clasificación.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Obtiene el nodo que ocupa la posición especificada (empezando en 1).
+     *
+     * @param posicion posición en la clasificación.
+     * @return nodo en la posición especificada o <code>null</code> si la posición no existe.
+     */
+    private Nodo getNodo(int posicion) {
+        int recorrido = 0;
+        Nodo x = cabecera;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguientes[i] != null && recorrido + x.anchos[i] <= posicion) {
+                recorrido += x.anchos[i];
+                x = x.siguientes[i];
+            }
+            if (recorrido == posicion) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Inserta un nuevo nodo en la skip list actualizando las anchuras de los enlaces afectados.
+     *
+     * @param nickname nickname del usuario.
+     * @param puntos puntos del usuario.
+     */
+    private void insertar(String nickname, int puntos) {
+        Nodo[] anteriores = new Nodo[MAX_NIVEL];
+        int[] posiciones = new int[MAX_NIVEL];
+
+        Nodo x = cabecera;
+        for (int i = nivel - 1; i >= 0; i--) {
+            posiciones[i] = i == nivel - 1 ? 0 : posiciones[i + 1];
+            while (x.siguientes[i] != null && comparar(x.siguientes[i], nickname, puntos) < 0) {
+                posiciones[i] += x.anchos[i];
+                x = x.siguientes[i];
+            }
+            anteriores[i] = x;
+        }
+
+        int nivelNodo = nivelAleatorio();
+        if (nivelNodo > nivel) {
+            for (int i = nivel; i < nivelNodo; i++) {
+                posiciones[i] = 0;
+                anteriores[i] = cabecera;
+                anteriores[i].anchos[i] = size;
+            }
+            nivel = nivelNodo;
+        }
+
+        Nodo nodo = new Nodo(nickname, puntos, nivelNodo);
+        for (int i = 0; i < nivelNodo; i++) {
+            nodo.siguientes[i] = anteriores[i].siguientes[i];
+            anteriores[i].siguientes[i] = nodo;
+            nodo.anchos[i] = anteriores[i].anchos[i] - (posiciones[0] - posiciones[i]);
+            anteriores[i].anchos[i] = (posiciones[0] - posiciones[i]) + 1;
+        }
+
+        // Los niveles superiores al del nodo insertado saltan ahora una posición más
+        for (int i = nivelNodo; i < nivel; i++) {
+            anteriores[i].anchos[i]++;
+        }
+        size++;
+    }
+
+    /**
+     * Borra el nodo del usuario de la skip list actualizando las anchuras de los enlaces afectados.
+     *
+     * @param nickname nickname del usuario.
+     * @param puntos puntos con los que el usuario está registrado en la skip list.
+     */
+    private void borrar(String nickname, int puntos) {
+        Nodo[] anteriores = new Nodo[MAX_NIVEL];
+
+        Nodo x = cabecera;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguientes[i] != null && comparar(x.siguientes[i], nickname, puntos) < 0) {
+                x = x.siguientes[i];
+            }
+            anteriores[i] = x;
+        }
+
+        Nodo nodo = x.siguientes[0];
+        if (nodo == null || comparar(nodo, nickname, puntos) != 0) {
+            return;
+        }
+
+        for (int i = 0; i < nivel; i++) {
+            if (anteriores[i].siguientes[i] == nodo) {
+                anteriores[i].anchos[i] += nodo.anchos[i] - 1;
+                anteriores[i].siguientes[i] = nodo.siguientes[i];
+            } else {
+                anteriores[i].anchos[i]--;
+            }
+        }
+
+        while (nivel > 1 && cabecera.siguientes[nivel - 1] == null) {
+            nivel--;
+        }
+        size--;
+    }
+
+    /**
+     * Compara la posición de un nodo con la de un usuario y sus puntos: primero por puntos (descendente) y, a igualdad
+     * de puntos, por nickname (ascendente).
+     *
+     * @param nodo nodo de la skip list.
+     * @param nickname nickname del usuario.
+     * @param puntos puntos del usuario.
+     * @return valor negativo si el nodo va antes que el usuario, 0 si es el mismo y positivo si va después.
+     */
+    private int comparar(Nodo nodo, String nickname, int puntos) {
+        if (nodo.puntos != puntos) {
+            return nodo.puntos > puntos ? -1 : 1;
+        }
+        return nodo.nickname.compareTo(nickname);
+    }
+
+    /**
+     * Genera el número de niveles de un nuevo nodo.
+     *
+     * @return número de niveles del nuevo nodo.
+     */
+    private int nivelAleatorio() {
+        int nivelNodo = 1;
+        while (nivelNodo < MAX_NIVEL && ThreadLocalRandom.current().nextDouble() < PROBABILIDAD_NIVEL) {
+            nivelNodo++;
+        }
+        return nivelNodo;
+    }
+
+    /**
+     * Lista con los usuarios de la clasificación en orden (utilizado para la depuración y los tests).
+     *
+     * @return lista con los nicknames de los usuarios en orden.
+     */
+    synchronized List<String> getNicknamesEnOrden() {
+        List<String> nicknames = new ArrayList<>();
+        for (Nodo x = cabecera.siguientes[0]; x != null; x = x.siguientes[0]) {
+            nicknames.add(x.nickname);
+        }
+        return nicknames;
+    }
+
+    /**
+     * Nodo de la skip list.
+     */
+    private static class Nodo {
+
+        // Usuario
+        private final String nickname;
+        // Puntos del usuario
+        private final int puntos;
+        // Siguiente nodo en cada nivel
+        private final Nodo[] siguientes;
+        // Número de posiciones que salta el enlace de cada nivel
+        private final int[] anchos;
+
+        Nodo(String nickname, int puntos, int niveles) {
+            this.nickname = nickname;
+            this.puntos = puntos;
+            this.siguientes = new Nodo[niveles];
+            this.anchos = new int[niveles];
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.recuperacion;
+
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Puntuacion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estado de un test en ejecución reconstruido a partir del registro de recuperación (ver
+ * <code>RegistroRecuperacion</code>).
+ *
+ * @author japrada
+ */
+public class EstadoTest {
+
+    // Usuario que solicitó el test y configuración del test
+    private final String nickname;
+    private final Configuracion configuracion;
+    // Fecha de inicio del test (milisegundos desde la época)
+    private final long inicio;
+    // Identificadores de las preguntas seleccionadas, en el orden de envío
+    private final List<Integer> idsPreguntas;
+    // Orden de las opciones de cada pregunta enviada (tras barajarlas)
+    private final List<List<String>> opciones = new ArrayList<>();
+    // Puntuaciones de cada pregunta enviada (la última puede estar en curso)
+    private final List<Map<String, Puntuacion>> puntuaciones = new ArrayList<>();
+    // Tiempos de respuesta compensados de la pregunta en curso
+    private final Map<String, Long> tiemposRespuesta = new HashMap<>();
+    // Indica si la última pregunta enviada está cerrada
+    private boolean preguntaCerrada;
+    // Segundos que le quedaban a la cuenta atrás en curso en la última instantánea (-1 si no hay ninguna)
+    private int segundosRestantes = -1;
+    // Indica si el test estaba pausado
+    private boolean pausado;
+    // Longitud (en bytes) de la parte válida del registro
+    private long longitud;
+
+    EstadoTest(String nickname, Configuracion configuracion, long inicio, List<Integer> idsPreguntas) {
+        this.nickname = nickname;
+        this.configuracion = configuracion;
+        this.inicio = inicio;
+        this.idsPreguntas = idsPreguntas;
+    }
+
+    void enviarPregunta(int numero, List<String> opcionesPregunta, List<String> participantes) {
+        if (numero != puntuaciones.size() + 1) {
+            throw new IllegalStateException(String.format("Pregunta '%d' fuera de orden", numero));
+        }
+        opciones.add(opcionesPregunta);
+        Map<String, Puntuacion> inicial = new LinkedHashMap<>();
+        for (String participante : participantes) {
+            inicial.put(participante, Puntuacion.NO_CONTESTADA);
+        }
+        puntuaciones.add(inicial);
+        tiemposRespuesta.clear();
+        preguntaCerrada = false;
+        segundosRestantes = -1;
+    }
+
+    void puntuar(int numero, String participante, Puntuacion puntuacion, long tiempoMs) {
+        if (numero == puntuaciones.size() && !preguntaCerrada) {
+            puntuaciones.get(numero - 1).put(participante, puntuacion);
+            if (tiempoMs >= 0) {
+                tiemposRespuesta.put(participante, tiempoMs);
+            }
+        }
+    }
+
+    void cerrarPregunta(int numero) {
+        if (numero == puntuaciones.size()) {
+            preguntaCerrada = true;
+            segundosRestantes = -1;
+        }
+    }
+
+    void actualizarTiempo(int numero, int segundos, boolean pausadoTest) {
+        // Los cambios de pausa se registran sin el tiempo restante (segundos negativos)
+        if (numero == getNumeroPregunta() && segundos >= 0) {
+            segundosRestantes = segundos;
+        }
+        pausado = pausadoTest;
+    }
+
+    void setLongitud(long longitud) {
+        this.longitud = longitud;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public Configuracion getConfiguracion() {
+        return configuracion;
+    }
+
+    public long getInicio() {
+        return inicio;
+    }
+
+    public List<Integer> getIdsPreguntas() {
+        return Collections.unmodifiableList(idsPreguntas);
+    }
+
+    /**
+     * Obtiene el número de orden de la pregunta en curso.
+     *
+     * @return número de orden de la última pregunta enviada (0 si el test no había empezado).
+     */
+    public int getNumeroPregunta() {
+        return isPreguntaEnCurso() ? puntuaciones.size() : 0;
+    }
+
+    /**
+     * Obtiene el número de preguntas cerradas.
+     *
+     * @return número de preguntas enviadas cuyas puntuaciones ya se han sumado a los resultados.
+     */
+    public int getPreguntasCerradas() {
+        return preguntaCerrada || puntuaciones.isEmpty() ? puntuaciones.size() : puntuaciones.size() - 1;
+    }
+
+    /**
+     * Indica si había una pregunta en curso (enviada y sin cerrar).
+     *
+     * @return <code>true</code> si la última pregunta enviada no estaba cerrada.
+     */
+    public boolean isPreguntaEnCurso() {
+        return !puntuaciones.isEmpty() && !preguntaCerrada;
+    }
+
+    /**
+     * Obtiene el orden de las opciones con el que se envió una pregunta.
+     *
+     * @param numero número de orden de la pregunta (desde 1).
+     * @return opciones de la pregunta en el orden en el que se enviaron.
+     */
+    public List<String> getOpciones(int numero) {
+        return opciones.get(numero - 1);
+    }
+
+    /**
+     * Obtiene las puntuaciones de cada pregunta enviada.
+     *
+     * @return puntuaciones de cada pregunta enviada, en orden (la última puede estar en curso).
+     */
+    public List<Map<String, Puntuacion>> getPuntuacionesPorPregunta() {
+        return puntuaciones;
+    }
+
+    public Map<String, Long> getTiemposRespuesta() {
+        return tiemposRespuesta;
+    }
+
+    /**
+     * Calcula los resultados del test con las puntuaciones de las preguntas cerradas.
+     *
+     * @return puntos de cada participante.
+     */
+    public Map<String, Integer> getResultados() {
+        Map<String, Integer> resultados = new HashMap<>();
+        for (int i = 0; i < getPreguntasCerradas(); i++) {
+            for (Map.Entry<String, Puntuacion> entry : puntuaciones.get(i).entrySet()) {
+                resultados.merge(entry.getKey(), entry.getValue().getPuntos(), Integer::sum);
+            }
+        }
+        return resultados;
+    }
+
+    public int getSegundosRestantes() {
+        return segundosRestantes;
+    }
+
+    public boolean isPausado() {
+        return pausado;
+    }
+
+    long getLongitud() {
+        return longitud;
+    }
+}
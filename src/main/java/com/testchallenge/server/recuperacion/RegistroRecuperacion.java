@@ -0,0 +1,511 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.recuperacion;
+
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Puntuacion;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de recuperación del test en ejecución.
+ *
+ * El estado del test se guarda de forma incremental en un fichero pequeño de sólo añadir: una entrada al iniciar el
+ * test (configuración y preguntas seleccionadas) y una por cada pregunta enviada (con el orden de sus opciones), por
+ * cada puntuación que cambia y por cada pregunta cerrada, además de una instantánea periódica del tiempo restante de
+ * la cuenta atrás. Si el proceso del servidor termina con un test en ejecución, al arrancar de nuevo se lee el fichero
+ * y se reconstruye el estado del test (ver <code>EstadoTest</code>) para continuarlo.
+ *
+ * Los hilos del test sólo codifican la entrada (unos pocos bytes) y la dejan en una cola. Un hilo propio las escribe
+ * en el fichero y lo sincroniza con el disco una vez por lote, de modo que el test no espera nunca al disco.
+ *
+ * Cada entrada tiene el formato <code>[tipo:byte][longitud:int][datos][crc32:int]</code>; la lectura se detiene en la
+ * primera entrada incompleta o dañada (la que se estaba escribiendo al terminar el proceso).
+ *
+ * @author japrada
+ */
+public class RegistroRecuperacion {
+
+    // Versión del formato (en la entrada de inicio)
+    private static final int VERSION_FORMATO = 1;
+    // Tipos de entrada
+    private static final byte INICIO = 1;
+    private static final byte PREGUNTA = 2;
+    private static final byte PUNTUACION = 3;
+    private static final byte CIERRE_PREGUNTA = 4;
+    private static final byte TIEMPO = 5;
+    // Operaciones del hilo de escritura que no son entradas
+    private static final byte REANUDACION = -1;
+    private static final byte FIN = -2;
+    private static final byte CIERRE = -3;
+    // Tiempo máximo de espera de las escrituras pendientes al cerrar el registro
+    private static final long ESPERA_CIERRE = TimeUnit.SECONDS.toMillis(2);
+
+    // Fichero del registro
+    private final File fichero;
+    // Operaciones pendientes de escribir
+    private final LinkedBlockingQueue<Operacion> pendientes = new LinkedBlockingQueue<>();
+    // Hilo de escritura (se arranca con el primer test)
+    private Thread escritor;
+    // Canal del fichero (sólo lo usa el hilo de escritura; null si no hay un test en ejecución)
+    private FileChannel canal;
+    // Indica si el registro se ha cerrado (las operaciones posteriores se descartan)
+    private volatile boolean cerrado;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(RegistroRecuperacion.class.getName());
+
+    /**
+     * Construye un registro que guarda el estado del test en ejecución en el fichero especificado.
+     *
+     * @param fichero fichero del registro.
+     */
+    public RegistroRecuperacion(File fichero) {
+        this.fichero = fichero;
+    }
+
+    /**
+     * Lee el estado del test que estaba en ejecución al terminar el proceso anterior.
+     *
+     * @return estado del test o <code>null</code> si no hay ningún test que recuperar.
+     * @throws IOException excepción al leer el fichero o si su formato no es compatible.
+     */
+    public EstadoTest leer() throws IOException {
+        return leer(fichero);
+    }
+
+    /**
+     * Empieza el registro de un test nuevo (descarta el contenido anterior del fichero).
+     *
+     * @param nickname usuario que solicita el test.
+     * @param configuracion configuración del test.
+     * @param inicio fecha de inicio del test (milisegundos desde la época).
+     * @param idsPreguntas identificadores de las preguntas seleccionadas, en el orden de envío.
+     */
+    public void iniciarTest(String nickname, Configuracion configuracion, long inicio, List<Integer> idsPreguntas) {
+        encolar(INICIO, out -> {
+            out.writeInt(VERSION_FORMATO);
+            out.writeUTF(nickname);
+            out.writeUTF(configuracion.getTematica());
+            out.writeUTF(configuracion.getNivel());
+            String[] tipos = configuracion.getTiposPreguntas();
+            out.writeInt(tipos.length);
+            for (String tipo : tipos) {
+                out.writeUTF(tipo);
+            }
+            out.writeInt(configuracion.getNumeroPreguntas());
+            out.writeInt(configuracion.getTiempoLimite());
+            out.writeLong(inicio);
+            out.writeInt(idsPreguntas.size());
+            for (int id : idsPreguntas) {
+                out.writeInt(id);
+            }
+        });
+    }
+
+    /**
+     * Continúa el registro de un test recuperado: las entradas siguientes se añaden a las ya escritas (se descarta la
+     * entrada incompleta del final, si la hay).
+     *
+     * @param estado estado del test recuperado.
+     */
+    public void reanudarTest(EstadoTest estado) {
+        programar(new Operacion(REANUDACION, null, estado.getLongitud()));
+    }
+
+    /**
+     * Registra el envío de una pregunta.
+     *
+     * @param numero número de orden de la pregunta (desde 1).
+     * @param opciones opciones de la pregunta en el orden en el que se envían.
+     * @param participantes usuarios que participan en la pregunta.
+     */
+    public void registrarPregunta(int numero, List<String> opciones, Collection<String> participantes) {
+        encolar(PREGUNTA, out -> {
+            out.writeInt(numero);
+            escribirCadenas(out, opciones);
+            escribirCadenas(out, participantes);
+        });
+    }
+
+    /**
+     * Registra la puntuación de un usuario en la pregunta en curso.
+     *
+     * @param numero número de orden de la pregunta.
+     * @param nickname usuario.
+     * @param puntuacion puntuación.
+     * @param tiempoMs tiempo de respuesta compensado (en milisegundos) o un valor negativo si no ha respondido.
+     */
+    public void registrarPuntuacion(int numero, String nickname, Puntuacion puntuacion, long tiempoMs) {
+        encolar(PUNTUACION, out -> {
+            out.writeInt(numero);
+            out.writeUTF(nickname);
+            out.writeByte(puntuacion.ordinal());
+            out.writeLong(tiempoMs);
+        });
+    }
+
+    /**
+     * Registra el cierre de una pregunta (sus puntuaciones pasan a los resultados del test).
+     *
+     * @param numero número de orden de la pregunta.
+     */
+    public void registrarCierrePregunta(int numero) {
+        encolar(CIERRE_PREGUNTA, out -> out.writeInt(numero));
+    }
+
+    /**
+     * Registra una instantánea del tiempo restante de la cuenta atrás en curso.
+     *
+     * @param numero número de orden de la pregunta en curso (0 en la cuenta atrás del inicio del test).
+     * @param segundos segundos restantes (negativo si sólo cambia la pausa).
+     * @param pausado <code>true</code> si el test está pausado.
+     */
+    public void registrarTiempo(int numero, int segundos, boolean pausado) {
+        encolar(TIEMPO, out -> {
+            out.writeInt(numero);
+            out.writeInt(segundos);
+            out.writeBoolean(pausado);
+        });
+    }
+
+    /**
+     * Registra el fin del test: el fichero se borra porque ya no hay nada que recuperar.
+     */
+    public void finalizarTest() {
+        programar(new Operacion(FIN, null, 0));
+    }
+
+    /**
+     * Escribe las entradas pendientes y detiene el hilo de escritura. El fichero se conserva para recuperar el test en
+     * el siguiente arranque y las operaciones posteriores (por ejemplo, el fin del test que provoca la parada del
+     * proceso) se descartan.
+     */
+    public void cerrar() {
+        Thread hilo;
+        synchronized (this) {
+            cerrado = true;
+            hilo = escritor;
+        }
+        if (hilo == null) {
+            return;
+        }
+        pendientes.add(new Operacion(CIERRE, null, 0));
+        try {
+            hilo.join(ESPERA_CIERRE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lee el estado del test registrado en el fichero.
+     *
+     * @param fichero fichero del registro.
+     * @return estado del test o <code>null</code> si no hay ningún test que recuperar.
+     * @throws IOException excepción al leer el fichero o si su formato no es compatible.
+     */
+    public static EstadoTest leer(File fichero) throws IOException {
+        if (!fichero.isFile()) {
+            return null;
+        }
+        ByteBuffer contenido = ByteBuffer.wrap(Files.readAllBytes(fichero.toPath()));
+        EstadoTest estado = null;
+        long longitud = 0;
+        while (true) {
+            int posicion = contenido.position();
+            byte[] datos = leerEntrada(contenido);
+            if (datos == null) {
+                break;
+            }
+            byte tipo = contenido.get(posicion);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(datos));
+            if (tipo == INICIO) {
+                estado = leerInicio(in);
+            } else if (estado == null) {
+                throw new IOException(String.format("El registro '%s' no empieza con el inicio de un test.", fichero));
+            } else {
+                aplicar(estado, tipo, in);
+            }
+            longitud = contenido.position();
+        }
+        if (estado != null) {
+            estado.setLongitud(longitud);
+        }
+        return estado;
+    }
+
+    /**
+     * Lee la siguiente entrada completa del registro.
+     *
+     * @param contenido contenido del fichero (posicionado al inicio de la entrada).
+     * @return datos de la entrada o <code>null</code> si no quedan entradas completas y válidas.
+     */
+    private static byte[] leerEntrada(ByteBuffer contenido) {
+        if (contenido.remaining() < 9) {
+            return null;
+        }
+        int posicion = contenido.position();
+        byte tipo = contenido.get();
+        int longitud = contenido.getInt();
+        if (longitud < 0 || contenido.remaining() < longitud + 4) {
+            contenido.position(posicion);
+            return null;
+        }
+        byte[] datos = new byte[longitud];
+        contenido.get(datos);
+        if (contenido.getInt() != crc(tipo, datos)) {
+            contenido.position(posicion);
+            return null;
+        }
+        return datos;
+    }
+
+    private static EstadoTest leerInicio(DataInputStream in) throws IOException {
+        if (in.readInt() != VERSION_FORMATO) {
+            throw new IOException("El formato del registro de recuperación no es compatible.");
+        }
+        String nickname = in.readUTF();
+        String tematica = in.readUTF();
+        String nivel = in.readUTF();
+        String[] tipos = new String[in.readInt()];
+        for (int i = 0; i < tipos.length; i++) {
+            tipos[i] = in.readUTF();
+        }
+        int numeroPreguntas = in.readInt();
+        int tiempoLimite = in.readInt();
+        long inicio = in.readLong();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            ids.add(in.readInt());
+        }
+        return new EstadoTest(nickname, new Configuracion(tematica, nivel, tipos, numeroPreguntas, tiempoLimite),
+                inicio, ids);
+    }
+
+    private static void aplicar(EstadoTest estado, byte tipo, DataInputStream in) throws IOException {
+        switch (tipo) {
+            case PREGUNTA:
+                estado.enviarPregunta(in.readInt(), leerCadenas(in), leerCadenas(in));
+                break;
+            case PUNTUACION:
+                estado.puntuar(in.readInt(), in.readUTF(), Puntuacion.values()[in.readByte()], in.readLong());
+                break;
+            case CIERRE_PREGUNTA:
+                estado.cerrarPregunta(in.readInt());
+                break;
+            case TIEMPO:
+                estado.actualizarTiempo(in.readInt(), in.readInt(), in.readBoolean());
+                break;
+            default:
+                throw new IOException(String.format("Entrada '%d' desconocida en el registro de recuperación.", tipo));
+        }
+    }
+
+    private static void escribirCadenas(DataOutputStream out, Collection<String> cadenas) throws IOException {
+        out.writeInt(cadenas.size());
+        for (String cadena : cadenas) {
+            out.writeUTF(cadena);
+        }
+    }
+
+    private static List<String> leerCadenas(DataInputStream in) throws IOException {
+        int numero = in.readInt();
+        List<String> cadenas = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            cadenas.add(in.readUTF());
+        }
+        return cadenas;
+    }
+
+    private static int crc(byte tipo, byte[] datos) {
+        CRC32 crc = new CRC32();
+        crc.update(tipo);
+        crc.update(datos);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Codifica una entrada en el hilo que la registra y la deja en la cola del hilo de escritura.
+     */
+    private void encolar(byte tipo, Codificador codificador) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+        try {
+            codificador.codificar(new DataOutputStream(baos));
+        } catch (IOException ex) {
+            // Un ByteArrayOutputStream no produce errores de escritura
+            throw new UncheckedIOException(ex);
+        }
+        byte[] datos = baos.toByteArray();
+        ByteBuffer entrada = ByteBuffer.allocate(datos.length + 9);
+        entrada.put(tipo).putInt(datos.length).put(datos).putInt(crc(tipo, datos)).flip();
+        programar(new Operacion(tipo, entrada, 0));
+    }
+
+    /**
+     * Deja una operación en la cola del hilo de escritura (arrancándolo si es necesario).
+     */
+    private synchronized void programar(Operacion operacion) {
+        if (cerrado) {
+            return;
+        }
+        pendientes.add(operacion);
+        if (escritor == null) {
+            escritor = new Thread(this::escribirPendientes, "recuperacion-test");
+            escritor.setDaemon(true);
+            escritor.start();
+        }
+    }
+
+    /**
+     * Bucle del hilo de escritura: aplica las operaciones pendientes por lotes y sincroniza el fichero con el disco
+     * al final de cada lote.
+     */
+    private void escribirPendientes() {
+        List<Operacion> lote = new ArrayList<>();
+        try {
+            while (true) {
+                lote.add(pendientes.take());
+                pendientes.drainTo(lote);
+                boolean cerrado = false;
+                for (Operacion operacion : lote) {
+                    if (operacion.tipo == CIERRE) {
+                        cerrado = true;
+                    } else {
+                        aplicar(operacion);
+                    }
+                }
+                lote.clear();
+                sincronizar();
+                if (cerrado) {
+                    cerrarCanal();
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void aplicar(Operacion operacion) {
+        try {
+            switch (operacion.tipo) {
+                case INICIO:
+                    abrirCanal(0);
+                    escribir(operacion.entrada);
+                    break;
+                case REANUDACION:
+                    abrirCanal(operacion.longitud);
+                    break;
+                case FIN:
+                    cerrarCanal();
+                    Files.deleteIfExists(fichero.toPath());
+                    break;
+                default:
+                    // Sin test en ejecución (o si no se pudo abrir el fichero) las entradas se descartan
+                    if (canal != null) {
+                        escribir(operacion.entrada);
+                    }
+                    break;
+            }
+        } catch (IOException ex) {
+            logger.severe(ex.getMessage());
+            cerrarCanal();
+        }
+    }
+
+    /**
+     * Abre el fichero del registro y descarta su contenido a partir de la longitud indicada.
+     */
+    private void abrirCanal(long longitud) throws IOException {
+        cerrarCanal();
+        File directorio = fichero.getAbsoluteFile().getParentFile();
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IOException(String.format("No se ha podido crear el directorio '%s'.", directorio));
+        }
+        canal = FileChannel.open(fichero.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        canal.truncate(longitud);
+        canal.position(longitud);
+    }
+
+    private void escribir(ByteBuffer entrada) throws IOException {
+        while (entrada.hasRemaining()) {
+            canal.write(entrada);
+        }
+    }
+
+    private void sincronizar() {
+        if (canal != null) {
+            try {
+                canal.force(false);
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+        }
+    }
+
+    private void cerrarCanal() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+            }
+            canal = null;
+        }
+    }
+
+    /**
+     * Codificación de los datos de una entrada.
+     */
+    private interface Codificador {
+
+        void codificar(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Operación pendiente del hilo de escritura.
+     */
+    private static class Operacion {
+
+        private final byte tipo;
+        private final ByteBuffer entrada;
+        private final long longitud;
+
+        private Operacion(byte tipo, ByteBuffer entrada, long longitud) {
+            this.tipo = tipo;
+            this.entrada = entrada;
+            this.longitud = longitud;
+        }
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.seleccion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Conjunto comprimido de enteros no negativos (identificadores de preguntas) al estilo de los "roaring bitmaps".
+ *
+ * Los enteros se agrupan por sus 16 bits más significativos. Cada grupo se guarda en un contenedor que, según el número
+ * de elementos, es un array ordenado de valores de 16 bits (hasta 4096 elementos, 8 KB como máximo) o un mapa de bits de
+ * 65536 bits (8 KB fijos). De ese modo un usuario que ha visto pocas preguntas ocupa muy poco y las operaciones de unión
+ * e intersección se hacen palabra a palabra cuando los conjuntos son densos.
+ *
+ * @author japrada
+ */
+public class MapaBitsCompacto {
+
+    // Número máximo de elementos de un contenedor de tipo array (a partir de aquí es más compacto el mapa de bits)
+    private static final int MAX_ELEMENTOS_ARRAY = 4096;
+    // Número de palabras de 64 bits de un contenedor de tipo mapa de bits
+    private static final int PALABRAS_BITMAP = 65536 / 64;
+    // Tipos de contenedor en el formato serializado
+    private static final byte TIPO_ARRAY = 0;
+    private static final byte TIPO_BITMAP = 1;
+
+    // Claves (16 bits más significativos) de los contenedores, ordenadas
+    private char[] claves;
+    // Contenedores (en el mismo orden que las claves)
+    private Contenedor[] contenedores;
+    // Número de contenedores en uso
+    private int numeroContenedores;
+
+    /**
+     * Construye un conjunto vacío.
+     */
+    public MapaBitsCompacto() {
+        claves = new char[2];
+        contenedores = new Contenedor[2];
+        numeroContenedores = 0;
+    }
+
+    /**
+     * Añade un valor al conjunto.
+     *
+     * @param valor valor (no negativo) que se añade.
+     */
+    public void add(int valor) {
+        char clave = (char) (valor >>> 16);
+        int i = buscar(clave);
+        if (i >= 0) {
+            contenedores[i] = contenedores[i].add((char) valor);
+        } else {
+            insertarContenedor(-i - 1, clave, new ContenedorArray().add((char) valor));
+        }
+    }
+
+    /**
+     * Comprueba si un valor está en el conjunto.
+     *
+     * @param valor valor que se busca.
+     * @return <code>true</code> si el valor está en el conjunto y <code>false</code> en caso contrario.
+     */
+    public boolean contains(int valor) {
+        int i = buscar((char) (valor >>> 16));
+        return i >= 0 && contenedores[i].contains((char) valor);
+    }
+
+    /**
+     * Obtiene el número de elementos del conjunto.
+     *
+     * @return número de elementos del conjunto.
+     */
+    public int cardinalidad() {
+        int cardinalidad = 0;
+        for (int i = 0; i < numeroContenedores; i++) {
+            cardinalidad += contenedores[i].cardinalidad();
+        }
+        return cardinalidad;
+    }
+
+    /**
+     * Comprueba si el conjunto está vacío.
+     *
+     * @return <code>true</code> si el conjunto está vacío.
+     */
+    public boolean isEmpty() {
+        return numeroContenedores == 0;
+    }
+
+    /**
+     * Obtiene una copia del conjunto.
+     *
+     * @return copia independiente del conjunto.
+     */
+    public MapaBitsCompacto copia() {
+        MapaBitsCompacto copia = new MapaBitsCompacto();
+        for (int i = 0; i < numeroContenedores; i++) {
+            copia.anadirContenedor(claves[i], contenedores[i].copia());
+        }
+        return copia;
+    }
+
+    /**
+     * Obtiene la unión de dos conjuntos.
+     *
+     * @param a primer conjunto.
+     * @param b segundo conjunto.
+     * @return nuevo conjunto con la unión de ambos.
+     */
+    public static MapaBitsCompacto or(MapaBitsCompacto a, MapaBitsCompacto b) {
+        MapaBitsCompacto resultado = new MapaBitsCompacto();
+        int i = 0;
+        int j = 0;
+        while (i < a.numeroContenedores || j < b.numeroContenedores) {
+            if (j >= b.numeroContenedores || (i < a.numeroContenedores && a.claves[i] < b.claves[j])) {
+                resultado.anadirContenedor(a.claves[i], a.contenedores[i].copia());
+                i++;
+            } else if (i >= a.numeroContenedores || b.claves[j] < a.claves[i]) {
+                resultado.anadirContenedor(b.claves[j], b.contenedores[j].copia());
+                j++;
+            } else {
+                resultado.anadirContenedor(a.claves[i], a.contenedores[i].or(b.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Añade al conjunto todos los valores de otro (unión sobre este mismo conjunto).
+     *
+     * Al acumular la unión de muchos conjuntos evita crear un conjunto nuevo por cada uno: los contenedores de este
+     * conjunto se actualizan en su sitio siempre que es posible y sólo se copian los del otro que no tienen
+     * correspondencia en este.
+     *
+     * @param otro conjunto cuyos valores se añaden (no se modifica).
+     */
+    public void anadirTodos(MapaBitsCompacto otro) {
+        int i = 0;
+        for (int j = 0; j < otro.numeroContenedores; j++) {
+            char clave = otro.claves[j];
+            while (i < numeroContenedores && claves[i] < clave) {
+                i++;
+            }
+            if (i < numeroContenedores && claves[i] == clave) {
+                contenedores[i] = contenedores[i].anadirTodos(otro.contenedores[j]);
+            } else {
+                insertarContenedor(i, clave, otro.contenedores[j].copia());
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Obtiene la intersección de dos conjuntos.
+     *
+     * @param a primer conjunto.
+     * @param b segundo conjunto.
+     * @return nuevo conjunto con la intersección de ambos.
+     */
+    public static MapaBitsCompacto and(MapaBitsCompacto a, MapaBitsCompacto b) {
+        MapaBitsCompacto resultado = new MapaBitsCompacto();
+        int i = 0;
+        int j = 0;
+        while (i < a.numeroContenedores && j < b.numeroContenedores) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (b.claves[j] < a.claves[i]) {
+                j++;
+            } else {
+                Contenedor interseccion = a.contenedores[i].and(b.contenedores[j]);
+                if (interseccion.cardinalidad() > 0) {
+                    resultado.anadirContenedor(a.claves[i], interseccion);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Escribe el conjunto en el stream especificado.
+     *
+     * @param out stream de escritura.
+     * @throws IOException excepción al escribir en el stream.
+     */
+    public void escribir(DataOutput out) throws IOException {
+        out.writeInt(numeroContenedores);
+        for (int i = 0; i < numeroContenedores; i++) {
+            out.writeChar(claves[i]);
+            contenedores[i].escribir(out);
+        }
+    }
+
+    /**
+     * Lee un conjunto del stream especificado.
+     *
+     * @param in stream de lectura.
+     * @return conjunto leído.
+     * @throws IOException excepción al leer del stream.
+     */
+    public static MapaBitsCompacto leer(DataInput in) throws IOException {
+        MapaBitsCompacto mapa = new MapaBitsCompacto();
+        int numeroContenedores = in.readInt();
+        for (int i = 0; i < numeroContenedores; i++) {
+            char clave = in.readChar();
+            byte tipo = in.readByte();
+            mapa.anadirContenedor(clave, tipo == TIPO_BITMAP ? ContenedorBitmap.leer(in) : ContenedorArray.leer(in));
+        }
+        return mapa;
+    }
+
+    /**
+     * Busca la posición del contenedor con la clave especificada.
+     *
+     * @param clave clave del contenedor.
+     * @return posición del contenedor o (-(punto de inserción) - 1) si no existe.
+     */
+    private int buscar(char clave) {
+        return Arrays.binarySearch(claves, 0, numeroContenedores, clave);
+    }
+
+    /**
+     * Añade un contenedor al final (las claves se añaden en orden).
+     *
+     * @param clave clave del contenedor.
+     * @param contenedor contenedor.
+     */
+    private void anadirContenedor(char clave, Contenedor contenedor) {
+        insertarContenedor(numeroContenedores, clave, contenedor);
+    }
+
+    /**
+     * Inserta un contenedor en la posición especificada.
+     *
+     * @param posicion posición de inserción.
+     * @param clave clave del contenedor.
+     * @param contenedor contenedor.
+     */
+    private void insertarContenedor(int posicion, char clave, Contenedor contenedor) {
+        if (numeroContenedores == claves.length) {
+            claves = Arrays.copyOf(claves, claves.length * 2);
+            contenedores = Arrays.copyOf(contenedores, contenedores.length * 2);
+        }
+        System.arraycopy(claves, posicion, claves, posicion + 1, numeroContenedores - posicion);
+        System.arraycopy(contenedores, posicion, contenedores, posicion + 1, numeroContenedores - posicion);
+        claves[posicion] = clave;
+        contenedores[posicion] = contenedor;
+        numeroContenedores++;
+    }
+
+    /**
+     * Contenedor de los 16 bits menos significativos de los valores de un grupo.
+     */
+    private interface Contenedor {
+
+        Contenedor add(char valor);
+
+        boolean contains(char valor);
+
+        int cardinalidad();
+
+        Contenedor or(Contenedor otro);
+
+        Contenedor anadirTodos(Contenedor otro);
+
+        Contenedor and(Contenedor otro);
+
+        Contenedor copia();
+
+        void escribir(DataOutput out) throws IOException;
+    }
+
+    /**
+     * Contenedor con los valores en un array ordenado.
+     */
+    private static final class ContenedorArray implements Contenedor {
+
+        private char[] valores;
+        private int cardinalidad;
+
+        ContenedorArray() {
+            this(new char[4], 0);
+        }
+
+        ContenedorArray(char[] valores, int cardinalidad) {
+            this.valores = valores;
+            this.cardinalidad = cardinalidad;
+        }
+
+        @Override
+        public Contenedor add(char valor) {
+            int i = Arrays.binarySearch(valores, 0, cardinalidad, valor);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinalidad == MAX_ELEMENTOS_ARRAY) {
+                return toBitmap().add(valor);
+            }
+            i = -i - 1;
+            if (cardinalidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(valores.length * 2, MAX_ELEMENTOS_ARRAY));
+            }
+            System.arraycopy(valores, i, valores, i + 1, cardinalidad - i);
+            valores[i] = valor;
+            cardinalidad++;
+            return this;
+        }
+
+        @Override
+        public boolean contains(char valor) {
+            return Arrays.binarySearch(valores, 0, cardinalidad, valor) >= 0;
+        }
+
+        @Override
+        public int cardinalidad() {
+            return cardinalidad;
+        }
+
+        @Override
+        public Contenedor or(Contenedor otro) {
+            if (otro instanceof ContenedorBitmap) {
+                return otro.or(this);
+            }
+            ContenedorArray array = (ContenedorArray) otro;
+            char[] union = new char[cardinalidad + array.cardinalidad];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < cardinalidad && j < array.cardinalidad) {
+                if (valores[i] < array.valores[j]) {
+                    union[n++] = valores[i++];
+                } else if (array.valores[j] < valores[i]) {
+                    union[n++] = array.valores[j++];
+                } else {
+                    union[n++] = valores[i++];
+                    j++;
+                }
+            }
+            while (i < cardinalidad) {
+                union[n++] = valores[i++];
+            }
+            while (j < array.cardinalidad) {
+                union[n++] = array.valores[j++];
+            }
+            ContenedorArray resultado = new ContenedorArray(union, n);
+            return n > MAX_ELEMENTOS_ARRAY ? resultado.toBitmap() : resultado;
+        }
+
+        @Override
+        public Contenedor anadirTodos(Contenedor otro) {
+            if (otro instanceof ContenedorBitmap) {
+                return otro.copia().anadirTodos(this);
+            }
+            return or(otro);
+        }
+
+        @Override
+        public Contenedor and(Contenedor otro) {
+            char[] interseccion = new char[cardinalidad];
+            int n = 0;
+            for (int i = 0; i < cardinalidad; i++) {
+                if (otro.contains(valores[i])) {
+                    interseccion[n++] = valores[i];
+                }
+            }
+            return new ContenedorArray(interseccion, n);
+        }
+
+        @Override
+        public Contenedor copia() {
+            return new ContenedorArray(Arrays.copyOf(valores, Math.max(cardinalidad, 1)), cardinalidad);
+        }
+
+        @Override
+        public void escribir(DataOutput out) throws IOException {
+            out.writeByte(TIPO_ARRAY);
+            out.writeShort(cardinalidad - 1);
+            for (int i = 0; i < cardinalidad; i++) {
+                out.writeChar(valores[i]);
+            }
+        }
+
+        static ContenedorArray leer(DataInput in) throws IOException {
+            int cardinalidad = in.readUnsignedShort() + 1;
+            char[] valores = new char[cardinalidad];
+            for (int i = 0; i < cardinalidad; i++) {
+                valores[i] = in.readChar();
+            }
+            return new ContenedorArray(valores, cardinalidad);
+        }
+
+        ContenedorBitmap toBitmap() {
+            ContenedorBitmap bitmap = new ContenedorBitmap();
+            for (int i = 0; i < cardinalidad; i++) {
+                bitmap.add(valores[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Contenedor con los valores en un mapa de bits de 65536 bits.
+     */
+    private static final class ContenedorBitmap implements Contenedor {
+
+        private final long[] palabras;
+        private int cardinalidad;
+
+        ContenedorBitmap() {
+            this(new long[PALABRAS_BITMAP], 0);
+        }
+
+        ContenedorBitmap(long[] palabras, int cardinalidad) {
+            this.palabras = palabras;
+            this.cardinalidad = cardinalidad;
+        }
+
+        @Override
+        public Contenedor add(char valor) {
+            long anterior = palabras[valor >>> 6];
+            long nueva = anterior | (1L << valor);
+            if (nueva != anterior) {
+                palabras[valor >>> 6] = nueva;
+                cardinalidad++;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char valor) {
+            return (palabras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        public int cardinalidad() {
+            return cardinalidad;
+        }
+
+        @Override
+        public Contenedor or(Contenedor otro) {
+            ContenedorBitmap resultado = (ContenedorBitmap) copia();
+            if (otro instanceof ContenedorBitmap) {
+                long[] otras = ((ContenedorBitmap) otro).palabras;
+                int total = 0;
+                for (int k = 0; k < PALABRAS_BITMAP; k++) {
+                    resultado.palabras[k] |= otras[k];
+                    total += Long.bitCount(resultado.palabras[k]);
+                }
+                resultado.cardinalidad = total;
+            } else {
+                ContenedorArray array = (ContenedorArray) otro;
+                for (int i = 0; i < array.cardinalidad; i++) {
+                    resultado.add(array.valores[i]);
+                }
+            }
+            return resultado;
+        }
+
+        @Override
+        public Contenedor anadirTodos(Contenedor otro) {
+            if (otro instanceof ContenedorBitmap) {
+                long[] otras = ((ContenedorBitmap) otro).palabras;
+                int total = 0;
+                for (int k = 0; k < PALABRAS_BITMAP; k++) {
+                    palabras[k] |= otras[k];
+                    total += Long.bitCount(palabras[k]);
+                }
+                cardinalidad = total;
+            } else {
+                ContenedorArray array = (ContenedorArray) otro;
+                for (int i = 0; i < array.cardinalidad; i++) {
+                    add(array.valores[i]);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public Contenedor and(Contenedor otro) {
+            if (otro instanceof ContenedorArray) {
+                return otro.and(this);
+            }
+            long[] otras = ((ContenedorBitmap) otro).palabras;
+            long[] interseccion = new long[PALABRAS_BITMAP];
+            int total = 0;
+            for (int k = 0; k < PALABRAS_BITMAP; k++) {
+                interseccion[k] = palabras[k] & otras[k];
+                total += Long.bitCount(interseccion[k]);
+            }
+            ContenedorBitmap resultado = new ContenedorBitmap(interseccion, total);
+            return total > MAX_ELEMENTOS_ARRAY ? resultado : resultado.toArray();
+        }
+
+        @Override
+        public Contenedor copia() {
+            return new ContenedorBitmap(palabras.clone(), cardinalidad);
+        }
+
+        @Override
+        public void escribir(DataOutput out) throws IOException {
+            out.writeByte(TIPO_BITMAP);
+            for (long palabra : palabras) {
+                out.writeLong(palabra);
+            }
+        }
+
+        static ContenedorBitmap leer(DataInput in) throws IOException {
+            long[] palabras = new long[PALABRAS_BITMAP];
+            int cardinalidad = 0;
+            for (int k = 0; k < PALABRAS_BITMAP; k++) {
+                palabras[k] = in.readLong();
+                cardinalidad += Long.bitCount(palabras[k]);
+            }
+            return new ContenedorBitmap(palabras, cardinalidad);
+        }
+
+        ContenedorArray toArray() {
+            char[] valores = new char[Math.max(cardinalidad, 1)];
+            int n = 0;
+            for (int k = 0; k < PALABRAS_BITMAP; k++) {
+                long palabra = palabras[k];
+                while (palabra != 0) {
+                    valores[n++] = (char) ((k << 6) + Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return new ContenedorArray(valores, n);
+        }
+    }
+}
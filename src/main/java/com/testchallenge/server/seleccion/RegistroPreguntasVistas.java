@@ -0,0 +1,245 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.seleccion;
+
+import com.testchallenge.model.Pregunta;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Registro de las preguntas que ha visto cada usuario, por temática.
+ *
+ * Para cada temática y usuario se mantiene un <code>MapaBitsCompacto</code> con los identificadores de las preguntas
+ * que se le han enviado. Los registros de una temática se cargan de disco la primera vez que se consultan y se guardan
+ * al finalizar cada test, de modo que se conservan entre ejecuciones del servidor. El fichero de cada temática es
+ * <code>&lt;directorio&gt;/&lt;temática&gt;.dat</code>.
+ *
+ * @author japrada
+ */
+public class RegistroPreguntasVistas {
+
+    // Versión del formato de los ficheros de preguntas vistas
+    private static final int VERSION_FORMATO = 1;
+    // Extensión de los ficheros de preguntas vistas
+    private static final String EXTENSION = ".dat";
+
+    // Directorio en el que se guardan los ficheros de preguntas vistas
+    private final File directorio;
+    // Preguntas vistas por temática y usuario
+    private final Map<String, Map<String, MapaBitsCompacto>> vistasPorTematica;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(RegistroPreguntasVistas.class.getName());
+
+    /**
+     * Construye un registro que guarda las preguntas vistas en el directorio especificado.
+     *
+     * @param directorio directorio en el que se guardan las preguntas vistas.
+     */
+    public RegistroPreguntasVistas(File directorio) {
+        this.directorio = directorio;
+        vistasPorTematica = new HashMap<>();
+    }
+
+    /**
+     * Marca una pregunta como vista por un usuario.
+     *
+     * @param tematica temática de la pregunta.
+     * @param nickname nickname del usuario.
+     * @param idPregunta identificador de la pregunta.
+     */
+    public synchronized void marcarVista(String tematica, String nickname, int idPregunta) {
+        getVistas(tematica).computeIfAbsent(nickname, k -> new MapaBitsCompacto()).add(idPregunta);
+    }
+
+    /**
+     * Agrupa las preguntas según las hayan visto ya los usuarios especificados en tests anteriores: primero las que no
+     * ha visto ninguno, después las que han visto sólo algunos y, por último, las que han visto todos.
+     *
+     * @param tematica temática de las preguntas.
+     * @param nicknames nicknames de los usuarios.
+     * @param preguntas preguntas que se agrupan.
+     * @return tres listas (no vistas, vistas por alguno y vistas por todos) que conservan el orden de las preguntas.
+     */
+    public synchronized List<List<Pregunta>> agruparPorVistas(String tematica, Collection<String> nicknames,
+            List<Pregunta> preguntas) {
+        MapaBitsCompacto vistasPorAlguno = getVistasPorAlguno(tematica, nicknames);
+        MapaBitsCompacto vistasPorTodos = getVistasPorTodos(tematica, nicknames);
+
+        List<Pregunta> noVistas = new ArrayList<>();
+        List<Pregunta> vistasPorAlgunos = new ArrayList<>();
+        List<Pregunta> vistasPorTodosLosUsuarios = new ArrayList<>();
+        for (Pregunta pregunta : preguntas) {
+            if (!vistasPorAlguno.contains(pregunta.getId())) {
+                noVistas.add(pregunta);
+            } else if (!vistasPorTodos.contains(pregunta.getId())) {
+                vistasPorAlgunos.add(pregunta);
+            } else {
+                vistasPorTodosLosUsuarios.add(pregunta);
+            }
+        }
+        return Arrays.asList(noVistas, vistasPorAlgunos, vistasPorTodosLosUsuarios);
+    }
+
+    /**
+     * Obtiene las preguntas que ha visto al menos uno de los usuarios especificados (unión de sus conjuntos).
+     *
+     * @param tematica temática de las preguntas.
+     * @param nicknames nicknames de los usuarios.
+     * @return conjunto de identificadores de las preguntas vistas por alguno de los usuarios.
+     */
+    public synchronized MapaBitsCompacto getVistasPorAlguno(String tematica, Collection<String> nicknames) {
+        Map<String, MapaBitsCompacto> vistas = getVistas(tematica);
+        MapaBitsCompacto union = new MapaBitsCompacto();
+        for (String nickname : nicknames) {
+            MapaBitsCompacto vistasUsuario = vistas.get(nickname);
+            if (vistasUsuario != null) {
+                union.anadirTodos(vistasUsuario);
+            }
+        }
+        return union;
+    }
+
+    /**
+     * Obtiene las preguntas que han visto todos los usuarios especificados (intersección de sus conjuntos).
+     *
+     * @param tematica temática de las preguntas.
+     * @param nicknames nicknames de los usuarios.
+     * @return conjunto de identificadores de las preguntas vistas por todos los usuarios.
+     */
+    public synchronized MapaBitsCompacto getVistasPorTodos(String tematica, Collection<String> nicknames) {
+        Map<String, MapaBitsCompacto> vistas = getVistas(tematica);
+        MapaBitsCompacto interseccion = null;
+        for (String nickname : nicknames) {
+            MapaBitsCompacto vistasUsuario = vistas.get(nickname);
+            if (vistasUsuario == null) {
+                // Un usuario que no ha visto ninguna pregunta deja la intersección vacía
+                return new MapaBitsCompacto();
+            }
+            interseccion = interseccion == null ? vistasUsuario : MapaBitsCompacto.and(interseccion, vistasUsuario);
+        }
+        return interseccion == null ? new MapaBitsCompacto() : interseccion.copia();
+    }
+
+    /**
+     * Guarda en disco las preguntas vistas de una temática.
+     *
+     * La serialización se hace en exclusión y la escritura fuera de ella, en un fichero temporal que después sustituye
+     * al anterior.
+     *
+     * @param tematica temática.
+     * @throws IOException excepción al escribir el fichero.
+     */
+    public void guardar(String tematica) throws IOException {
+        byte[] datos;
+        synchronized (this) {
+            Map<String, MapaBitsCompacto> vistas = vistasPorTematica.get(tematica);
+            if (vistas == null) {
+                return;
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            out.writeInt(VERSION_FORMATO);
+            out.writeInt(vistas.size());
+            for (Map.Entry<String, MapaBitsCompacto> entry : vistas.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().escribir(out);
+            }
+            out.flush();
+            datos = baos.toByteArray();
+        }
+
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IOException(String.format("No se ha podido crear el directorio '%s'.", directorio));
+        }
+        File fichero = getFichero(tematica);
+        File temporal = new File(directorio, fichero.getName() + ".tmp");
+        Files.write(temporal.toPath(), datos);
+        Files.move(temporal.toPath(), fichero.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Obtiene las preguntas vistas por los usuarios de una temática, cargándolas de disco si es la primera vez.
+     *
+     * @param tematica temática.
+     * @return preguntas vistas por cada usuario en la temática.
+     */
+    private Map<String, MapaBitsCompacto> getVistas(String tematica) {
+        Map<String, MapaBitsCompacto> vistas = vistasPorTematica.get(tematica);
+        if (vistas == null) {
+            vistas = new HashMap<>();
+            try {
+                cargar(getFichero(tematica), vistas);
+            } catch (IOException ex) {
+                logger.severe(ex.getMessage());
+                vistas.clear();
+            }
+            vistasPorTematica.put(tematica, vistas);
+        }
+        return vistas;
+    }
+
+    /**
+     * Carga las preguntas vistas de un fichero (si existe).
+     *
+     * @param fichero fichero de preguntas vistas.
+     * @param vistas mapa en el que se cargan las preguntas vistas por cada usuario.
+     * @throws IOException excepción al leer el fichero.
+     */
+    private void cargar(File fichero, Map<String, MapaBitsCompacto> vistas) throws IOException {
+        if (!fichero.isFile()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fichero)))) {
+            if (in.readInt() != VERSION_FORMATO) {
+                logger.warning(String.format("El formato del fichero '%s' no es compatible. Se ignora.", fichero));
+                return;
+            }
+            int numeroUsuarios = in.readInt();
+            for (int i = 0; i < numeroUsuarios; i++) {
+                String nickname = in.readUTF();
+                vistas.put(nickname, MapaBitsCompacto.leer(in));
+            }
+        }
+    }
+
+    /**
+     * Obtiene el fichero de preguntas vistas de una temática.
+     *
+     * @param tematica temática.
+     * @return fichero de preguntas vistas de la temática.
+     */
+    private File getFichero(String tematica) {
+        return new File(directorio, tematica + EXTENSION);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.sesion;
+
+import java.io.IOException;
+
+/**
+ * Conexión con un cliente vigilada por un <code>MonitorLatidos</code>.
+ *
+ * @author japrada
+ */
+public interface ConexionVigilada {
+
+    /**
+     * Obtiene el nickname del usuario de la conexión.
+     *
+     * @return nickname del usuario.
+     */
+    String getNickname();
+
+    /**
+     * Obtiene el instante (<code>System.nanoTime()</code>) en el que se recibió el último mensaje del cliente.
+     *
+     * @return instante de la última recepción.
+     */
+    long getInstanteUltimaRecepcion();
+
+    /**
+     * Indica si la conexión ha dejado de atenderse (ya no hay que vigilarla).
+     *
+     * @return <code>true</code> si la conexión se ha cerrado.
+     */
+    boolean isCerrada();
+
+    /**
+     * Envía al cliente un latido al que debe responder.
+     *
+     * @throws IOException excepción al enviar el latido.
+     */
+    void enviarLatido() throws IOException;
+
+    /**
+     * Cierra la conexión porque el cliente no ha enviado nada durante el tiempo máximo de inactividad.
+     *
+     * Se invoca desde el hilo de la rueda de temporizadores, así que no debe bloquearse (p. ej., esperando a que
+     * termine un envío en curso).
+     */
+    void cerrarPorInactividad();
+}
@@ -0,0 +1,148 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.sesion;
+
+import com.testchallenge.server.temporizador.RuedaTemporizadores;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Vigila la actividad de las conexiones con los clientes mediante latidos.
+ *
+ * Cada intervalo se comprueba cuánto hace que se recibió el último mensaje de cada conexión: si supera el tiempo
+ * máximo de inactividad, la conexión se da por muerta y se cierra (p. ej., una conexión TCP medio abierta de un
+ * portátil que se ha suspendido); si no, se le envía un latido para que el cliente responda. Las comprobaciones de
+ * todas las conexiones se programan en la rueda de temporizadores del servidor, sin un hilo por conexión. Los envíos
+ * de latidos se delegan en un pequeño grupo de hilos porque pueden bloquearse si el búfer de envío de una conexión
+ * medio abierta está lleno; los cierres, en cambio, se hacen en la propia tarea de la rueda: cerrar un socket no se
+ * bloquea y así un latido atascado no retrasa el cierre de las conexiones muertas.
+ *
+ * @author japrada
+ */
+public class MonitorLatidos {
+
+    // Número de hilos que envían los latidos
+    private static final int HILOS = 2;
+
+    // Rueda en la que se programan las comprobaciones
+    private final RuedaTemporizadores rueda;
+    // Intervalo entre comprobaciones de una conexión (en milisegundos)
+    private final long intervaloMs;
+    // Tiempo máximo sin recibir mensajes de un cliente (en nanosegundos)
+    private final long limiteInactividadNanos;
+    // Hilos que envían los latidos
+    private final ExecutorService ejecutor;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(MonitorLatidos.class.getName());
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param rueda rueda de temporizadores en la que se programan las comprobaciones.
+     * @param intervaloMs intervalo entre latidos (en milisegundos; 0 desactiva la vigilancia).
+     * @param limiteInactividadMs tiempo máximo sin recibir mensajes de un cliente (en milisegundos).
+     */
+    public MonitorLatidos(RuedaTemporizadores rueda, long intervaloMs, long limiteInactividadMs) {
+        if (intervaloMs > 0 && limiteInactividadMs <= intervaloMs) {
+            throw new IllegalArgumentException(String.format(
+                    "El tiempo máximo de inactividad (%d ms) debe ser mayor que el intervalo entre latidos (%d ms)",
+                    limiteInactividadMs, intervaloMs));
+        }
+        this.rueda = rueda;
+        this.intervaloMs = intervaloMs;
+        this.limiteInactividadNanos = TimeUnit.MILLISECONDS.toNanos(limiteInactividadMs);
+        AtomicInteger numeroHilo = new AtomicInteger();
+        ejecutor = Executors.newFixedThreadPool(HILOS, tarea -> {
+            Thread hilo = new Thread(tarea, String.format("latidos-%d", numeroHilo.incrementAndGet()));
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Empieza a vigilar una conexión hasta que se cierre.
+     *
+     * @param conexion conexión a vigilar.
+     */
+    public void vigilar(ConexionVigilada conexion) {
+        if (intervaloMs > 0) {
+            rueda.programar(() -> comprobar(conexion), intervaloMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Detiene el envío de latidos (las comprobaciones pendientes ya no hacen nada).
+     */
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Indica si la vigilancia de las conexiones está activada.
+     *
+     * @return <code>true</code> si se envían latidos.
+     */
+    public boolean isActivo() {
+        return intervaloMs > 0;
+    }
+
+    /**
+     * Comprobación periódica de una conexión (se ejecuta en el hilo de la rueda).
+     *
+     * @param conexion conexión vigilada.
+     */
+    private void comprobar(ConexionVigilada conexion) {
+        if (conexion.isCerrada()) {
+            return;
+        }
+        long inactividad = System.nanoTime() - conexion.getInstanteUltimaRecepcion();
+        if (inactividad >= limiteInactividadNanos) {
+            logger.log(Level.INFO, "''{0}'': ''{1}'' no ha enviado nada en {2} ms. Se cierra la conexión.",
+                    new Object[]{MonitorLatidos.class.getSimpleName(), conexion.getNickname(),
+                        TimeUnit.NANOSECONDS.toMillis(inactividad)});
+            // Se cierra aquí y no en el grupo de hilos: sus hilos pueden estar bloqueados enviando latidos
+            conexion.cerrarPorInactividad();
+            return;
+        }
+        try {
+            ejecutor.execute(() -> enviarLatido(conexion));
+        } catch (RejectedExecutionException ex) {
+            // El monitor se ha detenido
+            return;
+        }
+        rueda.programar(() -> comprobar(conexion), intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void enviarLatido(ConexionVigilada conexion) {
+        try {
+            conexion.enviarLatido();
+        } catch (IOException ex) {
+            // La conexión se ha perdido: lo detecta el hilo de servicio al leer
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "''{0}'': Latido a ''{1}'' no enviado: {2}",
+                        new Object[]{MonitorLatidos.class.getSimpleName(), conexion.getNickname(), ex.getMessage()});
+            }
+        }
+    }
+}
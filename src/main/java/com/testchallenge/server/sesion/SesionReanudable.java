@@ -0,0 +1,221 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.sesion;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Sesión de un usuario que sobrevive a la pérdida de su conexión.
+ *
+ * Al registrarse, el usuario recibe un token de reanudación. Cada mensaje que se le envía recibe un número de
+ * secuencia (el primero, 1) y se guarda en un anillo con los últimos mensajes enviados. Si se pierde la conexión, la
+ * sesión queda suspendida durante un periodo de gracia: los mensajes se siguen numerando y guardando en el anillo,
+ * pero no se escriben. Si el cliente se reconecta a tiempo con su token y el número del último mensaje que recibió, se
+ * le reenvían sólo los mensajes que le faltan y la sesión continúa con la nueva conexión.
+ *
+ * El cliente numera los mensajes del mismo modo: cuenta los que lee después del registro (ver
+ * <code>SesionCliente</code>).
+ *
+ * Todas las operaciones se sincronizan sobre la sesión, que es también el cerrojo de las escrituras en el stream: si
+ * dos mensajes se intercalan, el stream queda corrupto.
+ *
+ * @author japrada
+ */
+public class SesionReanudable {
+
+    // Número de mensajes enviados que se conservan para reenviarlos al reanudar la sesión
+    public static final int CAPACIDAD_POR_DEFECTO = 1024;
+
+    // Usuario de la sesión
+    private final String nickname;
+    // Token con el que el cliente reanuda la sesión
+    private final String token;
+    // Últimos mensajes enviados (el de número de secuencia n está en la posición n % capacidad)
+    private final Mensaje[] anillo;
+    // Número de secuencia del último mensaje enviado
+    private long secuencia;
+    // Stream de escritura de la conexión actual
+    private ObjectOutputStream out;
+    // Hilo que atiende la conexión actual
+    private Thread conexion;
+    // Indica si se ha perdido la conexión y se espera la reconexión del cliente
+    private boolean suspendida;
+    // Indica si la sesión ha terminado (ya no se puede reanudar)
+    private boolean terminada;
+
+    /**
+     * Construye una sesión con la capacidad por defecto del anillo de mensajes enviados.
+     *
+     * @param nickname usuario de la sesión.
+     * @param out stream de escritura de la conexión.
+     * @param conexion hilo que atiende la conexión.
+     */
+    public SesionReanudable(String nickname, ObjectOutputStream out, Thread conexion) {
+        this(nickname, out, conexion, CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Construye una sesión.
+     *
+     * @param nickname usuario de la sesión.
+     * @param out stream de escritura de la conexión.
+     * @param conexion hilo que atiende la conexión.
+     * @param capacidad número de mensajes enviados que se conservan para reenviarlos.
+     */
+    public SesionReanudable(String nickname, ObjectOutputStream out, Thread conexion, int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException(String.format("Capacidad '%d' no válida", capacidad));
+        }
+        this.nickname = nickname;
+        this.out = out;
+        this.conexion = conexion;
+        this.anillo = new Mensaje[capacidad];
+        // UUID aleatorio: 122 bits de un generador criptográfico
+        this.token = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Envía un mensaje al cliente (si la sesión está suspendida, sólo lo guarda para reenviarlo al reanudarla).
+     *
+     * Si la escritura falla, el mensaje ya tiene su número de secuencia y se reenviará si el cliente se reconecta.
+     *
+     * @param mensaje mensaje a enviar.
+     * @throws IOException excepción al escribir el mensaje en el stream.
+     */
+    public synchronized void enviar(Mensaje mensaje) throws IOException {
+        if (terminada) {
+            throw new IOException(String.format("La sesión de '%s' ha terminado.", nickname));
+        }
+        secuencia++;
+        anillo[(int) (secuencia % anillo.length)] = mensaje;
+        if (!suspendida) {
+            out.writeObject(mensaje);
+            out.flush();
+        }
+    }
+
+    /**
+     * Suspende la sesión tras perder la conexión y espera a que el cliente la reanude desde otra conexión.
+     *
+     * Si la sesión ya se había reanudado desde otra conexión (el cliente se reconectó antes de que el servidor
+     * detectase la pérdida de la anterior) o si ya ha terminado, vuelve inmediatamente.
+     *
+     * @param conexionPerdida hilo que atendía la conexión perdida.
+     * @param graciaMs tiempo máximo de espera (en milisegundos).
+     * @return <code>true</code> si la sesión continúa en otra conexión y <code>false</code> si ha terminado.
+     * @throws InterruptedException si se interrumpe la espera (la sesión termina).
+     */
+    public synchronized boolean esperarReanudacion(Thread conexionPerdida, long graciaMs) throws InterruptedException {
+        if (terminada) {
+            return false;
+        }
+        if (conexion != conexionPerdida) {
+            return true;
+        }
+        suspendida = true;
+        try {
+            long limite = System.nanoTime() + graciaMs * 1_000_000L;
+            long restanteMs = graciaMs;
+            while (conexion == conexionPerdida && !terminada && restanteMs > 0) {
+                wait(restanteMs);
+                restanteMs = (limite - System.nanoTime()) / 1_000_000L;
+            }
+        } finally {
+            if (conexion == conexionPerdida) {
+                terminar();
+            }
+        }
+        return conexion != conexionPerdida;
+    }
+
+    /**
+     * Reanuda la sesión en una nueva conexión: envía la confirmación y los mensajes posteriores al último que recibió
+     * el cliente.
+     *
+     * La sesión no se puede reanudar si ha terminado o si el anillo ya no contiene todos los mensajes que le faltan al
+     * cliente; en ese caso no se escribe nada en el stream (la denegación la envía el servidor).
+     *
+     * @param nuevaConexion hilo que atiende la nueva conexión.
+     * @param nuevoOut stream de escritura de la nueva conexión.
+     * @param ultimaRecibida número de secuencia del último mensaje que recibió el cliente.
+     * @return número de mensajes reenviados o -1 si la sesión no se puede reanudar.
+     * @throws IOException excepción al escribir en el stream de la nueva conexión.
+     */
+    public synchronized int reanudar(Thread nuevaConexion, ObjectOutputStream nuevoOut, long ultimaRecibida)
+            throws IOException {
+        if (terminada || ultimaRecibida < 0 || ultimaRecibida > secuencia
+                || secuencia - ultimaRecibida > anillo.length) {
+            return -1;
+        }
+        nuevoOut.writeObject(new Mensaje(Boolean.TRUE, TipoMensaje.REANUDAR_SESION));
+        for (long n = ultimaRecibida + 1; n <= secuencia; n++) {
+            nuevoOut.writeObject(anillo[(int) (n % anillo.length)]);
+        }
+        nuevoOut.flush();
+        out = nuevoOut;
+        conexion = nuevaConexion;
+        suspendida = false;
+        // Despertar al hilo de la conexión perdida (si está esperando)
+        notifyAll();
+        return (int) (secuencia - ultimaRecibida);
+    }
+
+    /**
+     * Termina la sesión: ya no se puede reanudar y se liberan los mensajes guardados.
+     */
+    public synchronized void terminar() {
+        terminada = true;
+        suspendida = false;
+        Arrays.fill(anillo, null);
+        notifyAll();
+    }
+
+    /**
+     * Indica si la conexión especificada es la conexión actual de la sesión.
+     *
+     * @param hilo hilo que atiende una conexión.
+     * @return <code>true</code> si es la conexión actual.
+     */
+    public synchronized boolean isConexionActual(Thread hilo) {
+        return conexion == hilo;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public synchronized long getSecuencia() {
+        return secuencia;
+    }
+
+    public synchronized boolean isSuspendida() {
+        return suspendida;
+    }
+
+    public synchronized boolean isTerminada() {
+        return terminada;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.temporizador;
+
+import com.testchallenge.server.jfr.EventoPlazoAgotado;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuenta atrás en segundos gobernada por una <code>RuedaTemporizadores</code>.
+ *
+ * La cuenta atrás de <code>n</code> segundos dura <code>n + 1</code> segundos y publica los valores
+ * <code>n, n - 1, ..., 0</code>, uno por segundo. El plazo se calcula con tiempo monótono, de modo que las pausas, las
+ * ampliaciones y los retrasos del hilo consumidor no acumulan deriva. La rueda sólo calcula el valor del segundo en
+ * curso y despierta al hilo consumidor, que es quien lo envía a los clientes (<code>esperarTick</code>).
+ *
+ * @author japrada
+ */
+public class CuentaAtras {
+
+    // Nanosegundos en un segundo
+    private static final long UN_SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+    // Valor que indica que no hay ningún segundo pendiente de consumir
+    private static final int SIN_VALOR = -1;
+
+    // Rueda que gobierna la cuenta atrás
+    private final RuedaTemporizadores rueda;
+    // Segundos con los que se inició la cuenta atrás
+    private final int segundos;
+    // Instante (nanoTime) en el que finaliza la cuenta atrás si no está pausada
+    private long instanteFin;
+    // Nanosegundos restantes en el momento de la pausa
+    private long restanteEnPausa;
+    // Flag que indica si la cuenta atrás está pausada
+    private boolean pausada;
+    // Flag que indica si la cuenta atrás ha finalizado (por agotarse el plazo o por interrupción)
+    private boolean finalizada;
+    // Último valor publicado
+    private int ultimoValor;
+    // Valor pendiente de consumir por el hilo consumidor
+    private int valorPendiente;
+    // Temporizador del siguiente cambio de segundo
+    private Temporizador temporizador;
+
+    /**
+     * Construye e inicia una cuenta atrás de los segundos especificados.
+     *
+     * @param rueda rueda que gobierna la cuenta atrás.
+     * @param segundos segundos de la cuenta atrás.
+     * @param pausada <code>true</code> si la cuenta atrás comienza en pausa.
+     */
+    public CuentaAtras(RuedaTemporizadores rueda, int segundos, boolean pausada) {
+        this.rueda = rueda;
+        this.segundos = segundos;
+        long duracion = (segundos + 1) * UN_SEGUNDO;
+        this.pausada = pausada;
+        restanteEnPausa = duracion;
+        instanteFin = System.nanoTime() + duracion;
+        ultimoValor = segundos;
+        valorPendiente = segundos;
+        if (!pausada) {
+            programarSiguienteSegundo(duracion);
+        }
+    }
+
+    /**
+     * Espera hasta que haya un nuevo valor de la cuenta atrás o hasta que finalice.
+     *
+     * @return segundos restantes o -1 si la cuenta atrás ha finalizado.
+     * @throws InterruptedException excepción al interrumpir el hilo que espera.
+     */
+    public synchronized int esperarTick() throws InterruptedException {
+        while (true) {
+            if (valorPendiente != SIN_VALOR) {
+                int valor = valorPendiente;
+                valorPendiente = SIN_VALOR;
+                return valor;
+            }
+            if (finalizada) {
+                return SIN_VALOR;
+            }
+            wait();
+        }
+    }
+
+    /**
+     * Pausa la cuenta atrás conservando el tiempo restante.
+     */
+    public synchronized void pausar() {
+        if (pausada || finalizada) {
+            return;
+        }
+        pausada = true;
+        restanteEnPausa = Math.max(instanteFin - System.nanoTime(), 0);
+        cancelarTemporizador();
+    }
+
+    /**
+     * Reanuda la cuenta atrás con el tiempo que restaba en el momento de la pausa.
+     */
+    public synchronized void reanudar() {
+        if (!pausada || finalizada) {
+            return;
+        }
+        pausada = false;
+        if (restanteEnPausa <= 0) {
+            finalizar();
+            return;
+        }
+        instanteFin = System.nanoTime() + restanteEnPausa;
+        // Durante la pausa el plazo se ha podido ampliar
+        publicar(restanteEnPausa);
+        programarSiguienteSegundo(restanteEnPausa);
+    }
+
+    /**
+     * Amplía el plazo de la cuenta atrás.
+     *
+     * @param segundos segundos que se añaden al plazo.
+     */
+    public synchronized void ampliar(int segundos) {
+        if (finalizada || segundos <= 0) {
+            return;
+        }
+        if (pausada) {
+            restanteEnPausa += segundos * UN_SEGUNDO;
+        } else {
+            instanteFin += segundos * UN_SEGUNDO;
+            long restante = instanteFin - System.nanoTime();
+            publicar(restante);
+            // El siguiente cambio de segundo se desplaza con el plazo: se reprograma el temporizador en curso
+            long hastaCambio = hastaSiguienteCambio(restante);
+            if (temporizador == null || !temporizador.reprogramar(hastaCambio, TimeUnit.NANOSECONDS)) {
+                temporizador = rueda.programar(this::actualizar, hastaCambio, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Finaliza la cuenta atrás antes de que se agote el plazo.
+     */
+    public synchronized void interrumpir() {
+        finalizar();
+    }
+
+    /**
+     * Obtiene los segundos que le quedan a la cuenta atrás (el valor que se publicaría en este instante).
+     *
+     * @return segundos restantes o 0 si la cuenta atrás ha finalizado.
+     */
+    public synchronized int getSegundosRestantes() {
+        if (finalizada) {
+            return 0;
+        }
+        long restante = pausada ? restanteEnPausa : instanteFin - System.nanoTime();
+        return (int) Math.max((restante + UN_SEGUNDO - 1) / UN_SEGUNDO - 1, 0);
+    }
+
+    /**
+     * Indica si la cuenta atrás ha finalizado.
+     *
+     * @return <code>true</code> si la cuenta atrás ha finalizado.
+     */
+    public synchronized boolean isFinalizada() {
+        return finalizada;
+    }
+
+    /**
+     * Recalcula el valor de la cuenta atrás (se ejecuta en el hilo de la rueda al cambiar de segundo).
+     */
+    private synchronized void actualizar() {
+        if (pausada || finalizada) {
+            return;
+        }
+        long restante = instanteFin - System.nanoTime();
+        if (restante <= 0) {
+            EventoPlazoAgotado.emitir(segundos, -restante);
+            finalizar();
+            return;
+        }
+        publicar(restante);
+        programarSiguienteSegundo(restante);
+    }
+
+    /**
+     * Publica el valor de la cuenta atrás correspondiente al tiempo restante si ha cambiado.
+     *
+     * @param restante nanosegundos restantes de la cuenta atrás.
+     */
+    private void publicar(long restante) {
+        int valor = (int) ((restante + UN_SEGUNDO - 1) / UN_SEGUNDO) - 1;
+        if (valor != ultimoValor) {
+            ultimoValor = valor;
+            valorPendiente = valor;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Programa el temporizador para el siguiente cambio de segundo.
+     *
+     * @param restante nanosegundos restantes de la cuenta atrás.
+     */
+    private void programarSiguienteSegundo(long restante) {
+        temporizador = rueda.programar(this::actualizar, hastaSiguienteCambio(restante), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Calcula el tiempo que falta para el siguiente cambio de segundo.
+     *
+     * @param restante nanosegundos restantes de la cuenta atrás.
+     * @return nanosegundos hasta el siguiente cambio de segundo.
+     */
+    private static long hastaSiguienteCambio(long restante) {
+        long hastaCambio = restante % UN_SEGUNDO;
+        return hastaCambio <= 0 ? UN_SEGUNDO : hastaCambio;
+    }
+
+    /**
+     * Cancela el temporizador del siguiente cambio de segundo.
+     */
+    private void cancelarTemporizador() {
+        if (temporizador != null) {
+            temporizador.cancelar();
+            temporizador = null;
+        }
+    }
+
+    /**
+     * Marca la cuenta atrás como finalizada y despierta al hilo consumidor.
+     */
+    private void finalizar() {
+        if (!finalizada) {
+            finalizada = true;
+            cancelarTemporizador();
+            notifyAll();
+        }
+    }
+}
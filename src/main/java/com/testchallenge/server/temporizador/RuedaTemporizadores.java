@@ -0,0 +1,265 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.temporizador;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Planificador de temporizadores compartido basado en una rueda de temporizadores ("hashed timer wheel").
+ *
+ * Un único hilo avanza la rueda cada <code>duracionTick</code> nanosegundos (tiempo monótono de
+ * <code>System.nanoTime()</code>) y ejecuta las tareas de la ranura correspondiente. Programar, cancelar o reprogramar
+ * un temporizador tiene coste constante y no depende del número de temporizadores activos, por lo que la precisión
+ * (un tick) no se degrada con el número de tests en curso.
+ *
+ * Las tareas se ejecutan en el hilo de la rueda y deben ser breves: las operaciones de entrada/salida se delegan en el
+ * hilo interesado.
+ *
+ * @author japrada
+ */
+public class RuedaTemporizadores {
+
+    // Duración por defecto de un tick (en milisegundos)
+    private static final long DURACION_TICK_POR_DEFECTO = 10;
+    // Número por defecto de ranuras de la rueda (potencia de 2)
+    private static final int NUMERO_RANURAS_POR_DEFECTO = 512;
+    // Número máximo de entradas que se pasan de la cola de pendientes a la rueda en cada tick
+    private static final int MAXIMO_TRANSFERENCIAS_POR_TICK = 100000;
+
+    // Estados de la rueda
+    private static final int CREADA = 0;
+    private static final int INICIADA = 1;
+    private static final int DETENIDA = 2;
+
+    // Duración de un tick (en nanosegundos)
+    private final long duracionTick;
+    // Máscara para obtener la ranura a partir del número de tick
+    private final int mascara;
+    // Ranuras de la rueda (sólo las modifica el hilo de la rueda)
+    private final List<List<Entrada>> ranuras;
+    // Entradas pendientes de colocar en la rueda
+    private final Queue<Entrada> pendientes;
+    // Estado de la rueda
+    private final AtomicInteger estado;
+    // Hilo que avanza la rueda
+    private final Thread hilo;
+    // Instante de arranque de la rueda (nanoTime)
+    private volatile long instanteInicio;
+    // Número de ticks procesados (sólo lo modifica el hilo de la rueda)
+    private long tick;
+
+    // Logger de la clase
+    private final static Logger logger = Logger.getLogger(RuedaTemporizadores.class.getName());
+
+    /**
+     * Construye una rueda con los valores por defecto de duración del tick y número de ranuras.
+     */
+    public RuedaTemporizadores() {
+        this(DURACION_TICK_POR_DEFECTO, TimeUnit.MILLISECONDS, NUMERO_RANURAS_POR_DEFECTO);
+    }
+
+    /**
+     * Construye una rueda con la duración del tick y el número de ranuras especificados.
+     *
+     * @param duracionTick duración de un tick.
+     * @param unidad unidad de la duración del tick.
+     * @param numeroRanuras número de ranuras de la rueda (se redondea a la siguiente potencia de 2).
+     */
+    public RuedaTemporizadores(long duracionTick, TimeUnit unidad, int numeroRanuras) {
+        if (duracionTick <= 0 || numeroRanuras <= 0) {
+            throw new IllegalArgumentException("La duración del tick y el número de ranuras deben ser positivos.");
+        }
+        this.duracionTick = unidad.toNanos(duracionTick);
+        int ranurasPotenciaDeDos = Integer.highestOneBit(numeroRanuras - 1) << 1;
+        if (numeroRanuras == 1) {
+            ranurasPotenciaDeDos = 1;
+        }
+        mascara = ranurasPotenciaDeDos - 1;
+        ranuras = new ArrayList<>(ranurasPotenciaDeDos);
+        for (int i = 0; i < ranurasPotenciaDeDos; i++) {
+            ranuras.add(new ArrayList<>());
+        }
+        pendientes = new ConcurrentLinkedQueue<>();
+        estado = new AtomicInteger(CREADA);
+        hilo = new Thread(this::avanzar, RuedaTemporizadores.class.getSimpleName());
+        hilo.setDaemon(true);
+    }
+
+    /**
+     * Programa una tarea para que se ejecute tras el retardo especificado.
+     *
+     * La rueda se arranca la primera vez que se programa una tarea.
+     *
+     * @param tarea tarea que se ejecuta cuando expira el temporizador.
+     * @param retardo retardo.
+     * @param unidad unidad del retardo.
+     * @return manejador del temporizador, que permite cancelarlo o reprogramarlo.
+     */
+    public Temporizador programar(Runnable tarea, long retardo, TimeUnit unidad) {
+        iniciar();
+        if (estado.get() == DETENIDA) {
+            throw new IllegalStateException("La rueda de temporizadores está detenida.");
+        }
+        Temporizador temporizador = new Temporizador(this, tarea);
+        temporizador.reprogramar(retardo, unidad);
+        return temporizador;
+    }
+
+    /**
+     * Arranca el hilo de la rueda (si no se ha arrancado ya).
+     */
+    public void iniciar() {
+        if (estado.get() != CREADA) {
+            return;
+        }
+        synchronized (this) {
+            if (estado.get() == CREADA) {
+                // El instante de inicio se publica antes que el estado para que lo vean los hilos que programan tareas
+                instanteInicio = System.nanoTime();
+                estado.set(INICIADA);
+                hilo.start();
+            }
+        }
+    }
+
+    /**
+     * Detiene el hilo de la rueda. Los temporizadores pendientes no se ejecutan.
+     */
+    public void detener() {
+        if (estado.getAndSet(DETENIDA) == INICIADA) {
+            hilo.interrupt();
+        }
+    }
+
+    /**
+     * Añade a la cola de pendientes una nueva entrada para el temporizador especificado.
+     *
+     * @param temporizador temporizador.
+     * @param generacion generación de la entrada.
+     * @param retardoNanos retardo (en nanosegundos) desde este momento.
+     */
+    void encolar(Temporizador temporizador, long generacion, long retardoNanos) {
+        long expiracion = System.nanoTime() - instanteInicio + Math.max(retardoNanos, 0);
+        pendientes.add(new Entrada(temporizador, generacion, expiracion));
+    }
+
+    /**
+     * Bucle del hilo de la rueda: espera al siguiente tick, coloca las entradas pendientes y expira las de la ranura
+     * del tick.
+     */
+    private void avanzar() {
+        while (estado.get() == INICIADA) {
+            if (!esperarSiguienteTick()) {
+                break;
+            }
+            transferirPendientes();
+            procesarRanura(ranuras.get((int) (tick & mascara)));
+            tick++;
+        }
+    }
+
+    /**
+     * Espera hasta el final del tick en curso.
+     *
+     * @return <code>true</code> si se ha alcanzado el final del tick o <code>false</code> si la rueda se ha detenido.
+     */
+    private boolean esperarSiguienteTick() {
+        long finTick = duracionTick * (tick + 1);
+        while (estado.get() == INICIADA) {
+            long espera = finTick - (System.nanoTime() - instanteInicio);
+            if (espera <= 0) {
+                return true;
+            }
+            LockSupport.parkNanos(this, espera);
+        }
+        return false;
+    }
+
+    /**
+     * Coloca en su ranura las entradas pendientes. Una entrada nunca se coloca en un tick ya procesado, de modo que un
+     * temporizador no expira antes de tiempo.
+     */
+    private void transferirPendientes() {
+        for (int i = 0; i < MAXIMO_TRANSFERENCIAS_POR_TICK; i++) {
+            Entrada entrada = pendientes.poll();
+            if (entrada == null) {
+                break;
+            }
+            if (!entrada.temporizador.isVigente(entrada.generacion)) {
+                continue;
+            }
+            // El tick 't' se procesa al final de su intervalo: (t + 1) * duracionTick
+            long tickExpiracion = Math.max((entrada.expiracion + duracionTick - 1) / duracionTick - 1, tick);
+            entrada.rondas = (tickExpiracion - tick) / (mascara + 1);
+            ranuras.get((int) (tickExpiracion & mascara)).add(entrada);
+        }
+    }
+
+    /**
+     * Expira las entradas de la ranura cuyo número de vueltas pendientes es cero y descuenta una vuelta al resto.
+     *
+     * @param ranura ranura del tick en curso.
+     */
+    private void procesarRanura(List<Entrada> ranura) {
+        int conservadas = 0;
+        for (int i = 0; i < ranura.size(); i++) {
+            Entrada entrada = ranura.get(i);
+            if (!entrada.temporizador.isVigente(entrada.generacion)) {
+                continue;
+            }
+            if (entrada.rondas > 0) {
+                entrada.rondas--;
+                ranura.set(conservadas++, entrada);
+            } else if (entrada.temporizador.expirar(entrada.generacion)) {
+                try {
+                    entrada.temporizador.getTarea().run();
+                } catch (RuntimeException ex) {
+                    logger.severe(ex.getMessage());
+                }
+            }
+        }
+        ranura.subList(conservadas, ranura.size()).clear();
+    }
+
+    /**
+     * Entrada de un temporizador en la rueda.
+     */
+    private static final class Entrada {
+
+        // Temporizador al que corresponde la entrada
+        private final Temporizador temporizador;
+        // Generación de la programación del temporizador
+        private final long generacion;
+        // Instante de expiración (en nanosegundos desde el arranque de la rueda)
+        private final long expiracion;
+        // Vueltas completas de la rueda que faltan para que expire
+        private long rondas;
+
+        Entrada(Temporizador temporizador, long generacion, long expiracion) {
+            this.temporizador = temporizador;
+            this.generacion = generacion;
+            this.expiracion = expiracion;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.temporizador;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manejador de una tarea programada en una <code>RuedaTemporizadores</code>.
+ *
+ * Permite cancelar la tarea o reprogramarla con un nuevo retardo mientras no haya expirado. Cada reprogramación
+ * invalida la entrada anterior en la rueda (se identifica por su generación) y añade una nueva.
+ *
+ * @author japrada
+ */
+public final class Temporizador {
+
+    // Estados del temporizador
+    private static final int PENDIENTE = 0;
+    private static final int CANCELADO = 1;
+    private static final int EXPIRADO = 2;
+
+    // Rueda en la que se ha programado la tarea
+    private final RuedaTemporizadores rueda;
+    // Tarea que se ejecuta cuando expira el temporizador
+    private final Runnable tarea;
+    // Estado del temporizador
+    private int estado;
+    // Generación de la programación vigente (las entradas de generaciones anteriores se descartan)
+    private long generacion;
+
+    /**
+     * Construye un temporizador pendiente de programar.
+     *
+     * @param rueda rueda en la que se programa la tarea.
+     * @param tarea tarea que se ejecuta cuando expira el temporizador.
+     */
+    Temporizador(RuedaTemporizadores rueda, Runnable tarea) {
+        this.rueda = rueda;
+        this.tarea = tarea;
+        estado = PENDIENTE;
+    }
+
+    /**
+     * Cancela el temporizador.
+     *
+     * @return <code>true</code> si se ha cancelado o <code>false</code> si ya había expirado o estaba cancelado.
+     */
+    public synchronized boolean cancelar() {
+        if (estado != PENDIENTE) {
+            return false;
+        }
+        estado = CANCELADO;
+        return true;
+    }
+
+    /**
+     * Reprograma el temporizador para que expire tras el retardo especificado, contado desde este momento.
+     *
+     * @param retardo retardo.
+     * @param unidad unidad del retardo.
+     * @return <code>true</code> si se ha reprogramado o <code>false</code> si ya había expirado o estaba cancelado.
+     */
+    public synchronized boolean reprogramar(long retardo, TimeUnit unidad) {
+        if (estado != PENDIENTE) {
+            return false;
+        }
+        generacion++;
+        rueda.encolar(this, generacion, unidad.toNanos(retardo));
+        return true;
+    }
+
+    /**
+     * Indica si el temporizador ha sido cancelado.
+     *
+     * @return <code>true</code> si el temporizador ha sido cancelado.
+     */
+    public synchronized boolean isCancelado() {
+        return estado == CANCELADO;
+    }
+
+    /**
+     * Indica si el temporizador ha expirado (su tarea se ha ejecutado o se está ejecutando).
+     *
+     * @return <code>true</code> si el temporizador ha expirado.
+     */
+    public synchronized boolean isExpirado() {
+        return estado == EXPIRADO;
+    }
+
+    /**
+     * Comprueba si la entrada de la generación especificada sigue siendo la programación vigente.
+     *
+     * @param generacionEntrada generación de la entrada.
+     * @return <code>true</code> si la entrada sigue vigente.
+     */
+    synchronized boolean isVigente(long generacionEntrada) {
+        return estado == PENDIENTE && generacion == generacionEntrada;
+    }
+
+    /**
+     * Marca el temporizador como expirado si la entrada de la generación especificada sigue vigente.
+     *
+     * @param generacionEntrada generación de la entrada que expira.
+     * @return <code>true</code> si el temporizador ha pasado a expirado y se debe ejecutar la tarea.
+     */
+    synchronized boolean expirar(long generacionEntrada) {
+        if (!isVigente(generacionEntrada)) {
+            return false;
+        }
+        estado = EXPIRADO;
+        return true;
+    }
+
+    /**
+     * Obtiene la tarea del temporizador.
+     *
+     * @return tarea del temporizador.
+     */
+    Runnable getTarea() {
+        return tarea;
+    }
+}
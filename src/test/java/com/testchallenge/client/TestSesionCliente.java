@@ -0,0 +1,221 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.Ranking;
+import com.testchallenge.model.Respuesta;
+import com.testchallenge.model.TipoMensaje;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la sesión del cliente (sin interfaz gráfica) frente a un servidor simulado en local.
+ *
+ * @author japrada
+ */
+public class TestSesionCliente {
+
+    // Tiempo máximo de espera de cada notificación
+    private static final long ESPERA_SEGUNDOS = 5;
+
+    /**
+     * Test que se une a un test en ejecución, recibe los mensajes del servidor, responde a un PING, envía una
+     * respuesta y comprueba las notificaciones recibidas y el estado de la sesión.
+     *
+     * @throws Exception excepción en la comunicación con el servidor simulado.
+     */
+    @Test
+    public void testSesion() throws Exception {
+        try (ServerSocket servidor = new ServerSocket(0);
+                SesionCliente sesion = new SesionCliente("localhost", servidor.getLocalPort());
+                Socket conexion = servidor.accept()) {
+            ObjectOutputStream out = new ObjectOutputStream(conexion.getOutputStream());
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(conexion.getInputStream());
+
+            // Registro y estado inicial: hay un test en ejecución (no pausado)
+            out.writeObject(new Mensaje(TipoMensaje.NICKNAME_OK));
+            out.writeObject(new Mensaje("Usuarios conectados: @ana"));
+            out.writeObject(new Mensaje(new String[]{"English", "Java"}));
+            out.writeObject(new Mensaje(new Ranking(Map.of("ana", 3)), TipoMensaje.RANKING_ACTUAL));
+            out.writeObject(new Mensaje(Boolean.TRUE, TipoMensaje.TEST_EN_EJECUCION));
+            out.writeObject(new Mensaje("Test de Java"));
+            out.writeObject(new Mensaje(pregunta(1), TipoMensaje.TEST_PREGUNTA));
+            out.writeObject(new Mensaje(Boolean.FALSE, TipoMensaje.TEST_PAUSADO));
+            out.flush();
+
+            assertTrue(sesion.registrar("luis"));
+            assertEquals("luis", ((Mensaje) in.readObject()).getTexto());
+
+            Oyente oyente = new Oyente();
+            sesion.iniciar(oyente);
+            assertEquals("registro:Usuarios conectados: @ana:English,Java:3", oyente.siguiente());
+            assertEquals("unirse:Test de Java:1", oyente.siguiente());
+            assertTrue(sesion.isTestEnEjecucion());
+            assertFalse(sesion.isTestPausado());
+
+            // Mensajes del servidor
+            out.writeObject(new Mensaje("12", TipoMensaje.TIMER_TICK));
+            out.writeObject(new Mensaje(new long[]{1000}, TipoMensaje.PING));
+            out.writeObject(new Mensaje(pregunta(2), TipoMensaje.TEST_PREGUNTA));
+            out.writeObject(new Mensaje("Hola"));
+            out.flush();
+            assertEquals("tick:12", oyente.siguiente());
+            Mensaje pong = (Mensaje) in.readObject();
+            assertEquals(TipoMensaje.PONG, pong.getTipo());
+            assertEquals(1000, pong.getMarcasTiempo()[0]);
+            assertTrue(pong.getMarcasTiempo()[2] >= pong.getMarcasTiempo()[1]);
+            assertEquals("pregunta:2", oyente.siguiente());
+            assertEquals("chat:Hola", oyente.siguiente());
+            assertEquals(2, (int) sesion.getPreguntaActual().getNumeroOrden());
+
+            // La respuesta a la pregunta actual lleva el instante de recepción de la pregunta
+            sesion.enviarRespuesta(new Respuesta(new String[]{"A"}, null, 2));
+            Respuesta respuesta = ((Mensaje) in.readObject()).getRespuesta();
+            assertArrayEquals(new String[]{"A"}, respuesta.getOpciones().toArray());
+            assertTrue(respuesta.getInstanteRecepcionPregunta() > 0);
+            assertTrue(respuesta.getInstanteEnvio() >= respuesta.getInstanteRecepcionPregunta());
+            // y la respuesta a otra pregunta no
+            sesion.enviarRespuesta(new Respuesta(new String[]{"B"}, null, 1));
+            assertEquals(0, ((Mensaje) in.readObject()).getRespuesta().getInstanteRecepcionPregunta());
+
+            out.writeObject(new Mensaje(TipoMensaje.PREGUNTA_CONTESTADA_CORRECTAMENTE_Y_PRIMERA));
+            out.writeObject(new Mensaje(TipoMensaje.TEST_PAUSADO));
+            out.writeObject(new Mensaje(new Ranking(Map.of("luis", 5)), TipoMensaje.TEST_PARAR));
+            out.flush();
+            assertEquals("puntuacion:CORRECTA_Y_PRIMERA", oyente.siguiente());
+            assertEquals("pausa", oyente.siguiente());
+            assertEquals("parar:5", oyente.siguiente());
+            assertEquals(Puntuacion.CORRECTA_Y_PRIMERA, sesion.getPuntuacionPreguntaActual());
+            assertFalse(sesion.isTestEnEjecucion());
+            assertNull(sesion.getPreguntaActual());
+            assertEquals(5, (int) sesion.getRanking().getPuntuaciones().get("luis"));
+            assertEquals(4, sesion.getMensajesEnviados());
+
+            // Al cerrar la conexión desde el servidor se notifica la desconexión
+            conexion.close();
+            assertTrue(oyente.desconexion.await(ESPERA_SEGUNDOS, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Test que comprueba que no se registra un nickname en uso.
+     *
+     * @throws Exception excepción en la comunicación con el servidor simulado.
+     */
+    @Test
+    public void testNicknameDuplicado() throws Exception {
+        try (ServerSocket servidor = new ServerSocket(0);
+                SesionCliente sesion = new SesionCliente("localhost", servidor.getLocalPort());
+                Socket conexion = servidor.accept()) {
+            ObjectOutputStream out = new ObjectOutputStream(conexion.getOutputStream());
+            out.writeObject(new Mensaje(TipoMensaje.NICKNAME_KO));
+            out.flush();
+
+            assertFalse(sesion.registrar("luis"));
+            assertNull(sesion.getNickname());
+        }
+    }
+
+    /**
+     * Construye una pregunta con el número de orden especificado.
+     *
+     * @param numeroOrden número de orden de la pregunta en el test.
+     * @return pregunta.
+     */
+    private static Pregunta pregunta(int numeroOrden) {
+        Pregunta pregunta = new Pregunta();
+        pregunta.setNumeroOrden(numeroOrden);
+        return pregunta;
+    }
+
+    /**
+     * Oyente que registra como texto las notificaciones recibidas.
+     */
+    private static class Oyente implements IOyenteSesion {
+
+        private final BlockingQueue<String> notificaciones = new LinkedBlockingQueue<>();
+        private final CountDownLatch desconexion = new CountDownLatch(1);
+
+        String siguiente() throws InterruptedException {
+            return notificaciones.poll(ESPERA_SEGUNDOS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void alRegistrarse(String nicknamesConectados, String[] tematicas, Ranking ranking) {
+            notificaciones.add(String.format("registro:%s:%s:%d", nicknamesConectados, String.join(",", tematicas),
+                    ranking.getPuntuaciones().get("ana")));
+        }
+
+        @Override
+        public void alUnirseATestEnEjecucion(String informacionTest, Pregunta pregunta) {
+            notificaciones.add(String.format("unirse:%s:%d", informacionTest, pregunta.getNumeroOrden()));
+        }
+
+        @Override
+        public void alRecibirChat(String texto) {
+            notificaciones.add("chat:" + texto);
+        }
+
+        @Override
+        public void alRecibirTiempoRestante(String segundos) {
+            notificaciones.add("tick:" + segundos);
+        }
+
+        @Override
+        public void alRecibirPregunta(Pregunta pregunta) {
+            notificaciones.add("pregunta:" + pregunta.getNumeroOrden());
+        }
+
+        @Override
+        public void alPararTest(Ranking ranking) {
+            notificaciones.add("parar:" + ranking.getPuntuaciones().get("luis"));
+        }
+
+        @Override
+        public void alPausarTest() {
+            notificaciones.add("pausa");
+        }
+
+        @Override
+        public void alRecibirPuntuacion(Puntuacion puntuacion) {
+            notificaciones.add("puntuacion:" + puntuacion);
+        }
+
+        @Override
+        public void alDesconectarse() {
+            desconexion.countDown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan el historial acotado del chat.
+ *
+ * @author japrada
+ */
+public class TestHistorialChat {
+
+    /**
+     * Test que añade más líneas de las que caben en memoria y de las que se retienen, y comprueba que se descartan las
+     * más antiguas y que las volcadas al fichero de scrollback se leen correctamente (también después de leer una
+     * página que todavía no estaba completa).
+     */
+    @Test
+    public void testRetencionYScrollback() {
+        try (HistorialChat historial = new HistorialChat(10, 200)) {
+            int descartadas = 0;
+            for (int i = 0; i < 100; i++) {
+                descartadas += historial.agregar("línea " + i);
+            }
+            assertEquals(0, descartadas);
+            assertEquals(100, historial.getNumeroLineas());
+            assertEquals(10, historial.getLineasEnMemoria());
+            assertEquals("línea 70", historial.getLinea(70));
+
+            for (int i = 100; i < 500; i++) {
+                descartadas += historial.agregar("línea " + i);
+            }
+            assertEquals(300, descartadas);
+            assertEquals(200, historial.getNumeroLineas());
+            for (int i = 0; i < 200; i++) {
+                assertEquals("línea " + (300 + i), historial.getLinea(i));
+            }
+
+            historial.borrar();
+            assertEquals(0, historial.getNumeroLineas());
+            historial.agregar("nueva");
+            assertEquals("nueva", historial.getLinea(0));
+        }
+    }
+}
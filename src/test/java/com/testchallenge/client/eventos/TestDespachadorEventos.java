@@ -0,0 +1,73 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.eventos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la agrupación de eventos del despachador del cliente.
+ *
+ * @author japrada
+ */
+public class TestDespachadorEventos {
+
+    /**
+     * Test que publica una ráfaga de eventos mientras no se ejecuta ningún frame y comprueba que se programa un único
+     * frame, que sólo se aplica el último valor del temporizador, que las líneas de chat consecutivas se añaden de una
+     * vez y que se respeta el orden respecto al resto de actualizaciones.
+     */
+    @Test
+    public void testAgrupacionEventosEnUnFrame() {
+        List<Runnable> frames = new ArrayList<>();
+        List<String> aplicados = new ArrayList<>();
+        DespachadorEventos despachador = new DespachadorEventos(frames::add,
+                tick -> aplicados.add("tick:" + tick),
+                lineas -> aplicados.add("chat:" + String.join("|", lineas)));
+
+        despachador.publicarTick("10");
+        despachador.publicarChat("a");
+        despachador.publicarChat("b");
+        despachador.publicar(() -> aplicados.add("accion"));
+        despachador.publicarChat("c");
+        despachador.publicarTick("9");
+        despachador.publicarTick("8");
+        despachador.publicarChat("d");
+
+        assertEquals(1, frames.size());
+        assertEquals(8, despachador.getPendientes());
+
+        frames.remove(0).run();
+
+        assertEquals(Arrays.asList("chat:a|b", "accion", "chat:c", "tick:8", "chat:d"), aplicados);
+        assertEquals(2, despachador.getTicksDescartados());
+        assertEquals(8, despachador.getEventosPublicados());
+        assertEquals(8, despachador.getEventosAplicados());
+        assertEquals(0, despachador.getPendientes());
+        assertEquals(1, despachador.getFrames());
+
+        // Un evento publicado después del frame programa un nuevo frame
+        despachador.publicarTick("7");
+        assertEquals(1, frames.size());
+        frames.remove(0).run();
+        assertEquals("tick:7", aplicados.get(aplicados.size() - 1));
+        assertEquals(2, despachador.getFrames());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui;
+
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.TipoPregunta;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.JCheckBox;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la reutilización de los paneles de respuestas.
+ *
+ * @author japrada
+ */
+public class TestPoolRespuestasPanel {
+
+    /**
+     * Test que muestra sucesivamente dos preguntas de respuesta múltiple y una de respuesta única en el mismo panel de
+     * respuestas, y comprueba que se reutiliza el panel de cada tipo con las opciones de la nueva pregunta y sin
+     * conservar la selección ni el estado deshabilitado de la anterior.
+     */
+    @Test
+    public void testReutilizacionPaneles() {
+        Pregunta p1 = pregunta(1, TipoPregunta.RESPUESTA_MULTIPLE, Arrays.asList("a", "b", "c"));
+        Pregunta p2 = pregunta(2, TipoPregunta.RESPUESTA_MULTIPLE, Arrays.asList("d", "e"));
+        Pregunta p3 = pregunta(3, TipoPregunta.RESPUESTA_UNICA, Arrays.asList("f", "g"));
+
+        RespuestasPanel respuestas = new RespuestasPanel(p1);
+        RespuestasPanel panelMultiple = (RespuestasPanel) respuestas.getComponent(0);
+        assertEquals(3, panelMultiple.getComponentCount());
+
+        ((JCheckBox) panelMultiple.getComponent(1)).setSelected(true);
+        assertArrayEquals(new String[]{"b"}, respuestas.getRespuestasSeleccionadas());
+        respuestas.setEnabled(false);
+
+        respuestas.setPregunta(p2, false);
+        assertSame(panelMultiple, respuestas.getComponent(0));
+        assertEquals(2, panelMultiple.getComponentCount());
+        assertEquals(0, respuestas.getRespuestasSeleccionadas().length);
+        assertTrue(panelMultiple.getComponent(0).isEnabled());
+
+        respuestas.setPregunta(p3, false);
+        assertTrue(respuestas.getComponent(0) instanceof RespuestaRadioPanel);
+        assertEquals(TipoPregunta.RESPUESTA_UNICA, respuestas.getTipoPregunta());
+
+        // Una nueva pregunta de respuesta múltiple reutiliza el mismo panel
+        assertSame(panelMultiple, new RespuestasPanel(p1).getComponent(0));
+    }
+
+    private static Pregunta pregunta(int id, TipoPregunta tipo, List<String> opciones) {
+        return new Pregunta(id, "Pregunta " + id, "Temática", "Nivel", tipo, "", opciones,
+                Collections.emptyList(), Collections.singletonList(opciones.get(0)));
+    }
+}
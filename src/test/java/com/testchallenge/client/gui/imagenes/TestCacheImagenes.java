@@ -0,0 +1,70 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui.imagenes;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la caché de imágenes de las preguntas.
+ *
+ * @author japrada
+ */
+public class TestCacheImagenes {
+
+    /**
+     * Test que solicita varias veces la misma imagen, con el mismo y con distinto tamaño, y comprueba que sólo se
+     * decodifica una vez, que las imágenes escaladas tienen el tamaño solicitado y que la memoria ocupada no supera el
+     * máximo.
+     *
+     * @throws IOException excepción al codificar la imagen de prueba.
+     */
+    @Test
+    public void testCacheImagenes() throws IOException {
+        BufferedImage original = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(original, "png", baos);
+        byte[] datos = baos.toByteArray();
+        String clave = CacheImagenes.clave("imagen.png", datos);
+
+        // Memoria para la original (480.000 bytes) y poco más
+        long memoriaMaxima = 4L * 400 * 300 * 4;
+        CacheImagenes cache = new CacheImagenes(memoriaMaxima, Runnable::run, Runnable::run);
+
+        List<BufferedImage> cargadas = new ArrayList<>();
+        cache.cargar(clave, datos, 100, 100, cargadas::add);
+        cache.cargar(clave, datos, 100, 100, cargadas::add);
+        cache.cargar(clave, datos, 500, 500, cargadas::add);
+        cache.cargar(clave, datos, 37, 21, cargadas::add);
+
+        assertEquals(4, cargadas.size());
+        assertEquals(1, cache.getDecodificaciones());
+        assertEquals(100, cargadas.get(0).getWidth());
+        assertTrue(cargadas.get(0) == cargadas.get(1));
+        assertEquals(500, cargadas.get(2).getHeight());
+        assertEquals(37, cargadas.get(3).getWidth());
+        assertEquals(21, cargadas.get(3).getHeight());
+        assertTrue(cache.getMemoriaOcupada() <= memoriaMaxima);
+    }
+}
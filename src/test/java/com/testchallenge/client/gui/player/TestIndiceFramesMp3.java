@@ -0,0 +1,135 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.gui.player;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan el índice de frames de los audios MP3.
+ *
+ * @author japrada
+ */
+public class TestIndiceFramesMp3 {
+
+    // Cabecera MPEG-1 capa III, 128 kbps, 44100 Hz, sin relleno (417 bytes) y con relleno (418 bytes)
+    private static final byte[] CABECERA = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00};
+    private static final byte[] CABECERA_RELLENO = {(byte) 0xFF, (byte) 0xFB, (byte) 0x92, 0x00};
+
+    /**
+     * Test que indexa un audio con etiqueta ID3v2, frames con y sin relleno y bytes basura entre frames, y comprueba
+     * los offsets, la duración y el frame correspondiente a cada instante.
+     */
+    @Test
+    public void testIndexar() {
+        List<Integer> offsets = new ArrayList<>();
+        ByteBuffer datos = ByteBuffer.wrap(audio(100, offsets));
+
+        IndiceFramesMp3 indice = new IndiceFramesMp3();
+        indice.indexar(datos, datos.capacity());
+
+        assertEquals(100, indice.getNumeroFrames());
+        for (int i = 0; i < offsets.size(); i++) {
+            assertEquals((int) offsets.get(i), indice.getOffset(i));
+        }
+        assertEquals(44100, indice.getFrecuencia());
+        assertEquals(1152, indice.getMuestrasPorFrame());
+        assertEquals(100 * 1152 / 44100.0, indice.getDuracionSegundos(), 1e-9);
+
+        assertEquals(0, indice.getFrame(0));
+        assertEquals(38, indice.getFrame(1.0));
+        assertEquals(50, indice.getFrame(indice.getSegundos(50) + 0.001));
+        assertEquals(99, indice.getFrame(3600));
+    }
+
+    /**
+     * Test que indexa el mismo audio por trozos y comprueba que sólo se indexan los frames completos y que el
+     * resultado final es el mismo.
+     */
+    @Test
+    public void testIndexarPorTrozos() {
+        List<Integer> offsets = new ArrayList<>();
+        ByteBuffer datos = ByteBuffer.wrap(audio(100, offsets));
+
+        IndiceFramesMp3 indice = new IndiceFramesMp3();
+        indice.indexar(datos, 5);
+        assertEquals(0, indice.getNumeroFrames());
+
+        // Hasta el final del décimo frame menos un byte: sólo hay nueve frames completos
+        int finFrame10 = offsets.get(10);
+        indice.indexar(datos, finFrame10 - 10);
+        assertEquals(9, indice.getNumeroFrames());
+
+        for (int disponibles = finFrame10; disponibles < datos.capacity(); disponibles += 1000) {
+            indice.indexar(datos, disponibles);
+        }
+        indice.indexar(datos, datos.capacity());
+
+        assertEquals(100, indice.getNumeroFrames());
+        for (int i = 0; i < offsets.size(); i++) {
+            assertEquals((int) offsets.get(i), indice.getOffset(i));
+        }
+    }
+
+    /**
+     * Test que comprueba la longitud de los frames de distintas versiones y capas.
+     */
+    @Test
+    public void testLongitudFrame() {
+        // MPEG-1 capa III, 128 kbps, 44100 Hz
+        assertEquals(417, IndiceFramesMp3.longitudFrame(0xFFFB9000));
+        assertEquals(418, IndiceFramesMp3.longitudFrame(0xFFFB9200));
+        // MPEG-2 capa III, 64 kbps, 22050 Hz
+        assertEquals(208, IndiceFramesMp3.longitudFrame(0xFFF38000));
+        // MPEG-1 capa II, 192 kbps, 48000 Hz
+        assertEquals(576, IndiceFramesMp3.longitudFrame(0xFFFDA400));
+        // MPEG-1 capa I, 32 kbps, 32000 Hz
+        assertEquals(48, IndiceFramesMp3.longitudFrame(0xFFFF1800));
+        // Sin sincronismo, tasa de bits libre y frecuencia reservada
+        assertEquals(0, IndiceFramesMp3.longitudFrame(0x12345678));
+        assertEquals(0, IndiceFramesMp3.longitudFrame(0xFFFB0000));
+        assertEquals(0, IndiceFramesMp3.longitudFrame(0xFFFB9C00));
+    }
+
+    /**
+     * Construye un audio sintético: etiqueta ID3v2, frames (uno de cada tres con relleno) y algunos bytes basura.
+     *
+     * @param numeroFrames número de frames.
+     * @param offsets lista en la que se añaden los offsets de los frames.
+     * @return datos del audio.
+     */
+    private static byte[] audio(int numeroFrames, List<Integer> offsets) {
+        ByteArrayOutputStream audio = new ByteArrayOutputStream();
+        // Etiqueta ID3v2 con 300 bytes de contenido (tamaño "syncsafe": 2 * 128 + 44)
+        audio.writeBytes(new byte[]{'I', 'D', '3', 3, 0, 0, 0, 0, 2, 44});
+        audio.writeBytes(new byte[300]);
+        for (int i = 0; i < numeroFrames; i++) {
+            if (i == 40) {
+                audio.writeBytes(new byte[]{1, 2, 3, (byte) 0xFF, 0x00});
+            }
+            offsets.add(audio.size());
+            boolean relleno = i % 3 == 0;
+            audio.writeBytes(relleno ? CABECERA_RELLENO : CABECERA);
+            audio.writeBytes(new byte[(relleno ? 418 : 417) - 4]);
+        }
+        return audio.toByteArray();
+    }
+}
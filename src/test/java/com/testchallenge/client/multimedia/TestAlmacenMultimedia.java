@@ -0,0 +1,128 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.client.multimedia;
+
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.ReferenciaMultimedia;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan el almacén en disco de los datos multimedia de las preguntas.
+ *
+ * @author japrada
+ */
+public class TestAlmacenMultimedia {
+
+    /**
+     * Test que vuelca los datos de varias preguntas y comprueba que las preguntas sólo conservan la referencia y que
+     * los datos se leen correctamente del fichero (antes y después de escribirse).
+     *
+     * @throws IOException excepción al leer los datos.
+     */
+    @Test
+    public void testVolcarYLeer() throws IOException {
+        List<Runnable> escrituras = new ArrayList<>();
+        try (AlmacenMultimedia almacen = new AlmacenMultimedia(escrituras::add)) {
+            List<byte[]> datos = new ArrayList<>();
+            List<Pregunta> preguntas = new ArrayList<>();
+            Random random = new Random(7);
+            for (int i = 0; i < 5; i++) {
+                byte[] fichero = new byte[1000 + i * 5000];
+                random.nextBytes(fichero);
+                Pregunta pregunta = new Pregunta();
+                pregunta.setFicheroMultimediaData(fichero);
+                almacen.volcar(pregunta);
+
+                assertNull(pregunta.getFicheroMultimediaData());
+                datos.add(fichero);
+                preguntas.add(pregunta);
+            }
+            assertEquals(datos.stream().mapToLong(d -> d.length).sum(), almacen.getBytesVolcados());
+
+            // Antes de escribirse, los datos se leen de memoria
+            assertArrayEquals(datos.get(2), leer(preguntas.get(2).getReferenciaMultimedia().getDatos()));
+
+            escrituras.forEach(Runnable::run);
+            for (int i = 0; i < preguntas.size(); i++) {
+                ReferenciaMultimedia referencia = preguntas.get(i).getReferenciaMultimedia();
+                assertEquals(datos.get(i).length, referencia.getLongitud());
+                assertEquals(Arrays.hashCode(datos.get(i)), referencia.getHuella());
+                assertArrayEquals(datos.get(i), leer(referencia.getDatos()));
+                try (InputStream entrada = referencia.abrir()) {
+                    assertArrayEquals(datos.get(i), entrada.readAllBytes());
+                }
+            }
+        }
+    }
+
+    /**
+     * Test que comprueba que, una vez borrado el almacén, las referencias volcadas dejan de ser válidas y los nuevos
+     * volcados empiezan de nuevo.
+     *
+     * @throws IOException excepción al leer los datos.
+     */
+    @Test
+    public void testBorrar() throws IOException {
+        try (AlmacenMultimedia almacen = new AlmacenMultimedia(Runnable::run)) {
+            Pregunta pregunta = new Pregunta();
+            pregunta.setFicheroMultimediaData(new byte[]{1, 2, 3});
+            almacen.volcar(pregunta);
+            ByteBuffer proyectados = pregunta.getReferenciaMultimedia().getDatos();
+
+            almacen.borrar();
+            assertEquals(0, almacen.getBytesVolcados());
+            assertThrows(IOException.class, () -> pregunta.getReferenciaMultimedia().getDatos());
+            // Las zonas ya proyectadas siguen siendo legibles
+            assertArrayEquals(new byte[]{1, 2, 3}, leer(proyectados));
+
+            Pregunta otra = new Pregunta();
+            otra.setFicheroMultimediaData(new byte[]{4, 5});
+            almacen.volcar(otra);
+            assertEquals(2, almacen.getBytesVolcados());
+            assertArrayEquals(new byte[]{4, 5}, leer(otra.getReferenciaMultimedia().getDatos()));
+
+            // Las preguntas sin datos multimedia no se modifican
+            Pregunta sinDatos = new Pregunta();
+            almacen.volcar(sinDatos);
+            assertNull(sinDatos.getReferenciaMultimedia());
+            assertEquals(2, almacen.getBytesVolcados());
+        }
+    }
+
+    /**
+     * Lee el contenido de un buffer.
+     *
+     * @param buffer buffer de datos.
+     * @return contenido del buffer.
+     */
+    private static byte[] leer(ByteBuffer buffer) {
+        byte[] contenido = new byte[buffer.remaining()];
+        buffer.get(contenido);
+        return contenido;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la serialización Java de los mensajes más pesados del protocolo: el envío de una pregunta
+ * (<code>TEST_PREGUNTA</code>, con o sin datos multimedia) y el del ranking (<code>RANKING_ACTUAL</code>).
+ *
+ * Cada operación usa un stream de objetos nuevo, de modo que incluye el coste de los descriptores de clase que se
+ * envían con cada mensaje.
+ *
+ * @author japrada
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkMensaje {
+
+    /**
+     * Mensaje con una pregunta.
+     */
+    @State(Scope.Thread)
+    public static class MensajePregunta {
+
+        @Param({"4", "16"})
+        private int numeroOpciones;
+
+        @Param({"0", "65536", "1048576"})
+        private int bytesMultimedia;
+
+        private Mensaje mensaje;
+        private byte[] serializado;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Setup
+        public void setUp() throws IOException {
+            Pregunta pregunta = PreguntasSinteticas.crear(1, TipoPregunta.RESPUESTA_MULTIVALOR, numeroOpciones,
+                    bytesMultimedia);
+            pregunta.setNumeroOrden(1);
+            mensaje = new Mensaje(pregunta, TipoMensaje.TEST_PREGUNTA);
+            serializado = serializar(mensaje, buffer);
+        }
+    }
+
+    /**
+     * Mensaje con el ranking.
+     */
+    @State(Scope.Thread)
+    public static class MensajeRanking {
+
+        @Param({"10", "100", "1000"})
+        private int numeroParticipantes;
+
+        private Mensaje mensaje;
+        private byte[] serializado;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Setup
+        public void setUp() throws IOException {
+            Map<String, Integer> puntuaciones = new HashMap<>();
+            for (int i = 0; i < numeroParticipantes; i++) {
+                puntuaciones.put(String.format("usuario%04d", i), i * 7 % 50);
+            }
+            mensaje = new Mensaje(new Ranking(puntuaciones), TipoMensaje.RANKING_ACTUAL);
+            serializado = serializar(mensaje, buffer);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarPregunta(MensajePregunta estado) throws IOException {
+        return serializar(estado.mensaje, estado.buffer);
+    }
+
+    @Benchmark
+    public Object deserializarPregunta(MensajePregunta estado) throws IOException, ClassNotFoundException {
+        return deserializar(estado.serializado);
+    }
+
+    @Benchmark
+    public byte[] serializarRanking(MensajeRanking estado) throws IOException {
+        return serializar(estado.mensaje, estado.buffer);
+    }
+
+    @Benchmark
+    public Object deserializarRanking(MensajeRanking estado) throws IOException, ClassNotFoundException {
+        return deserializar(estado.serializado);
+    }
+
+    private static byte[] serializar(Mensaje mensaje, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(mensaje);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Object deserializar(byte[] datos) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(datos))) {
+            return in.readObject();
+        }
+    }
+}
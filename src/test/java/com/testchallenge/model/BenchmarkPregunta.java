@@ -0,0 +1,89 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.model;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la lectura de una pregunta desde su definición JSON (<code>Pregunta(String)</code>) y de su escritura
+ * en JSON (<code>Pregunta.toString()</code>, que es lo que se persiste).
+ *
+ * Las preguntas se recorren de forma circular sobre un banco de <code>tamanoBanco</code> preguntas distintas para que
+ * el resultado no dependa de tener siempre la misma pregunta en caché.
+ *
+ * @author japrada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkPregunta {
+
+    @Param({"RESPUESTA_UNICA", "RESPUESTA_MULTIPLE", "RESPUESTA_EMPAREJADA", "RESPUESTA_MULTIVALOR"})
+    private TipoPregunta tipo;
+
+    @Param({"4", "16"})
+    private int numeroOpciones;
+
+    @Param({"1", "1000"})
+    private int tamanoBanco;
+
+    // Banco de preguntas y sus definiciones JSON
+    private Pregunta[] preguntas;
+    private String[] definiciones;
+    // Siguiente pregunta del banco
+    private int siguiente;
+
+    @Setup
+    public void setUp() {
+        preguntas = new Pregunta[tamanoBanco];
+        definiciones = new String[tamanoBanco];
+        for (int i = 0; i < tamanoBanco; i++) {
+            preguntas[i] = PreguntasSinteticas.crear(i + 1, tipo, numeroOpciones, 0);
+            definiciones[i] = preguntas[i].toString();
+        }
+    }
+
+    @Benchmark
+    public Pregunta leerJson() {
+        return new Pregunta(definiciones[indice()]);
+    }
+
+    @Benchmark
+    public String escribirJson() {
+        return preguntas[indice()].toString();
+    }
+
+    private int indice() {
+        int i = siguiente;
+        siguiente = i + 1 == tamanoBanco ? 0 : i + 1;
+        return i;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.model;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la corrección de una respuesta (<code>Respuesta.equals</code>) para cada tipo de pregunta, con la
+ * respuesta correcta y con una respuesta que sólo falla en su último elemento.
+ *
+ * @author japrada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkRespuesta {
+
+    @Param({"RESPUESTA_UNICA", "RESPUESTA_MULTIPLE", "RESPUESTA_TEXTO_LIBRE", "RESPUESTA_EMPAREJADA",
+        "RESPUESTA_MULTIVALOR"})
+    private TipoPregunta tipo;
+
+    @Param({"4", "16", "64"})
+    private int numeroOpciones;
+
+    // Respuesta correcta de la pregunta y respuestas enviadas
+    private Respuesta correcta;
+    private Respuesta acierto;
+    private Respuesta fallo;
+
+    @Setup
+    public void setUp() {
+        Pregunta pregunta = PreguntasSinteticas.crear(1, tipo, numeroOpciones, 0);
+        correcta = PreguntasSinteticas.acertar(pregunta);
+        acierto = PreguntasSinteticas.acertar(pregunta);
+        fallo = PreguntasSinteticas.fallarEnLaUltima(pregunta);
+    }
+
+    @Benchmark
+    public boolean corregirAcierto() {
+        return correcta.equals(acierto);
+    }
+
+    @Benchmark
+    public boolean corregirFallo() {
+        return correcta.equals(fallo);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construye preguntas y respuestas sintéticas de cualquier tipo y tamaño para los benchmarks.
+ *
+ * @author japrada
+ */
+public final class PreguntasSinteticas {
+
+    private PreguntasSinteticas() {
+    }
+
+    /**
+     * Construye una pregunta con el tipo y el número de opciones especificados.
+     *
+     * Las preguntas de tipo única y texto libre tienen una respuesta correcta; las de tipo múltiple, la mitad de las
+     * opciones; y las de tipo emparejada y multivalor, una respuesta por opción.
+     *
+     * @param id identificador de la pregunta.
+     * @param tipo tipo de la pregunta.
+     * @param numeroOpciones número de opciones de la pregunta (mayor que 0).
+     * @param bytesMultimedia tamaño de los datos multimedia (0 si la pregunta no lleva fichero multimedia).
+     * @return pregunta.
+     */
+    public static Pregunta crear(int id, TipoPregunta tipo, int numeroOpciones, int bytesMultimedia) {
+        List<String> opciones = new ArrayList<>();
+        List<List<String>> valoresOpciones = new ArrayList<>();
+        List<String> respuestas = new ArrayList<>();
+
+        for (int i = 0; i < numeroOpciones; i++) {
+            opciones.add(String.format("Opción %d de la pregunta %d", i + 1, id));
+            List<String> valores = new ArrayList<>();
+            for (int j = 0; j < numeroOpciones; j++) {
+                valores.add(String.format("Valor %d de la opción %d", j + 1, i + 1));
+            }
+            valoresOpciones.add(valores);
+        }
+
+        switch (tipo) {
+            case RESPUESTA_UNICA:
+            case RESPUESTA_TEXTO_LIBRE:
+                respuestas.add(opciones.get(0));
+                break;
+            case RESPUESTA_MULTIPLE:
+                for (int i = 0; i < numeroOpciones; i += 2) {
+                    respuestas.add(opciones.get(i));
+                }
+                break;
+            case RESPUESTA_EMPAREJADA:
+            case RESPUESTA_MULTIVALOR:
+                for (int i = 0; i < numeroOpciones; i++) {
+                    respuestas.add(valoresOpciones.get(i).get(i));
+                }
+                break;
+        }
+
+        // En las emparejadas todas las opciones comparten los mismos valores
+        if (tipo == TipoPregunta.RESPUESTA_EMPAREJADA) {
+            for (int i = 1; i < numeroOpciones; i++) {
+                valoresOpciones.set(i, valoresOpciones.get(0));
+            }
+            respuestas.clear();
+            for (int i = 0; i < numeroOpciones; i++) {
+                respuestas.add(valoresOpciones.get(0).get(i));
+            }
+        }
+
+        Pregunta pregunta = new Pregunta(id,
+                String.format("Texto de la pregunta %d con \"comillas\" para escapar", id),
+                "English",
+                Nivel.NORMAL.getNivel(),
+                tipo,
+                bytesMultimedia > 0 ? String.format("%05d.png", id) : "",
+                opciones,
+                tipo == TipoPregunta.RESPUESTA_EMPAREJADA || tipo == TipoPregunta.RESPUESTA_MULTIVALOR
+                ? valoresOpciones : null,
+                respuestas);
+        if (bytesMultimedia > 0) {
+            byte[] datos = new byte[bytesMultimedia];
+            for (int i = 0; i < datos.length; i++) {
+                datos[i] = (byte) (i * 31 + id);
+            }
+            pregunta.setFicheroMultimediaData(datos);
+        }
+        return pregunta;
+    }
+
+    /**
+     * Construye la respuesta correcta a una pregunta.
+     *
+     * @param pregunta pregunta.
+     * @return respuesta con las respuestas correctas de la pregunta.
+     */
+    public static Respuesta acertar(Pregunta pregunta) {
+        return new Respuesta(new ArrayList<>(pregunta.getRespuestas()), pregunta.getTipo(), pregunta.getNumeroOrden());
+    }
+
+    /**
+     * Construye una respuesta que sólo difiere de la correcta en su último elemento (el peor caso de la comparación).
+     *
+     * @param pregunta pregunta.
+     * @return respuesta incorrecta a la pregunta.
+     */
+    public static Respuesta fallarEnLaUltima(Pregunta pregunta) {
+        List<String> opciones = new ArrayList<>(pregunta.getRespuestas());
+        opciones.set(opciones.size() - 1, "?");
+        return new Respuesta(opciones, pregunta.getTipo(), pregunta.getNumeroOrden());
+    }
+}
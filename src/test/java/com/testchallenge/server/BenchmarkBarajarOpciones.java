@@ -0,0 +1,81 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server;
+
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.PreguntasSinteticas;
+import com.testchallenge.model.TipoPregunta;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del barajado de las opciones de una pregunta antes de enviarla (<code>TestServer.barajarOpciones</code>).
+ *
+ * Las preguntas se barajan de forma circular sobre un banco de <code>tamanoBanco</code> preguntas distintas. El
+ * barajado modifica la pregunta, por lo que cada operación parte del orden que dejó la anterior, igual que en el
+ * servidor cuando una pregunta se repite en varios tests.
+ *
+ * @author japrada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkBarajarOpciones {
+
+    @Param({"RESPUESTA_MULTIPLE", "RESPUESTA_EMPAREJADA", "RESPUESTA_MULTIVALOR"})
+    private TipoPregunta tipo;
+
+    @Param({"4", "16"})
+    private int numeroOpciones;
+
+    @Param({"1", "1000"})
+    private int tamanoBanco;
+
+    // Banco de preguntas
+    private Pregunta[] preguntas;
+    // Siguiente pregunta del banco
+    private int siguiente;
+
+    @Setup
+    public void setUp() {
+        preguntas = new Pregunta[tamanoBanco];
+        for (int i = 0; i < tamanoBanco; i++) {
+            preguntas[i] = PreguntasSinteticas.crear(i + 1, tipo, numeroOpciones, 0);
+        }
+    }
+
+    @Benchmark
+    public Pregunta barajarOpciones() {
+        Pregunta pregunta = preguntas[siguiente];
+        siguiente = siguiente + 1 == tamanoBanco ? 0 : siguiente + 1;
+        TestServer.barajarOpciones(pregunta);
+        return pregunta;
+    }
+}
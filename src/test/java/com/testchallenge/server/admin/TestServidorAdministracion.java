@@ -0,0 +1,125 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.admin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.testchallenge.server.TestChallengeServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests que validan el servidor HTTP de administración con un servidor sin participantes conectados.
+ *
+ * @author japrada
+ */
+public class TestServidorAdministracion {
+
+    @TempDir
+    Path directorio;
+
+    private ServidorAdministracion administracion;
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void iniciar() throws IOException {
+        Path tematica = Files.createDirectories(directorio.resolve("preguntas").resolve("Historia"));
+        Files.writeString(tematica.resolve("00001.json"), "{}");
+        Files.writeString(tematica.resolve("00002.json"), "{}");
+        Files.write(Files.createDirectories(tematica.resolve("Multimedia")).resolve("imagen.png"), new byte[10]);
+
+        TestChallengeServer servidor = new TestChallengeServer(0, directorio.resolve("preguntas").toString(),
+                directorio.resolve("historico").toString());
+        administracion = new ServidorAdministracion(servidor,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        administracion.iniciar();
+    }
+
+    @AfterEach
+    public void detener() {
+        administracion.detener();
+    }
+
+    /**
+     * Test que consulta el estado del servidor.
+     *
+     * @throws Exception error en la petición.
+     */
+    @Test
+    public void testConsultas() throws Exception {
+        HttpResponse<String> sesiones = enviar("GET", "/admin/sesiones");
+        assertEquals(200, sesiones.statusCode());
+        assertEquals(0, leer(sesiones.body()).getAsJsonArray().size());
+
+        JsonObject test = leer(enviar("GET", "/admin/test").body()).getAsJsonObject();
+        assertFalse(test.get("enEjecucion").getAsBoolean());
+        assertEquals(0, test.get("espectadores").getAsInt());
+
+        JsonObject banco = leer(enviar("GET", "/admin/banco").body()).getAsJsonObject();
+        JsonArray tematicas = banco.getAsJsonArray("tematicas");
+        assertEquals(1, tematicas.size());
+        JsonObject historia = tematicas.get(0).getAsJsonObject();
+        assertEquals("Historia", historia.get("tematica").getAsString());
+        assertEquals(2, historia.get("preguntas").getAsInt());
+        assertEquals(10, historia.get("bytesMultimedia").getAsLong());
+
+        JsonObject metricas = leer(enviar("GET", "/admin/metricas").body()).getAsJsonObject();
+        assertEquals(0, metricas.get("sesionesConectadas").getAsInt());
+        assertEquals(0, metricas.getAsJsonObject("difusionPreguntas").get("muestras").getAsLong());
+    }
+
+    /**
+     * Test que comprueba las respuestas de error: método no admitido, recurso inexistente y usuario no conectado.
+     *
+     * @throws Exception error en la petición.
+     */
+    @Test
+    public void testErrores() throws Exception {
+        assertEquals(405, enviar("POST", "/admin/metricas").statusCode());
+        assertEquals(405, enviar("GET", "/admin/sesiones/desconectar?nickname=ana").statusCode());
+        assertEquals(404, enviar("GET", "/admin/test/otro").statusCode());
+        assertEquals(400, enviar("POST", "/admin/sesiones/desconectar").statusCode());
+        assertEquals(404, enviar("POST", "/admin/sesiones/desconectar?nickname=ana").statusCode());
+    }
+
+    private static JsonElement leer(String json) {
+        return new JsonParser().parse(json);
+    }
+
+    private HttpResponse<String> enviar(String metodo, String ruta) throws IOException, InterruptedException {
+        HttpRequest peticion = HttpRequest.newBuilder(
+                URI.create(String.format("http://127.0.0.1:%d%s", administracion.getPuerto(), ruta)))
+                .method(metodo, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+    }
+}
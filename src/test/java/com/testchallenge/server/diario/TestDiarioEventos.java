@@ -0,0 +1,117 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.diario;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests que validan la escritura y la lectura del diario de eventos.
+ *
+ * @author japrada
+ */
+public class TestDiarioEventos {
+
+    @TempDir
+    File directorio;
+
+    /**
+     * Los eventos se leen en el orden en el que se registraron, con sus datos y con instantes crecientes.
+     */
+    @Test
+    public void testEscrituraYLectura() throws IOException, ClassNotFoundException {
+        File fichero = new File(directorio, "diario.tcj");
+        DiarioEventos diario = DiarioEventos.abrir(fichero);
+        assertTrue(diario.isActivo());
+        diario.registrarEntrada("ana", new Mensaje("ana"));
+        diario.registrarSalida("ana", TipoMensaje.NICKNAME_OK);
+        diario.registrarPregunta(1, 42);
+        diario.registrarSalida("ana", TipoMensaje.TEST_PREGUNTA);
+        diario.registrarEntrada("luis", new Mensaje("hola"));
+        diario.registrarDesconexion("ana");
+        diario.cerrar();
+
+        List<EventoDiario> eventos = LectorDiario.leerTodos(fichero);
+        assertEquals(6, eventos.size());
+
+        assertEquals(TipoEvento.ENTRADA, eventos.get(0).getTipo());
+        assertEquals("ana", eventos.get(0).getNickname());
+        assertEquals(TipoMensaje.TEXTO, eventos.get(0).getTipoMensaje());
+        assertEquals("ana", eventos.get(0).getMensaje().getTexto());
+
+        assertEquals(TipoEvento.SALIDA, eventos.get(1).getTipo());
+        assertEquals(TipoMensaje.NICKNAME_OK, eventos.get(1).getTipoMensaje());
+
+        assertEquals(TipoEvento.PREGUNTA, eventos.get(2).getTipo());
+        assertEquals(1, eventos.get(2).getNumeroPregunta());
+        assertEquals(42, eventos.get(2).getIdPregunta());
+
+        assertEquals(TipoMensaje.TEST_PREGUNTA, eventos.get(3).getTipoMensaje());
+
+        assertEquals("luis", eventos.get(4).getNickname());
+        assertEquals(TipoMensaje.TEXTO, eventos.get(4).getTipoMensaje());
+
+        assertEquals(TipoEvento.DESCONEXION, eventos.get(5).getTipo());
+        assertEquals("ana", eventos.get(5).getNickname());
+
+        for (int i = 1; i < eventos.size(); i++) {
+            assertTrue(eventos.get(i).getInstante() >= eventos.get(i - 1).getInstante());
+        }
+    }
+
+    /**
+     * Un diario truncado (por ejemplo, tras una caída del servidor) se lee hasta el último evento completo.
+     */
+    @Test
+    public void testDiarioTruncado() throws IOException, ClassNotFoundException {
+        File fichero = new File(directorio, "diario.tcj");
+        DiarioEventos diario = DiarioEventos.abrir(fichero);
+        diario.registrarSalida("ana", TipoMensaje.NICKNAME_OK);
+        diario.registrarEntrada("ana", new Mensaje("ana"));
+        diario.cerrar();
+
+        try (RandomAccessFile acceso = new RandomAccessFile(fichero, "rw")) {
+            acceso.setLength(acceso.length() - 3);
+        }
+
+        List<EventoDiario> eventos = LectorDiario.leerTodos(fichero);
+        assertEquals(1, eventos.size());
+        assertEquals(TipoMensaje.NICKNAME_OK, eventos.get(0).getTipoMensaje());
+    }
+
+    /**
+     * El diario desactivado no escribe nada.
+     */
+    @Test
+    public void testDiarioDesactivado() {
+        DiarioEventos diario = DiarioEventos.desactivado();
+        assertFalse(diario.isActivo());
+        diario.registrarEntrada("ana", new Mensaje("ana"));
+        diario.registrarDesconexion("ana");
+        diario.cerrar();
+        assertEquals(0, directorio.listFiles().length);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.espectadores;
+
+import com.testchallenge.client.ClienteEspectador;
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.Ranking;
+import com.testchallenge.model.TipoMensaje;
+import com.testchallenge.server.temporizador.RuedaTemporizadores;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la sala de espectadores a través de conexiones locales.
+ *
+ * @author japrada
+ */
+public class TestSalaEspectadores {
+
+    private ServerSocket servidor;
+    private final ExecutorService registros = Executors.newSingleThreadExecutor();
+    private final RuedaTemporizadores rueda = new RuedaTemporizadores(5, TimeUnit.MILLISECONDS, 64);
+
+    @BeforeEach
+    public void iniciar() throws IOException {
+        servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterEach
+    public void detener() throws IOException {
+        registros.shutdownNow();
+        rueda.detener();
+        servidor.close();
+    }
+
+    /**
+     * Test que comprueba que un espectador recibe el estado al conectarse, sólo uno de cada
+     * <code>INTERVALO_TIMER_TICK</code> ticks y los mensajes puntuales.
+     *
+     * @throws Exception error en la comunicación.
+     */
+    @Test
+    public void testEstadoYPublicaciones() throws Exception {
+        SalaEspectadores sala = new SalaEspectadores(rueda);
+        sala.publicarEstado(new Mensaje(Boolean.FALSE, TipoMensaje.TEST_EN_EJECUCION));
+        sala.publicarEstado(new Mensaje(new Ranking(Collections.singletonMap("ana", 3)), TipoMensaje.RANKING_ACTUAL));
+        sala.publicarEstado(new Mensaje(new Ranking(Collections.singletonMap("ana", 5)), TipoMensaje.RANKING_ACTUAL));
+
+        try (ClienteEspectador espectador = conectar(sala, "proyector")) {
+            assertEquals(1, sala.getNumeroEspectadores());
+
+            // Estado actual (sólo la última clasificación)
+            Mensaje ranking = espectador.recibir();
+            assertEquals(TipoMensaje.RANKING_ACTUAL, ranking.getTipo());
+            assertEquals(5, ranking.getRanking().getPuntuaciones().get("ana"));
+            Mensaje enEjecucion = espectador.recibir();
+            assertEquals(TipoMensaje.TEST_EN_EJECUCION, enEjecucion.getTipo());
+            assertFalse(enEjecucion.getFlag());
+
+            // Temporizador con menos frecuencia
+            for (int segundos = 7; segundos >= 4; segundos--) {
+                sala.publicarTick(segundos);
+            }
+            assertEquals("5", espectador.recibir().getTexto());
+            for (int segundos = 3; segundos >= 0; segundos--) {
+                sala.publicarTick(segundos);
+            }
+            assertEquals("0", espectador.recibir().getTexto());
+
+            sala.publicar(new Mensaje("Test iniciado"));
+            assertEquals("Test iniciado", espectador.recibir().getTexto());
+        } finally {
+            sala.cerrar();
+        }
+    }
+
+    /**
+     * Test que comprueba que se desconecta a un espectador que no lee las tramas, sin bloquear las publicaciones.
+     *
+     * @throws Exception error en la comunicación.
+     */
+    @Test
+    public void testEspectadorLento() throws Exception {
+        SalaEspectadores sala = new SalaEspectadores(rueda, 1, 2, 0);
+        String texto = new String(new char[1 << 20]).replace('\0', 'x');
+
+        try (ClienteEspectador espectador = conectar(sala, "lento")) {
+            for (int i = 0; i < 1000 && sala.getNumeroEspectadores() > 0; i++) {
+                sala.publicar(new Mensaje(texto));
+            }
+            assertEquals(0, sala.getNumeroEspectadores());
+            assertEquals(1, sala.getEspectadoresDesbordados());
+        } finally {
+            sala.cerrar();
+        }
+    }
+
+    /**
+     * Test que comprueba que se desconecta a un espectador cuya escritura lleva bloqueada más del tiempo máximo
+     * aunque su cola no se haya llenado, y que el hilo de escritura que ocupaba vuelve a atender a los demás.
+     *
+     * @throws Exception error en la comunicación.
+     */
+    @Test
+    public void testEscrituraBloqueada() throws Exception {
+        SalaEspectadores sala = new SalaEspectadores(rueda, 1, 64, 200);
+        String texto = new String(new char[1 << 20]).replace('\0', 'x');
+
+        try (ClienteEspectador lento = conectar(sala, "lento")) {
+            // Más datos de los que caben en los búferes de la conexión: el único hilo de escritura se bloquea
+            for (int i = 0; i < 16; i++) {
+                sala.publicar(new Mensaje(texto + i));
+            }
+            try (ClienteEspectador espectador = conectar(sala, "proyector")) {
+                sala.publicar(new Mensaje("Test iniciado"));
+                Mensaje mensaje = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                    Mensaje recibido = espectador.recibir();
+                    while (recibido.getTipo() != TipoMensaje.TEXTO) {
+                        recibido = espectador.recibir();
+                    }
+                    return recibido;
+                });
+                assertEquals("Test iniciado", mensaje.getTexto());
+                assertEquals(1, sala.getNumeroEspectadores());
+                assertEquals(1, sala.getEspectadoresDesbordados());
+            }
+        } finally {
+            sala.cerrar();
+        }
+    }
+
+    /**
+     * Realiza el registro de un espectador como lo hace el servidor.
+     */
+    private ClienteEspectador conectar(SalaEspectadores sala, String nombre) throws Exception {
+        Future<Void> registro = registros.submit(() -> {
+            Socket socket = servidor.accept();
+            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            Mensaje mensaje = (Mensaje) in.readObject();
+            assertEquals(TipoMensaje.ESPECTADOR, mensaje.getTipo());
+            sala.registrar(mensaje.getTexto(), socket, out, new Mensaje(TipoMensaje.NICKNAME_OK));
+            return null;
+        });
+        ClienteEspectador espectador = new ClienteEspectador("127.0.0.1", servidor.getLocalPort(), nombre);
+        registro.get();
+        return espectador;
+    }
+}
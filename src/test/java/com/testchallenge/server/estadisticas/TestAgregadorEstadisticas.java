@@ -0,0 +1,201 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.estadisticas;
+
+import com.testchallenge.model.Nivel;
+import com.testchallenge.model.Pregunta;
+import com.testchallenge.model.Puntuacion;
+import com.testchallenge.model.TipoPregunta;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests que validan la agregación incremental de las estadísticas por usuario y por pregunta.
+ *
+ * @author japrada
+ */
+public class TestAgregadorEstadisticas {
+
+    @TempDir
+    File directorio;
+
+    /**
+     * Las respuestas de un usuario se acumulan por puntuación, por tipo de pregunta y por nivel, y las de cada
+     * pregunta por puntuación y tiempo de respuesta.
+     */
+    @Test
+    public void testContadoresPorTipoYNivel() {
+        AgregadorEstadisticas agregador = new AgregadorEstadisticas(new File(directorio, "estadisticas.dat"));
+        Pregunta unicaAlta = pregunta(1, TipoPregunta.RESPUESTA_UNICA, Nivel.ALTO);
+        Pregunta multipleBaja = pregunta(2, TipoPregunta.RESPUESTA_MULTIPLE, Nivel.BAJO);
+
+        agregador.registrar("ana", "Historia", unicaAlta, Puntuacion.CORRECTA_Y_PRIMERA, 1000);
+        agregador.registrar("ana", "Historia", multipleBaja, Puntuacion.INCORRECTA, 3000);
+        agregador.registrar("ana", "Historia", multipleBaja, Puntuacion.CORRECTA, 2000);
+        agregador.registrar("luis", "Historia", unicaAlta, Puntuacion.CORRECTA, 4000);
+
+        EstadisticasUsuario ana = agregador.getEstadisticasUsuario("ana");
+        assertEquals(3, ana.getTotal());
+        assertEquals(2, ana.getAciertos());
+        assertEquals(1, ana.getContador(Puntuacion.INCORRECTA));
+        assertEquals(1.0, ana.getTasaAcierto(TipoPregunta.RESPUESTA_UNICA));
+        assertEquals(0.5, ana.getTasaAcierto(TipoPregunta.RESPUESTA_MULTIPLE));
+        assertEquals(0.0, ana.getTasaAcierto(TipoPregunta.RESPUESTA_TEXTO_LIBRE));
+        assertEquals(1.0, ana.getTasaAcierto(Nivel.ALTO));
+        assertEquals(0.5, ana.getTasaAcierto(Nivel.BAJO));
+        assertEquals(2000.0, ana.getTiempoMedioMs());
+        assertEquals(3000, ana.getTiempoMaximoMs());
+
+        Estadisticas primera = agregador.getEstadisticasPregunta("Historia", 1);
+        assertEquals(2, primera.getTotal());
+        assertEquals(1, primera.getContador(Puntuacion.CORRECTA_Y_PRIMERA));
+        assertEquals(1, primera.getContador(Puntuacion.CORRECTA));
+        assertEquals(2500.0, primera.getTiempoMedioMs());
+        // La clave de la pregunta incluye la temática
+        assertNull(agregador.getEstadisticasPregunta("Geografía", 1));
+        assertNull(agregador.getEstadisticasUsuario("eva"));
+    }
+
+    /**
+     * Al cerrar una pregunta, los usuarios que no enviaron su respuesta se registran como <code>NO_CONTESTADA</code>:
+     * cuentan en el total de respuestas, pero no en los tiempos de respuesta.
+     */
+    @Test
+    public void testRegistroAlCerrarLaPregunta() {
+        AgregadorEstadisticas agregador = new AgregadorEstadisticas(new File(directorio, "estadisticas.dat"));
+        Pregunta pregunta = pregunta(5, TipoPregunta.RESPUESTA_TEXTO_LIBRE, Nivel.MEDIO);
+        Map<String, Puntuacion> puntuaciones = new HashMap<>();
+        puntuaciones.put("ana", Puntuacion.CORRECTA_Y_PRIMERA);
+        puntuaciones.put("luis", Puntuacion.NO_CONTESTADA);
+
+        agregador.registrarPregunta("Historia", pregunta, puntuaciones, Collections.singletonMap("ana", 1500L));
+
+        EstadisticasUsuario luis = agregador.getEstadisticasUsuario("luis");
+        assertEquals(1, luis.getTotal());
+        assertEquals(1, luis.getContador(Puntuacion.NO_CONTESTADA));
+        assertEquals(0.0, luis.getTasaAcierto(Nivel.MEDIO));
+        assertEquals(0.0, luis.getTiempoMedioMs());
+
+        Estadisticas estadisticas = agregador.getEstadisticasPregunta("Historia", 5);
+        assertEquals(2, estadisticas.getTotal());
+        assertEquals(1, estadisticas.getContador(Puntuacion.NO_CONTESTADA));
+        assertEquals(0.5, estadisticas.getTasaAcierto());
+        assertEquals(1500.0, estadisticas.getTiempoMedioMs());
+        assertEquals(1500, estadisticas.getTiempoMaximoMs());
+    }
+
+    /**
+     * Las estadísticas que se obtienen son copias: no cambian con las respuestas registradas después.
+     */
+    @Test
+    public void testCopias() {
+        AgregadorEstadisticas agregador = new AgregadorEstadisticas(new File(directorio, "estadisticas.dat"));
+        Pregunta pregunta = pregunta(1, TipoPregunta.RESPUESTA_UNICA, Nivel.NORMAL);
+        agregador.registrar("ana", "Historia", pregunta, Puntuacion.CORRECTA, 1000);
+
+        EstadisticasUsuario usuario = agregador.getEstadisticasUsuario("ana");
+        Estadisticas estadisticasPregunta = agregador.getEstadisticasPregunta("Historia", 1);
+        agregador.registrar("ana", "Historia", pregunta, Puntuacion.INCORRECTA, 5000);
+
+        assertEquals(1, usuario.getTotal());
+        assertEquals(1.0, usuario.getTasaAcierto(TipoPregunta.RESPUESTA_UNICA));
+        assertEquals(1.0, usuario.getTasaAcierto(Nivel.NORMAL));
+        assertEquals(1000, usuario.getTiempoMaximoMs());
+        assertEquals(1, estadisticasPregunta.getTotal());
+        assertEquals(2, agregador.getEstadisticasUsuario("ana").getTotal());
+        assertEquals(0.5, agregador.getEstadisticasUsuario("ana").getTasaAcierto(Nivel.NORMAL));
+    }
+
+    /**
+     * Las estadísticas volcadas a disco se cargan en otro agregador; el volcado sustituye al fichero anterior sin dejar
+     * el fichero temporal y no se repite si no hay cambios.
+     */
+    @Test
+    public void testVolcadoYCarga() throws IOException {
+        File fichero = new File(new File(directorio, "historico"), "estadisticas.dat");
+        AgregadorEstadisticas agregador = new AgregadorEstadisticas(fichero);
+        agregador.registrar("ana", "Historia", pregunta(1, TipoPregunta.RESPUESTA_UNICA, Nivel.ALTO),
+                Puntuacion.CORRECTA, 1200);
+        agregador.volcar();
+        agregador.registrar("ana", "Historia", pregunta(2, TipoPregunta.RESPUESTA_EMPAREJADA, Nivel.BAJO),
+                Puntuacion.NO_CONTESTADA, -1);
+        agregador.volcar();
+        assertTrue(fichero.isFile());
+        assertFalse(new File(fichero.getParentFile(), fichero.getName() + ".tmp").exists());
+
+        // Sin cambios no se vuelve a escribir el fichero
+        assertTrue(fichero.setLastModified(0));
+        agregador.volcar();
+        assertEquals(0, fichero.lastModified());
+
+        AgregadorEstadisticas cargado = new AgregadorEstadisticas(fichero);
+        cargado.cargar();
+        EstadisticasUsuario ana = cargado.getEstadisticasUsuario("ana");
+        assertEquals(2, ana.getTotal());
+        assertEquals(1, ana.getContador(Puntuacion.NO_CONTESTADA));
+        assertEquals(1.0, ana.getTasaAcierto(TipoPregunta.RESPUESTA_UNICA));
+        assertEquals(0.0, ana.getTasaAcierto(TipoPregunta.RESPUESTA_EMPAREJADA));
+        assertEquals(1.0, ana.getTasaAcierto(Nivel.ALTO));
+        assertEquals(1200.0, ana.getTiempoMedioMs());
+        assertEquals(1, cargado.getEstadisticasPregunta("Historia", 2).getContador(Puntuacion.NO_CONTESTADA));
+
+        // Sin fichero no se carga nada
+        AgregadorEstadisticas vacio = new AgregadorEstadisticas(new File(directorio, "no-existe.dat"));
+        vacio.cargar();
+        assertNull(vacio.getEstadisticasUsuario("ana"));
+    }
+
+    /**
+     * Si el volcado falla, las estadísticas siguen pendientes y se vuelcan en el siguiente intento aunque no se haya
+     * registrado ninguna respuesta nueva.
+     */
+    @Test
+    public void testReintentoTrasUnVolcadoFallido() throws IOException {
+        // El directorio del fichero no se puede crear mientras exista un fichero con su nombre
+        File bloqueo = new File(directorio, "historico");
+        assertTrue(bloqueo.createNewFile());
+        File fichero = new File(bloqueo, "estadisticas.dat");
+        AgregadorEstadisticas agregador = new AgregadorEstadisticas(fichero);
+        agregador.registrar("ana", "Historia", pregunta(1, TipoPregunta.RESPUESTA_UNICA, Nivel.ALTO),
+                Puntuacion.CORRECTA, 1200);
+        assertThrows(IOException.class, agregador::volcar);
+
+        assertTrue(bloqueo.delete());
+        agregador.volcar();
+        AgregadorEstadisticas cargado = new AgregadorEstadisticas(fichero);
+        cargado.cargar();
+        assertEquals(1, cargado.getEstadisticasUsuario("ana").getTotal());
+    }
+
+    private static Pregunta pregunta(int id, TipoPregunta tipo, Nivel nivel) {
+        Pregunta pregunta = new Pregunta();
+        pregunta.setId(id);
+        pregunta.setTipo(tipo);
+        pregunta.setNivel(nivel.getNivel());
+        return pregunta;
+    }
+}
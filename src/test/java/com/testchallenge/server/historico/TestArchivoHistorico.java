@@ -0,0 +1,104 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.historico;
+
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Puntuacion;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests que validan el almacenamiento y las consultas por rango de fechas del histórico de tests.
+ *
+ * @author japrada
+ */
+public class TestArchivoHistorico {
+
+    @TempDir
+    File directorio;
+
+    /**
+     * Test que archiva tests de dos temáticas en días distintos y comprueba que la consulta devuelve sólo los de la
+     * temática y el rango solicitados, con sus puntuaciones.
+     *
+     * @throws IOException excepción al acceder al histórico.
+     */
+    @Test
+    public void testConsultaPorRango_01() throws IOException {
+        ArchivoHistorico archivo = new ArchivoHistorico(directorio);
+
+        long ahora = System.currentTimeMillis();
+        long unDia = TimeUnit.DAYS.toMillis(1);
+
+        archivo.archivar(crearRegistro("English", ahora - 10 * unDia));
+        archivo.archivar(crearRegistro("English", ahora - 2 * unDia));
+        archivo.archivar(crearRegistro("English", ahora));
+        archivo.archivar(crearRegistro("Historia", ahora));
+
+        List<RegistroTest> encontrados = new ArrayList<>();
+        int total = archivo.consultar("English", new Date(ahora - 7 * unDia), new Date(ahora), encontrados::add);
+
+        assertEquals(2, total);
+        assertEquals(ahora - 2 * unDia, encontrados.get(0).getStartDate().getTime());
+        assertEquals(ahora, encontrados.get(1).getStartDate().getTime());
+
+        RegistroTest registro = encontrados.get(1);
+        assertEquals("English", registro.getConfiguracion().getTematica());
+        assertEquals("Normal", registro.getConfiguracion().getNivel());
+        assertArrayEquals(new int[]{7, 3}, registro.getIdsPreguntas());
+        assertEquals(Arrays.asList("ana", "luis"), registro.getNicknames());
+        assertEquals(Puntuacion.CORRECTA_Y_PRIMERA, registro.getPuntuacion("ana", 0));
+        assertEquals(Puntuacion.INCORRECTA, registro.getPuntuacion("luis", 0));
+        assertEquals(Puntuacion.NO_CONTESTADA, registro.getPuntuacion("ana", 1));
+        // "luis" se incorporó al test después de enviarse la segunda pregunta
+        assertNull(registro.getPuntuacion("luis", 1));
+    }
+
+    /**
+     * Crea el registro de un test de dos preguntas con dos participantes.
+     *
+     * @param tematica temática del test.
+     * @param inicio fecha de inicio del test (milisegundos).
+     * @return registro del test.
+     */
+    private RegistroTest crearRegistro(String tematica, long inicio) {
+        Map<String, Puntuacion> pregunta1 = new HashMap<>();
+        pregunta1.put("ana", Puntuacion.CORRECTA_Y_PRIMERA);
+        pregunta1.put("luis", Puntuacion.INCORRECTA);
+        Map<String, Puntuacion> pregunta2 = new HashMap<>();
+        pregunta2.put("ana", Puntuacion.NO_CONTESTADA);
+
+        return new RegistroTest(
+                new Configuracion(tematica, "Normal", new String[]{"Única", "Múltiple"}, 2, 30),
+                new Date(inicio),
+                new Date(inicio + 60000),
+                Arrays.asList(7, 3),
+                Arrays.asList(pregunta1, pregunta2));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.jfr;
+
+import com.testchallenge.model.Puntuacion;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan los eventos de JFR del servidor.
+ *
+ * @author japrada
+ */
+public class TestEventosJfr {
+
+    /**
+     * Test que emite eventos dentro de una grabación y comprueba sus campos.
+     *
+     * @throws IOException error al volcar o leer la grabación.
+     */
+    @Test
+    public void testEventos() throws IOException {
+        List<RecordedEvent> eventos;
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable(EventoInicioTest.class);
+            grabacion.enable(EventoPlazoAgotado.class);
+            grabacion.enable(EventoRegistro.class);
+            grabacion.start();
+
+            EventoInicioTest.emitir("ana", "Historia", "Básico", 10, 30, 4);
+            EventoPlazoAgotado.emitir(30, 1_500_000);
+            EventoRegistro registro = new EventoRegistro();
+            registro.begin();
+            registro.finalizar("luis", false, true);
+
+            grabacion.stop();
+            eventos = leer(grabacion);
+        }
+
+        RecordedEvent inicio = buscar(eventos, "com.testchallenge.InicioTest");
+        assertEquals("ana", inicio.getString("nickname"));
+        assertEquals("Historia", inicio.getString("tematica"));
+        assertEquals(10, inicio.getInt("numeroPreguntas"));
+        assertEquals(30, inicio.getDuration("tiempoLimite").getSeconds());
+        assertEquals(4, inicio.getInt("participantes"));
+
+        RecordedEvent plazo = buscar(eventos, "com.testchallenge.PlazoAgotado");
+        assertEquals(1_500_000, plazo.getDuration("retraso").toNanos());
+
+        RecordedEvent evento = buscar(eventos, "com.testchallenge.Registro");
+        assertEquals("luis", evento.getString("nickname"));
+        assertFalse(evento.getBoolean("aceptado"));
+        assertTrue(evento.getBoolean("testEnEjecucion"));
+    }
+
+    /**
+     * Test que comprueba que las correcciones de respuestas por debajo del umbral por defecto (1 ms) no se emiten.
+     *
+     * @throws IOException error al volcar o leer la grabación.
+     * @throws InterruptedException interrupción de la espera.
+     */
+    @Test
+    public void testUmbral() throws IOException, InterruptedException {
+        List<RecordedEvent> eventos;
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable(EventoRespuestaCorregida.class);
+            grabacion.start();
+
+            EventoRespuestaCorregida rapida = new EventoRespuestaCorregida();
+            rapida.begin();
+            rapida.finalizar("ana", 1, Puntuacion.CORRECTA);
+
+            EventoRespuestaCorregida lenta = new EventoRespuestaCorregida();
+            lenta.begin();
+            Thread.sleep(5);
+            lenta.finalizar("luis", 2, Puntuacion.CORRECTA_Y_PRIMERA);
+
+            grabacion.stop();
+            eventos = leer(grabacion);
+        }
+
+        List<RecordedEvent> respuestas = eventos.stream()
+                .filter(e -> e.getEventType().getName().equals("com.testchallenge.RespuestaCorregida"))
+                .collect(Collectors.toList());
+        assertEquals(1, respuestas.size());
+        assertEquals("luis", respuestas.get(0).getString("nickname"));
+        assertEquals(2, respuestas.get(0).getInt("numeroPregunta"));
+        assertEquals(Puntuacion.CORRECTA_Y_PRIMERA.name(), respuestas.get(0).getString("puntuacion"));
+        assertTrue(respuestas.get(0).getDuration().toMillis() >= 1);
+    }
+
+    private static List<RecordedEvent> leer(Recording grabacion) throws IOException {
+        Path fichero = Files.createTempFile("testchallenge", ".jfr");
+        try {
+            grabacion.dump(fichero);
+            return RecordingFile.readAllEvents(fichero);
+        } finally {
+            Files.delete(fichero);
+        }
+    }
+
+    private static RecordedEvent buscar(List<RecordedEvent> eventos, String nombre) {
+        return eventos.stream()
+                .filter(e -> e.getEventType().getName().equals(nombre))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(String.format("No se ha emitido el evento '%s'", nombre)));
+    }
+}
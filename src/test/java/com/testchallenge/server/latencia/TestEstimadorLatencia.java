@@ -0,0 +1,98 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.latencia;
+
+import com.testchallenge.model.Respuesta;
+import com.testchallenge.model.TipoPregunta;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la estimación del RTT y del desfase de reloj y la compensación de los tiempos de respuesta.
+ *
+ * @author japrada
+ */
+public class TestEstimadorLatencia {
+
+    /**
+     * Test con dos clientes: uno cercano (10 ms de ida) y otro lejano (200 ms de ida) con relojes desfasados. El lejano
+     * contesta en 500 ms y el cercano en 550 ms: la respuesta del lejano llega después al servidor, pero su tiempo
+     * compensado es menor.
+     */
+    @Test
+    public void testCompensacion_01() {
+        EstimadorLatencia cercano = crearEstimador(10, 7_000);
+        EstimadorLatencia lejano = crearEstimador(200, -3_000);
+
+        assertEquals(20, cercano.getRttMs());
+        assertEquals(7_000, cercano.getDesfaseMs());
+        assertEquals(400, lejano.getRttMs());
+        assertEquals(-3_000, lejano.getDesfaseMs());
+
+        // La pregunta se envía a ambos en el instante 10000 (reloj del servidor)
+        long envio = 10_000;
+        long llegadaCercano = envio + 10 + 550 + 10;
+        long llegadaLejano = envio + 200 + 500 + 200;
+        assertTrue(llegadaLejano > llegadaCercano);
+
+        long tiempoCercano = cercano.compensarTiempoRespuesta(envio, llegadaCercano,
+                crearRespuesta(envio + 10 + 7_000, envio + 10 + 550 + 7_000));
+        long tiempoLejano = lejano.compensarTiempoRespuesta(envio, llegadaLejano,
+                crearRespuesta(envio + 200 - 3_000, envio + 200 + 500 - 3_000));
+
+        assertEquals(550, tiempoCercano);
+        assertEquals(500, tiempoLejano);
+
+        // Un cliente que declara un tiempo imposible no puede descontar más que su RTT
+        long tiempoTramposo = cercano.compensarTiempoRespuesta(envio, llegadaCercano,
+                crearRespuesta(envio + 10 + 7_000, envio + 10 + 1 + 7_000));
+        assertEquals(570 - 20 - 5, tiempoTramposo);
+    }
+
+    /**
+     * Crea un estimador con varias muestras PING/PONG de un cliente con la latencia y el desfase especificados.
+     *
+     * @param latenciaIda latencia de un sentido (en milisegundos).
+     * @param desfase desfase del reloj del cliente respecto al del servidor (en milisegundos).
+     * @return estimador con las muestras registradas.
+     */
+    private EstimadorLatencia crearEstimador(long latenciaIda, long desfase) {
+        EstimadorLatencia estimador = new EstimadorLatencia();
+        for (int i = 0; i < 4; i++) {
+            long t0 = 1_000 * i;
+            long t1 = t0 + latenciaIda + desfase;
+            long t2 = t1 + 1;
+            long t3 = t2 - desfase + latenciaIda;
+            estimador.registrarMuestra(t0, t1, t2, t3);
+        }
+        return estimador;
+    }
+
+    /**
+     * Crea una respuesta con las marcas de tiempo del cliente.
+     *
+     * @param recepcion instante (reloj del cliente) de recepción de la pregunta.
+     * @param envio instante (reloj del cliente) de envío de la respuesta.
+     * @return respuesta con las marcas de tiempo.
+     */
+    private Respuesta crearRespuesta(long recepcion, long envio) {
+        Respuesta respuesta = new Respuesta(new String[]{"a"}, TipoPregunta.RESPUESTA_UNICA, 1);
+        respuesta.setMarcasTiempo(recepcion, envio);
+        return respuesta;
+    }
+}
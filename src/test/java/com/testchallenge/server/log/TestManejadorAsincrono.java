@@ -0,0 +1,220 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan el log asíncrono del servidor.
+ *
+ * @author japrada
+ */
+public class TestManejadorAsincrono {
+
+    /**
+     * Test que comprueba el orden de extracción y el rechazo de registros cuando el anillo está lleno.
+     */
+    @Test
+    public void testAnillo() {
+        AnilloRegistros anillo = new AnilloRegistros(5);
+        assertEquals(8, anillo.getCapacidad());
+        assertNull(anillo.extraer());
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(anillo.ofrecer(new LogRecord(Level.INFO, Integer.toString(i))));
+        }
+        assertFalse(anillo.ofrecer(new LogRecord(Level.INFO, "lleno")));
+
+        assertEquals("0", anillo.extraer().getMessage());
+        assertTrue(anillo.ofrecer(new LogRecord(Level.INFO, "8")));
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(Integer.toString(i), anillo.extraer().getMessage());
+        }
+        assertNull(anillo.extraer());
+    }
+
+    /**
+     * Test con varios productores y un consumidor: no se pierde ni se duplica ningún registro aceptado y se respeta el
+     * orden de cada productor.
+     *
+     * @throws InterruptedException interrupción de la espera.
+     */
+    @Test
+    public void testAnilloConcurrente() throws InterruptedException {
+        int productores = 4;
+        int registrosPorProductor = 50_000;
+        AnilloRegistros anillo = new AnilloRegistros(256);
+        AtomicInteger aceptados = new AtomicInteger();
+
+        List<Thread> hilos = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            String productor = Integer.toString(p);
+            Thread hilo = new Thread(() -> {
+                for (int i = 0; i < registrosPorProductor; i++) {
+                    LogRecord registro = new LogRecord(Level.INFO, productor);
+                    registro.setSequenceNumber(i);
+                    if (anillo.ofrecer(registro)) {
+                        aceptados.incrementAndGet();
+                    }
+                }
+            });
+            hilos.add(hilo);
+            hilo.start();
+        }
+
+        long[] ultimos = new long[productores];
+        Arrays.fill(ultimos, -1);
+        int extraidos = 0;
+        boolean terminados = false;
+        while (!terminados || extraidos < aceptados.get()) {
+            terminados = hilos.stream().noneMatch(Thread::isAlive);
+            LogRecord registro;
+            while ((registro = anillo.extraer()) != null) {
+                int productor = Integer.parseInt(registro.getMessage());
+                assertTrue(registro.getSequenceNumber() > ultimos[productor]);
+                ultimos[productor] = registro.getSequenceNumber();
+                extraidos++;
+            }
+        }
+        assertEquals(aceptados.get(), extraidos);
+        assertNull(anillo.extraer());
+    }
+
+    /**
+     * Test que comprueba que los registros se publican en el manejador de destino con el mensaje parametrizado y el
+     * logger como origen, y que al cerrar se publican los pendientes.
+     */
+    @Test
+    public void testPublicacion() {
+        Captura captura = new Captura(null);
+        ManejadorAsincrono manejador = new ManejadorAsincrono(captura, 16);
+        Logger logger = crearLogger("publicacion", manejador);
+
+        logger.log(Level.INFO, "''{0}'': respuesta de ''{1}'' en {2,number,#} ms",
+                new Object[]{"TestServer", "ana", 1500});
+        logger.fine("no se publica");
+        manejador.close();
+
+        assertTrue(captura.cerrado);
+        assertEquals(1, captura.registros.size());
+        LogRecord registro = captura.registros.get(0);
+        assertEquals("'TestServer': respuesta de 'ana' en 1500 ms", new SimpleFormatter().formatMessage(registro));
+        assertEquals(logger.getName(), registro.getSourceClassName());
+    }
+
+    /**
+     * Test que comprueba que, con el manejador de destino bloqueado, el log no bloquea al que escribe y que los
+     * registros que no caben se descartan y se notifican.
+     *
+     * @throws InterruptedException interrupción de la espera.
+     */
+    @Test
+    public void testDescarte() throws InterruptedException {
+        CountDownLatch desbloqueo = new CountDownLatch(1);
+        Captura captura = new Captura(desbloqueo);
+        ManejadorAsincrono manejador = new ManejadorAsincrono(captura, 8);
+        Logger logger = crearLogger("descarte", manejador);
+
+        // El primer registro bloquea al hilo del manejador
+        logger.info("bloqueo");
+        assertTrue(captura.publicando.await(5, TimeUnit.SECONDS));
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            logger.log(Level.INFO, "mensaje {0,number,#}", i);
+        }
+        assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(92, manejador.getDescartados());
+
+        desbloqueo.countDown();
+        manejador.close();
+
+        List<LogRecord> registros = captura.registros;
+        assertEquals(10, registros.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, registros.get(i + 1).getParameters()[0]);
+        }
+        LogRecord aviso = registros.get(9);
+        assertEquals(Level.WARNING, aviso.getLevel());
+        assertTrue(aviso.getMessage().contains("92"), aviso.getMessage());
+    }
+
+    private static Logger crearLogger(String nombre, Handler manejador) {
+        Logger logger = Logger.getLogger(TestManejadorAsincrono.class.getName() + "." + nombre);
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+        for (Handler anterior : logger.getHandlers()) {
+            logger.removeHandler(anterior);
+        }
+        logger.addHandler(manejador);
+        return logger;
+    }
+
+    /**
+     * Manejador que guarda los registros publicados y que, opcionalmente, se bloquea en el primero.
+     */
+    private static class Captura extends Handler {
+
+        private final List<LogRecord> registros = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch publicando = new CountDownLatch(1);
+        private final CountDownLatch desbloqueo;
+        private volatile boolean cerrado;
+
+        Captura(CountDownLatch desbloqueo) {
+            this.desbloqueo = desbloqueo;
+            setLevel(Level.ALL);
+        }
+
+        @Override
+        public void publish(LogRecord registro) {
+            registros.add(registro);
+            publicando.countDown();
+            if (desbloqueo != null) {
+                try {
+                    desbloqueo.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            cerrado = true;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan el histograma de latencias de las métricas y de las pruebas de carga.
+ *
+ * @author japrada
+ */
+public class TestHistogramaLatencias {
+
+    /**
+     * Test que comprueba que los intervalos son contiguos y que cada valor pertenece a su intervalo.
+     */
+    @Test
+    public void testIntervalos() {
+        long anterior = -1;
+        for (int i = 0; i < 1500; i++) {
+            long limite = HistogramaLatencias.limiteSuperior(i);
+            assertEquals(i, HistogramaLatencias.intervalo(anterior + 1));
+            assertEquals(i, HistogramaLatencias.intervalo(limite));
+            anterior = limite;
+        }
+        assertEquals(Long.MAX_VALUE,
+                HistogramaLatencias.limiteSuperior(HistogramaLatencias.intervalo(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Test que registra valores aleatorios y compara los percentiles con los exactos (error relativo menor que el
+     * 1,6%).
+     */
+    @Test
+    public void testPercentiles() {
+        HistogramaLatencias histograma = new HistogramaLatencias("test");
+        assertEquals(0, histograma.getPercentil(99));
+
+        Random random = new Random(11);
+        long[] valores = new long[100_000];
+        for (int i = 0; i < valores.length; i++) {
+            // Distribución de cola larga (entre microsegundos y segundos)
+            valores[i] = (long) Math.exp(random.nextDouble() * 14);
+            histograma.registrar(valores[i]);
+        }
+        Arrays.sort(valores);
+
+        assertEquals(valores.length, histograma.getTotal());
+        assertEquals(valores[valores.length - 1], histograma.getMaximo());
+        assertEquals(valores[valores.length - 1], histograma.getPercentil(100));
+        for (double percentil : new double[]{1, 50, 90, 99, 99.9}) {
+            long exacto = valores[(int) Math.ceil(valores.length * percentil / 100.0) - 1];
+            long aproximado = histograma.getPercentil(percentil);
+            assertTrue(aproximado >= exacto, String.format("p%s: %d < %d", percentil, aproximado, exacto));
+            assertTrue(aproximado <= exacto * 1.016 + 1, String.format("p%s: %d >> %d", percentil, aproximado, exacto));
+        }
+    }
+}
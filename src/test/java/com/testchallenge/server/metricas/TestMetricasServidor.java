@@ -0,0 +1,142 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.metricas;
+
+import com.testchallenge.model.TipoMensaje;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan las métricas del servidor y su publicación como MXBean.
+ *
+ * @author japrada
+ */
+public class TestMetricasServidor {
+
+    /**
+     * Test que comprueba la tasa por segundo: solo cuentan los segundos completos de la ventana y los contadores se
+     * reutilizan al dar la vuelta al anillo.
+     */
+    @Test
+    public void testTasaPorSegundo() {
+        TasaPorSegundo tasa = new TasaPorSegundo(4);
+        for (long segundo = 100; segundo < 104; segundo++) {
+            for (int i = 0; i < 10; i++) {
+                tasa.registrar(segundo);
+            }
+        }
+        // El segundo 104 está en curso y no cuenta
+        tasa.registrar(104);
+        assertEquals(10.0, tasa.getTasa(104), 0.0);
+        assertEquals(7.75, tasa.getTasa(105), 0.0);
+        assertEquals(0.0, tasa.getTasa(200), 0.0);
+
+        // El segundo 164 ocupa el contador del 100 (el anillo tiene 64 segundos)
+        tasa.registrar(164);
+        assertEquals(0.25, tasa.getTasa(165), 0.0);
+    }
+
+    /**
+     * Test que comprueba que los streams contados suman los bytes leídos y escritos.
+     *
+     * @throws IOException error de entrada/salida.
+     */
+    @Test
+    public void testBytes() throws IOException {
+        MetricasServidor metricas = crearMetricas();
+
+        OutputStream out = metricas.contar(new ByteArrayOutputStream());
+        out.write(1);
+        out.write(new byte[100], 10, 50);
+        assertEquals(51, metricas.getBytesEnviados());
+
+        InputStream in = metricas.contar(new ByteArrayInputStream(new byte[80]));
+        in.read();
+        in.read(new byte[60], 0, 60);
+        in.read(new byte[60], 0, 60);
+        assertEquals(-1, in.read());
+        assertEquals(80, metricas.getBytesRecibidos());
+    }
+
+    /**
+     * Test que registra eventos y lee los atributos a través del servidor de MBeans de la plataforma.
+     *
+     * @throws JMException error al registrar o consultar el MBean.
+     */
+    @Test
+    public void testMBean() throws JMException {
+        MetricasServidor metricas = crearMetricas();
+        metricas.registrarMensajeRecibido(TipoMensaje.RESPUESTA_ENVIAR);
+        metricas.registrarMensajeRecibido(TipoMensaje.RESPUESTA_ENVIAR);
+        metricas.registrarMensajeRecibido(null);
+        metricas.registrarMensajeEnviado(TipoMensaje.TEST_PREGUNTA);
+        metricas.registrarRegistro(TimeUnit.MILLISECONDS.toNanos(3));
+        metricas.registrarDifusion(TipoMensaje.TEST_PREGUNTA, TimeUnit.MILLISECONDS.toNanos(2));
+        metricas.registrarDifusion(TipoMensaje.TEXTO, TimeUnit.MICROSECONDS.toNanos(40));
+        metricas.registrarCorreccion(TimeUnit.MICROSECONDS.toNanos(5));
+        metricas.registrarCargaBanco(12, TimeUnit.MILLISECONDS.toNanos(30));
+        metricas.registrarInicioTest();
+
+        // Puerto que no usa ningún servidor de los tests
+        int puerto = 1;
+        metricas.registrarMBean(puerto);
+        MBeanServer servidorMBeans = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nombre = MetricasServidor.getNombreMBean(puerto);
+        try {
+            assertEquals(3, servidorMBeans.getAttribute(nombre, "SesionesConectadas"));
+            assertEquals(1L, servidorMBeans.getAttribute(nombre, "Registros"));
+            assertEquals(1, servidorMBeans.getAttribute(nombre, "TestsActivos"));
+            assertEquals(1L, servidorMBeans.getAttribute(nombre, "TestsIniciados"));
+            assertEquals(12, servidorMBeans.getAttribute(nombre, "PreguntasBanco"));
+            assertEquals(7, servidorMBeans.getAttribute(nombre, "EnviosPendientesMaximo"));
+
+            TabularData recibidos = (TabularData) servidorMBeans.getAttribute(nombre, "MensajesRecibidos");
+            assertEquals(1, recibidos.size());
+            CompositeData fila = recibidos.get(new Object[]{TipoMensaje.RESPUESTA_ENVIAR.name()});
+            assertEquals(2L, fila.get("value"));
+
+            CompositeData difusion = (CompositeData) servidorMBeans.getAttribute(nombre, "DifusionPreguntas");
+            assertEquals(1L, difusion.get("muestras"));
+            long p50 = (Long) difusion.get("p50");
+            assertTrue(Math.abs(p50 - 2000) <= 2000 / 64, String.valueOf(p50));
+            CompositeData mensajes = (CompositeData) servidorMBeans.getAttribute(nombre, "DifusionMensajes");
+            assertEquals(40L, mensajes.get("maximo"));
+            CompositeData correccion = (CompositeData) servidorMBeans.getAttribute(nombre, "CorreccionRespuestas");
+            assertEquals(5L, correccion.get("p99"));
+        } finally {
+            servidorMBeans.unregisterMBean(nombre);
+        }
+    }
+
+    private static MetricasServidor crearMetricas() {
+        return new MetricasServidor(() -> 3, () -> true, () -> Map.of("ana", 0, "luis", 7, "eva", 2));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la ordenación y las consultas por posición de la clasificación.
+ *
+ * @author japrada
+ */
+public class TestClasificacion {
+
+    /**
+     * Test que comprueba el orden (puntos descendentes y nickname ascendente) y la posición de cada usuario.
+     */
+    @Test
+    public void testOrdenYPosicion_01() {
+        Clasificacion clasificacion = new Clasificacion();
+        clasificacion.sumarPuntos("ana", 3);
+        clasificacion.sumarPuntos("luis", 5);
+        clasificacion.sumarPuntos("bea", 3);
+        clasificacion.sumarPuntos("carlos", -1);
+
+        assertEquals(Arrays.asList("luis", "ana", "bea", "carlos"), clasificacion.getNicknamesEnOrden());
+        assertEquals(1, clasificacion.getPosicion("luis"));
+        assertEquals(3, clasificacion.getPosicion("bea"));
+        assertEquals(4, clasificacion.getPosicion("carlos"));
+        assertEquals(0, clasificacion.getPosicion("nadie"));
+
+        // Al sumar puntos el usuario se reubica en la clasificación
+        clasificacion.sumarPuntos("carlos", 10);
+        assertEquals(1, clasificacion.getPosicion("carlos"));
+        assertEquals(9, clasificacion.getPuntos("carlos").intValue());
+        assertEquals(Arrays.asList("carlos", "luis"),
+                new ArrayList<>(clasificacion.getPrimeros(2).keySet()));
+        assertEquals(Arrays.asList("luis", "ana", "bea"),
+                new ArrayList<>(clasificacion.getVecindario("ana", 1).keySet()));
+    }
+
+    /**
+     * Test que compara la clasificación con una ordenación completa tras una secuencia aleatoria de actualizaciones.
+     */
+    @Test
+    public void testActualizacionesAleatorias_01() {
+        Random random = new Random(7);
+        Clasificacion clasificacion = new Clasificacion();
+        Map<String, Integer> esperado = new HashMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            String nickname = "usuario" + random.nextInt(300);
+            if (random.nextInt(20) == 0) {
+                clasificacion.eliminar(nickname);
+                esperado.remove(nickname);
+            } else {
+                int puntos = random.nextInt(7) - 2;
+                clasificacion.sumarPuntos(nickname, puntos);
+                esperado.merge(nickname, puntos, Integer::sum);
+            }
+        }
+
+        List<String> ordenEsperado = new ArrayList<>(esperado.keySet());
+        ordenEsperado.sort(Comparator.<String>comparingInt(esperado::get).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        assertEquals(ordenEsperado, clasificacion.getNicknamesEnOrden());
+        assertEquals(ordenEsperado.size(), clasificacion.size());
+        for (int i = 0; i < ordenEsperado.size(); i++) {
+            assertEquals(i + 1, clasificacion.getPosicion(ordenEsperado.get(i)));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.recuperacion;
+
+import com.testchallenge.model.Configuracion;
+import com.testchallenge.model.Puntuacion;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests que validan el registro de recuperación del test en ejecución.
+ *
+ * @author japrada
+ */
+public class TestRegistroRecuperacion {
+
+    @TempDir
+    File directorio;
+
+    /**
+     * El estado leído reproduce la configuración, las preguntas enviadas, las puntuaciones y el tiempo restante.
+     */
+    @Test
+    public void testEscrituraYLectura() throws IOException {
+        File fichero = new File(directorio, "test-en-curso.dat");
+        RegistroRecuperacion registro = new RegistroRecuperacion(fichero);
+        registrarDosPreguntas(registro);
+        registro.cerrar();
+
+        EstadoTest estado = RegistroRecuperacion.leer(fichero);
+        assertEquals("ana", estado.getNickname());
+        assertEquals("Historia", estado.getConfiguracion().getTematica());
+        assertEquals(20, estado.getConfiguracion().getTiempoLimite());
+        assertEquals(1000L, estado.getInicio());
+        assertEquals(Arrays.asList(7, 3, 9), estado.getIdsPreguntas());
+
+        assertEquals(1, estado.getPreguntasCerradas());
+        assertTrue(estado.isPreguntaEnCurso());
+        assertEquals(2, estado.getNumeroPregunta());
+        assertEquals(Arrays.asList("c", "a", "b"), estado.getOpciones(2));
+        assertEquals(10, estado.getSegundosRestantes());
+        assertTrue(estado.isPausado());
+
+        Map<String, Puntuacion> enCurso = estado.getPuntuacionesPorPregunta().get(1);
+        assertEquals(Puntuacion.INCORRECTA, enCurso.get("ana"));
+        assertEquals(Puntuacion.NO_CONTESTADA, enCurso.get("luis"));
+        assertEquals(Long.valueOf(1500L), estado.getTiemposRespuesta().get("ana"));
+
+        // Sólo cuentan las preguntas cerradas
+        Map<String, Integer> resultados = estado.getResultados();
+        assertEquals(Integer.valueOf(2), resultados.get("ana"));
+        assertEquals(Integer.valueOf(1), resultados.get("luis"));
+    }
+
+    /**
+     * Una entrada incompleta al final del fichero (el proceso terminó mientras se escribía) se descarta.
+     */
+    @Test
+    public void testEntradaIncompleta() throws IOException {
+        File fichero = new File(directorio, "test-en-curso.dat");
+        RegistroRecuperacion registro = new RegistroRecuperacion(fichero);
+        registrarDosPreguntas(registro);
+        registro.registrarPuntuacion(2, "luis", Puntuacion.CORRECTA_Y_PRIMERA, 900);
+        registro.cerrar();
+
+        long longitud = fichero.length();
+        try (RandomAccessFile raf = new RandomAccessFile(fichero, "rw")) {
+            raf.setLength(longitud - 3);
+        }
+
+        EstadoTest estado = RegistroRecuperacion.leer(fichero);
+        assertEquals(Puntuacion.NO_CONTESTADA, estado.getPuntuacionesPorPregunta().get(1).get("luis"));
+        assertTrue(estado.getLongitud() < longitud - 3);
+    }
+
+    /**
+     * Al continuar un test recuperado se descarta la entrada incompleta y se añaden las nuevas.
+     */
+    @Test
+    public void testReanudacion() throws IOException {
+        File fichero = new File(directorio, "test-en-curso.dat");
+        RegistroRecuperacion registro = new RegistroRecuperacion(fichero);
+        registrarDosPreguntas(registro);
+        registro.cerrar();
+        try (RandomAccessFile raf = new RandomAccessFile(fichero, "rw")) {
+            raf.seek(raf.length());
+            raf.write(new byte[]{3, 0, 0});
+        }
+
+        RegistroRecuperacion nuevoRegistro = new RegistroRecuperacion(fichero);
+        nuevoRegistro.reanudarTest(nuevoRegistro.leer());
+        nuevoRegistro.registrarPuntuacion(2, "luis", Puntuacion.CORRECTA_Y_PRIMERA, 900);
+        nuevoRegistro.registrarCierrePregunta(2);
+        nuevoRegistro.cerrar();
+
+        EstadoTest estado = RegistroRecuperacion.leer(fichero);
+        assertFalse(estado.isPreguntaEnCurso());
+        assertEquals(0, estado.getNumeroPregunta());
+        assertEquals(2, estado.getPreguntasCerradas());
+        assertEquals(Integer.valueOf(3), estado.getResultados().get("luis"));
+        assertEquals(fichero.length(), estado.getLongitud());
+    }
+
+    /**
+     * Al finalizar el test el fichero se borra; un nuevo test descarta el anterior.
+     */
+    @Test
+    public void testFinalizacionYNuevoTest() throws IOException {
+        File fichero = new File(directorio, "test-en-curso.dat");
+        RegistroRecuperacion registro = new RegistroRecuperacion(fichero);
+        registrarDosPreguntas(registro);
+        registro.finalizarTest();
+        registro.registrarPuntuacion(2, "luis", Puntuacion.CORRECTA, 900);
+        registro.iniciarTest("luis", new Configuracion("Ciencia", "Básico", new String[]{"Única"}, 5, 30), 2000L,
+                Collections.singletonList(4));
+        registro.cerrar();
+
+        EstadoTest estado = RegistroRecuperacion.leer(fichero);
+        assertEquals("luis", estado.getNickname());
+        assertEquals(0, estado.getPreguntasCerradas());
+        assertFalse(estado.isPreguntaEnCurso());
+
+        RegistroRecuperacion otroRegistro = new RegistroRecuperacion(fichero);
+        otroRegistro.reanudarTest(estado);
+        otroRegistro.finalizarTest();
+        otroRegistro.cerrar();
+        assertFalse(fichero.exists());
+        assertNull(RegistroRecuperacion.leer(fichero));
+    }
+
+    private static void registrarDosPreguntas(RegistroRecuperacion registro) {
+        registro.iniciarTest("ana", new Configuracion("Historia", "Medio", new String[]{"Múltiple", "Única"}, 3, 20),
+                1000L, Arrays.asList(7, 3, 9));
+        registro.registrarPregunta(1, Arrays.asList("x", "y"), Arrays.asList("ana", "luis"));
+        registro.registrarPuntuacion(1, "ana", Puntuacion.CORRECTA_Y_PRIMERA, 800);
+        registro.registrarPuntuacion(1, "luis", Puntuacion.CORRECTA, 1200);
+        registro.registrarTiempo(1, 15, false);
+        registro.registrarCierrePregunta(1);
+        registro.registrarPregunta(2, Arrays.asList("c", "a", "b"), Arrays.asList("ana", "luis"));
+        registro.registrarPuntuacion(2, "ana", Puntuacion.INCORRECTA, 1500);
+        registro.registrarTiempo(2, 10, false);
+        registro.registrarTiempo(2, -1, true);
+    }
+}
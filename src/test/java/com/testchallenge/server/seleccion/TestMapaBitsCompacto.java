@@ -0,0 +1,102 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.seleccion;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan las operaciones del conjunto comprimido de identificadores de preguntas.
+ *
+ * @author japrada
+ */
+public class TestMapaBitsCompacto {
+
+    /**
+     * Test que compara la unión, la intersección y la serialización con un <code>BitSet</code>, usando conjuntos
+     * dispersos (contenedores array) y densos (contenedores mapa de bits) en varios grupos de 65536 valores.
+     *
+     * @throws IOException excepción al serializar el conjunto.
+     */
+    @Test
+    public void testOperaciones_01() throws IOException {
+        Random random = new Random(7);
+        MapaBitsCompacto disperso = new MapaBitsCompacto();
+        MapaBitsCompacto denso = new MapaBitsCompacto();
+        BitSet esperadoDisperso = new BitSet();
+        BitSet esperadoDenso = new BitSet();
+
+        for (int i = 0; i < 500; i++) {
+            int valor = random.nextInt(3 * 65536);
+            disperso.add(valor);
+            esperadoDisperso.set(valor);
+        }
+        for (int i = 0; i < 20000; i++) {
+            int valor = random.nextInt(2 * 65536);
+            denso.add(valor);
+            esperadoDenso.set(valor);
+        }
+
+        BitSet esperadoUnion = (BitSet) esperadoDisperso.clone();
+        esperadoUnion.or(esperadoDenso);
+        BitSet esperadoInterseccion = (BitSet) esperadoDisperso.clone();
+        esperadoInterseccion.and(esperadoDenso);
+
+        comprobar(esperadoDisperso, disperso);
+        comprobar(esperadoDenso, denso);
+        comprobar(esperadoUnion, MapaBitsCompacto.or(disperso, denso));
+        comprobar(esperadoInterseccion, MapaBitsCompacto.and(disperso, denso));
+        comprobar(esperadoDenso, MapaBitsCompacto.and(denso, denso.copia()));
+
+        // Unión acumulada sobre un mismo conjunto, sin modificar los conjuntos añadidos
+        MapaBitsCompacto acumulado = new MapaBitsCompacto();
+        acumulado.anadirTodos(disperso);
+        acumulado.anadirTodos(denso);
+        acumulado.anadirTodos(disperso);
+        comprobar(esperadoUnion, acumulado);
+        comprobar(esperadoDisperso, disperso);
+        comprobar(esperadoDenso, denso);
+        MapaBitsCompacto densoAcumulado = denso.copia();
+        densoAcumulado.anadirTodos(disperso);
+        comprobar(esperadoUnion, densoAcumulado);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MapaBitsCompacto.or(disperso, denso).escribir(new DataOutputStream(baos));
+        MapaBitsCompacto leido = MapaBitsCompacto.leer(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        comprobar(esperadoUnion, leido);
+    }
+
+    /**
+     * Comprueba que un conjunto contiene exactamente los valores esperados.
+     *
+     * @param esperado valores esperados.
+     * @param mapa conjunto que se comprueba.
+     */
+    private void comprobar(BitSet esperado, MapaBitsCompacto mapa) {
+        assertEquals(esperado.cardinality(), mapa.cardinalidad());
+        for (int valor = 0; valor < 3 * 65536; valor++) {
+            assertEquals(esperado.get(valor), mapa.contains(valor));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.seleccion;
+
+import com.testchallenge.model.Pregunta;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests que validan el registro de las preguntas vistas por cada usuario.
+ *
+ * @author japrada
+ */
+public class TestRegistroPreguntasVistas {
+
+    @TempDir
+    File directorio;
+
+    /**
+     * Test que comprueba la unión y la intersección de las preguntas vistas por varios usuarios, por temática.
+     */
+    @Test
+    public void testVistasPorAlgunoYPorTodos() {
+        RegistroPreguntasVistas registro = new RegistroPreguntasVistas(directorio);
+        marcarVistas(registro, "Historia", "ana", 1, 2, 3);
+        marcarVistas(registro, "Historia", "luis", 2, 3, 4);
+        marcarVistas(registro, "Historia", "eva", 3, 70000);
+        marcarVistas(registro, "Geografía", "ana", 9);
+
+        List<String> participantes = Arrays.asList("ana", "luis", "eva");
+        assertEquals(Arrays.asList(1, 2, 3, 4, 70000),
+                valores(registro.getVistasPorAlguno("Historia", participantes)));
+        assertEquals(Collections.singletonList(3), valores(registro.getVistasPorTodos("Historia", participantes)));
+        assertEquals(Arrays.asList(2, 3),
+                valores(registro.getVistasPorTodos("Historia", Arrays.asList("ana", "luis"))));
+
+        // Un usuario que no ha visto ninguna pregunta no añade nada a la unión y vacía la intersección
+        List<String> conNuevo = Arrays.asList("ana", "nuevo");
+        assertEquals(Arrays.asList(1, 2, 3), valores(registro.getVistasPorAlguno("Historia", conNuevo)));
+        assertTrue(registro.getVistasPorTodos("Historia", conNuevo).isEmpty());
+        assertTrue(registro.getVistasPorAlguno("Historia", Collections.emptyList()).isEmpty());
+        assertTrue(registro.getVistasPorTodos("Historia", Collections.emptyList()).isEmpty());
+
+        // Los conjuntos obtenidos son independientes de los del registro
+        registro.getVistasPorAlguno("Historia", participantes).add(5);
+        registro.getVistasPorTodos("Historia", participantes).add(6);
+        assertFalse(registro.getVistasPorAlguno("Historia", participantes).contains(5));
+        assertFalse(registro.getVistasPorTodos("Historia", participantes).contains(6));
+        assertEquals(Collections.singletonList(9),
+                valores(registro.getVistasPorAlguno("Geografía", participantes)));
+    }
+
+    /**
+     * Test que comprueba que las preguntas se agrupan en no vistas, vistas sólo por algunos y vistas por todos los
+     * participantes, conservando su orden dentro de cada grupo.
+     */
+    @Test
+    public void testAgrupacionPorVistas() {
+        RegistroPreguntasVistas registro = new RegistroPreguntasVistas(directorio);
+        marcarVistas(registro, "Historia", "ana", 1, 2, 5);
+        marcarVistas(registro, "Historia", "luis", 2, 4, 5);
+        List<Pregunta> preguntas = preguntas(1, 2, 3, 4, 5, 6);
+
+        List<List<Pregunta>> grupos = registro.agruparPorVistas("Historia", Arrays.asList("ana", "luis"), preguntas);
+        assertEquals(3, grupos.size());
+        assertEquals(Arrays.asList(3, 6), ids(grupos.get(0)));
+        assertEquals(Arrays.asList(1, 4), ids(grupos.get(1)));
+        assertEquals(Arrays.asList(2, 5), ids(grupos.get(2)));
+
+        // Si se conecta un participante nuevo, ninguna pregunta la han visto todos
+        grupos = registro.agruparPorVistas("Historia", Arrays.asList("ana", "luis", "eva"), preguntas);
+        assertEquals(Arrays.asList(3, 6), ids(grupos.get(0)));
+        assertEquals(Arrays.asList(1, 2, 4, 5), ids(grupos.get(1)));
+        assertTrue(grupos.get(2).isEmpty());
+
+        // En otra temática no se ha visto ninguna
+        grupos = registro.agruparPorVistas("Geografía", Arrays.asList("ana", "luis"), preguntas);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), ids(grupos.get(0)));
+    }
+
+    /**
+     * Test que comprueba que las preguntas vistas guardadas se cargan en otro registro la primera vez que se consulta
+     * la temática, y que sólo se guardan las temáticas consultadas.
+     *
+     * @throws IOException excepción al guardar el registro.
+     */
+    @Test
+    public void testGuardarYCargar() throws IOException {
+        File subdirectorio = new File(directorio, "vistas");
+        RegistroPreguntasVistas registro = new RegistroPreguntasVistas(subdirectorio);
+        marcarVistas(registro, "Historia", "ana", 1, 2, 100000);
+        marcarVistas(registro, "Historia", "luis", 2);
+        registro.guardar("Historia");
+        registro.guardar("Geografía");
+        assertTrue(new File(subdirectorio, "Historia.dat").isFile());
+        assertFalse(new File(subdirectorio, "Historia.dat.tmp").exists());
+        assertFalse(new File(subdirectorio, "Geografía.dat").exists());
+
+        RegistroPreguntasVistas cargado = new RegistroPreguntasVistas(subdirectorio);
+        assertEquals(Arrays.asList(1, 2, 100000),
+                valores(cargado.getVistasPorAlguno("Historia", Arrays.asList("ana", "luis"))));
+        assertEquals(Collections.singletonList(2),
+                valores(cargado.getVistasPorTodos("Historia", Arrays.asList("ana", "luis"))));
+
+        // Las preguntas marcadas después de cargar se añaden a las cargadas
+        cargado.marcarVista("Historia", "luis", 1);
+        cargado.guardar("Historia");
+        assertEquals(Arrays.asList(1, 2), valores(new RegistroPreguntasVistas(subdirectorio)
+                .getVistasPorTodos("Historia", Arrays.asList("ana", "luis"))));
+    }
+
+    private static void marcarVistas(RegistroPreguntasVistas registro, String tematica, String nickname,
+            int... ids) {
+        for (int id : ids) {
+            registro.marcarVista(tematica, nickname, id);
+        }
+    }
+
+    private static List<Pregunta> preguntas(int... ids) {
+        List<Pregunta> preguntas = new ArrayList<>();
+        for (int id : ids) {
+            Pregunta pregunta = new Pregunta();
+            pregunta.setId(id);
+            preguntas.add(pregunta);
+        }
+        return preguntas;
+    }
+
+    private static List<Integer> ids(List<Pregunta> preguntas) {
+        return preguntas.stream().map(Pregunta::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Obtiene los valores de un conjunto entre 0 y 2^17 (los que usan estos tests), en orden.
+     */
+    private static List<Integer> valores(MapaBitsCompacto conjunto) {
+        List<Integer> valores = new ArrayList<>();
+        for (int valor = 0; valor < 1 << 17; valor++) {
+            if (conjunto.contains(valor)) {
+                valores.add(valor);
+            }
+        }
+        assertEquals(conjunto.cardinalidad(), valores.size());
+        return valores;
+    }
+}
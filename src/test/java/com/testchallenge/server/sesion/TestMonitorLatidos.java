@@ -0,0 +1,188 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.sesion;
+
+import com.testchallenge.server.temporizador.RuedaTemporizadores;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la vigilancia de las conexiones con latidos.
+ *
+ * @author japrada
+ */
+public class TestMonitorLatidos {
+
+    /**
+     * Una conexión que responde a los latidos recibe uno por intervalo y no se cierra.
+     */
+    @Test
+    public void testConexionActiva() throws InterruptedException {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(5, TimeUnit.MILLISECONDS, 64);
+        MonitorLatidos monitor = new MonitorLatidos(rueda, 50, 200);
+        Conexion conexion = new Conexion(true);
+        try {
+            monitor.vigilar(conexion);
+            Thread.sleep(500);
+            assertTrue(conexion.latidos.get() >= 4, "Latidos enviados: " + conexion.latidos.get());
+            assertEquals(1, conexion.cierres.getCount());
+        } finally {
+            monitor.detener();
+            rueda.detener();
+        }
+    }
+
+    /**
+     * Una conexión que no responde se cierra una vez superado el tiempo máximo de inactividad.
+     */
+    @Test
+    public void testConexionInactiva() throws InterruptedException {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(5, TimeUnit.MILLISECONDS, 64);
+        MonitorLatidos monitor = new MonitorLatidos(rueda, 50, 200);
+        Conexion conexion = new Conexion(false);
+        try {
+            long inicio = System.nanoTime();
+            monitor.vigilar(conexion);
+            assertTrue(conexion.cierres.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - inicio >= TimeUnit.MILLISECONDS.toNanos(200));
+            // Tras el cierre ya no se envían latidos
+            int latidos = conexion.latidos.get();
+            Thread.sleep(200);
+            assertEquals(latidos, conexion.latidos.get());
+        } finally {
+            monitor.detener();
+            rueda.detener();
+        }
+    }
+
+    /**
+     * Las conexiones inactivas se cierran aunque todos los hilos de envío estén bloqueados enviando latidos a
+     * conexiones medio abiertas con el búfer de envío lleno.
+     */
+    @Test
+    public void testCierreConLatidosBloqueados() throws InterruptedException {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(5, TimeUnit.MILLISECONDS, 64);
+        MonitorLatidos monitor = new MonitorLatidos(rueda, 50, 200);
+        CountDownLatch desbloqueo = new CountDownLatch(1);
+        Conexion[] conexiones = new Conexion[4];
+        try {
+            for (int i = 0; i < conexiones.length; i++) {
+                conexiones[i] = new Conexion(false, desbloqueo);
+                monitor.vigilar(conexiones[i]);
+            }
+            for (Conexion conexion : conexiones) {
+                assertTrue(conexion.cierres.await(2, TimeUnit.SECONDS));
+            }
+        } finally {
+            desbloqueo.countDown();
+            monitor.detener();
+            rueda.detener();
+        }
+    }
+
+    /**
+     * Las conexiones que han dejado de atenderse no se vigilan, y la vigilancia se puede desactivar.
+     */
+    @Test
+    public void testSinVigilancia() throws InterruptedException {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(5, TimeUnit.MILLISECONDS, 64);
+        MonitorLatidos monitor = new MonitorLatidos(rueda, 50, 200);
+        MonitorLatidos desactivado = new MonitorLatidos(rueda, 0, 0);
+        Conexion cerrada = new Conexion(false);
+        cerrada.cerrada = true;
+        Conexion noVigilada = new Conexion(false);
+        try {
+            monitor.vigilar(cerrada);
+            desactivado.vigilar(noVigilada);
+            Thread.sleep(300);
+            assertEquals(0, cerrada.latidos.get());
+            assertEquals(0, noVigilada.latidos.get());
+            assertEquals(1, noVigilada.cierres.getCount());
+            assertFalse(desactivado.isActivo());
+        } finally {
+            monitor.detener();
+            desactivado.detener();
+            rueda.detener();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MonitorLatidos(rueda, 100, 100));
+    }
+
+    /**
+     * Conexión simulada: si responde, cada latido actualiza el instante del último mensaje recibido.
+     */
+    private static class Conexion implements ConexionVigilada {
+
+        private final boolean responde;
+        private final CountDownLatch desbloqueo;
+        private final AtomicInteger latidos = new AtomicInteger();
+        private final CountDownLatch cierres = new CountDownLatch(1);
+        private volatile long ultimaRecepcion = System.nanoTime();
+        private volatile boolean cerrada;
+
+        Conexion(boolean responde) {
+            this(responde, new CountDownLatch(0));
+        }
+
+        /**
+         * Conexión cuyos envíos de latidos se bloquean hasta que se abre el cerrojo indicado.
+         */
+        Conexion(boolean responde, CountDownLatch desbloqueo) {
+            this.responde = responde;
+            this.desbloqueo = desbloqueo;
+        }
+
+        @Override
+        public String getNickname() {
+            return "ana";
+        }
+
+        @Override
+        public long getInstanteUltimaRecepcion() {
+            return ultimaRecepcion;
+        }
+
+        @Override
+        public boolean isCerrada() {
+            return cerrada;
+        }
+
+        @Override
+        public void enviarLatido() {
+            latidos.incrementAndGet();
+            try {
+                desbloqueo.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (responde) {
+                ultimaRecepcion = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void cerrarPorInactividad() {
+            cerrada = true;
+            cierres.countDown();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.sesion;
+
+import com.testchallenge.model.Mensaje;
+import com.testchallenge.model.TipoMensaje;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la reanudación de las sesiones y el reenvío de los mensajes perdidos.
+ *
+ * @author japrada
+ */
+public class TestSesionReanudable {
+
+    /**
+     * Al reanudar la sesión se envía la confirmación y sólo los mensajes posteriores al último recibido; los
+     * siguientes mensajes se escriben en la nueva conexión.
+     */
+    @Test
+    public void testReenvioDeLosMensajesPerdidos() throws Exception {
+        ByteArrayOutputStream conexion1 = new ByteArrayOutputStream();
+        SesionReanudable sesion = new SesionReanudable("ana", new ObjectOutputStream(conexion1),
+                Thread.currentThread());
+        for (int i = 1; i <= 3; i++) {
+            sesion.enviar(new Mensaje("mensaje " + i));
+        }
+        assertEquals(3, sesion.getSecuencia());
+        assertEquals(3, leer(conexion1).size());
+
+        // El cliente sólo recibió el primer mensaje
+        ByteArrayOutputStream conexion2 = new ByteArrayOutputStream();
+        ObjectOutputStream out2 = new ObjectOutputStream(conexion2);
+        Thread nuevaConexion = new Thread(() -> { });
+        assertEquals(2, sesion.reanudar(nuevaConexion, out2, 1));
+        assertTrue(sesion.isConexionActual(nuevaConexion));
+        sesion.enviar(new Mensaje("mensaje 4"));
+
+        List<Mensaje> recibidos = leer(conexion2);
+        assertEquals(4, recibidos.size());
+        assertEquals(TipoMensaje.REANUDAR_SESION, recibidos.get(0).getTipo());
+        assertEquals(Boolean.TRUE, recibidos.get(0).getFlag());
+        assertEquals("mensaje 2", recibidos.get(1).getTexto());
+        assertEquals("mensaje 3", recibidos.get(2).getTexto());
+        assertEquals("mensaje 4", recibidos.get(3).getTexto());
+    }
+
+    /**
+     * No se puede reanudar la sesión si faltan mensajes que ya no están en el anillo o si el cliente dice haber
+     * recibido más mensajes de los enviados.
+     */
+    @Test
+    public void testSecuenciaFueraDelAnillo() throws Exception {
+        SesionReanudable sesion = new SesionReanudable("ana", new ObjectOutputStream(new ByteArrayOutputStream()),
+                Thread.currentThread(), 4);
+        for (int i = 1; i <= 10; i++) {
+            sesion.enviar(new Mensaje("mensaje " + i));
+        }
+
+        ByteArrayOutputStream rechazada = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(rechazada);
+        int tamanoCabecera = rechazada.size();
+        assertEquals(-1, sesion.reanudar(new Thread(), out, 5));
+        assertEquals(-1, sesion.reanudar(new Thread(), out, 11));
+        assertEquals(-1, sesion.reanudar(new Thread(), out, -1));
+        // Si se deniega, no se escribe nada en la nueva conexión
+        out.flush();
+        assertEquals(tamanoCabecera, rechazada.size());
+        assertTrue(sesion.isConexionActual(Thread.currentThread()));
+
+        ByteArrayOutputStream aceptada = new ByteArrayOutputStream();
+        assertEquals(4, sesion.reanudar(new Thread(), new ObjectOutputStream(aceptada), 6));
+        List<Mensaje> recibidos = leer(aceptada);
+        assertEquals("mensaje 7", recibidos.get(1).getTexto());
+        assertEquals("mensaje 10", recibidos.get(4).getTexto());
+    }
+
+    /**
+     * Si el cliente no se reconecta durante el periodo de gracia, la sesión termina y ya no se puede reanudar.
+     */
+    @Test
+    public void testFinDelPeriodoDeGracia() throws Exception {
+        Thread conexion = Thread.currentThread();
+        SesionReanudable sesion = new SesionReanudable("ana", new ObjectOutputStream(new ByteArrayOutputStream()),
+                conexion);
+        sesion.enviar(new Mensaje("mensaje 1"));
+
+        assertFalse(sesion.esperarReanudacion(conexion, 50));
+        assertTrue(sesion.isTerminada());
+        assertFalse(sesion.isSuspendida());
+        assertThrows(IOException.class, () -> sesion.enviar(new Mensaje("mensaje 2")));
+        assertEquals(-1, sesion.reanudar(new Thread(), new ObjectOutputStream(new ByteArrayOutputStream()), 0));
+    }
+
+    /**
+     * Mientras la sesión está suspendida, los mensajes se guardan sin escribirse; al reanudarla, el hilo de la
+     * conexión perdida deja de esperar y los recibe la nueva conexión.
+     */
+    @Test
+    public void testReanudacionDuranteLaEspera() throws Exception {
+        ByteArrayOutputStream conexion1 = new ByteArrayOutputStream();
+        Thread conexionPerdida = new Thread(() -> { });
+        SesionReanudable sesion = new SesionReanudable("ana", new ObjectOutputStream(conexion1), conexionPerdida);
+        sesion.enviar(new Mensaje("mensaje 1"));
+
+        CompletableFuture<Boolean> espera = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sesion.esperarReanudacion(conexionPerdida, TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException ex) {
+                return false;
+            }
+        });
+        while (!sesion.isSuspendida()) {
+            Thread.sleep(5);
+        }
+        int tamano = conexion1.size();
+        sesion.enviar(new Mensaje("mensaje 2"));
+        assertEquals(tamano, conexion1.size());
+
+        ByteArrayOutputStream conexion2 = new ByteArrayOutputStream();
+        assertEquals(1, sesion.reanudar(new Thread(), new ObjectOutputStream(conexion2), 1));
+        assertTrue(espera.get(5, TimeUnit.SECONDS));
+        assertFalse(sesion.isSuspendida());
+        assertEquals("mensaje 2", leer(conexion2).get(1).getTexto());
+    }
+
+    /**
+     * Un envío bloqueado en una conexión medio abierta retiene la sesión hasta que se cierra el socket: al cerrarlo,
+     * el envío falla y la sesión se puede reanudar desde la nueva conexión sin perder los mensajes.
+     */
+    @Test
+    public void testReanudacionConEnvioBloqueado() throws Exception {
+        try (ServerSocket servidor = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                Socket cliente = new Socket(InetAddress.getLoopbackAddress(), servidor.getLocalPort());
+                Socket conexion = servidor.accept()) {
+            // El cliente no lee nada: los envíos acaban llenando los búferes y bloqueándose
+            Thread conexionPerdida = new Thread(() -> { });
+            SesionReanudable sesion = new SesionReanudable("ana", new ObjectOutputStream(conexion.getOutputStream()),
+                    conexionPerdida);
+            String texto = "x".repeat(64 * 1024);
+            CompletableFuture<Void> envios = CompletableFuture.runAsync(() -> {
+                try {
+                    for (int i = 0; ; i++) {
+                        sesion.enviar(new Mensaje(texto + i));
+                    }
+                } catch (IOException ex) {
+                    // El socket se ha cerrado
+                }
+            });
+            Thread.sleep(500);
+            assertFalse(envios.isDone());
+
+            conexion.close();
+            envios.get(5, TimeUnit.SECONDS);
+            // El cliente no recibió el último mensaje, que falló al escribirse
+            long ultimaRecibida = sesion.getSecuencia() - 1;
+            ByteArrayOutputStream conexion2 = new ByteArrayOutputStream();
+            int reenviados = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return sesion.reanudar(new Thread(), new ObjectOutputStream(conexion2), ultimaRecibida);
+                } catch (IOException ex) {
+                    return -1;
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assertEquals(1, reenviados);
+            assertEquals(2, leer(conexion2).size());
+        }
+    }
+
+    private static List<Mensaje> leer(ByteArrayOutputStream bytes) throws IOException, ClassNotFoundException {
+        List<Mensaje> mensajes = new ArrayList<>();
+        ByteArrayInputStream entrada = new ByteArrayInputStream(bytes.toByteArray());
+        ObjectInputStream in = new ObjectInputStream(entrada);
+        while (entrada.available() > 0) {
+            mensajes.add((Mensaje) in.readObject());
+        }
+        return mensajes;
+    }
+}
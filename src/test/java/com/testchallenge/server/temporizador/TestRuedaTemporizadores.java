@@ -0,0 +1,113 @@
+/*
+ * This file is part of 'TestsChallenge' project.
+ *
+ * 'TestChallenge' is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * 'TestChallenge' is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with 'TestChallenge'. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.testchallenge.server.temporizador;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests que validan la rueda de temporizadores y la cuenta atrás que gobierna.
+ *
+ * @author japrada
+ */
+public class TestRuedaTemporizadores {
+
+    /**
+     * Test que programa varios temporizadores (uno de ellos con más vueltas que ranuras tiene la rueda), cancela uno y
+     * reprograma otro, y comprueba el orden de expiración y que ninguno expira antes de tiempo.
+     *
+     * @throws InterruptedException excepción al esperar la expiración de los temporizadores.
+     */
+    @Test
+    public void testExpiracion_01() throws InterruptedException {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(5, TimeUnit.MILLISECONDS, 8);
+        List<String> expirados = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(3);
+        long inicio = System.nanoTime();
+        long[] instantes = new long[4];
+
+        rueda.programar(() -> {
+            instantes[0] = System.nanoTime() - inicio;
+            expirados.add("a");
+            latch.countDown();
+        }, 30, TimeUnit.MILLISECONDS);
+        Temporizador b = rueda.programar(() -> expirados.add("b"), 20, TimeUnit.MILLISECONDS);
+        Temporizador c = rueda.programar(() -> {
+            instantes[2] = System.nanoTime() - inicio;
+            expirados.add("c");
+            latch.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        rueda.programar(() -> {
+            instantes[3] = System.nanoTime() - inicio;
+            expirados.add("d");
+            latch.countDown();
+        }, 120, TimeUnit.MILLISECONDS);
+
+        assertTrue(b.cancelar());
+        assertTrue(c.reprogramar(60, TimeUnit.MILLISECONDS));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        rueda.detener();
+
+        assertEquals(Arrays.asList("a", "c", "d"), expirados);
+        assertTrue(instantes[0] >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(instantes[2] >= TimeUnit.MILLISECONDS.toNanos(60));
+        assertTrue(instantes[3] >= TimeUnit.MILLISECONDS.toNanos(120));
+        assertTrue(b.isCancelado());
+        assertTrue(c.isExpirado());
+        assertFalse(c.cancelar());
+    }
+
+    /**
+     * Test que comprueba los valores publicados por una cuenta atrás con una pausa y una ampliación.
+     *
+     * @throws InterruptedException excepción al esperar los valores de la cuenta atrás.
+     */
+    @Test
+    public void testCuentaAtras_01() throws InterruptedException {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(5, TimeUnit.MILLISECONDS, 64);
+        CuentaAtras cuentaAtras = new CuentaAtras(rueda, 1, false);
+
+        assertEquals(1, cuentaAtras.esperarTick());
+        cuentaAtras.pausar();
+        Thread.sleep(300);
+        cuentaAtras.reanudar();
+        cuentaAtras.ampliar(1);
+
+        long inicio = System.nanoTime();
+        List<Integer> valores = new ArrayList<>();
+        int valor;
+        while ((valor = cuentaAtras.esperarTick()) >= 0) {
+            valores.add(valor);
+        }
+        long transcurrido = System.nanoTime() - inicio;
+        rueda.detener();
+
+        // Restaban ~2 segundos (la pausa no cuenta) y se ha ampliado 1 segundo más: el contador sube a 2 al ampliar
+        assertEquals(Arrays.asList(2, 1, 0), valores);
+        assertTrue(transcurrido >= TimeUnit.MILLISECONDS.toNanos(2900));
+        assertTrue(cuentaAtras.isFinalizada());
+    }
+}